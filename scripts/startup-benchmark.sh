@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+#
+# Measures time-to-first-successful-conversion: from JVM launch until the convert endpoint
+# answers 200 for the bundled sample collection. Compares the executable jar with the
+# fast-startup layout (lazy initialization + AppCDS archive).
+#
+#   mvn -Dproduction package
+#   scripts/startup-benchmark.sh [runs]
+#
+# Needs curl and a JDK 13+ java on the PATH (or JAVA_HOME). Runs entirely on localhost.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUNS="${1:-5}"
+PORT="${PORT:-18090}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+SAMPLE="$ROOT/src/main/resources/training/sample-collection.json"
+FAT_JAR="$(ls "$ROOT"/target/apicentral-*.jar 2>/dev/null | grep -v -- '-fast-startup' | head -n 1 || true)"
+FAST_DIR="$ROOT/target/fast-startup"
+FAST_JAR="$(ls "$FAST_DIR"/apicentral-*-fast-startup.jar 2>/dev/null | head -n 1 || true)"
+
+if [[ -z "$FAT_JAR" || -z "$FAST_JAR" || ! -f "$FAST_DIR/apicentral.jsa" ]]; then
+    echo "Build first with: mvn -Dproduction package" >&2
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+# Prints the milliseconds between launch and the first 200 from the convert endpoint
+measure() {
+    local workdir="$1"
+    shift
+    local start pid status elapsed
+    start="$(now_ms)"
+    (cd "$workdir" && exec "$JAVA" "$@" --server.port="$PORT" --apicentral.reactive.port=0 >/dev/null 2>&1) &
+    pid=$!
+    while true; do
+        status="$(curl -s -o /dev/null -w '%{http_code}' -H 'Content-Type: application/json' \
+            --data-binary "@$SAMPLE" "http://localhost:$PORT/api/convert/postman-to-swagger" || true)"
+        if [[ "$status" == "200" ]]; then
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "application exited before answering" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed"
+}
+
+report() {
+    local name="$1"
+    shift
+    local total=0 best=0 result
+    for ((i = 1; i <= RUNS; i++)); do
+        result="$(measure "$@")"
+        total=$((total + result))
+        if [[ "$best" -eq 0 || "$result" -lt "$best" ]]; then
+            best="$result"
+        fi
+        printf '%-14s run %d: %6d ms\n' "$name" "$i" "$result"
+    done
+    printf '%-14s mean %6d ms, best %6d ms\n\n' "$name" $((total / RUNS)) "$best"
+}
+
+report "jar" "$ROOT" -jar "$FAT_JAR"
+report "fast-startup" "$FAST_DIR" -XX:SharedArchiveFile=apicentral.jsa -Dspring.profiles.active=fast-startup -jar "$(basename "$FAST_JAR")"
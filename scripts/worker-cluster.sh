@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+#
+# Runs one API node and N worker JVMs on this machine, sharing a filesystem queue, submits the
+# bundled sample collection as a job and prints the converted spec once a worker has finished it.
+#
+#   mvn -DskipTests package
+#   scripts/worker-cluster.sh [workers]
+#
+# Needs curl and java on the PATH (or JAVA_HOME). Every JVM is stopped on exit.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+WORKERS="${1:-2}"
+PORT="${PORT:-18090}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+SAMPLE="$ROOT/src/main/resources/training/sample-collection.json"
+JAR="$(ls "$ROOT"/target/apicentral-*.jar 2>/dev/null | grep -v -- '-fast-startup' | head -n 1 || true)"
+QUEUE_DIR="${QUEUE_DIR:-$(mktemp -d -t apicentral-queue.XXXXXX)}"
+
+if [[ -z "$JAR" ]]; then
+    echo "Build first with: mvn -DskipTests package" >&2
+    exit 1
+fi
+
+PIDS=()
+cleanup() {
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null || true
+    done
+    wait 2>/dev/null || true
+}
+trap cleanup EXIT
+
+QUEUE_ARGS=(--apicentral.queue.type=filesystem --apicentral.queue.directory="$QUEUE_DIR" --apicentral.reactive.enabled=false)
+
+# The API node accepts uploads but converts nothing itself
+"$JAVA" -jar "$JAR" "${QUEUE_ARGS[@]}" --server.port="$PORT" --apicentral.queue.worker-threads=0 \
+    > "$QUEUE_DIR/api.log" 2>&1 &
+PIDS+=($!)
+for ((i = 1; i <= WORKERS; i++)); do
+    "$JAVA" -jar "$JAR" "${QUEUE_ARGS[@]}" --server.port=0 > "$QUEUE_DIR/worker-$i.log" 2>&1 &
+    PIDS+=($!)
+done
+echo "queue in $QUEUE_DIR, API node on port $PORT, $WORKERS workers" >&2
+
+until curl -s -o /dev/null "http://localhost:$PORT/api/jobs/none"; do
+    sleep 0.2
+done
+
+LOCATION="$(curl -s -D - -o /dev/null -H 'Content-Type: application/json' --data-binary "@$SAMPLE" \
+    "http://localhost:$PORT/api/jobs" | tr -d '\r' | awk 'tolower($1) == "location:" { print $2 }')"
+echo "submitted $LOCATION" >&2
+
+while true; do
+    status="$(curl -s -o "$QUEUE_DIR/result.json" -w '%{http_code}' "http://localhost:$PORT$LOCATION/result")"
+    if [[ "$status" != "202" ]]; then
+        break
+    fi
+    sleep 0.2
+done
+echo "finished with $status: $(curl -s "http://localhost:$PORT$LOCATION")" >&2
+cat "$QUEUE_DIR/result.json"
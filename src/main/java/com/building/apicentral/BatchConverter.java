@@ -0,0 +1,347 @@
+package com.building.apicentral;
+
+import com.building.apicentral.config.OutputProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.building.apicentral.service.AggregatedSpec;
+import com.building.apicentral.service.ConversionOptions;
+import com.building.apicentral.service.ConversionTrace;
+import com.building.apicentral.service.InvalidCollectionException;
+import com.building.apicentral.service.PostmanCollectionValidator;
+import com.building.apicentral.service.PostmanToSwaggerService;
+import com.building.apicentral.service.SpecAggregator;
+import com.building.apicentral.service.SpecRenderer;
+import com.building.apicentral.service.ValidationReport;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Converts every Postman collection ({@code *.json}) under a directory into a Swagger file at
+ * the same relative location under an output directory, on all cores and without a web server:
+ *
+ * <pre>
+ * java -cp apicentral.jar -Dloader.main=com.building.apicentral.BatchConverter \
+ *     org.springframework.boot.loader.PropertiesLauncher &lt;input-dir&gt; &lt;output-dir&gt; [--threads=N]
+ * </pre>
+ *
+ * With {@code --aggregate=<file>} instead of an output directory, the converted collections are
+ * merged into one spec by {@link SpecAggregator}, one service per file.
+ *
+ * Inputs are memory-mapped, so a file is never copied onto the heap before parsing. Outputs
+ * are renamed into place, so an interrupted run leaves no half-written spec behind. Any
+ * {@code apicentral.*} property can be given as {@code --name=value}. Exits with 1 when a
+ * file failed and 2 on bad usage.
+ */
+public class BatchConverter {
+
+    private static final long PROGRESS_INTERVAL_SECONDS = 5;
+
+    private final PostmanCollectionValidator collectionValidator;
+    private final PostmanToSwaggerService postmanToSwaggerService;
+    private final SpecRenderer specRenderer;
+    private final SpecAggregator specAggregator;
+    private final OutputProperties outputProperties;
+    private final ObjectMapper collectionReader;
+
+    public BatchConverter(PostmanCollectionValidator collectionValidator, PostmanToSwaggerService postmanToSwaggerService,
+                          SpecRenderer specRenderer, SpecAggregator specAggregator, OutputProperties outputProperties) {
+        this.collectionValidator = collectionValidator;
+        this.postmanToSwaggerService = postmanToSwaggerService;
+        this.specRenderer = specRenderer;
+        this.specAggregator = specAggregator;
+        this.outputProperties = outputProperties;
+        this.collectionReader = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ApicentralApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties("logging.level.root=WARN")
+                .run(args);
+        ApplicationArguments arguments = context.getBean(ApplicationArguments.class);
+        List<String> paths = arguments.getNonOptionArgs();
+        boolean aggregate = arguments.containsOption("aggregate");
+        Integer threads = threads(arguments);
+        if (paths.size() != (aggregate ? 1 : 2) || threads == null) {
+            if (threads == null) {
+                System.err.println("--threads must be a positive number");
+            }
+            System.err.println("Usage: BatchConverter <input-dir> <output-dir> [--threads=N] [--apicentral.<property>=<value> ...]");
+            System.err.println("       BatchConverter <input-dir> --aggregate=<file> [--title=<title>] [--threads=N] ...");
+            System.exit(SpringApplication.exit(context, () -> 2));
+        }
+
+        BatchConverter converter = new BatchConverter(context.getBean(PostmanCollectionValidator.class),
+                context.getBean(PostmanToSwaggerService.class), context.getBean(SpecRenderer.class),
+                context.getBean(SpecAggregator.class), context.getBean(OutputProperties.class));
+        Summary summary;
+        if (aggregate) {
+            String title = arguments.containsOption("title") ? arguments.getOptionValues("title").get(0) : "Central API";
+            summary = converter.aggregate(Paths.get(paths.get(0)), Paths.get(arguments.getOptionValues("aggregate").get(0)),
+                    title, threads, System.out);
+        } else {
+            summary = converter.run(Paths.get(paths.get(0)), Paths.get(paths.get(1)), threads, System.out);
+        }
+        summary.print(System.out);
+        int exitCode = summary.getFailures().isEmpty() ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    /**
+     * The {@code --threads} value, or the number of processors without one; null when it is not
+     * a positive number.
+     */
+    static Integer threads(ApplicationArguments arguments) {
+        if (!arguments.containsOption("threads")) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        List<String> values = arguments.getOptionValues("threads");
+        try {
+            int threads = values.isEmpty() ? 0 : Integer.parseInt(values.get(0).trim());
+            return threads > 0 ? threads : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Converts every collection under {@code input}, reporting progress to {@code progress}
+     * while the run lasts.
+     */
+    public Summary run(Path input, Path output, int threads, PrintStream progress) throws IOException, InterruptedException {
+        return process(input, files(input, output), threads, progress, (relative, swaggerDefinition, trace) -> {
+            byte[] json = specRenderer.render(swaggerDefinition, outputProperties.isCanonical()).getJson();
+            trace.stage(ConversionTrace.Stage.RENDER);
+            write(output.resolve(relative).resolveSibling(outputName(relative)), out -> out.write(json));
+        }, null);
+    }
+
+    /**
+     * Converts every collection under {@code input} and merges them into one spec written to
+     * {@code target}. Each collection becomes a service named after its path relative to
+     * {@code input}, without the extension.
+     */
+    public Summary aggregate(Path input, Path target, String title, int threads, PrintStream progress)
+            throws IOException, InterruptedException {
+        SwaggerDefinition.Info info = new SwaggerDefinition.Info();
+        info.setTitle(title);
+        ConversionOptions versionOptions = new ConversionOptions();
+        versionOptions.setPinnedVersion(outputProperties.getPinnedVersion());
+        info.setVersion(postmanToSwaggerService.infoVersion(versionOptions));
+        SpecAggregator.Aggregation aggregation = specAggregator.start(info);
+
+        Summary summary = process(input, files(input, target), threads, progress, (relative, swaggerDefinition, trace) ->
+                aggregation.add(serviceName(relative), swaggerDefinition), aggregation);
+        write(target, out -> specRenderer.write(summary.getAggregated().getSpec(), outputProperties.isCanonical(), out));
+        return summary;
+    }
+
+    private List<Path> files(Path input, Path output) throws IOException {
+        if (!Files.isDirectory(input)) {
+            throw new IllegalArgumentException("Not a directory: " + input);
+        }
+        Path outputRoot = output.toAbsolutePath().normalize();
+        try (Stream<Path> tree = Files.walk(input)) {
+            return tree.filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .filter(file -> !file.toAbsolutePath().normalize().startsWith(outputRoot))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Summary process(Path input, List<Path> files, int threads, PrintStream progress, SpecSink sink,
+                            SpecAggregator.Aggregation aggregation) throws InterruptedException {
+        long start = System.nanoTime();
+        AtomicInteger converted = new AtomicInteger();
+        Map<Path, String> failures = new ConcurrentSkipListMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        for (Path file : files) {
+            Path relative = input.relativize(file);
+            pool.execute(() -> {
+                try {
+                    convert(file, relative, sink);
+                    converted.incrementAndGet();
+                } catch (Exception e) {
+                    failures.put(relative, reason(e));
+                }
+            });
+        }
+        pool.shutdown();
+        while (!pool.awaitTermination(PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS)) {
+            int finished = converted.get() + failures.size();
+            progress.printf("%d/%d files, %.1f files/s%n", finished, files.size(), perSecond(finished, System.nanoTime() - start));
+        }
+        AggregatedSpec aggregated = aggregation != null ? aggregation.finish() : null;
+        return new Summary(files.size(), converted.get(), failures, System.nanoTime() - start, aggregated);
+    }
+
+    private void convert(Path file, Path relative, SpecSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is larger than 2 GB");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ConversionTrace trace = ConversionTrace.begin("batch", size);
+            ConversionOptions options = new ConversionOptions();
+            options.setPinnedVersion(outputProperties.getPinnedVersion());
+            options.setTrace(trace);
+            try {
+                ValidationReport report;
+                try (JsonParser parser = collectionReader.getFactory().createParser(new ByteBufferBackedInputStream(mapped.duplicate()))) {
+                    report = collectionValidator.validate(parser);
+                }
+                trace.stage(ConversionTrace.Stage.VALIDATE);
+                if (!report.isValid()) {
+                    throw new InvalidCollectionException(report);
+                }
+                PostmanCollection collection = collectionReader.readValue(new ByteBufferBackedInputStream(mapped.duplicate()), PostmanCollection.class);
+                trace.stage(ConversionTrace.Stage.BIND);
+                SwaggerDefinition swaggerDefinition = postmanToSwaggerService.convertPostmanToSwagger(collection, options);
+                trace.stage(ConversionTrace.Stage.CONVERT);
+                sink.accept(relative, swaggerDefinition, trace);
+                trace.finish(null);
+            } catch (IOException | RuntimeException e) {
+                trace.finish(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes next to the target and renames into place, replacing an earlier output.
+     */
+    private static void write(Path target, SpecWriter writer) throws IOException {
+        Path dir = Files.createDirectories(target.toAbsolutePath().getParent());
+        Path temp = dir.resolve("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE))) {
+                writer.write(out);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static String outputName(Path relative) {
+        return baseName(relative.getFileName().toString()) + ".swagger.json";
+    }
+
+    static String serviceName(Path relative) {
+        return baseName(relative.toString().replace(relative.getFileSystem().getSeparator(), "/"));
+    }
+
+    private static String baseName(String name) {
+        if (name.endsWith(".postman_collection.json")) {
+            return name.substring(0, name.length() - ".postman_collection.json".length());
+        }
+        return name.substring(0, name.length() - ".json".length());
+    }
+
+    // Jackson messages carry the source excerpt on further lines; the summary keeps one line per file
+    private static String reason(Exception e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        int newline = message.indexOf('\n');
+        return newline >= 0 ? message.substring(0, newline) : message;
+    }
+
+    private static double perSecond(int files, long nanos) {
+        return nanos > 0 ? files * 1e9 / nanos : 0;
+    }
+
+    private interface SpecWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private interface SpecSink {
+        void accept(Path relative, SwaggerDefinition swaggerDefinition, ConversionTrace trace) throws IOException;
+    }
+
+    public static final class Summary {
+        private final int files;
+        private final int converted;
+        private final Map<Path, String> failures;
+        private final long elapsedNanos;
+        private final AggregatedSpec aggregated;
+
+        Summary(int files, int converted, Map<Path, String> failures, long elapsedNanos, AggregatedSpec aggregated) {
+            this.files = files;
+            this.converted = converted;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+            this.aggregated = aggregated;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public int getConverted() {
+            return converted;
+        }
+
+        /** Failed files relative to the input directory, in path order, with the reason. */
+        public Map<Path, String> getFailures() {
+            return failures;
+        }
+
+        /** The merged spec of an aggregating run, otherwise null. */
+        public AggregatedSpec getAggregated() {
+            return aggregated;
+        }
+
+        public double getFilesPerSecond() {
+            return perSecond(converted + failures.size(), elapsedNanos);
+        }
+
+        public void print(PrintStream out) {
+            out.printf("Converted %d of %d files in %.1f s (%.1f files/s), %d failed%n", converted, files,
+                    elapsedNanos / 1e9, getFilesPerSecond(), failures.size());
+            failures.forEach((file, reason) -> out.println("  " + file + ": " + reason));
+            if (aggregated != null) {
+                out.printf("Merged %d services into %d paths, %d duplicate definitions, %d path conflicts%n",
+                        aggregated.getServices(), aggregated.getSpec().getPaths().size(),
+                        aggregated.getDefinitionsDeduplicated(), aggregated.getConflicts().size());
+                for (AggregatedSpec.Conflict conflict : aggregated.getConflicts()) {
+                    out.println("  " + conflict.getMethod() + " " + conflict.getPath() + ": kept " + conflict.getKeptService()
+                            + ", dropped " + conflict.getDroppedService());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.building.apicentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.zip.Deflater;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "apicentral.archive")
+public class ArchiveProperties {
+
+    // Keep stored specs on disk, deduplicated and compressed, past their eviction from memory and across restarts
+    private boolean enabled = false;
+
+    private String directory = System.getProperty("java.io.tmpdir") + "/apicentral-archive";
+
+    // Deflate level of stored chunks, 1 (fastest) to 9 (smallest)
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    // Size of the preset dictionary; Deflate looks back no further than 32 KiB, so more is wasted
+    private int dictionarySize = 32 * 1024;
+
+    // Bytes of stored chunks the first dictionary is trained on, and only once that many are stored
+    private long trainingSampleBytes = 8L * 1024 * 1024;
+}
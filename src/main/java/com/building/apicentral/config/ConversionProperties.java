@@ -0,0 +1,45 @@
+package com.building.apicentral.config;
+
+import com.building.apicentral.service.ConversionProfile;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "apicentral.conversion")
+public class ConversionProperties {
+
+    // Deepest folder or body nesting level a conversion may descend into
+    private int maxDepth = 64;
+
+    // Total folders, requests and body nodes visited by one conversion
+    private long maxNodes = 1_000_000;
+
+    // Wall-clock budget for one conversion, in milliseconds
+    private long maxDurationMs = 30_000;
+
+    // Bytes one conversion may allocate, checked against the converting thread's allocation counter
+    private long maxAllocatedBytes = 2L * 1024 * 1024 * 1024;
+
+    // Longest string example embedded as is; longer ones are cut to this many characters and marked
+    private int maxExampleLength = 1024;
+
+    // Example characters embedded per operation and per document; examples past either budget are left out
+    private long maxExampleCharsPerOperation = 64 * 1024;
+    private long maxExampleCharsPerDocument = 8 * 1024 * 1024;
+
+    // Least time between two progress events of one conversion streamed to a client
+    private long progressIntervalMs = 250;
+
+    // Inferred body schemas kept across conversions, keyed by body content; 0 entries switches the memo off
+    private int schemaMemoEntries = 4096;
+    // Total length of the bodies behind the kept schemas
+    private long schemaMemoMaxChars = 16 * 1024 * 1024;
+
+    // Identical conversions running at the same time share one; off, every request converts on its own
+    private boolean coalesceIdentical = true;
+
+    // Profile for requests that do not choose one
+    private ConversionProfile profile = ConversionProfile.FULL;
+}
@@ -0,0 +1,24 @@
+package com.building.apicentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "apicentral.diagnostics")
+public class DiagnosticsProperties {
+
+    // Serves Flight Recorder recordings under /api/diagnostics/recording; unauthenticated, so off unless a deployment opts in
+    private boolean recordingEnabled = false;
+
+    // Recording length when the caller does not ask for one, and the longest it may ask for
+    private int recordingSeconds = 30;
+    private int maxRecordingSeconds = 300;
+
+    // Older events are dropped once a recording holds this much
+    private long maxRecordingBytes = 64L * 1024 * 1024;
+
+    // Body inferences recorded as events once they take this long
+    private long inferenceThresholdMs = 20;
+}
@@ -0,0 +1,34 @@
+package com.building.apicentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "apicentral.har")
+public class HarProperties {
+
+    // Endpoints, by method and templated path, one import keeps; entries of any further endpoint are counted and dropped
+    private int maxEndpoints = 1_000;
+
+    // Schema nodes (bodies, properties and array items) kept per endpoint, over its request and all its responses
+    private int maxSchemaNodesPerEndpoint = 2_000;
+
+    // Properties kept per object and nesting depth of the inferred schemas
+    private int maxProperties = 200;
+    private int maxDepth = 16;
+
+    // Elements of one array merged into its item schema
+    private int maxArrayItems = 32;
+
+    // Query parameters and response status codes kept per endpoint
+    private int maxQueryParameters = 64;
+    private int maxStatusCodes = 32;
+
+    // Longest request or response body read; bodies declared longer are skipped without being buffered
+    private int maxBodyChars = 1024 * 1024;
+
+    // Longest example kept for a value; longer ones are cut to this many characters and marked
+    private int maxExampleLength = 128;
+}
@@ -0,0 +1,28 @@
+package com.building.apicentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "apicentral.lanes")
+public class LaneProperties {
+
+    // Estimated cost, in bytes of input, up to which a conversion is small, and from which it is huge
+    private long smallMaxCost = 1024 * 1024;
+    private long hugeMinCost = 16 * 1024 * 1024;
+
+    // Cost of one request on top of its bytes: operations cost more to convert than their size suggests
+    private long requestCost = 512;
+
+    // Threads running the conversions of each lane; an idle thread also takes work queued for a smaller lane
+    private int smallThreads = Runtime.getRuntime().availableProcessors();
+    private int mediumThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int hugeThreads = 1;
+
+    // Conversions waiting in each lane before new ones are rejected
+    private int smallQueueSize = 256;
+    private int mediumQueueSize = 64;
+    private int hugeQueueSize = 16;
+}
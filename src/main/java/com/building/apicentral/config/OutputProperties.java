@@ -0,0 +1,31 @@
+package com.building.apicentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "apicentral.output")
+public class OutputProperties {
+
+    // Serialize specs with sorted map keys so the same input always renders the same bytes
+    private boolean canonical = true;
+
+    // Fixed info.version for every conversion; empty keeps the date-stamped version
+    private String pinnedVersion;
+
+    // Remembered input digests whose ETag is known, letting repeat requests skip conversion
+    private int etagIndexSize = 10_000;
+
+    // Converted specs kept for sectioned retrieval under /api/specs, by count and by total bytes
+    private int resultStoreSize = 32;
+    private long resultStoreMaxBytes = 256L * 1024 * 1024;
+
+    // Sections are addressed by content hash and never change, so clients may cache them this long
+    private long sectionMaxAgeSeconds = 86_400;
+
+    // Paths per page when the client does not ask for a size, and the largest size it may ask for
+    private int pageSize = 100;
+    private int maxPageSize = 1_000;
+}
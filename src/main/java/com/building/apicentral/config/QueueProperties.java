@@ -0,0 +1,36 @@
+package com.building.apicentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "apicentral.queue")
+public class QueueProperties {
+
+    // memory keeps jobs in this JVM; filesystem shares them with every JVM pointed at the same directory
+    private String type = "memory";
+
+    private String directory = System.getProperty("java.io.tmpdir") + "/apicentral-queue";
+
+    // Conversion workers on this node; 0 makes it an API-only node
+    private int workerThreads = 1;
+
+    // A claimed job goes back to the queue when its worker has not finished within the lease; keep it above max-duration-ms
+    private long leaseMs = 120_000;
+
+    // How long an idle worker waits before looking for jobs again
+    private long pollIntervalMs = 250;
+
+    // Claims of one job before it is failed instead of handed out again
+    private int maxAttempts = 3;
+
+    // Jobs, and input bytes of those jobs, the in-memory queue holds for workers; submissions past either are answered 503
+    private int maxQueuedJobs = 256;
+    private long maxQueuedBytes = 256L * 1024 * 1024;
+
+    // Finished jobs the in-memory queue keeps for status and result requests, and the bytes their results may take
+    private int retainedJobs = 1_000;
+    private long maxRetainedBytes = 256L * 1024 * 1024;
+}
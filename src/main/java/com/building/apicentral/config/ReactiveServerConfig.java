@@ -0,0 +1,96 @@
+package com.building.apicentral.config;
+
+import com.building.apicentral.controller.ReactiveConversionHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.web.servlet.context.ServletWebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+
+/**
+ * The application itself runs on the servlet stack; the WebFlux variant of the convert API is
+ * served by a second, Reactor Netty based server on {@code apicentral.reactive.port}. It is
+ * started once the servlet web server is up, so contexts without a real server (mock MVC
+ * tests, the CLI) never bind the extra port.
+ */
+@Configuration
+public class ReactiveServerConfig {
+
+    @Bean
+    public ReactiveConversionServer reactiveConversionServer(ReactiveConversionHandler handler, ReactiveServerProperties properties) {
+        RouterFunction<ServerResponse> routes = RouterFunctions.route(
+                POST("/api/convert/postman-to-swagger"), handler::convertPostmanToSwagger);
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(routes,
+                HandlerStrategies.builder().webFilter(corsFilter()).build());
+        return new ReactiveConversionServer(httpHandler, properties);
+    }
+
+    private CorsWebFilter corsFilter() {
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(Collections.singletonList("http://localhost:4200"));
+        cors.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        cors.addAllowedHeader("*");
+        cors.setAllowCredentials(true);
+        cors.addExposedHeader(HttpHeaders.ETAG);
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", cors);
+        return new CorsWebFilter(source);
+    }
+
+    @Slf4j
+    public static class ReactiveConversionServer implements ApplicationListener<ServletWebServerInitializedEvent>, DisposableBean {
+
+        private final HttpHandler httpHandler;
+        private final ReactiveServerProperties properties;
+        private volatile DisposableServer server;
+
+        ReactiveConversionServer(HttpHandler httpHandler, ReactiveServerProperties properties) {
+            this.httpHandler = httpHandler;
+            this.properties = properties;
+        }
+
+        @Override
+        public synchronized void onApplicationEvent(ServletWebServerInitializedEvent event) {
+            if (!properties.isEnabled() || server != null) {
+                return;
+            }
+            server = HttpServer.create()
+                    .port(properties.getPort())
+                    .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                    .bindNow();
+            log.info("Reactive conversion endpoint started on port {}", server.port());
+        }
+
+        /** Bound port, or -1 while the server is not running. */
+        public int getPort() {
+            DisposableServer current = server;
+            return current != null ? current.port() : -1;
+        }
+
+        @Override
+        public synchronized void destroy() {
+            if (server != null) {
+                server.disposeNow();
+                server = null;
+            }
+        }
+    }
+}
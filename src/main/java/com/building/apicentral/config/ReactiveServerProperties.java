@@ -0,0 +1,19 @@
+package com.building.apicentral.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "apicentral.reactive")
+public class ReactiveServerProperties {
+
+    // A second listener on its own port, so deployments opt in
+    private boolean enabled = false;
+
+    // 0 binds a random free port
+    private int port = 8091;
+
+    private long maxBodyBytes = 100L * 1024 * 1024;
+}
@@ -0,0 +1,76 @@
+package com.building.apicentral.config;
+
+import com.building.apicentral.config.ReactiveServerConfig.ReactiveConversionServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Training run for the AppCDS archive built by the fast-startup Maven profile. Once the
+ * application is ready it sends the bundled sample collection through both convert endpoints,
+ * so every class a real conversion touches gets loaded, and then exits; the JVM writes the
+ * archive on exit.
+ */
+@Slf4j
+@Component
+@Profile("training")
+public class TrainingRun {
+
+    private static final int ROUNDS = 20;
+
+    private final ServletWebServerApplicationContext context;
+    private final ReactiveConversionServer reactiveServer;
+
+    public TrainingRun(ServletWebServerApplicationContext context, ReactiveConversionServer reactiveServer) {
+        this.context = context;
+        this.reactiveServer = reactiveServer;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() throws IOException {
+        byte[] sample;
+        try (InputStream in = new ClassPathResource("training/sample-collection.json").getInputStream()) {
+            sample = StreamUtils.copyToByteArray(in);
+        }
+
+        int converted = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            converted += convert(context.getWebServer().getPort(), sample);
+            if (reactiveServer.getPort() > 0) {
+                converted += convert(reactiveServer.getPort(), sample);
+            }
+        }
+        log.info("Training run finished with {} successful conversions", converted);
+        int exitCode = converted > 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private int convert(int port, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/api/convert/postman-to-swagger").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                StreamUtils.drain(in);
+            }
+        }
+        return status == 200 ? 1 : 0;
+    }
+}
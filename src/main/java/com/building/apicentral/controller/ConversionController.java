@@ -1,76 +1,454 @@
 package com.building.apicentral.controller;
 
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.config.OutputProperties;
 import com.building.apicentral.model.PostmanCollection;
 import com.building.apicentral.model.SwaggerDefinition;
+import com.building.apicentral.service.CollectionFilter;
+import com.building.apicentral.service.ConversionLanes;
+import com.building.apicentral.service.ConversionLimitExceededException;
+import com.building.apicentral.service.ConversionETagIndex;
+import com.building.apicentral.service.ConversionResultStore;
+import com.building.apicentral.service.ConversionOptions;
+import com.building.apicentral.service.ConversionProfile;
+import com.building.apicentral.service.ConversionProgress;
+import com.building.apicentral.service.ConversionTrace;
+import com.building.apicentral.service.FilteredCollectionReader;
+import com.building.apicentral.service.HarImporter;
+import com.building.apicentral.service.InFlightConversions;
+import com.building.apicentral.service.InvalidCollectionException;
+import com.building.apicentral.service.PostmanCollectionValidator;
 import com.building.apicentral.service.PostmanToSwaggerService;
+import com.building.apicentral.service.RenderedSpec;
+import com.building.apicentral.service.SpecRenderer;
+import com.building.apicentral.service.StoredSpec;
+import com.building.apicentral.service.ValidationReport;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.bind.annotation.CrossOrigin;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
+@Lazy(false)
 @RestController
 @RequestMapping("/api/convert")
 public class ConversionController {
 
     private final PostmanToSwaggerService postmanToSwaggerService;
-    private final ObjectMapper objectMapper;
+    private final PostmanCollectionValidator collectionValidator;
+    private final ObjectMapper collectionReader;
+    private final FilteredCollectionReader filteredCollectionReader;
+    private final SpecRenderer specRenderer;
+    private final ConversionETagIndex eTagIndex;
+    private final ConversionResultStore resultStore;
+    private final InFlightConversions inFlightConversions;
+    private final OutputProperties outputProperties;
+    private final ConversionProperties conversionProperties;
+    private final ConversionLanes conversionLanes;
+    private final HarImporter harImporter;
 
     @Autowired
-    public ConversionController(PostmanToSwaggerService postmanToSwaggerService, ObjectMapper objectMapper) {
+    public ConversionController(PostmanToSwaggerService postmanToSwaggerService, PostmanCollectionValidator collectionValidator,
+                                FilteredCollectionReader filteredCollectionReader, SpecRenderer specRenderer,
+                                ConversionETagIndex eTagIndex, ConversionResultStore resultStore,
+                                InFlightConversions inFlightConversions, OutputProperties outputProperties, ConversionProperties conversionProperties,
+                                ConversionLanes conversionLanes, HarImporter harImporter) {
         this.postmanToSwaggerService = postmanToSwaggerService;
-        this.objectMapper = objectMapper;
+        this.collectionValidator = collectionValidator;
+        this.collectionReader = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.filteredCollectionReader = filteredCollectionReader;
+        this.specRenderer = specRenderer;
+        this.eTagIndex = eTagIndex;
+        this.resultStore = resultStore;
+        this.inFlightConversions = inFlightConversions;
+        this.outputProperties = outputProperties;
+        this.conversionProperties = conversionProperties;
+        this.conversionLanes = conversionLanes;
+        this.harImporter = harImporter;
     }
 
-    @CrossOrigin(origins = "http://localhost:4200")
+    @CrossOrigin(origins = "http://localhost:4200", exposedHeaders = HttpHeaders.ETAG)
     @PostMapping(value = "/postman-to-swagger",
             consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_JSON_VALUE},
             produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> convertPostmanToSwagger(
             @RequestParam(value = "file", required = false) MultipartFile file,
-            @RequestBody(required = false) String jsonBody) {
+            @RequestBody(required = false) byte[] jsonBody,
+            @RequestParam(value = "version", required = false) String version,
+            @RequestParam(value = "profile", required = false) String profile,
+            @RequestParam(value = "canonical", required = false) Boolean canonical,
+            @RequestParam(value = "folder", required = false) List<String> folders,
+            @RequestParam(value = "tag", required = false) List<String> tags,
+            @RequestParam(value = "method", required = false) List<String> methods,
+            @RequestParam(value = "pathPrefix", required = false) List<String> pathPrefixes,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            PostmanCollection postmanCollection;
-            if (file != null && !file.isEmpty()) {
-                String content = new String(file.getBytes(), StandardCharsets.UTF_8);
-                postmanCollection = parsePostmanCollection(content);
-            } else if (jsonBody != null && !jsonBody.isEmpty()) {
-                postmanCollection = parsePostmanCollection(jsonBody);
-            } else {
+            byte[] input = readInput(file, jsonBody);
+            if (input == null) {
                 return ResponseEntity.badRequest().body("No valid input provided");
             }
-            SwaggerDefinition swaggerDefinition = postmanToSwaggerService.convertPostmanToSwagger(postmanCollection);
-            String swaggerJson = objectMapper.writeValueAsString(swaggerDefinition);
-            return ResponseEntity.ok(swaggerJson);
-        } catch (JsonProcessingException e) {
+
+            ConversionOptions options = options(version, profile);
+            boolean canonicalOutput = canonical != null ? canonical : outputProperties.isCanonical();
+            CollectionFilter filter = CollectionFilter.of(folders, tags, methods, pathPrefixes);
+            String inputKey = SpecRenderer.inputKey(input, postmanToSwaggerService.infoVersion(options),
+                    String.valueOf(canonicalOutput), filter.cacheKey(), postmanToSwaggerService.profile(options).getName());
+
+            String knownETag = eTagIndex.get(inputKey);
+            if (ETags.matches(ifNoneMatch, knownETag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(knownETag).build();
+            }
+
+            // Identical uploads in progress share one conversion; only the one that runs it is traced
+            RenderedSpec rendered = inFlightConversions.run("convert " + inputKey,
+                    () -> conversionLanes.run(conversionLanes.estimateCost(input), () -> {
+                        ConversionTrace trace = ConversionTrace.begin("convert", input.length);
+                        options.setTrace(trace);
+                        try {
+                            RenderedSpec result = specRenderer.render(convert(input, options, filter), canonicalOutput);
+                            trace.stage(ConversionTrace.Stage.RENDER);
+                            trace.finish(null);
+                            return result;
+                        } catch (Exception e) {
+                            trace.finish(e);
+                            throw e;
+                        }
+                    }));
+            eTagIndex.put(inputKey, rendered.getETag());
+            if (ETags.matches(ifNoneMatch, rendered.getETag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(rendered.getETag()).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(rendered.getETag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(rendered.getJson());
+        } catch (Exception e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Converts like {@link #convertPostmanToSwagger} but keeps the result in sections for
+     * {@link SpecSectionController}. Answers 201 with the spec's location and its head section.
+     */
+    @CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {HttpHeaders.ETAG, HttpHeaders.LOCATION})
+    @PostMapping(value = "/postman-to-swagger/sections",
+            consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> convertToSections(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestBody(required = false) byte[] jsonBody,
+            @RequestParam(value = "version", required = false) String version,
+            @RequestParam(value = "profile", required = false) String profile,
+            @RequestParam(value = "folder", required = false) List<String> folders,
+            @RequestParam(value = "tag", required = false) List<String> tags,
+            @RequestParam(value = "method", required = false) List<String> methods,
+            @RequestParam(value = "pathPrefix", required = false) List<String> pathPrefixes) {
+        try {
+            byte[] input = readInput(file, jsonBody);
+            if (input == null) {
+                return ResponseEntity.badRequest().body("No valid input provided");
+            }
+            ConversionOptions options = options(version, profile);
+            CollectionFilter filter = CollectionFilter.of(folders, tags, methods, pathPrefixes);
+            String inputKey = SpecRenderer.inputKey(input, "sections", postmanToSwaggerService.infoVersion(options),
+                    filter.cacheKey(), postmanToSwaggerService.profile(options).getName());
+            StoredSpec spec = inFlightConversions.run("sections " + inputKey,
+                    () -> conversionLanes.run(conversionLanes.estimateCost(input), () -> {
+                        ConversionTrace trace = ConversionTrace.begin("sections", input.length);
+                        options.setTrace(trace);
+                        try {
+                            StoredSpec result = resultStore.store(convert(input, options, filter));
+                            trace.stage(ConversionTrace.Stage.RENDER);
+                            trace.finish(null);
+                            return result;
+                        } catch (Exception e) {
+                            trace.finish(e);
+                            throw e;
+                        }
+                    }));
+            return ResponseEntity.created(URI.create("/api/specs/" + spec.getId()))
+                    .eTag(spec.getHeadETag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(spec.getHead());
+        } catch (Exception e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Infers a spec from a HAR capture of real traffic, read as it streams in: send captures
+     * past the multipart size limit as the raw request body. Nothing is cached by input, as the
+     * input is never held whole.
+     */
+    @CrossOrigin(origins = "http://localhost:4200", exposedHeaders = HttpHeaders.ETAG)
+    @PostMapping(value = "/har-to-swagger",
+            consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_JSON_VALUE,
+                    "application/har+json", MediaType.APPLICATION_OCTET_STREAM_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> convertHarToSwagger(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "title", required = false) String title,
+            @RequestParam(value = "version", required = false) String version,
+            @RequestParam(value = "canonical", required = false) Boolean canonical,
+            HttpServletRequest request) {
+        try {
+            boolean upload = file != null && !file.isEmpty();
+            long inputBytes = upload ? file.getSize() : request.getContentLengthLong();
+            String infoVersion = postmanToSwaggerService.infoVersion(options(version, null));
+            boolean canonicalOutput = canonical != null ? canonical : outputProperties.isCanonical();
+            RenderedSpec rendered = conversionLanes.run(conversionLanes.estimateCost(inputBytes), () -> {
+                ConversionTrace trace = ConversionTrace.begin("har", inputBytes);
+                try (InputStream in = upload ? file.getInputStream() : request.getInputStream()) {
+                    SwaggerDefinition swaggerDefinition = harImporter.importHar(in, title != null ? title : "HAR import", infoVersion);
+                    trace.stage(ConversionTrace.Stage.CONVERT);
+                    RenderedSpec result = specRenderer.render(swaggerDefinition, canonicalOutput);
+                    trace.stage(ConversionTrace.Stage.RENDER);
+                    trace.finish(null);
+                    return result;
+                } catch (Exception e) {
+                    trace.finish(e);
+                    throw e;
+                }
+            });
+            return ResponseEntity.ok()
+                    .eTag(rendered.getETag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(rendered.getJson());
+        } catch (Exception e) {
+            return errorResponse(e);
+        }
+    }
+
+    /**
+     * Converts like {@link #convertToSections} while streaming server-sent events: {@code progress}
+     * events with the stage, items converted out of the total, the current folder and bytes
+     * parsed, then a single {@code done} event with the stored spec's location, or an
+     * {@code error} event with the status the other endpoints would have answered with.
+     * Answers 503 when the conversion lane for the input is full.
+     */
+    @CrossOrigin(origins = "http://localhost:4200")
+    @PostMapping(value = "/postman-to-swagger/events",
+            consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> convertWithProgress(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestBody(required = false) byte[] jsonBody,
+            @RequestParam(value = "version", required = false) String version,
+            @RequestParam(value = "profile", required = false) String profile) throws IOException {
+        byte[] input = readInput(file, jsonBody);
+        // Rendering and storing come on top of the conversion's own time limit
+        SseEmitter emitter = new SseEmitter(2 * conversionProperties.getMaxDurationMs());
+        EventStream events = new EventStream(emitter);
+        try {
+            conversionLanes.submit(conversionLanes.estimateCost(input), () -> {
+                streamConversion(events, input, version, profile);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    }
+
+    private void streamConversion(EventStream events, byte[] input, String version, String profile) {
+        if (input == null) {
+            sendError(events, ResponseEntity.badRequest().body("No valid input provided"));
+            return;
+        }
+        ConversionTrace trace = ConversionTrace.begin("events", input.length);
+        try {
+            ConversionOptions options = options(version, profile);
+            options.setTrace(trace);
+            ConversionProgress progress = new ConversionProgress(snapshot -> events.send("progress", snapshot),
+                    conversionProperties.getProgressIntervalMs(), input.length);
+            options.setProgress(progress);
+            SwaggerDefinition swaggerDefinition = convert(input, options, CollectionFilter.none());
+            progress.stage(ConversionTrace.Stage.RENDER);
+            StoredSpec spec = resultStore.store(swaggerDefinition);
+            trace.stage(ConversionTrace.Stage.RENDER);
+            trace.finish(null);
+
+            Map<String, Object> done = new LinkedHashMap<>();
+            done.put("id", spec.getId());
+            done.put("location", "/api/specs/" + spec.getId());
+            done.put("eTag", spec.getHeadETag());
+            done.put("pathCount", spec.getPathCount());
+            events.send("done", done);
+            events.complete();
+        } catch (Exception e) {
+            trace.finish(e);
+            if (e instanceof UncheckedIOException || e.getCause() instanceof UncheckedIOException) {
+                // The client went away or the stream timed out; there is nobody left to tell
+                events.completeWithError(e);
+                return;
+            }
+            sendError(events, errorResponse(e));
+        }
+    }
+
+    private void sendError(EventStream events, ResponseEntity<?> error) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("status", error.getStatusCodeValue());
+        data.put("error", error.getBody());
+        try {
+            events.send("error", data);
+            events.complete();
+        } catch (UncheckedIOException e) {
+            events.completeWithError(e);
+        }
+    }
+
+    /**
+     * The events of one conversion. Once the emitter is done, because it timed out, the client
+     * went away or it was completed, nothing more is sent: {@link #send} throws
+     * UncheckedIOException, which from the conversion thread aborts the conversion as well.
+     */
+    static final class EventStream {
+
+        private final SseEmitter emitter;
+        private volatile boolean done;
+
+        EventStream(SseEmitter emitter) {
+            this.emitter = emitter;
+            emitter.onTimeout(() -> done = true);
+            emitter.onError(e -> done = true);
+            emitter.onCompletion(() -> done = true);
+        }
+
+        void send(String name, Object data) {
+            if (done) {
+                throw new UncheckedIOException(new IOException("The event stream is closed"));
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                done = true;
+                throw new UncheckedIOException(e);
+            } catch (IllegalStateException e) {
+                // Completed or timed out between the check and the send
+                done = true;
+                throw new UncheckedIOException(new IOException("The event stream is closed", e));
+            }
+        }
+
+        void complete() {
+            if (!done) {
+                done = true;
+                emitter.complete();
+            }
+        }
+
+        void completeWithError(Throwable e) {
+            if (!done) {
+                done = true;
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private byte[] readInput(MultipartFile file, byte[] jsonBody) throws IOException {
+        if (file != null && !file.isEmpty()) {
+            return file.getBytes();
+        } else if (jsonBody != null && jsonBody.length > 0) {
+            return jsonBody;
+        }
+        return null;
+    }
+
+    private ConversionOptions options(String version, String profile) {
+        ConversionOptions options = new ConversionOptions();
+        options.setPinnedVersion(version != null ? version : outputProperties.getPinnedVersion());
+        options.setProfile(ConversionProfile.fromName(profile));
+        return options;
+    }
+
+    private SwaggerDefinition convert(byte[] input, ConversionOptions options, CollectionFilter filter) throws IOException {
+        ConversionTrace trace = options.getTrace();
+        ConversionProgress progress = options.getProgress();
+        ValidationReport report = progress != null ? validate(input, progress) : collectionValidator.validate(input);
+        trace.stage(ConversionTrace.Stage.VALIDATE);
+        if (!report.isValid()) {
+            throw new InvalidCollectionException(report);
+        }
+        if (progress != null) {
+            progress.setItemsTotal(report.getFolders() + report.getRequests());
+            progress.stage(ConversionTrace.Stage.BIND);
+        }
+        PostmanCollection postmanCollection = filter.isEmpty()
+                ? parsePostmanCollection(input, progress)
+                : filteredCollectionReader.read(input, filter);
+        trace.stage(ConversionTrace.Stage.BIND);
+        if (progress != null) {
+            progress.stage(ConversionTrace.Stage.CONVERT);
+        }
+        SwaggerDefinition swaggerDefinition = postmanToSwaggerService.convertPostmanToSwagger(postmanCollection, options);
+        trace.stage(ConversionTrace.Stage.CONVERT);
+        return swaggerDefinition;
+    }
+
+    private ResponseEntity<?> errorResponse(Exception e) {
+        // Parser limits come wrapped in mapping and conversion exceptions as often as not
+        ConversionLimitExceededException limit = ConversionLimitExceededException.causedBy(e);
+        if (limit != null) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(limit.getMessage());
+        }
+        if (e instanceof InvalidCollectionException) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(((InvalidCollectionException) e).getReport());
+        } else if (e instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } else if (e instanceof JsonProcessingException) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error processing JSON: " + e.getMessage());
-        } catch (IOException e) {
+        } else if (e instanceof IOException) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error reading input: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred: " + e.getMessage());
+        } else if (e instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Conversion capacity exhausted, retry later");
         }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred: " + e.getMessage());
     }
 
-    private PostmanCollection parsePostmanCollection(String json) throws JsonProcessingException {
+    private ValidationReport validate(byte[] input, ConversionProgress progress) throws IOException {
+        try (JsonParser parser = collectionReader.getFactory().createParser(progress.track(new ByteArrayInputStream(input)))) {
+            return collectionValidator.validate(parser);
+        }
+    }
+
+    private PostmanCollection parsePostmanCollection(byte[] json, ConversionProgress progress) throws JsonProcessingException {
         try {
-            log.debug("Received JSON: " + json);
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            return mapper.readValue(json, PostmanCollection.class);
+            log.debug("Received {} bytes of JSON", json.length);
+            if (progress != null) {
+                return collectionReader.readValue(progress.track(new ByteArrayInputStream(json)), PostmanCollection.class);
+            }
+            return collectionReader.readValue(json, PostmanCollection.class);
         } catch (JsonProcessingException e) {
             log.error("Error parsing JSON: " + e.getMessage(), e);
             throw new JsonProcessingException("Error parsing Postman Collection: " + e.getMessage()) {};
+        } catch (IOException e) {
+            throw new JsonProcessingException("Error reading Postman Collection: " + e.getMessage(), e) {};
         }
     }
 
@@ -0,0 +1,29 @@
+package com.building.apicentral.controller;
+
+import com.building.apicentral.service.ConversionLanes;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Queue depth, waits and steals of each conversion lane, counted since the start of the
+ * instance.
+ */
+@RestController
+@RequestMapping("/api/diagnostics")
+public class ConversionLaneController {
+
+    private final ConversionLanes conversionLanes;
+
+    public ConversionLaneController(ConversionLanes conversionLanes) {
+        this.conversionLanes = conversionLanes;
+    }
+
+    @GetMapping(value = "/lanes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<ConversionLanes.LaneStats> lanes() {
+        return conversionLanes.stats();
+    }
+}
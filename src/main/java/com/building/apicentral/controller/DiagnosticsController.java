@@ -0,0 +1,96 @@
+package com.building.apicentral.controller;
+
+import com.building.apicentral.service.DiagnosticRecorder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Flight Recorder recordings of the running instance, for diagnosing slow conversions. The
+ * request stays open for the length of the recording, without holding a servlet thread, and
+ * then downloads it; open the file with JDK Mission Control or
+ * {@code jfr print --events apicentral.Conversion}. Off unless
+ * {@code apicentral.diagnostics.recording-enabled} is set, as the endpoint has no authentication.
+ */
+@RestController
+@RequestMapping("/api/diagnostics")
+@ConditionalOnProperty(prefix = "apicentral.diagnostics", name = "recording-enabled")
+public class DiagnosticsController {
+
+    // Time past the recording's length allowed for stopping and dumping it
+    private static final long DUMP_MARGIN_MS = 30_000;
+
+    private final DiagnosticRecorder recorder;
+
+    public DiagnosticsController(DiagnosticRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @GetMapping("/recording")
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> recording(
+            @RequestParam(value = "seconds", required = false) Integer seconds) throws IOException {
+        DeferredResult<ResponseEntity<StreamingResponseBody>> response =
+                new DeferredResult<>(recorder.duration(seconds).toMillis() + DUMP_MARGIN_MS);
+        try {
+            recorder.record(seconds).whenComplete((file, error) -> {
+                if (error != null) {
+                    response.setErrorResult(error);
+                } else if (!response.setResult(download(file))) {
+                    // The client went away or the request timed out first
+                    deleteQuietly(file);
+                }
+            });
+        } catch (IllegalStateException e) {
+            byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            response.setResult(ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write(message)));
+        }
+        return response;
+    }
+
+    private static ResponseEntity<StreamingResponseBody> download(Path file) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException(e);
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(file.getFileName().toString()).build().toString())
+                .body(body);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Left in the temporary directory
+        }
+    }
+}
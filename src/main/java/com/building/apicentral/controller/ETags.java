@@ -0,0 +1,30 @@
+package com.building.apicentral.controller;
+
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Whether an If-None-Match header value matches the given quoted ETag. Uses the weak
+     * comparison If-None-Match calls for, so {@code W/"x"} matches {@code "x"}.
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
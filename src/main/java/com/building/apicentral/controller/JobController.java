@@ -0,0 +1,130 @@
+package com.building.apicentral.controller;
+
+import com.building.apicentral.config.OutputProperties;
+import com.building.apicentral.service.ConversionJob;
+import com.building.apicentral.service.ConversionJobStatus;
+import com.building.apicentral.service.ConversionLimitExceededException;
+import com.building.apicentral.service.ConversionProfile;
+import com.building.apicentral.service.ConversionQueue;
+import com.building.apicentral.service.PostmanCollectionValidator;
+import com.building.apicentral.service.SpecRenderer;
+import com.building.apicentral.service.ValidationReport;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Queued conversions: uploads are validated here and converted by whichever
+ * {@link com.building.apicentral.service.ConversionWorker} claims them, possibly in another JVM.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {HttpHeaders.ETAG, HttpHeaders.LOCATION})
+public class JobController {
+
+    private final ConversionQueue queue;
+    private final PostmanCollectionValidator collectionValidator;
+    private final OutputProperties outputProperties;
+
+    public JobController(ConversionQueue queue, PostmanCollectionValidator collectionValidator, OutputProperties outputProperties) {
+        this.queue = queue;
+        this.collectionValidator = collectionValidator;
+        this.outputProperties = outputProperties;
+    }
+
+    /**
+     * Answers 202 with the job's location and status once the collection is validated and queued,
+     * or 503 when the queue is full.
+     */
+    @PostMapping(consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> submit(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestBody(required = false) byte[] jsonBody,
+            @RequestParam(value = "version", required = false) String version,
+            @RequestParam(value = "profile", required = false) String profile,
+            @RequestParam(value = "canonical", required = false) Boolean canonical) throws IOException {
+        byte[] input = file != null && !file.isEmpty() ? file.getBytes() : jsonBody;
+        if (input == null || input.length == 0) {
+            return ResponseEntity.badRequest().body("No valid input provided");
+        }
+        try {
+            ConversionProfile.fromName(profile);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        ValidationReport report;
+        try {
+            report = collectionValidator.validate(input);
+        } catch (ConversionLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+        }
+        if (!report.isValid()) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(report);
+        }
+
+        ConversionJob job = new ConversionJob();
+        job.setPinnedVersion(version != null ? version : outputProperties.getPinnedVersion());
+        job.setProfile(profile);
+        job.setCanonical(canonical != null ? canonical : outputProperties.isCanonical());
+        job.setInput(input);
+        String id;
+        try {
+            id = queue.submit(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Job queue is full, retry later");
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + id))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(queue.status(id));
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ConversionJobStatus> status(@PathVariable String id) throws IOException {
+        ConversionJobStatus status = queue.status(id);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * The converted spec once the job is done; 202 with the status while it is queued or
+     * running, 422 when it failed.
+     */
+    @GetMapping(value = "/{id}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> result(@PathVariable String id,
+                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws IOException {
+        ConversionJobStatus status = queue.status(id);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        switch (status.getState()) {
+            case DONE:
+                byte[] json = queue.result(id);
+                String eTag = SpecRenderer.strongETag(json);
+                if (ETags.matches(ifNoneMatch, eTag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                }
+                return ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).body(json);
+            case FAILED:
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(status);
+            default:
+                return ResponseEntity.accepted().location(URI.create("/api/jobs/" + id)).body(status);
+        }
+    }
+}
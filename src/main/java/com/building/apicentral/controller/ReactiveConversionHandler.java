@@ -0,0 +1,213 @@
+package com.building.apicentral.controller;
+
+import com.building.apicentral.config.OutputProperties;
+import com.building.apicentral.config.ReactiveServerProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.building.apicentral.service.AsyncPostmanCollectionReader;
+import com.building.apicentral.service.CollectionFilter;
+import com.building.apicentral.service.ConversionETagIndex;
+import com.building.apicentral.service.ConversionLanes;
+import com.building.apicentral.service.ConversionLimitExceededException;
+import com.building.apicentral.service.ConversionOptions;
+import com.building.apicentral.service.ConversionProfile;
+import com.building.apicentral.service.ConversionTrace;
+import com.building.apicentral.service.FilteredCollectionReader;
+import com.building.apicentral.service.InFlightConversions;
+import com.building.apicentral.service.InvalidCollectionException;
+import com.building.apicentral.service.PostmanCollectionValidator;
+import com.building.apicentral.service.PostmanToSwaggerService;
+import com.building.apicentral.service.RenderedSpec;
+import com.building.apicentral.service.SpecRenderer;
+import com.building.apicentral.service.ValidationReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Non-blocking counterpart of {@link ConversionController#convertPostmanToSwagger}. The body is
+ * tokenized on the I/O thread as chunks arrive; binding, conversion and serialization run in the
+ * conversion lane for the declared body size, and the result is written back in chunks. Like
+ * the servlet endpoint, a known ETag is answered with 304 before anything is converted, and
+ * identical uploads in progress, on either server, share one conversion.
+ */
+@Slf4j
+@Component
+public class ReactiveConversionHandler {
+
+    private static final int RESPONSE_CHUNK_BYTES = 16 * 1024;
+
+    private final AsyncPostmanCollectionReader collectionReader;
+    private final PostmanCollectionValidator collectionValidator;
+    private final FilteredCollectionReader filteredCollectionReader;
+    private final PostmanToSwaggerService postmanToSwaggerService;
+    private final SpecRenderer specRenderer;
+    private final ConversionLanes conversionLanes;
+    private final ConversionETagIndex eTagIndex;
+    private final InFlightConversions inFlightConversions;
+    private final ReactiveServerProperties properties;
+    private final OutputProperties outputProperties;
+
+    public ReactiveConversionHandler(AsyncPostmanCollectionReader collectionReader,
+                                     PostmanCollectionValidator collectionValidator,
+                                     FilteredCollectionReader filteredCollectionReader,
+                                     PostmanToSwaggerService postmanToSwaggerService,
+                                     SpecRenderer specRenderer,
+                                     ConversionLanes conversionLanes,
+                                     ConversionETagIndex eTagIndex,
+                                     InFlightConversions inFlightConversions,
+                                     ReactiveServerProperties properties,
+                                     OutputProperties outputProperties) {
+        this.collectionReader = collectionReader;
+        this.collectionValidator = collectionValidator;
+        this.filteredCollectionReader = filteredCollectionReader;
+        this.postmanToSwaggerService = postmanToSwaggerService;
+        this.specRenderer = specRenderer;
+        this.conversionLanes = conversionLanes;
+        this.eTagIndex = eTagIndex;
+        this.inFlightConversions = inFlightConversions;
+        this.properties = properties;
+        this.outputProperties = outputProperties;
+    }
+
+    public Mono<ServerResponse> convertPostmanToSwagger(ServerRequest request) {
+        ConversionOptions options = new ConversionOptions();
+        options.setPinnedVersion(request.queryParam("version").orElse(outputProperties.getPinnedVersion()));
+        try {
+            options.setProfile(ConversionProfile.fromName(request.queryParam("profile").orElse(null)));
+        } catch (IllegalArgumentException e) {
+            return errorResponse(e);
+        }
+        boolean canonical = request.queryParam("canonical").map(Boolean::parseBoolean).orElse(outputProperties.isCanonical());
+        String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+        long inputBytes = request.headers().contentLength().orElse(-1);
+        CollectionFilter filter = CollectionFilter.of(request.queryParams().get("folder"), request.queryParams().get("tag"),
+                request.queryParams().get("method"), request.queryParams().get("pathPrefix"));
+
+        MessageDigest digest = SpecRenderer.inputDigest();
+        String infoVersion = postmanToSwaggerService.infoVersion(options);
+        String profileName = postmanToSwaggerService.profile(options).getName();
+
+        return collectionReader.tokenize(request.bodyToFlux(DataBuffer.class), properties.getMaxBodyBytes(), digest)
+                .flatMap(tokens -> {
+                    // Keyed like an upload to the servlet endpoint, so both share the index and conversions in progress
+                    String inputKey = SpecRenderer.inputKey(digest, infoVersion, String.valueOf(canonical),
+                            filter.cacheKey(), profileName);
+                    String knownETag = eTagIndex.get(inputKey);
+                    if (ETags.matches(ifNoneMatch, knownETag)) {
+                        return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(knownETag).build();
+                    }
+                    // The body is only tokenized here, so its declared length is all there is to size it by
+                    return Mono.fromFuture(inFlightConversions.submit("convert " + inputKey,
+                                    () -> conversionLanes.submit(conversionLanes.estimateCost(inputBytes),
+                                            () -> convert(tokens, options, filter, canonical, inputBytes))))
+                            .flatMap(rendered -> {
+                                eTagIndex.put(inputKey, rendered.getETag());
+                                return respond(rendered, ifNoneMatch);
+                            });
+                })
+                .onErrorResume(this::errorResponse);
+    }
+
+    // Everything here runs on one conversion thread, so the trace can count its allocation
+    private RenderedSpec convert(TokenBuffer tokens, ConversionOptions options, CollectionFilter filter, boolean canonical,
+                                 long inputBytes) {
+        ConversionTrace trace = ConversionTrace.begin("reactive", inputBytes);
+        options.setTrace(trace);
+        try {
+            ValidationReport report = collectionValidator.validate(tokens.asParser());
+            trace.stage(ConversionTrace.Stage.VALIDATE);
+            if (!report.isValid()) {
+                throw new InvalidCollectionException(report);
+            }
+            PostmanCollection collection = filter.isEmpty()
+                    ? collectionReader.bind(tokens)
+                    : filteredCollectionReader.read(tokens.asParser(), filter);
+            trace.stage(ConversionTrace.Stage.BIND);
+            SwaggerDefinition swaggerDefinition = postmanToSwaggerService.convertPostmanToSwagger(collection, options);
+            trace.stage(ConversionTrace.Stage.CONVERT);
+            RenderedSpec rendered = specRenderer.render(swaggerDefinition, canonical);
+            trace.stage(ConversionTrace.Stage.RENDER);
+            trace.finish(null);
+            return rendered;
+        } catch (IOException e) {
+            trace.finish(e);
+            throw new UncheckedJsonException(e);
+        } catch (RuntimeException e) {
+            trace.finish(e);
+            throw e;
+        }
+    }
+
+    private Mono<ServerResponse> respond(RenderedSpec rendered, String ifNoneMatch) {
+        if (ETags.matches(ifNoneMatch, rendered.getETag())) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(rendered.getETag()).build();
+        }
+        byte[] json = rendered.getJson();
+        return ServerResponse.ok()
+                .eTag(rendered.getETag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(json.length)
+                .body(BodyInserters.fromDataBuffers(chunks(json)));
+    }
+
+    private Flux<DataBuffer> chunks(byte[] json) {
+        int count = (json.length + RESPONSE_CHUNK_BYTES - 1) / RESPONSE_CHUNK_BYTES;
+        return Flux.range(0, count).map(i -> {
+            int offset = i * RESPONSE_CHUNK_BYTES;
+            int length = Math.min(RESPONSE_CHUNK_BYTES, json.length - offset);
+            return DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(json, offset, length));
+        });
+    }
+
+    private Mono<ServerResponse> errorResponse(Throwable error) {
+        Throwable cause = error instanceof UncheckedJsonException ? error.getCause() : error;
+        ConversionLimitExceededException limit = ConversionLimitExceededException.causedBy(cause);
+        if (limit != null) {
+            return plainText(HttpStatus.UNPROCESSABLE_ENTITY, limit.getMessage());
+        }
+        if (cause instanceof DataBufferLimitException) {
+            return plainText(HttpStatus.PAYLOAD_TOO_LARGE, cause.getMessage());
+        } else if (cause instanceof RejectedExecutionException) {
+            return plainText(HttpStatus.SERVICE_UNAVAILABLE, "Conversion capacity exhausted, retry later");
+        } else if (cause instanceof InvalidCollectionException) {
+            return ServerResponse.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(((InvalidCollectionException) cause).getReport());
+        } else if (cause instanceof IllegalArgumentException) {
+            return plainText(HttpStatus.BAD_REQUEST, cause.getMessage());
+        } else if (cause instanceof JsonProcessingException) {
+            return plainText(HttpStatus.BAD_REQUEST, "Error processing JSON: " + cause.getMessage());
+        } else if (cause instanceof IOException) {
+            return plainText(HttpStatus.BAD_REQUEST, "Error reading input: " + cause.getMessage());
+        }
+        log.error("Reactive conversion failed", cause);
+        return plainText(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred: " + cause.getMessage());
+    }
+
+    private Mono<ServerResponse> plainText(HttpStatus status, String message) {
+        return ServerResponse.status(status).contentType(MediaType.TEXT_PLAIN).bodyValue(message);
+    }
+
+    private static final class UncheckedJsonException extends RuntimeException {
+        private UncheckedJsonException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.building.apicentral.controller;
+
+import com.building.apicentral.service.BodySchemaMemo;
+import com.building.apicentral.service.PostmanToSwaggerService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Hit rate and size of the body schema memo shared by all conversions, counted since the
+ * start of the instance. Unlike recordings, always available.
+ */
+@RestController
+@RequestMapping("/api/diagnostics")
+public class SchemaMemoController {
+
+    private final PostmanToSwaggerService postmanToSwaggerService;
+
+    public SchemaMemoController(PostmanToSwaggerService postmanToSwaggerService) {
+        this.postmanToSwaggerService = postmanToSwaggerService;
+    }
+
+    @GetMapping(value = "/schema-memo", produces = MediaType.APPLICATION_JSON_VALUE)
+    public BodySchemaMemo.Stats schemaMemo() {
+        return postmanToSwaggerService.schemaMemoStats();
+    }
+}
@@ -0,0 +1,44 @@
+package com.building.apicentral.controller;
+
+import com.building.apicentral.service.SpecArchive;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Storage ratio and throughput of the spec archive. Sizes cover everything on disk; counts of
+ * writes, reads and their throughput are since the start of the instance.
+ */
+@RestController
+@RequestMapping("/api/diagnostics")
+public class SpecArchiveController {
+
+    private final SpecArchive specArchive;
+
+    public SpecArchiveController(SpecArchive specArchive) {
+        this.specArchive = specArchive;
+    }
+
+    @GetMapping(value = "/archive", produces = MediaType.APPLICATION_JSON_VALUE)
+    public SpecArchive.Stats archive() {
+        return specArchive.stats();
+    }
+
+    /**
+     * Trains a new compression dictionary on the archived chunks, for chunks written from now
+     * on. Answers 409 when the archive is disabled, holds too little, or is already training.
+     */
+    @PostMapping(value = "/archive/dictionary", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SpecArchive.Stats> trainDictionary() throws IOException {
+        if (!specArchive.train()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(specArchive.stats());
+        }
+        return ResponseEntity.ok(specArchive.stats());
+    }
+}
@@ -0,0 +1,122 @@
+package com.building.apicentral.controller;
+
+import com.building.apicentral.config.OutputProperties;
+import com.building.apicentral.service.ConversionResultStore;
+import com.building.apicentral.service.SpecDiff;
+import com.building.apicentral.service.SpecRenderer;
+import com.building.apicentral.service.StoredSpec;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sections of a spec stored by {@link ConversionController#convertToSections}: the head with
+ * info, tags and security definitions, cursor-paginated paths, single definitions, and the
+ * diff against another stored spec. A spec id is a digest of its content, so every section is
+ * immutable and cacheable; an unknown id (never stored, or evicted and not archived) answers
+ * 404 and the client converts again.
+ */
+@RestController
+@RequestMapping("/api/specs")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = HttpHeaders.ETAG)
+public class SpecSectionController {
+
+    private final ConversionResultStore resultStore;
+    private final OutputProperties outputProperties;
+
+    public SpecSectionController(ConversionResultStore resultStore, OutputProperties outputProperties) {
+        this.resultStore = resultStore;
+        this.outputProperties = outputProperties;
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> head(@PathVariable String id,
+                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        StoredSpec spec = resultStore.get(id);
+        if (spec == null) {
+            return notFound(id);
+        }
+        return section(spec.getHead(), spec.getHeadETag(), ifNoneMatch);
+    }
+
+    @GetMapping(value = "/{id}/paths", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> paths(@PathVariable String id,
+                                   @RequestParam(value = "cursor", required = false) String cursor,
+                                   @RequestParam(value = "limit", required = false) Integer limit,
+                                   @RequestParam(value = "tag", required = false) String tag,
+                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        StoredSpec spec = resultStore.get(id);
+        if (spec == null) {
+            return notFound(id);
+        }
+        int pageSize = limit != null ? limit : outputProperties.getPageSize();
+        if (pageSize < 1 || pageSize > outputProperties.getMaxPageSize()) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + outputProperties.getMaxPageSize());
+        }
+        try {
+            byte[] page = spec.pathPage(cursor, pageSize, tag);
+            return section(page, SpecRenderer.strongETag(page), ifNoneMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/{id}/definitions/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> definition(@PathVariable String id, @PathVariable String name,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        StoredSpec spec = resultStore.get(id);
+        if (spec == null) {
+            return notFound(id);
+        }
+        byte[] definition = spec.getDefinition(name);
+        if (definition == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No definition named " + name);
+        }
+        return section(definition, SpecRenderer.strongETag(definition), ifNoneMatch);
+    }
+
+    /**
+     * Operations and definitions added, removed or changed from spec {@code id} to spec
+     * {@code otherId}, for reviewing a re-uploaded collection. Both ids name content, so the
+     * diff never changes either.
+     */
+    @GetMapping(value = "/{id}/diff/{otherId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> diff(@PathVariable String id, @PathVariable String otherId) {
+        SpecDiff diff = resultStore.diff(id, otherId);
+        if (diff == null) {
+            return notFound(resultStore.get(id) == null ? id : otherId);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(outputProperties.getSectionMaxAgeSeconds(), TimeUnit.SECONDS).cachePublic())
+                .body(diff);
+    }
+
+    private ResponseEntity<?> section(byte[] json, String eTag, String ifNoneMatch) {
+        CacheControl cacheControl = CacheControl.maxAge(outputProperties.getSectionMaxAgeSeconds(), TimeUnit.SECONDS).cachePublic();
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+
+    private ResponseEntity<?> notFound(String id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .cacheControl(CacheControl.noStore())
+                .body("No stored spec " + id + "; convert it again");
+    }
+}
@@ -2,10 +2,12 @@ package com.building.apicentral.model;
 
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
 
 import javax.management.ObjectName;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,34 +53,64 @@ public class PostmanCollection {
         }
     }
 
+    /**
+     * One node of the item tree, a folder or a request. A collection holds one per request, so
+     * nothing is allocated for fields the JSON leaves out: nested objects and lists stay null
+     * until bound, and text fields default to the shared empty string.
+     */
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Item {
-        private Object name = "";
+        @JsonDeserialize(using = TextDeserializer.class)
+        private String name = "";
         private Object description = "";
-        private List<Item> item = new ArrayList<>();
-        private Request request = new Request();
-        private List<Response> response = new ArrayList<>();
-        private List<String> tags = new ArrayList<>();
+        private List<Item> item;
+        private Request request;
+        private List<Response> response;
+        private List<String> tags;
+
+        public void setItem(List<Item> item) {
+            this.item = compact(item);
+        }
+
+        public void setResponse(List<Response> response) {
+            this.response = compact(response);
+        }
 
         @Data
         @JsonIgnoreProperties(ignoreUnknown = true)
         public static class Request {
-            private Object method = "";
-            private List<Header> header = new ArrayList<>();
-            private Body body = new Body();
-            private UrlObject url = new UrlObject();
-            private Auth auth = new Auth();
+            @JsonDeserialize(using = TextDeserializer.class)
+            private String method = "";
+            private List<Header> header;
+            private Body body;
+            private UrlObject url;
+            private Auth auth;
             private Object description = "";
             private String originalRequest;
-            private List<Parameter> parameters = new ArrayList<>();
+            private List<Parameter> parameters;
+
+            public void setHeader(List<Header> header) {
+                this.header = compact(header);
+            }
 
             @Data
             @JsonIgnoreProperties(ignoreUnknown = true)
             public static class Auth {
                 private String type = "";
+                private Map<String, Object> authDetails;
+
                 @JsonAnySetter
-                private Map<String, Object> authDetails = new HashMap<>();
+                public void setAuthDetail(String key, Object value) {
+                    if (authDetails == null) {
+                        authDetails = new HashMap<>();
+                    }
+                    authDetails.put(key, value);
+                }
+
+                public Map<String, Object> getAuthDetails() {
+                    return authDetails != null ? authDetails : Collections.emptyMap();
+                }
             }
 
             @Data
@@ -104,17 +136,34 @@ public class PostmanCollection {
         @Data
         @JsonIgnoreProperties(ignoreUnknown = true)
         public static class UrlObject {
-            private Object raw = "";
+            @JsonDeserialize(using = TextDeserializer.class)
+            private String raw = "";
             private String protocol = "";
-            private List<String> host = new ArrayList<>();
-            private List<String> path = new ArrayList<>();
-            private List<Query> query = new ArrayList<>();
+            @JsonDeserialize(contentUsing = TextDeserializer.class)
+            private List<String> host;
+            @JsonDeserialize(contentUsing = TextDeserializer.class)
+            private List<String> path;
+            private List<Query> query;
             private String port;
 
+            public void setHost(List<String> host) {
+                this.host = compact(host);
+            }
+
+            public void setPath(List<String> path) {
+                this.path = compact(path);
+            }
+
+            public void setQuery(List<Query> query) {
+                this.query = compact(query);
+            }
+
             @Data
             @JsonIgnoreProperties(ignoreUnknown = true)
             public static class Query {
-                private Object key = "";
+                @JsonDeserialize(using = TextDeserializer.class)
+                private String key = "";
+                @JsonDeserialize(using = TextDeserializer.class)
                 private String value = "";
             }
         }
@@ -122,28 +171,39 @@ public class PostmanCollection {
         @Data
         @JsonIgnoreProperties(ignoreUnknown = true)
         public static class Response {
-            private Object name = "";
+            @JsonDeserialize(using = TextDeserializer.class)
+            private String name = "";
             private Integer code;
             private Object description = "";
-            private Object body = "";
-            private List<Header> header = new ArrayList<>();
+            @JsonDeserialize(using = TextDeserializer.class)
+            private String body = "";
+            private List<Header> header;
+            @JsonDeserialize(using = TextDeserializer.class)
             private String status;
             private String _postman_previewlanguage;
             private Object originalRequest;
-            private List<Cookie> cookie = new ArrayList<>();
+            private List<Cookie> cookie;
+
+            public void setHeader(List<Header> header) {
+                this.header = compact(header);
+            }
 
             @Data
             @JsonIgnoreProperties(ignoreUnknown = true)
             public static class Header {
-                private Object key = "";
-                private Object value = "";
-                private Object type = "";
+                @JsonDeserialize(using = TextDeserializer.class)
+                private String key = "";
+                @JsonDeserialize(using = TextDeserializer.class)
+                private String value = "";
+                @JsonDeserialize(using = TextDeserializer.class)
+                private String type = "";
             }
 
             @Data
             @JsonIgnoreProperties(ignoreUnknown = true)
             public static class Cookie {
-                private Object key = "";
+                @JsonDeserialize(using = TextDeserializer.class)
+                private String key = "";
                 private String value = "";
                 private Object domain = "";
                 private Object path = "";
@@ -161,16 +221,21 @@ public class PostmanCollection {
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Header {
-        private Object key = "";
+        @JsonDeserialize(using = TextDeserializer.class)
+        private String key = "";
+        @JsonDeserialize(using = TextDeserializer.class)
         private String value = "";
+        @JsonDeserialize(using = TextDeserializer.class)
         private String type = "";
     }
 
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Body {
-        private Object mode = "";
-        private Object raw = "";
+        @JsonDeserialize(using = TextDeserializer.class)
+        private String mode = "";
+        @JsonDeserialize(using = TextDeserializer.class)
+        private String raw = "";
         private Object language = "";
     }
 
@@ -191,7 +256,8 @@ public class PostmanCollection {
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Variable {
-        private Object key = "";
+        @JsonDeserialize(using = TextDeserializer.class)
+        private String key = "";
         private String value = "";
         private String type = "";
     }
@@ -216,4 +282,12 @@ public class PostmanCollection {
         private String name;
         private String description;
     }
+
+    // Bound lists keep the default capacity of ten, where most item lists hold one or two elements
+    private static <T> List<T> compact(List<T> list) {
+        if (list instanceof ArrayList) {
+            ((ArrayList<T>) list).trimToSize();
+        }
+        return list;
+    }
 }
@@ -1,6 +1,7 @@
 package com.building.apicentral.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import java.io.File;
 import java.io.InputStream;
@@ -146,6 +147,11 @@ public class SwaggerDefinition {
 
         @JsonInclude(JsonInclude.Include.NON_EMPTY)
         private List<Map<String, List<String>>> security = new ArrayList<>();
+
+        // Examples left out because the conversion's example budget ran out
+        @JsonProperty("x-examples-omitted")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Integer examplesOmitted;
     }
 
     // Method to add a consume type
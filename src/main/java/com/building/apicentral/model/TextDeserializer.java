@@ -0,0 +1,65 @@
+package com.building.apicentral.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binds a Postman field that is text in practice but not guaranteed to be: numbers and
+ * booleans become their text, and objects or arrays their {@code toString()} as an untyped
+ * binding would give. Strings, the usual case, are taken as they are without boxing.
+ * <p>
+ * Collections repeat the same short values on every request (methods, header names, host
+ * variables, path segments), so within one bind each distinct short value is kept once.
+ */
+public class TextDeserializer extends StdScalarDeserializer<String> {
+
+    private static final Object SHARED_VALUES = TextDeserializer.class;
+    private static final int MAX_SHARED_LENGTH = 64;
+    private static final int MAX_SHARED_VALUES = 16_384;
+
+    public TextDeserializer() {
+        super(String.class);
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_STRING:
+            case VALUE_NUMBER_INT:
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return share(parser.getText(), context);
+            case VALUE_NUMBER_FLOAT:
+                return String.valueOf(parser.getDoubleValue());
+            default:
+                Object value = context.readValue(parser, Object.class);
+                return value != null ? value.toString() : null;
+        }
+    }
+
+    // Attributes set on the context live for a single readValue call
+    @SuppressWarnings("unchecked")
+    private static String share(String text, DeserializationContext context) {
+        if (text.length() > MAX_SHARED_LENGTH) {
+            return text;
+        }
+        Map<String, String> shared = (Map<String, String>) context.getAttribute(SHARED_VALUES);
+        if (shared == null) {
+            shared = new HashMap<>();
+            context.setAttribute(SHARED_VALUES, shared);
+        }
+        String existing = shared.get(text);
+        if (existing != null) {
+            return existing;
+        }
+        if (shared.size() < MAX_SHARED_VALUES) {
+            shared.put(text, text);
+        }
+        return text;
+    }
+}
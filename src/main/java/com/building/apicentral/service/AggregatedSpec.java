@@ -0,0 +1,29 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.SwaggerDefinition;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of a {@link SpecAggregator} run: the consolidated spec plus every operation that
+ * could not be placed because another service already had the same path and method.
+ */
+@Value
+public class AggregatedSpec {
+
+    SwaggerDefinition spec;
+    int services;
+    // Definitions that were left out because an identical one was already merged
+    int definitionsDeduplicated;
+    List<Conflict> conflicts;
+
+    @Value
+    public static class Conflict {
+        String path;
+        String method;
+        // The service whose operation was kept; conflicts resolve by service name, so runs are repeatable
+        String keptService;
+        String droppedService;
+    }
+}
@@ -0,0 +1,125 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.PostmanCollection;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+
+/**
+ * Reads a Postman collection from a stream of body chunks without blocking. Each chunk is
+ * handed to Jackson's non-blocking parser as it arrives and the resulting tokens are kept
+ * in a {@link TokenBuffer}, so no thread waits on a slow client. Binding the buffered
+ * tokens is CPU work and is left to the caller's scheduler.
+ */
+@Service
+public class AsyncPostmanCollectionReader {
+
+    private final ObjectMapper objectMapper;
+
+    public AsyncPostmanCollectionReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public Mono<TokenBuffer> tokenize(Flux<DataBuffer> body, long maxBytes) {
+        return tokenize(body, maxBytes, null);
+    }
+
+    /**
+     * Like {@link #tokenize(Flux, long)}, also feeding every byte read into {@code digest}, so the
+     * upload can be keyed like one read whole.
+     */
+    public Mono<TokenBuffer> tokenize(Flux<DataBuffer> body, long maxBytes, MessageDigest digest) {
+        return Mono.using(
+                () -> new Tokenizer(maxBytes, digest),
+                tokenizer -> body
+                        .<DataBuffer>handle((buffer, sink) -> {
+                            try {
+                                tokenizer.feed(buffer);
+                            } catch (IOException e) {
+                                sink.error(e);
+                            }
+                        })
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                        .then(Mono.fromCallable(tokenizer::finish)),
+                Tokenizer::close);
+    }
+
+    public PostmanCollection bind(TokenBuffer tokens) throws IOException {
+        try (JsonParser parser = tokens.asParser(objectMapper)) {
+            return objectMapper.readValue(parser, PostmanCollection.class);
+        }
+    }
+
+    private final class Tokenizer {
+
+        private final long maxBytes;
+        private final MessageDigest digest;
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final TokenBuffer tokens;
+        private long bytesRead;
+
+        private Tokenizer(long maxBytes, MessageDigest digest) throws IOException {
+            this.maxBytes = maxBytes;
+            this.digest = digest;
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            this.tokens = new TokenBuffer(parser);
+        }
+
+        private void feed(DataBuffer buffer) throws IOException {
+            try {
+                int length = buffer.readableByteCount();
+                bytesRead += length;
+                if (bytesRead > maxBytes) {
+                    throw new DataBufferLimitException("Request body exceeds the limit of " + maxBytes + " bytes");
+                }
+                byte[] chunk = new byte[length];
+                buffer.read(chunk);
+                if (digest != null) {
+                    digest.update(chunk);
+                }
+                feeder.feedInput(chunk, 0, length);
+                drain();
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        private TokenBuffer finish() throws IOException {
+            feeder.endOfInput();
+            drain();
+            if (tokens.firstToken() == null) {
+                throw new IllegalArgumentException("No valid input provided");
+            }
+            return tokens;
+        }
+
+        // Copies every token that is complete so far; NOT_AVAILABLE means the parser needs the next chunk
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                tokens.copyCurrentEvent(parser);
+            }
+        }
+
+        private void close() {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.building.apicentral.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Parsing and schema inference of one request or response body. Only inferences that take
+ * longer than the threshold are recorded; recordings started through the diagnostics endpoint
+ * use {@code apicentral.diagnostics.inference-threshold-ms} instead of the default below.
+ */
+@Name("apicentral.BodyInference")
+@Label("Body Inference")
+@Category("API Central")
+@Description("Schema inference for a request or response body")
+@Threshold("20 ms")
+@StackTrace(false)
+class BodyInferenceEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Source")
+    @Description("request or response")
+    String source;
+
+    @Label("Body Characters")
+    long bodyChars;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Memo Hit")
+    @Description("The schema was known from an earlier identical body, which was not parsed again")
+    boolean memoHit;
+}
@@ -0,0 +1,134 @@
+package com.building.apicentral.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * What schema inference needs from one example body, without the body itself: per node its
+ * type, format and example value, the fields of objects in document order and the first
+ * element of arrays. Built once per distinct body and never modified afterwards, so one
+ * instance serves any number of conversions through {@link BodySchemaMemo}.
+ */
+final class BodySchema {
+
+    final String type;
+    final String format;
+    // Text, number or boolean of a scalar node; null for the others
+    final Object example;
+    // Object fields, index for index
+    final String[] names;
+    final BodySchema[] fields;
+    // Arrays: the type and format of their first element, or its schema and definition name when it is an object
+    final String itemType;
+    final String itemFormat;
+    final String itemDefinition;
+    BodySchema item;
+    // Nodes in the tree below and including this one; only counted at the root
+    long nodes;
+
+    private BodySchema(JsonNode node) {
+        String type = "string";
+        String format = null;
+        Object example = null;
+        String[] names = null;
+        BodySchema[] fields = null;
+        String itemType = null;
+        String itemFormat = null;
+        String itemDefinition = null;
+        if (node.isTextual()) {
+            format = format(node);
+            example = node.textValue();
+        } else if (node.isNumber()) {
+            type = node.isIntegralNumber() ? "integer" : "number";
+            format = format(node);
+            example = node.numberValue();
+        } else if (node.isBoolean()) {
+            type = "boolean";
+            example = node.booleanValue();
+        } else if (node.isArray()) {
+            type = "array";
+            if (node.size() > 0) {
+                JsonNode first = node.get(0);
+                if (first.isObject()) {
+                    itemType = "object";
+                    itemDefinition = "Definition" + Math.abs(first.hashCode());
+                } else {
+                    itemType = type(first);
+                    itemFormat = format(first);
+                }
+            }
+        } else if (node.isObject()) {
+            type = "object";
+            names = new String[node.size()];
+            fields = new BodySchema[node.size()];
+        }
+        this.type = type;
+        this.format = format;
+        this.example = example;
+        this.names = names;
+        this.fields = fields;
+        this.itemType = itemType;
+        this.itemFormat = itemFormat;
+        this.itemDefinition = itemDefinition;
+    }
+
+    /**
+     * The schema of a parsed body. Nested bodies are walked with an explicit stack; depth and
+     * node limits apply when a conversion reads the schema, as they did for the body.
+     */
+    static BodySchema of(JsonNode body) {
+        BodySchema root = new BodySchema(body);
+        Deque<BodySchema> schemas = new ArrayDeque<>();
+        Deque<JsonNode> nodes = new ArrayDeque<>();
+        schemas.push(root);
+        nodes.push(body);
+        long count = 0;
+        while (!schemas.isEmpty()) {
+            BodySchema schema = schemas.pop();
+            JsonNode node = nodes.pop();
+            count++;
+            if (schema.fields != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                for (int i = 0; fields.hasNext(); i++) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    schema.names[i] = field.getKey();
+                    schema.fields[i] = new BodySchema(field.getValue());
+                    schemas.push(schema.fields[i]);
+                    nodes.push(field.getValue());
+                }
+            } else if (schema.itemDefinition != null) {
+                schema.item = new BodySchema(node.get(0));
+                schemas.push(schema.item);
+                nodes.push(node.get(0));
+            }
+        }
+        root.nodes = count;
+        return root;
+    }
+
+    static String type(JsonNode node) {
+        if (node.isTextual()) return "string";
+        if (node.isIntegralNumber()) return "integer";
+        if (node.isNumber()) return "number";
+        if (node.isBoolean()) return "boolean";
+        if (node.isObject()) return "object";
+        if (node.isArray()) return "array";
+        return "string"; // default to string for other types
+    }
+
+    // Integers by the range they need, and float only for values a float holds exactly
+    static String format(JsonNode node) {
+        if (node.isTextual()) return StringFormatDetector.detect(node.textValue());
+        if (node.isInt() || node.isShort()) return "int32";
+        if (node.isLong()) return "int64";
+        if (node.isFloatingPointNumber()) {
+            double value = node.doubleValue();
+            return (double) (float) value == value ? "float" : "double";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.building.apicentral.service;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Inferred {@link BodySchema}s of recently seen example bodies, shared by all conversions of
+ * the process. Collections of one organization repeat the same bodies over and over, so a
+ * body whose content hash is known skips parsing and is only read back from its schema. The
+ * memo is an LRU bounded both by entry count and by the total length of the bodies behind the
+ * entries, which is about what their example values retain. Being an LRU, it misses every
+ * lookup once a collection cycles through more distinct bodies than it holds: each body is
+ * evicted before its turn comes round again.
+ */
+public class BodySchemaMemo {
+
+    private final int maxEntries;
+    private final long maxChars;
+    private final LinkedHashMap<String, Entry> schemas = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalChars;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BodySchemaMemo(int maxEntries, long maxChars) {
+        this.maxEntries = maxEntries;
+        this.maxChars = maxChars;
+    }
+
+    // A memo without entries is switched off; bodies are then neither hashed nor counted
+    boolean isEnabled() {
+        return maxEntries > 0 && maxChars > 0;
+    }
+
+    /**
+     * Key of {@code body} read as a {@code source} body; request and response bodies are
+     * prepared differently before parsing, so they never share an entry.
+     */
+    static String key(String source, String body) {
+        MessageDigest digest = sha256();
+        digest.update(source.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(body.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    }
+
+    /**
+     * The schema stored under {@code key}, or null; either way counted as a hit or a miss.
+     */
+    synchronized BodySchema get(String key) {
+        Entry entry = schemas.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.schema;
+    }
+
+    // A body longer than the whole budget is not kept
+    synchronized void put(String key, BodySchema schema, long bodyChars) {
+        if (bodyChars > maxChars) {
+            return;
+        }
+        Entry previous = schemas.put(key, new Entry(schema, bodyChars));
+        if (previous != null) {
+            totalChars -= previous.chars;
+        }
+        totalChars += bodyChars;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Entry> oldest = schemas.values().iterator();
+        while (schemas.size() > maxEntries || totalChars > maxChars) {
+            totalChars -= oldest.next().chars;
+            oldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, schemas.size(), totalChars);
+    }
+
+    public synchronized void clear() {
+        schemas.clear();
+        totalChars = 0;
+    }
+
+    private static final class Entry {
+        private final BodySchema schema;
+        private final long chars;
+
+        private Entry(BodySchema schema, long chars) {
+            this.schema = schema;
+            this.chars = chars;
+        }
+    }
+
+    @Value
+    public static class Stats {
+        long hits;
+        long misses;
+        long evictions;
+        int entries;
+        long bodyChars;
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.building.apicentral.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Selection for a partial conversion. Each non-empty criterion must match:
+ * <ul>
+ *     <li>folders: a folder name, matched at any depth, or a slash-separated path from the
+ *     collection root such as {@code Orders/Payments}; everything below a selected folder is kept</li>
+ *     <li>tags: names of top-level items, which become the document's tags</li>
+ *     <li>methods: HTTP methods, case-insensitive</li>
+ *     <li>path prefixes: prefixes of the converted path, folder names included</li>
+ * </ul>
+ */
+public final class CollectionFilter {
+
+    private static final CollectionFilter NONE = new CollectionFilter(null, null, null, null);
+
+    private final List<String> folders;
+    private final List<String> tags;
+    private final List<String> methods;
+    private final List<String> pathPrefixes;
+
+    private CollectionFilter(Collection<String> folders, Collection<String> tags,
+                             Collection<String> methods, Collection<String> pathPrefixes) {
+        this.folders = normalize(folders, false);
+        this.tags = normalize(tags, false);
+        this.methods = normalize(methods, true);
+        this.pathPrefixes = normalize(pathPrefixes, false);
+    }
+
+    public static CollectionFilter none() {
+        return NONE;
+    }
+
+    public static CollectionFilter of(Collection<String> folders, Collection<String> tags,
+                                      Collection<String> methods, Collection<String> pathPrefixes) {
+        return new CollectionFilter(folders, tags, methods, pathPrefixes);
+    }
+
+    public boolean isEmpty() {
+        return folders.isEmpty() && tags.isEmpty() && methods.isEmpty() && pathPrefixes.isEmpty();
+    }
+
+    /**
+     * How to treat a folder. {@code folderPath} is the slash-separated chain of folder names from
+     * the root, {@code convertedPath} the path prefix the folder contributes to its operations.
+     */
+    Selection folder(String name, String folderPath, String convertedPath, int depth, boolean ancestorSelected) {
+        if (depth == 1 && !tags.isEmpty() && !tags.contains(name)) {
+            return Selection.SKIP;
+        }
+        if (!pathPrefixes.isEmpty() && !mayContain(convertedPath)) {
+            return Selection.SKIP;
+        }
+        if (folders.isEmpty() || ancestorSelected) {
+            return Selection.SELECTED;
+        }
+        boolean nameOnly = false;
+        for (String folder : folders) {
+            if (folder.equals(name) || folder.equals(folderPath)) {
+                return Selection.SELECTED;
+            }
+            if (folder.indexOf('/') < 0) {
+                nameOnly = true;
+            } else if (folder.startsWith(folderPath + "/")) {
+                return Selection.DESCEND;
+            }
+        }
+        // A folder selected by name alone may still appear further down
+        return nameOnly ? Selection.DESCEND : Selection.SKIP;
+    }
+
+    /**
+     * Whether a request is kept. {@code folderSelected} is false for requests outside any
+     * selected folder, including top-level requests when folders are being filtered.
+     */
+    boolean request(String name, String method, String convertedPath, int depth, boolean folderSelected) {
+        if (!folders.isEmpty() && !folderSelected) {
+            return false;
+        }
+        if (depth == 1 && !tags.isEmpty() && !tags.contains(name)) {
+            return false;
+        }
+        if (!methods.isEmpty() && (method == null || !methods.contains(method.toUpperCase(Locale.ROOT)))) {
+            return false;
+        }
+        if (!pathPrefixes.isEmpty()) {
+            for (String prefix : pathPrefixes) {
+                if (convertedPath.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // Either a selected prefix lies below this folder, or the folder lies below a prefix
+    private boolean mayContain(String convertedPath) {
+        for (String prefix : pathPrefixes) {
+            if (prefix.startsWith(convertedPath) || convertedPath.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stable description of the selection, part of the cache key of a filtered conversion.
+     */
+    public String cacheKey() {
+        return "folders=" + folders + ";tags=" + tags + ";methods=" + methods + ";paths=" + pathPrefixes;
+    }
+
+    @Override
+    public String toString() {
+        return cacheKey();
+    }
+
+    private static List<String> normalize(Collection<String> values, boolean upperCase) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        TreeSet<String> normalized = new TreeSet<>();
+        for (String value : values) {
+            if (value != null && !value.trim().isEmpty()) {
+                String trimmed = value.trim();
+                normalized.add(upperCase ? trimmed.toUpperCase(Locale.ROOT) : trimmed);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(normalized));
+    }
+
+    enum Selection {
+        SKIP,
+        DESCEND,
+        SELECTED
+    }
+}
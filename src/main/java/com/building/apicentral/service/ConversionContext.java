@@ -0,0 +1,170 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+
+/**
+ * Per-conversion state: the resolved {@link ConversionProfile} and the bookkeeping for the
+ * traversal limits. Every folder, request and body node visited by
+ * {@link PostmanToSwaggerService} is reported through {@link #visit(int)}, which aborts the
+ * conversion once a limit is exceeded. The clock and the allocation budget are checked every
+ * {@value #CHECKPOINT_INTERVAL} nodes; a conversion runs on one thread, so that thread's
+ * allocation counter measures the conversion. Checkpoints also feed the conversion's
+ * {@link ConversionProgress}, if it has one.
+ */
+public class ConversionContext {
+
+    private static final int CHECKPOINT_INTERVAL = 256;
+
+    private final ConversionOptions options;
+    private final ConversionProgress progress;
+    private final ConversionProfile profile;
+    private final ExampleBudget exampleBudget;
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxDurationMs;
+    private final long maxAllocatedBytes;
+    // Allocation counter of the converting thread at the start, -1 when the JVM cannot count
+    private final long allocatedAtStart;
+    private final long startNanos;
+    private final long deadlineNanos;
+    private long visitedNodes;
+    private long visitedItems;
+    private long inferenceNanos;
+    private long schemaMemoHits;
+    private String currentOperation;
+    private String currentFolder;
+
+    public ConversionContext(ConversionProperties properties, ConversionOptions options) {
+        this.options = options;
+        this.progress = options.getProgress();
+        this.profile = options.getProfile() != null ? options.getProfile() : properties.getProfile();
+        this.exampleBudget = new ExampleBudget(properties);
+        this.maxDepth = properties.getMaxDepth();
+        this.maxNodes = properties.getMaxNodes();
+        this.maxDurationMs = properties.getMaxDurationMs();
+        this.maxAllocatedBytes = properties.getMaxAllocatedBytes();
+        this.allocatedAtStart = ThreadAllocation.current();
+        this.startNanos = System.nanoTime();
+        this.deadlineNanos = startNanos + maxDurationMs * 1_000_000L;
+    }
+
+    public void visit(int depth) {
+        if (depth > maxDepth) {
+            throw new ConversionLimitExceededException("depth",
+                    "Conversion aborted: nesting depth " + depth + " exceeds the limit of " + maxDepth);
+        }
+        visitedNodes++;
+        if (visitedNodes > maxNodes) {
+            throw new ConversionLimitExceededException("nodes",
+                    "Conversion aborted: more than " + maxNodes + " folders, requests and body nodes");
+        }
+        if (visitedNodes % CHECKPOINT_INTERVAL == 0) {
+            long now = System.nanoTime();
+            if (now - deadlineNanos > 0) {
+                throw new ConversionLimitExceededException("duration",
+                        "Conversion aborted: exceeded the time limit of " + maxDurationMs + " ms after "
+                                + visitedNodes + " nodes");
+            }
+            checkAllocation();
+            if (progress != null) {
+                progress.items(visitedItems, currentFolder, now);
+            }
+        }
+    }
+
+    private void checkAllocation() {
+        if (allocatedAtStart < 0) {
+            return;
+        }
+        long allocated = ThreadAllocation.current() - allocatedAtStart;
+        if (allocated > maxAllocatedBytes) {
+            throw new ConversionLimitExceededException("allocation",
+                    "Conversion aborted: allocated " + allocated / (1024 * 1024) + " MiB, over the budget of "
+                            + maxAllocatedBytes / (1024 * 1024) + " MiB, after " + visitedNodes + " nodes");
+        }
+    }
+
+    /**
+     * Like {@link #visit(int)}, for a folder or request inside {@code folder}.
+     */
+    public void visitItem(int depth, String folder) {
+        currentFolder = folder;
+        visit(depth);
+        visitedItems++;
+    }
+
+    void startOperation(String name) {
+        currentOperation = name;
+        exampleBudget.startOperation();
+    }
+
+    Inference beginInference() {
+        return new Inference(System.nanoTime(), visitedNodes, schemaMemoHits, FlightRecorderEvents.beginInference());
+    }
+
+    void endInference(Inference inference, String source, long bodyChars) {
+        boolean commit = FlightRecorderEvents.endInference(inference.event);
+        inferenceNanos += System.nanoTime() - inference.startNanos;
+        // Parsing a large body allocates before any of its nodes are visited
+        checkAllocation();
+        if (commit) {
+            FlightRecorderEvents.commitInference(inference.event, currentOperation, source, bodyChars,
+                    visitedNodes - inference.startNodes, schemaMemoHits > inference.startMemoHits);
+        }
+    }
+
+    // A body's schema came from the BodySchemaMemo instead of being parsed
+    void schemaMemoHit() {
+        schemaMemoHits++;
+    }
+
+    public ConversionOptions getOptions() {
+        return options;
+    }
+
+    public ConversionProfile getProfile() {
+        return profile;
+    }
+
+    ExampleBudget getExampleBudget() {
+        return exampleBudget;
+    }
+
+    public long getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    public long getVisitedItems() {
+        return visitedItems;
+    }
+
+    public long getInferenceNanos() {
+        return inferenceNanos;
+    }
+
+    public long getSchemaMemoHits() {
+        return schemaMemoHits;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Where a body inference started, for its {@link BodyInferenceEvent}; the event is null
+     * without Flight Recorder.
+     */
+    static final class Inference {
+        private final long startNanos;
+        private final long startNodes;
+        private final long startMemoHits;
+        private final Object event;
+
+        private Inference(long startNanos, long startNodes, long startMemoHits, Object event) {
+            this.startNanos = startNanos;
+            this.startNodes = startNodes;
+            this.startMemoHits = startMemoHits;
+            this.event = event;
+        }
+    }
+}
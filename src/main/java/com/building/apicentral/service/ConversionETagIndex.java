@@ -0,0 +1,36 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.OutputProperties;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU map from an input key (see {@link SpecRenderer#inputKey}) to the ETag its
+ * conversion produced. A client revalidating with a known ETag gets its 304 without the
+ * upload being parsed, converted or rendered again.
+ */
+@Service
+public class ConversionETagIndex {
+
+    private final Map<String, String> eTags;
+
+    public ConversionETagIndex(OutputProperties outputProperties) {
+        int capacity = outputProperties.getEtagIndexSize();
+        this.eTags = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized String get(String inputKey) {
+        return eTags.get(inputKey);
+    }
+
+    public synchronized void put(String inputKey, String eTag) {
+        eTags.put(inputKey, eTag);
+    }
+}
@@ -0,0 +1,73 @@
+package com.building.apicentral.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One conversion request, from validation to the rendered document. Filled in by
+ * {@link ConversionTrace}.
+ */
+@Name("apicentral.Conversion")
+@Label("Conversion")
+@Category("API Central")
+@Description("A Postman collection converted to Swagger")
+@StackTrace(false)
+class ConversionEvent extends jdk.jfr.Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Collection Id")
+    String collectionId;
+
+    @Label("Collection Name")
+    String collectionName;
+
+    @Label("Profile")
+    String profile;
+
+    @Label("Items")
+    @Description("Folders and requests")
+    long items;
+
+    @Label("Input Size")
+    @DataAmount
+    long inputBytes;
+
+    @Label("Validation")
+    @Timespan
+    long validateNanos;
+
+    @Label("Binding")
+    @Timespan
+    long bindNanos;
+
+    @Label("Conversion")
+    @Timespan
+    long convertNanos;
+
+    @Label("Body Inference")
+    @Description("Part of the conversion spent parsing bodies and inferring their schemas")
+    @Timespan
+    long inferenceNanos;
+
+    @Label("Schema Memo Hits")
+    @Description("Bodies whose schema was taken from the memo instead of being inferred")
+    long schemaMemoHits;
+
+    @Label("Rendering")
+    @Timespan
+    long renderNanos;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,33 @@
+package com.building.apicentral.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * A conversion handed from an API node to a worker through a {@link ConversionQueue}. The
+ * collection has been validated before it is queued.
+ */
+@Data
+public class ConversionJob {
+
+    private String id;
+    private String pinnedVersion;
+    private String profile;
+    private boolean canonical = true;
+
+    @JsonIgnore
+    private byte[] input;
+
+    // Set by the queue on claim; identifies the lease when the worker reports back
+    @JsonIgnore
+    private String claim;
+
+    /**
+     * Ids sort in submission order, which is the order jobs are claimed in.
+     */
+    static String newId() {
+        return String.format("%013d-%s", System.currentTimeMillis(), UUID.randomUUID().toString().substring(0, 8));
+    }
+}
@@ -0,0 +1,22 @@
+package com.building.apicentral.service;
+
+import lombok.Value;
+
+@Value
+public class ConversionJobStatus {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    String id;
+    State state;
+    // Times the job has been claimed, including claims whose lease ran out
+    int attempts;
+    // Worker holding the lease while running
+    String worker;
+    String error;
+}
@@ -0,0 +1,303 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.LaneProperties;
+import lombok.Value;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs conversions in lanes by estimated cost, so a few huge collections cannot take every
+ * thread from the many small ones submitted interactively. Each lane has its own threads and
+ * its own bounded queue. A thread whose lane has nothing queued takes work from the smaller
+ * lanes, never from a larger one, so the small lane's threads are always there for small
+ * conversions while idle huge-lane threads still help out.
+ */
+@Service
+public class ConversionLanes implements DisposableBean {
+
+    public enum Lane {
+        SMALL,
+        MEDIUM,
+        HUGE
+    }
+
+    private static final byte[] REQUEST_KEY = "\"request\"".getBytes(StandardCharsets.UTF_8);
+
+    private final LaneProperties properties;
+    // One lock for all queues: taking work may look at every lane, and submissions are rare next to conversions
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workQueued = lock.newCondition();
+    private final LaneState[] lanes;
+    private boolean running = true;
+
+    public ConversionLanes(LaneProperties properties) {
+        this.properties = properties;
+        this.lanes = new LaneState[]{
+                new LaneState(Lane.SMALL, properties.getSmallThreads(), properties.getSmallQueueSize()),
+                new LaneState(Lane.MEDIUM, properties.getMediumThreads(), properties.getMediumQueueSize()),
+                new LaneState(Lane.HUGE, properties.getHugeThreads(), properties.getHugeQueueSize())};
+        for (LaneState lane : lanes) {
+            for (int i = 0; i < lane.threads; i++) {
+                Thread thread = new Thread(() -> work(lane), "conversion-" + lane.lane.name().toLowerCase() + "-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * Cost of converting {@code input}: its size plus a fixed amount per request, counted by
+     * a scan for {@code "request"} keys that is far cheaper than parsing.
+     */
+    public long estimateCost(byte[] input) {
+        if (input == null) {
+            return 0;
+        }
+        long requests = 0;
+        int last = input.length - REQUEST_KEY.length;
+        for (int i = 0; i <= last; i++) {
+            if (input[i] == '"' && matchesRequestKey(input, i)) {
+                requests++;
+                i += REQUEST_KEY.length - 1;
+            }
+        }
+        return input.length + requests * properties.getRequestCost();
+    }
+
+    /**
+     * Cost of an input known only by its length, or -1 when not even that is known; an
+     * unknown length counts as medium.
+     */
+    public long estimateCost(long inputBytes) {
+        return inputBytes >= 0 ? inputBytes : properties.getSmallMaxCost() + 1;
+    }
+
+    public Lane laneFor(long cost) {
+        if (cost <= properties.getSmallMaxCost()) {
+            return Lane.SMALL;
+        }
+        return cost >= properties.getHugeMinCost() ? Lane.HUGE : Lane.MEDIUM;
+    }
+
+    /**
+     * Queues {@code conversion} in the lane for {@code cost}. Cancelling the returned future
+     * takes a conversion that has not started off its queue; a running one completes.
+     *
+     * @throws RejectedExecutionException when the lane's queue is full
+     */
+    public <T> CompletableFuture<T> submit(long cost, Callable<T> conversion) {
+        LaneState lane = lanes[laneFor(cost).ordinal()];
+        Task<T> task = new Task<>(lane, conversion);
+        lock.lock();
+        try {
+            if (!running) {
+                throw new RejectedExecutionException("Conversion lanes are shut down");
+            }
+            if (lane.queue.size() >= lane.queueSize) {
+                lane.rejected++;
+                throw new RejectedExecutionException("The " + lane.lane.name().toLowerCase() + " conversion lane has "
+                        + lane.queueSize + " conversions waiting");
+            }
+            lane.queue.addLast(task);
+            lane.submitted++;
+            workQueued.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return task;
+    }
+
+    /**
+     * Like {@link #submit}, waiting for the outcome; the conversion's own exception is thrown.
+     */
+    public <T> T run(long cost, Callable<T> conversion) throws Exception {
+        CompletableFuture<T> future = submit(cost, conversion);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        }
+    }
+
+    public List<LaneStats> stats() {
+        List<LaneStats> stats = new ArrayList<>(lanes.length);
+        lock.lock();
+        try {
+            for (LaneState lane : lanes) {
+                long started = lane.completed + lane.running;
+                stats.add(new LaneStats(lane.lane.name().toLowerCase(), lane.threads, lane.queue.size(), lane.running,
+                        lane.submitted, lane.completed, lane.rejected, lane.stolen,
+                        started == 0 ? 0 : lane.waitNanos / started / 1e6, lane.maxWaitNanos / 1e6,
+                        lane.completed == 0 ? 0 : lane.runNanos / lane.completed / 1e6));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        lock.lock();
+        try {
+            running = false;
+            for (LaneState lane : lanes) {
+                // Cancelling takes the task off the queue
+                new ArrayList<>(lane.queue).forEach(task -> task.cancel(false));
+            }
+            workQueued.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work(LaneState own) {
+        while (true) {
+            Task<?> task;
+            lock.lock();
+            try {
+                task = next(own);
+                while (task == null) {
+                    if (!running) {
+                        return;
+                    }
+                    workQueued.await();
+                    task = next(own);
+                }
+                long waited = System.nanoTime() - task.queuedNanos;
+                task.lane.waitNanos += waited;
+                task.lane.maxWaitNanos = Math.max(task.lane.maxWaitNanos, waited);
+                task.lane.running++;
+                if (task.lane != own) {
+                    task.lane.stolen++;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            long start = System.nanoTime();
+            task.execute();
+            lock.lock();
+            try {
+                task.lane.running--;
+                task.lane.completed++;
+                task.lane.runNanos += System.nanoTime() - start;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // The lane's own work first, then the next smaller lane's; called holding the lock
+    private Task<?> next(LaneState own) {
+        for (int i = own.lane.ordinal(); i >= 0; i--) {
+            Task<?> task = lanes[i].queue.pollFirst();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matchesRequestKey(byte[] input, int from) {
+        for (int j = 1; j < REQUEST_KEY.length; j++) {
+            if (input[from + j] != REQUEST_KEY[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class Task<T> extends CompletableFuture<T> {
+        private final LaneState lane;
+        private final Callable<T> conversion;
+        private final long queuedNanos = System.nanoTime();
+
+        private Task(LaneState lane, Callable<T> conversion) {
+            this.lane = lane;
+            this.conversion = conversion;
+        }
+
+        void execute() {
+            if (isDone()) {
+                return;
+            }
+            try {
+                complete(conversion.call());
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                lock.lock();
+                try {
+                    lane.queue.remove(this);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return cancelled;
+        }
+    }
+
+    private static final class LaneState {
+        private final Lane lane;
+        private final int threads;
+        private final int queueSize;
+        private final ArrayDeque<Task<?>> queue = new ArrayDeque<>();
+        private int running;
+        private long submitted;
+        private long completed;
+        private long rejected;
+        // Conversions of this lane run by a thread of a larger one
+        private long stolen;
+        private long waitNanos;
+        private long maxWaitNanos;
+        private long runNanos;
+
+        private LaneState(Lane lane, int threads, int queueSize) {
+            this.lane = lane;
+            this.threads = threads;
+            this.queueSize = queueSize;
+        }
+    }
+
+    @Value
+    public static class LaneStats {
+        String lane;
+        int threads;
+        int queued;
+        int running;
+        long submitted;
+        long completed;
+        long rejected;
+        long stolen;
+        // Time from submission to start, over the conversions started so far
+        double averageWaitMs;
+        double maxWaitMs;
+        double averageRunMs;
+    }
+}
@@ -0,0 +1,40 @@
+package com.building.apicentral.service;
+
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+
+public class ConversionLimitExceededException extends RuntimeException {
+
+    private final String limit;
+
+    public ConversionLimitExceededException(String limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /**
+     * The limit error for input past one of the parser's own limits, such as its 1000 levels
+     * of nesting, which cuts in before {@code max-depth} can when that is set higher.
+     */
+    public static ConversionLimitExceededException of(StreamConstraintsException e) {
+        return new ConversionLimitExceededException("parser", "Input exceeds a parser limit: " + e.getOriginalMessage());
+    }
+
+    /**
+     * The limit error for {@code e} if it, or one of its causes, is a parser limit; otherwise null.
+     */
+    public static ConversionLimitExceededException causedBy(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConversionLimitExceededException) {
+                return (ConversionLimitExceededException) cause;
+            }
+            if (cause instanceof StreamConstraintsException) {
+                return of((StreamConstraintsException) cause);
+            }
+        }
+        return null;
+    }
+
+    public String getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,26 @@
+package com.building.apicentral.service;
+
+import lombok.Data;
+
+/**
+ * Per-request switches for {@link PostmanToSwaggerService#convertPostmanToSwagger(com.building.apicentral.model.PostmanCollection, ConversionOptions)}.
+ */
+@Data
+public class ConversionOptions {
+
+    // Used as info.version instead of the date-stamped default, so repeated conversions are byte-identical
+    private String pinnedVersion;
+
+    // Null for the configured default
+    private ConversionProfile profile;
+
+    // Receives the collection's details and counters at the end of the conversion; null when not traced
+    private ConversionTrace trace;
+
+    // Receives progress from the traversal while the conversion runs; null when nobody is watching
+    private ConversionProgress progress;
+
+    public static ConversionOptions defaults() {
+        return new ConversionOptions();
+    }
+}
@@ -0,0 +1,67 @@
+package com.building.apicentral.service;
+
+import java.util.Locale;
+
+/**
+ * How much of the spec a conversion produces. Paths, parameters, operation metadata and
+ * security are always converted; the profiles differ in the stages that follow the bodies:
+ * <ul>
+ *     <li>lite: no schema inference, no definitions and only the documented responses</li>
+ *     <li>standard: inferred schemas and definitions, without examples or generated property descriptions</li>
+ *     <li>full: everything, including examples, property descriptions and the default error responses</li>
+ * </ul>
+ */
+public enum ConversionProfile {
+
+    LITE(false, false, false, false),
+    STANDARD(true, false, false, true),
+    FULL(true, true, true, true);
+
+    private final boolean inferSchemas;
+    private final boolean examples;
+    private final boolean propertyDescriptions;
+    private final boolean defaultResponses;
+
+    ConversionProfile(boolean inferSchemas, boolean examples, boolean propertyDescriptions, boolean defaultResponses) {
+        this.inferSchemas = inferSchemas;
+        this.examples = examples;
+        this.propertyDescriptions = propertyDescriptions;
+        this.defaultResponses = defaultResponses;
+    }
+
+    /**
+     * Case-insensitive lookup; null for a null or blank name.
+     *
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static ConversionProfile fromName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown conversion profile '" + name + "', expected lite, standard or full");
+        }
+    }
+
+    public boolean isInferSchemas() {
+        return inferSchemas;
+    }
+
+    public boolean isExamples() {
+        return examples;
+    }
+
+    public boolean isPropertyDescriptions() {
+        return propertyDescriptions;
+    }
+
+    public boolean isDefaultResponses() {
+        return defaultResponses;
+    }
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
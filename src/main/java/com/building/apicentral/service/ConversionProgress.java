@@ -0,0 +1,116 @@
+package com.building.apicentral.service;
+
+import lombok.Value;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Progress of one conversion, published as {@link Snapshot}s to a listener: the stage being
+ * worked on, bytes parsed while validating and binding, and items converted so far. Counts
+ * arrive from the conversion thread at checkpoints and stream reads; a snapshot goes out at
+ * most once per interval, and at every stage change, so the listener sees a handful of calls
+ * per second however large the collection.
+ */
+public final class ConversionProgress {
+
+    private final Consumer<Snapshot> listener;
+    private final long intervalNanos;
+    private final long bytesTotal;
+    private long itemsTotal;
+    private ConversionTrace.Stage stage = ConversionTrace.Stage.VALIDATE;
+    private long bytesParsed;
+    private long itemsProcessed;
+    private String folder = "";
+    private long nextEmitNanos;
+
+    public ConversionProgress(Consumer<Snapshot> listener, long intervalMs, long bytesTotal) {
+        this.listener = listener;
+        this.intervalNanos = intervalMs * 1_000_000L;
+        this.bytesTotal = bytesTotal;
+        this.nextEmitNanos = System.nanoTime();
+    }
+
+    /**
+     * Folders and requests in the collection, known once it has been validated.
+     */
+    public void setItemsTotal(long itemsTotal) {
+        this.itemsTotal = itemsTotal;
+    }
+
+    /**
+     * Moves on to the given stage and publishes right away. Binding parses the input a second
+     * time, so the byte count starts over.
+     */
+    public void stage(ConversionTrace.Stage stage) {
+        this.stage = stage;
+        if (stage == ConversionTrace.Stage.BIND) {
+            bytesParsed = 0;
+        }
+        emit(System.nanoTime());
+    }
+
+    /**
+     * Counts bytes read from {@code in} as parsed; reads are buffered by the parser, so this
+     * adds one check per chunk.
+     */
+    public InputStream track(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    parsed(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    parsed(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    private void parsed(int bytes) {
+        bytesParsed += bytes;
+        long now = System.nanoTime();
+        if (now - nextEmitNanos >= 0) {
+            emit(now);
+        }
+    }
+
+    /**
+     * Called by {@link ConversionContext} at its checkpoints, which already read the clock.
+     */
+    void items(long processed, String currentFolder, long now) {
+        itemsProcessed = processed;
+        folder = currentFolder;
+        if (now - nextEmitNanos >= 0) {
+            emit(now);
+        }
+    }
+
+    private void emit(long now) {
+        nextEmitNanos = now + intervalNanos;
+        // Folder paths are kept as the conversion builds them, with a leading slash
+        String current = folder == null || folder.isEmpty() ? "" : folder.substring(1);
+        listener.accept(new Snapshot(stage.name().toLowerCase(), itemsProcessed, itemsTotal, current, bytesParsed, bytesTotal));
+    }
+
+    @Value
+    public static class Snapshot {
+        String stage;
+        long itemsProcessed;
+        long itemsTotal;
+        String folder;
+        long bytesParsed;
+        long bytesTotal;
+    }
+}
@@ -0,0 +1,45 @@
+package com.building.apicentral.service;
+
+import java.io.IOException;
+
+/**
+ * Hands conversions from the nodes that accept uploads to the workers that run them. A worker
+ * claims a job for a lease; when the lease runs out before the worker reports back, the job
+ * is handed out again, up to {@code apicentral.queue.max-attempts} claims. Results are
+ * published through the queue, so any node can answer for any job.
+ */
+public interface ConversionQueue {
+
+    /**
+     * Queues a job and assigns its id.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException when the queue holds as many jobs as it may
+     */
+    String submit(ConversionJob job) throws IOException;
+
+    /**
+     * The oldest waiting job, leased to {@code worker} for {@code leaseMs}, or null when none is waiting.
+     */
+    ConversionJob claim(String worker, long leaseMs) throws IOException;
+
+    /**
+     * Publishes the rendered spec of a claimed job. False when the lease was lost, in which
+     * case the job belongs to another claim.
+     */
+    boolean complete(ConversionJob job, byte[] result) throws IOException;
+
+    /**
+     * Fails a claimed job for good. False when the lease was lost.
+     */
+    boolean fail(ConversionJob job, String error) throws IOException;
+
+    /**
+     * Null for an unknown id.
+     */
+    ConversionJobStatus status(String id) throws IOException;
+
+    /**
+     * The rendered spec of a finished job, or null.
+     */
+    byte[] result(String id) throws IOException;
+}
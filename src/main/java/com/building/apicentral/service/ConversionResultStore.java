@@ -0,0 +1,213 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.OutputProperties;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps recent conversions in sectioned form for {@code /api/specs}. Sections are rendered
+ * once, canonically, when a spec is stored. The store is an LRU bounded both by entry count
+ * and by the total size of the stored sections. An evicted spec is read back from the
+ * {@link SpecArchive} when that is enabled, and otherwise has to be converted again.
+ */
+@Slf4j
+@Service
+public class ConversionResultStore {
+
+    private final ObjectMapper canonicalMapper;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, StoredSpec> specs = new LinkedHashMap<>(16, 0.75f, true);
+    private final SpecArchive archive;
+    private long totalBytes;
+
+    public ConversionResultStore(SpecRenderer specRenderer, OutputProperties outputProperties) {
+        this(specRenderer, outputProperties, SpecArchive.disabled());
+    }
+
+    @Autowired
+    public ConversionResultStore(SpecRenderer specRenderer, OutputProperties outputProperties, SpecArchive archive) {
+        this.canonicalMapper = specRenderer.canonicalMapper();
+        this.maxEntries = outputProperties.getResultStoreSize();
+        this.maxBytes = outputProperties.getResultStoreMaxBytes();
+        this.archive = archive;
+    }
+
+    public StoredSpec store(SwaggerDefinition swaggerDefinition) throws JsonProcessingException {
+        StoredSpec spec = split(swaggerDefinition);
+        synchronized (this) {
+            StoredSpec existing = specs.get(spec.getId());
+            if (existing != null) {
+                return existing;
+            }
+            put(spec);
+        }
+        if (archive.isEnabled()) {
+            try {
+                archive.write(spec);
+            } catch (IOException e) {
+                log.warn("Could not archive spec {}", spec.getId(), e);
+            }
+        }
+        return spec;
+    }
+
+    public StoredSpec get(String id) {
+        synchronized (this) {
+            StoredSpec spec = specs.get(id);
+            if (spec != null || !archive.isEnabled()) {
+                return spec;
+            }
+        }
+        StoredSpec archived;
+        try {
+            archived = archive.read(id);
+        } catch (IOException e) {
+            log.warn("Could not read archived spec {}", id, e);
+            return null;
+        }
+        if (archived == null) {
+            return null;
+        }
+        synchronized (this) {
+            StoredSpec spec = specs.get(id);
+            if (spec != null) {
+                return spec;
+            }
+            put(archived);
+        }
+        return archived;
+    }
+
+    /**
+     * Changes from spec {@code fromId} to spec {@code toId}, or null unless both are stored.
+     */
+    public SpecDiff diff(String fromId, String toId) {
+        StoredSpec from = get(fromId);
+        StoredSpec to = get(toId);
+        if (from == null || to == null) {
+            return null;
+        }
+        return from.hashTree().diff(fromId, to.hashTree(), toId);
+    }
+
+    private void put(StoredSpec spec) {
+        specs.put(spec.getId(), spec);
+        totalBytes += spec.getSizeBytes();
+        evict();
+    }
+
+    // Oldest first, but the newest entry stays even when it alone exceeds the byte budget
+    private void evict() {
+        Iterator<StoredSpec> oldest = specs.values().iterator();
+        while (specs.size() > 1 && (specs.size() > maxEntries || totalBytes > maxBytes)) {
+            totalBytes -= oldest.next().getSizeBytes();
+            oldest.remove();
+        }
+    }
+
+    private StoredSpec split(SwaggerDefinition swaggerDefinition) throws JsonProcessingException {
+        MessageDigest digest = sha256();
+
+        Map<String, SwaggerDefinition.PathItem> paths = new TreeMap<>(nullToEmpty(swaggerDefinition.getPaths()));
+        Map<String, SwaggerDefinition.Definition> definitions = new TreeMap<>(nullToEmpty(swaggerDefinition.getDefinitions()));
+
+        ObjectNode headNode = canonicalMapper.valueToTree(head(swaggerDefinition));
+        headNode.remove("definitions");
+        headNode.put("pathCount", paths.size());
+        ArrayNode definitionNames = headNode.putArray("definitionNames");
+        definitions.keySet().forEach(definitionNames::add);
+        byte[] head = canonicalMapper.writeValueAsBytes(headNode);
+        digest.update(head);
+
+        int count = paths.size();
+        String[] pathKeys = new String[count];
+        byte[][] quotedPathKeys = new byte[count][];
+        byte[][] pathItems = new byte[count][];
+        @SuppressWarnings("unchecked")
+        Set<String>[] pathTags = new Set[count];
+        int i = 0;
+        for (Map.Entry<String, SwaggerDefinition.PathItem> path : paths.entrySet()) {
+            pathKeys[i] = path.getKey();
+            quotedPathKeys[i] = canonicalMapper.writeValueAsBytes(path.getKey());
+            pathItems[i] = canonicalMapper.writeValueAsBytes(path.getValue());
+            pathTags[i] = tags(path.getValue());
+            digest.update(quotedPathKeys[i]);
+            digest.update(pathItems[i]);
+            i++;
+        }
+
+        Map<String, byte[]> renderedDefinitions = new HashMap<>();
+        for (Map.Entry<String, SwaggerDefinition.Definition> definition : definitions.entrySet()) {
+            byte[] json = canonicalMapper.writeValueAsBytes(definition.getValue());
+            renderedDefinitions.put(definition.getKey(), json);
+            digest.update(definition.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update(json);
+        }
+
+        String id = Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        return new StoredSpec(id, head, pathKeys, quotedPathKeys, pathItems, pathTags, renderedDefinitions);
+    }
+
+    // Everything but paths and definitions; paths is left out of the JSON when empty
+    private SwaggerDefinition head(SwaggerDefinition source) {
+        SwaggerDefinition head = new SwaggerDefinition();
+        head.setSwagger(source.getSwagger());
+        head.setInfo(source.getInfo());
+        head.setHost(source.getHost());
+        head.setBasePath(source.getBasePath());
+        head.setTags(source.getTags());
+        head.setSecurityDefinitions(source.getSecurityDefinitions());
+        head.setSchemes(source.getSchemes());
+        head.setOperationId(source.getOperationId());
+        head.setConsumes(source.getConsumes());
+        head.setProduces(source.getProduces());
+        head.setPaths(Collections.emptyMap());
+        head.setDefinitions(Collections.emptyMap());
+        return head;
+    }
+
+    private Set<String> tags(SwaggerDefinition.PathItem pathItem) {
+        Set<String> tags = new HashSet<>();
+        SwaggerDefinition.Operation[] operations = {pathItem.getGet(), pathItem.getPost(), pathItem.getPut(),
+                pathItem.getDelete(), pathItem.getPatch(), pathItem.getOptions()};
+        for (SwaggerDefinition.Operation operation : operations) {
+            if (operation != null && operation.getTags() != null) {
+                tags.addAll(operation.getTags());
+            }
+        }
+        return tags;
+    }
+
+    private static <V> Map<String, V> nullToEmpty(Map<String, V> map) {
+        return map != null ? map : Collections.emptyMap();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.PostmanCollection;
+
+/**
+ * An extra stage of the conversion. Beans of this type are picked up by
+ * {@link PostmanToSwaggerService}, which creates one visitor per conversion and runs it in
+ * the same walk as the built-in stages, after them.
+ */
+@FunctionalInterface
+public interface ConversionStage {
+
+    ConversionVisitor createVisitor(PostmanCollection postmanCollection, ConversionContext context);
+}
@@ -0,0 +1,119 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.PostmanCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timing and allocation of one conversion request, committed as a {@link ConversionEvent}
+ * when the JVM has Flight Recorder and a recording has it enabled, and logged at debug level
+ * either way.
+ * Begin it on the thread that does the work and mark each stage as it completes: allocated
+ * bytes are read for the current thread, so every stage has to run on it.
+ */
+public final class ConversionTrace {
+
+    public enum Stage {
+        VALIDATE,
+        BIND,
+        CONVERT,
+        RENDER
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ConversionTrace.class);
+
+    // What the ConversionEvent records; see there
+    final String endpoint;
+    final long inputBytes;
+    String collectionId;
+    String collectionName;
+    String profile;
+    long items;
+    long validateNanos;
+    long bindNanos;
+    long convertNanos;
+    long inferenceNanos;
+    long schemaMemoHits;
+    long renderNanos;
+    long allocatedBytes;
+    String outcome;
+
+    // The started ConversionEvent, null without Flight Recorder
+    private final Object event;
+    private final long allocatedBefore;
+    private long lastNanos;
+
+    private ConversionTrace(String endpoint, long inputBytes) {
+        this.endpoint = endpoint;
+        this.inputBytes = inputBytes;
+        event = FlightRecorderEvents.beginConversion();
+        allocatedBefore = ThreadAllocation.current();
+        lastNanos = System.nanoTime();
+    }
+
+    /**
+     * @param inputBytes size of the collection, or -1 when not known up front
+     */
+    public static ConversionTrace begin(String endpoint, long inputBytes) {
+        return new ConversionTrace(endpoint, inputBytes);
+    }
+
+    /**
+     * Attributes the time since the previous stage, or since the start, to {@code stage}.
+     */
+    public void stage(Stage stage) {
+        long now = System.nanoTime();
+        long elapsed = now - lastNanos;
+        lastNanos = now;
+        switch (stage) {
+            case VALIDATE:
+                validateNanos += elapsed;
+                break;
+            case BIND:
+                bindNanos += elapsed;
+                break;
+            case CONVERT:
+                convertNanos += elapsed;
+                break;
+            default:
+                renderNanos += elapsed;
+                break;
+        }
+    }
+
+    void converted(PostmanCollection collection, ConversionContext context) {
+        if (collection.getInfo() != null) {
+            collectionId = collection.getInfo().get_postman_id();
+            collectionName = collection.getInfo().getName();
+        }
+        profile = context.getProfile().getName();
+        items = context.getVisitedItems();
+        inferenceNanos = context.getInferenceNanos();
+        schemaMemoHits = context.getSchemaMemoHits();
+    }
+
+    /**
+     * Ends the trace; {@code error} is null for a conversion that completed.
+     */
+    public void finish(Throwable error) {
+        long allocatedAfter = ThreadAllocation.current();
+        allocatedBytes = allocatedBefore >= 0 && allocatedAfter >= 0 ? allocatedAfter - allocatedBefore : -1;
+        outcome = error == null ? "ok" : error.getClass().getSimpleName();
+        FlightRecorderEvents.endConversion(event, this);
+        if (log.isDebugEnabled()) {
+            log.debug("Conversion via {} of '{}': {} items, {} bytes in, validate {} ms, bind {} ms, convert {} ms "
+                            + "(inference {} ms, {} memo hits), render {} ms, {} bytes allocated, {}",
+                    endpoint, collectionName, items, inputBytes, millis(validateNanos),
+                    millis(bindNanos), millis(convertNanos), millis(inferenceNanos),
+                    schemaMemoHits, millis(renderNanos), allocatedBytes, outcome);
+        }
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
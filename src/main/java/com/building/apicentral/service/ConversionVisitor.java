@@ -0,0 +1,31 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+
+/**
+ * Receives the items of a collection as {@link PostmanToSwaggerService} walks them, in
+ * document order and exactly once per conversion. Every part of the output is built by a
+ * visitor, so adding a stage never adds another pass over the collection.
+ */
+public interface ConversionVisitor {
+
+    /**
+     * Called for every item, folders included; top-level items have depth 1.
+     */
+    default void visitItem(PostmanCollection.Item item, int depth) {
+    }
+
+    /**
+     * Called after a request item has been converted. {@code path} includes the folder prefix,
+     * {@code method} is lower case.
+     */
+    default void visitOperation(String path, String method, SwaggerDefinition.Operation operation, PostmanCollection.Item item) {
+    }
+
+    /**
+     * Called once the walk is complete, in the order the visitors were registered.
+     */
+    default void finish(SwaggerDefinition swaggerDefinition) {
+    }
+}
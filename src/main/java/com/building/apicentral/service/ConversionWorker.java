@@ -0,0 +1,134 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.config.QueueProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.web.servlet.context.ServletWebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs queued conversions on {@code apicentral.queue.worker-threads} threads. Like the reactive
+ * server, the threads start once the servlet web server is up, so contexts without one never
+ * take jobs. Every node pointed at the same queue competes for its jobs; a node with no
+ * worker threads only accepts uploads.
+ */
+@Slf4j
+@Component
+public class ConversionWorker implements ApplicationListener<ServletWebServerInitializedEvent>, DisposableBean {
+
+    private final ConversionQueue queue;
+    private final PostmanToSwaggerService postmanToSwaggerService;
+    private final SpecRenderer specRenderer;
+    private final QueueProperties properties;
+    private final ObjectMapper collectionReader;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public ConversionWorker(ConversionQueue queue, PostmanToSwaggerService postmanToSwaggerService, SpecRenderer specRenderer,
+                            QueueProperties properties, ConversionProperties conversionProperties) {
+        this.queue = queue;
+        this.postmanToSwaggerService = postmanToSwaggerService;
+        this.specRenderer = specRenderer;
+        this.properties = properties;
+        this.collectionReader = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        if (properties.getLeaseMs() <= conversionProperties.getMaxDurationMs()) {
+            log.warn("apicentral.queue.lease-ms ({}) does not exceed apicentral.conversion.max-duration-ms ({}); "
+                    + "slow conversions will be handed to a second worker", properties.getLeaseMs(), conversionProperties.getMaxDurationMs());
+        }
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(ServletWebServerInitializedEvent event) {
+        if (running || properties.getWorkerThreads() <= 0) {
+            return;
+        }
+        running = true;
+        String node = ManagementFactory.getRuntimeMXBean().getName();
+        for (int i = 0; i < properties.getWorkerThreads(); i++) {
+            String worker = node + "-" + i;
+            Thread thread = new Thread(() -> poll(worker), "conversion-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        log.info("Started {} conversion workers on {} queue", threads.size(), properties.getType());
+    }
+
+    private void poll(String worker) {
+        while (running) {
+            try {
+                ConversionJob job = queue.claim(worker, properties.getLeaseMs());
+                if (job == null) {
+                    Thread.sleep(properties.getPollIntervalMs());
+                } else {
+                    process(job);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Conversion worker {} failed to reach the queue", worker, e);
+                try {
+                    Thread.sleep(properties.getPollIntervalMs());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts a claimed job and reports the outcome; false when the lease was lost meanwhile.
+     */
+    boolean process(ConversionJob job) throws Exception {
+        ConversionTrace trace = ConversionTrace.begin("worker", job.getInput().length);
+        byte[] result;
+        try {
+            ConversionOptions options = new ConversionOptions();
+            options.setPinnedVersion(job.getPinnedVersion());
+            options.setProfile(ConversionProfile.fromName(job.getProfile()));
+            options.setTrace(trace);
+            PostmanCollection collection = collectionReader.readValue(job.getInput(), PostmanCollection.class);
+            trace.stage(ConversionTrace.Stage.BIND);
+            SwaggerDefinition swaggerDefinition = postmanToSwaggerService.convertPostmanToSwagger(collection, options);
+            trace.stage(ConversionTrace.Stage.CONVERT);
+            result = specRenderer.render(swaggerDefinition, job.isCanonical()).getJson();
+            trace.stage(ConversionTrace.Stage.RENDER);
+            trace.finish(null);
+        } catch (Exception e) {
+            trace.finish(e);
+            // Some exceptions, a NullPointerException among them, carry no message
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+            log.warn("Conversion job {} failed: {}", job.getId(), error);
+            return queue.fail(job, error);
+        }
+        boolean completed = queue.complete(job, result);
+        if (!completed) {
+            log.warn("Lease on conversion job {} ran out before it finished", job.getId());
+        }
+        return completed;
+    }
+
+    @Override
+    public synchronized void destroy() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            thread.join(1_000);
+        }
+        threads.clear();
+    }
+}
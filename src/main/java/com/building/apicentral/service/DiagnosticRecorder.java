@@ -0,0 +1,97 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.DiagnosticsProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Takes bounded Flight Recorder recordings of the running instance: the JDK's default
+ * low-overhead settings plus {@link ConversionEvent} and {@link BodyInferenceEvent}, limited
+ * in length and size. One recording runs at a time, on a thread of its own.
+ */
+@Service
+public class DiagnosticRecorder {
+
+    // Default-settings events that would hand the environment, system properties and command line to the caller
+    private static final String[] SENSITIVE_EVENTS = {
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation"};
+
+    private final DiagnosticsProperties properties;
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    public DiagnosticRecorder(DiagnosticsProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Starts recording for {@link #duration(Integer)}; the future completes with the recording
+     * as a temporary .jfr file the caller deletes.
+     *
+     * @throws IllegalStateException when another recording is running, or the JVM has no Flight Recorder
+     */
+    public CompletableFuture<Path> record(Integer seconds) throws IOException {
+        if (!FlightRecorderEvents.isAvailable()) {
+            throw new IllegalStateException("Flight Recorder needs Java 8u262 or later");
+        }
+        if (!recording.compareAndSet(false, true)) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        Recording jfr;
+        try {
+            jfr = new Recording(Configuration.getConfiguration("default"));
+        } catch (ParseException e) {
+            recording.set(false);
+            throw new IOException("Flight Recorder settings are not available", e);
+        }
+        jfr.setName("apicentral-diagnostics");
+        jfr.setMaxSize(properties.getMaxRecordingBytes());
+        for (String event : SENSITIVE_EVENTS) {
+            jfr.disable(event);
+        }
+        jfr.enable(ConversionEvent.class);
+        jfr.enable(BodyInferenceEvent.class).withThreshold(Duration.ofMillis(properties.getInferenceThresholdMs()));
+        jfr.start();
+
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        long millis = duration(seconds).toMillis();
+        Thread thread = new Thread(() -> {
+            Path file = null;
+            Exception error = null;
+            try (Recording running = jfr) {
+                Thread.sleep(millis);
+                running.stop();
+                file = Files.createTempFile("apicentral-", ".jfr");
+                running.dump(file);
+            } catch (Exception e) {
+                error = e;
+            }
+            // Free before completing, so whoever waits on the result can start the next one
+            recording.set(false);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(file);
+            }
+        }, "diagnostic-recording");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    /**
+     * How long a recording asked to last {@code seconds} runs, capped by the configured maximum.
+     */
+    public Duration duration(Integer seconds) {
+        int requested = seconds != null && seconds > 0 ? seconds : properties.getRecordingSeconds();
+        return Duration.ofSeconds(Math.min(requested, properties.getMaxRecordingSeconds()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.building.apicentral.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trains a preset {@link java.util.zip.Deflater} dictionary on a sample of stored content,
+ * after the cover algorithm of zstd's trainer. The sample is split into one epoch per
+ * dictionary segment, and each epoch gives the segment whose 8-byte substrings are most
+ * frequent in the whole sample. Substrings a chosen segment covers stop counting, so later
+ * segments add content the dictionary does not have yet.
+ */
+final class DictionaryTrainer {
+
+    static final int SEGMENT = 256;
+    private static final int DMER = 8;
+    private static final int TABLE_BITS = 20;
+
+    private DictionaryTrainer() {
+    }
+
+    static byte[] train(byte[] sample, int length, int dictionarySize) {
+        int[] frequencies = new int[1 << TABLE_BITS];
+        for (int i = 0; i + DMER <= length; i++) {
+            frequencies[slot(sample, i)]++;
+        }
+
+        int epochs = Math.max(1, Math.min(dictionarySize / SEGMENT, length / SEGMENT));
+        int epochSize = length / epochs;
+        List<long[]> chosen = new ArrayList<>(epochs);
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            int from = epoch * epochSize;
+            int to = epoch == epochs - 1 ? length : from + epochSize;
+            long[] best = bestSegment(sample, from, to, frequencies);
+            if (best == null) {
+                continue;
+            }
+            chosen.add(best);
+            int start = (int) best[1];
+            for (int i = start; i + DMER <= start + SEGMENT; i++) {
+                frequencies[slot(sample, i)] = 0;
+            }
+        }
+
+        // Deflate encodes near matches in fewer bits, so the most useful segments go last
+        chosen.sort(Comparator.comparingLong(segment -> segment[0]));
+        byte[] dictionary = new byte[chosen.size() * SEGMENT];
+        for (int i = 0; i < chosen.size(); i++) {
+            System.arraycopy(sample, (int) chosen.get(i)[1], dictionary, i * SEGMENT, SEGMENT);
+        }
+        return dictionary;
+    }
+
+    // Score and start of the segment in [from, to) whose substrings are most frequent, or null when none is
+    private static long[] bestSegment(byte[] sample, int from, int to, int[] frequencies) {
+        if (to - from < SEGMENT) {
+            return null;
+        }
+        long score = 0;
+        for (int i = from; i + DMER <= from + SEGMENT; i++) {
+            score += frequencies[slot(sample, i)];
+        }
+        long bestScore = score;
+        int bestStart = from;
+        for (int start = from + 1; start + SEGMENT <= to; start++) {
+            score += frequencies[slot(sample, start + SEGMENT - DMER)] - frequencies[slot(sample, start - 1)];
+            if (score > bestScore) {
+                bestScore = score;
+                bestStart = start;
+            }
+        }
+        return bestScore > 0 ? new long[]{bestScore, bestStart} : null;
+    }
+
+    private static int slot(byte[] data, int at) {
+        long value = 0;
+        for (int i = 0; i < DMER; i++) {
+            value = value << 8 | (data[at + i] & 0xFF);
+        }
+        return (int) (value * 0x9E3779B97F4A7C15L >>> (64 - TABLE_BITS));
+    }
+}
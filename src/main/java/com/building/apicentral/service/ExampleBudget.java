@@ -0,0 +1,69 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+
+/**
+ * Caps on the examples one conversion embeds. Sizes are counted in characters of the example
+ * value, numbers and booleans as {@value #SCALAR_SIZE}. A string over the length cap is cut
+ * and marked before it is stored; an example that would overrun the operation or document
+ * budget is left out and counted, so the operation can report how many are missing.
+ */
+final class ExampleBudget {
+
+    static final int SCALAR_SIZE = 8;
+
+    private final int maxLength;
+    private final long maxOperationChars;
+    private final long maxDocumentChars;
+    private long operationChars;
+    private long documentChars;
+    private int omitted;
+
+    ExampleBudget(ConversionProperties properties) {
+        this.maxLength = properties.getMaxExampleLength();
+        this.maxOperationChars = properties.getMaxExampleCharsPerOperation();
+        this.maxDocumentChars = properties.getMaxExampleCharsPerDocument();
+    }
+
+    void startOperation() {
+        operationChars = 0;
+        omitted = 0;
+    }
+
+    /**
+     * Examples left out of the current operation so far.
+     */
+    int omitted() {
+        return omitted;
+    }
+
+    /**
+     * The example to embed for a string value: the value itself, a marked prefix of it, or
+     * null when it does not fit the remaining budget.
+     */
+    String text(String value) {
+        if (value.length() <= maxLength) {
+            return admit(value.length()) ? value : null;
+        }
+        int keep = maxLength;
+        if (keep > 0 && Character.isHighSurrogate(value.charAt(keep - 1))) {
+            keep--;
+        }
+        String marker = "...[truncated, " + value.length() + " chars]";
+        return admit(keep + marker.length()) ? value.substring(0, keep) + marker : null;
+    }
+
+    boolean scalar() {
+        return admit(SCALAR_SIZE);
+    }
+
+    private boolean admit(long size) {
+        if (operationChars + size > maxOperationChars || documentChars + size > maxDocumentChars) {
+            omitted++;
+            return false;
+        }
+        operationChars += size;
+        documentChars += size;
+        return true;
+    }
+}
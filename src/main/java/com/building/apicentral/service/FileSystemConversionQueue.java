@@ -0,0 +1,233 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.QueueProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link ConversionQueue} kept in a directory that every node shares, so API nodes and workers
+ * can run in separate JVMs, on one machine or on a shared volume. State changes are atomic
+ * renames of marker files between {@code queued/}, {@code claimed/}, {@code done/} and
+ * {@code failed/}; when two workers race for a job, only one rename succeeds. A claim marker is
+ * named {@code <id>~<lease expiry millis>~<worker>}, so the lease travels with the claim and
+ * any node can hand out a job whose lease has run out. Job input and bookkeeping live in
+ * {@code jobs/<id>/}, rendered specs in {@code results/}.
+ */
+@Service
+@ConditionalOnProperty(prefix = "apicentral.queue", name = "type", havingValue = "filesystem")
+public class FileSystemConversionQueue implements ConversionQueue {
+
+    private static final char SEPARATOR = '~';
+
+    private final ObjectMapper objectMapper;
+    private final int maxAttempts;
+    private final Path jobs;
+    private final Path queued;
+    private final Path claimed;
+    private final Path done;
+    private final Path failed;
+    private final Path results;
+
+    @Autowired
+    public FileSystemConversionQueue(ObjectMapper objectMapper, QueueProperties properties) throws IOException {
+        this(Paths.get(properties.getDirectory()), properties.getMaxAttempts(), objectMapper);
+    }
+
+    FileSystemConversionQueue(Path root, int maxAttempts, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.maxAttempts = maxAttempts;
+        this.jobs = Files.createDirectories(root.resolve("jobs"));
+        this.queued = Files.createDirectories(root.resolve("queued"));
+        this.claimed = Files.createDirectories(root.resolve("claimed"));
+        this.done = Files.createDirectories(root.resolve("done"));
+        this.failed = Files.createDirectories(root.resolve("failed"));
+        this.results = Files.createDirectories(root.resolve("results"));
+    }
+
+    @Override
+    public String submit(ConversionJob job) throws IOException {
+        job.setId(ConversionJob.newId());
+        Path dir = Files.createDirectory(jobs.resolve(job.getId()));
+        Files.write(dir.resolve("input.json"), job.getInput());
+        Files.write(dir.resolve("job.json"), objectMapper.writeValueAsBytes(job));
+        // The job only becomes visible to workers once everything it needs is on disk
+        publish(queued.resolve(job.getId()), new byte[0]);
+        return job.getId();
+    }
+
+    @Override
+    public ConversionJob claim(String worker, long leaseMs) throws IOException {
+        requeueExpired(System.currentTimeMillis());
+        for (String id : sorted(queued)) {
+            String claim = id + SEPARATOR + (System.currentTimeMillis() + leaseMs) + SEPARATOR + sanitize(worker);
+            try {
+                Files.move(queued.resolve(id), claimed.resolve(claim), StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException e) {
+                // Another worker got there first
+                continue;
+            }
+            Path dir = jobs.resolve(id);
+            writeAttempts(id, attempts(id) + 1);
+            ConversionJob job = objectMapper.readValue(dir.resolve("job.json").toFile(), ConversionJob.class);
+            job.setInput(Files.readAllBytes(dir.resolve("input.json")));
+            job.setClaim(claim);
+            return job;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean complete(ConversionJob job, byte[] result) throws IOException {
+        if (!Files.exists(claimed.resolve(job.getClaim()))) {
+            return false;
+        }
+        publish(results.resolve(job.getId() + ".json"), result);
+        return release(job.getClaim(), done.resolve(job.getId()));
+    }
+
+    @Override
+    public boolean fail(ConversionJob job, String error) throws IOException {
+        if (!Files.exists(claimed.resolve(job.getClaim()))) {
+            return false;
+        }
+        publish(jobs.resolve(job.getId()).resolve("error.txt"), error.getBytes(StandardCharsets.UTF_8));
+        return release(job.getClaim(), failed.resolve(job.getId()));
+    }
+
+    @Override
+    public ConversionJobStatus status(String id) throws IOException {
+        if (!isId(id) || !Files.isDirectory(jobs.resolve(id))) {
+            return null;
+        }
+        // Markers move while we look; a job missing from every directory was caught mid-rename
+        for (int round = 0; round < 3; round++) {
+            if (Files.exists(done.resolve(id))) {
+                return new ConversionJobStatus(id, ConversionJobStatus.State.DONE, attempts(id), null, null);
+            }
+            if (Files.exists(failed.resolve(id))) {
+                return new ConversionJobStatus(id, ConversionJobStatus.State.FAILED, attempts(id), null, error(id));
+            }
+            if (Files.exists(queued.resolve(id))) {
+                return new ConversionJobStatus(id, ConversionJobStatus.State.QUEUED, attempts(id), null, null);
+            }
+            try (DirectoryStream<Path> claims = Files.newDirectoryStream(claimed, id + SEPARATOR + "*")) {
+                for (Path claim : claims) {
+                    String worker = claim.getFileName().toString().split(String.valueOf(SEPARATOR), 3)[2];
+                    return new ConversionJobStatus(id, ConversionJobStatus.State.RUNNING, attempts(id), worker, null);
+                }
+            }
+        }
+        return new ConversionJobStatus(id, ConversionJobStatus.State.QUEUED, attempts(id), null, null);
+    }
+
+    @Override
+    public byte[] result(String id) throws IOException {
+        if (!isId(id) || !Files.exists(done.resolve(id))) {
+            return null;
+        }
+        return Files.readAllBytes(results.resolve(id + ".json"));
+    }
+
+    private void requeueExpired(long now) throws IOException {
+        for (String claim : sorted(claimed)) {
+            String[] parts = claim.split(String.valueOf(SEPARATOR), 3);
+            if (parts.length < 3 || Long.parseLong(parts[1]) > now) {
+                continue;
+            }
+            String id = parts[0];
+            int attempts = attempts(id);
+            if (attempts >= maxAttempts) {
+                if (Files.exists(claimed.resolve(claim))) {
+                    publish(jobs.resolve(id).resolve("error.txt"),
+                            ("Lease expired " + attempts + " times").getBytes(StandardCharsets.UTF_8));
+                }
+                release(claim, failed.resolve(id));
+            } else {
+                release(claim, queued.resolve(id));
+            }
+        }
+    }
+
+    /**
+     * Moves a claim marker to its next state. False when another node already moved it.
+     */
+    private boolean release(String claim, Path target) throws IOException {
+        try {
+            Files.move(claimed.resolve(claim), target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private int attempts(String id) throws IOException {
+        try {
+            return Integer.parseInt(new String(Files.readAllBytes(jobs.resolve(id).resolve("attempts")), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private void writeAttempts(String id, int attempts) throws IOException {
+        publish(jobs.resolve(id).resolve("attempts"), Integer.toString(attempts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String error(String id) throws IOException {
+        try {
+            return new String(Files.readAllBytes(jobs.resolve(id).resolve("error.txt")), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes next to the target and renames into place, so readers on other nodes never see a partial file.
+     */
+    private static void publish(Path target, byte[] content) throws IOException {
+        Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        Files.write(temp, content);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static List<String> sorted(Path dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (!name.startsWith(".")) {
+                    names.add(name);
+                }
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static String sanitize(String worker) {
+        return worker.replaceAll("[^A-Za-z0-9._@-]", "_");
+    }
+
+    private static boolean isId(String id) {
+        return id != null && id.matches("[0-9]{13}-[0-9a-f]{8}");
+    }
+}
@@ -0,0 +1,238 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.service.CollectionFilter.Selection;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binds only the part of a Postman collection a {@link CollectionFilter} selects. The item
+ * tree is read token by token: folders the filter rules out are passed over with
+ * {@link JsonParser#skipChildren()}, and requests and responses of unselected items are
+ * never bound, so the cost of binding and converting follows the size of the selection.
+ * Items are kept in the shape {@link PostmanToSwaggerService} expects: folders left without
+ * selected children are dropped entirely.
+ */
+@Service
+public class FilteredCollectionReader {
+
+    private static final TypeReference<List<PostmanCollection.Item.Response>> RESPONSES =
+            new TypeReference<List<PostmanCollection.Item.Response>>() {};
+
+    private final ObjectMapper objectMapper;
+    private final PostmanToSwaggerService postmanToSwaggerService;
+
+    public FilteredCollectionReader(ObjectMapper objectMapper, PostmanToSwaggerService postmanToSwaggerService) {
+        this.objectMapper = objectMapper;
+        this.postmanToSwaggerService = postmanToSwaggerService;
+    }
+
+    public PostmanCollection read(byte[] json, CollectionFilter filter) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return read(parser, filter);
+        }
+    }
+
+    public PostmanCollection read(JsonParser parser, CollectionFilter filter) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a Postman collection object");
+        }
+        // Everything but the item tree is small and bound as usual
+        TokenBuffer rest = new TokenBuffer(parser);
+        rest.writeStartObject();
+        List<PostmanCollection.Item> items = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("item".equals(field) && value == JsonToken.START_ARRAY) {
+                items = topLevel(parser, filter);
+            } else {
+                rest.writeFieldName(field);
+                rest.copyCurrentStructure(parser);
+            }
+        }
+        rest.writeEndObject();
+        PostmanCollection collection = objectMapper.readValue(rest.asParser(), PostmanCollection.class);
+        collection.setItem(items);
+        return collection;
+    }
+
+    private List<PostmanCollection.Item> topLevel(JsonParser parser, CollectionFilter filter) throws IOException {
+        List<PostmanCollection.Item> kept = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            addItem(parser, filter, new Parent("", "", 0, false), kept);
+        }
+        return kept;
+    }
+
+    /**
+     * Reads the children of a folder, positioned on the start of its item array. Returns null for
+     * an empty array, which the conversion treats as no folder at all.
+     */
+    private List<PostmanCollection.Item> children(JsonParser parser, CollectionFilter filter, String name, Parent parent)
+            throws IOException {
+        if (parser.nextToken() == JsonToken.END_ARRAY) {
+            return null;
+        }
+        Parent folder = parent.child(name);
+        Selection selection = filter.folder(name, folder.folderPath, folder.convertedPath, folder.depth, parent.selected);
+        if (selection == Selection.SKIP) {
+            do {
+                parser.skipChildren();
+            } while (parser.nextToken() != JsonToken.END_ARRAY);
+            return Collections.emptyList();
+        }
+        Parent childParent = selection == Selection.SELECTED ? folder.selected() : folder;
+        List<PostmanCollection.Item> kept = new ArrayList<>();
+        do {
+            addItem(parser, filter, childParent, kept);
+        } while (parser.nextToken() != JsonToken.END_ARRAY);
+        return kept;
+    }
+
+    private void addItem(JsonParser parser, CollectionFilter filter, Parent parent, List<PostmanCollection.Item> kept)
+            throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        PostmanCollection.Item item = item(parser, filter, parent);
+        if (item != null) {
+            kept.add(item);
+        }
+    }
+
+    private PostmanCollection.Item item(JsonParser parser, CollectionFilter filter, Parent parent) throws IOException {
+        TokenBuffer fields = new TokenBuffer(parser);
+        fields.writeStartObject();
+        String name = null;
+        List<PostmanCollection.Item> children = null;
+        // Fields that arrive before the values needed to decide on them are buffered instead
+        TokenBuffer pendingChildren = null;
+        TokenBuffer pendingResponses = null;
+        PostmanCollection.Item.Request request = null;
+        List<PostmanCollection.Item.Response> responses = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("item".equals(field) && value == JsonToken.START_ARRAY) {
+                if (name == null) {
+                    pendingChildren = buffer(parser);
+                } else {
+                    children = children(parser, filter, name, parent);
+                }
+            } else if ("request".equals(field) && value == JsonToken.START_OBJECT) {
+                if (children != null) {
+                    parser.skipChildren();
+                } else {
+                    request = objectMapper.readValue(parser, PostmanCollection.Item.Request.class);
+                }
+            } else if ("response".equals(field) && value == JsonToken.START_ARRAY) {
+                if (name == null || request == null || children != null) {
+                    pendingResponses = buffer(parser);
+                } else if (filter.request(name, method(request), path(parent, request), parent.depth + 1, parent.selected)) {
+                    responses = objectMapper.readValue(parser, RESPONSES);
+                } else {
+                    parser.skipChildren();
+                }
+            } else {
+                if ("name".equals(field) && value.isScalarValue()) {
+                    name = parser.getText();
+                }
+                fields.writeFieldName(field);
+                fields.copyCurrentStructure(parser);
+            }
+        }
+        fields.writeEndObject();
+
+        if (name == null) {
+            name = "";
+        }
+        if (pendingChildren != null) {
+            try (JsonParser buffered = pendingChildren.asParser()) {
+                buffered.nextToken();
+                children = children(buffered, filter, name, parent);
+            }
+        }
+
+        PostmanCollection.Item item;
+        if (children != null) {
+            if (children.isEmpty()) {
+                return null;
+            }
+            item = objectMapper.readValue(fields.asParser(), PostmanCollection.Item.class);
+            item.setItem(children);
+            return item;
+        }
+
+        item = objectMapper.readValue(fields.asParser(), PostmanCollection.Item.class);
+        if (request != null) {
+            item.setRequest(request);
+        }
+        if (!filter.request(name, method(item.getRequest()), path(parent, item.getRequest()), parent.depth + 1, parent.selected)) {
+            return null;
+        }
+        if (responses == null && pendingResponses != null) {
+            responses = objectMapper.readValue(pendingResponses.asParser(), RESPONSES);
+        }
+        if (responses != null) {
+            item.setResponse(responses);
+        }
+        return item;
+    }
+
+    private TokenBuffer buffer(JsonParser parser) throws IOException {
+        TokenBuffer buffer = new TokenBuffer(parser);
+        buffer.copyCurrentStructure(parser);
+        return buffer;
+    }
+
+    // An item without a request, such as a folder with no items, has neither method nor path to match
+    private String method(PostmanCollection.Item.Request request) {
+        return request != null && request.getMethod() != null ? request.getMethod().toString() : null;
+    }
+
+    private String path(Parent parent, PostmanCollection.Item.Request request) {
+        if (request == null || request.getUrl() == null) {
+            return parent.convertedPath + "/";
+        }
+        return parent.convertedPath + postmanToSwaggerService.getPath(request.getUrl());
+    }
+
+    /**
+     * Where in the tree the items being read sit: folder names for folder selection, the path
+     * prefix the conversion will give their operations, and whether a selected folder encloses them.
+     */
+    private static final class Parent {
+        private final String folderPath;
+        private final String convertedPath;
+        private final int depth;
+        private final boolean selected;
+
+        private Parent(String folderPath, String convertedPath, int depth, boolean selected) {
+            this.folderPath = folderPath;
+            this.convertedPath = convertedPath;
+            this.depth = depth;
+            this.selected = selected;
+        }
+
+        private Parent child(String name) {
+            return new Parent(folderPath.isEmpty() ? name : folderPath + "/" + name, convertedPath + "/" + name, depth + 1, selected);
+        }
+
+        private Parent selected() {
+            return new Parent(folderPath, convertedPath, depth, true);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.building.apicentral.service;
+
+/**
+ * The one place conversions touch Flight Recorder, which Java 8 only has from 8u262 on. Events
+ * are created only when the JVM has {@code jdk.jfr}, checked once; elsewhere the methods get
+ * null for an event and do nothing, and {@link ConversionEvent} and {@link BodyInferenceEvent}
+ * are never loaded.
+ */
+final class FlightRecorderEvents {
+
+    private static final boolean AVAILABLE = available();
+
+    private FlightRecorderEvents() {
+    }
+
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * A started conversion event, or null without Flight Recorder.
+     */
+    static Object beginConversion() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        ConversionEvent event = new ConversionEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endConversion(Object started, ConversionTrace trace) {
+        if (started == null) {
+            return;
+        }
+        ConversionEvent event = (ConversionEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.endpoint = trace.endpoint;
+            event.collectionId = trace.collectionId;
+            event.collectionName = trace.collectionName;
+            event.profile = trace.profile;
+            event.items = trace.items;
+            event.inputBytes = trace.inputBytes;
+            event.validateNanos = trace.validateNanos;
+            event.bindNanos = trace.bindNanos;
+            event.convertNanos = trace.convertNanos;
+            event.inferenceNanos = trace.inferenceNanos;
+            event.schemaMemoHits = trace.schemaMemoHits;
+            event.renderNanos = trace.renderNanos;
+            event.allocatedBytes = trace.allocatedBytes;
+            event.outcome = trace.outcome;
+            event.commit();
+        }
+    }
+
+    /**
+     * A started body inference event, or null without Flight Recorder.
+     */
+    static Object beginInference() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        BodyInferenceEvent event = new BodyInferenceEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends {@code started}; true when it passed its threshold and the caller should
+     * {@link #commitInference} it.
+     */
+    static boolean endInference(Object started) {
+        if (started == null) {
+            return false;
+        }
+        BodyInferenceEvent event = (BodyInferenceEvent) started;
+        event.end();
+        return event.shouldCommit();
+    }
+
+    static void commitInference(Object started, String operation, String source, long bodyChars, long nodes, boolean memoHit) {
+        BodyInferenceEvent event = (BodyInferenceEvent) started;
+        event.operation = operation;
+        event.source = source;
+        event.bodyChars = bodyChars;
+        event.nodes = nodes;
+        event.memoHit = memoHit;
+        event.commit();
+    }
+
+    private static boolean available() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,757 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.HarProperties;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Infers a spec from a HAR capture of real traffic. The capture is streamed token by token and
+ * each entry is read into a few strings and merged into the endpoint it belongs to, by method
+ * and templated path, before the next one is read: what an import holds is bounded by the
+ * endpoint and schema limits of {@link HarProperties}, not by how many entries the capture
+ * has. Bodies that are not JSON, or declared longer than the body limit, are skipped without
+ * being buffered. Entries for static assets and for methods a path item cannot hold are
+ * skipped as well.
+ */
+@Slf4j
+@Service
+public class HarImporter {
+
+    private static final Set<String> METHODS = new HashSet<>(Arrays.asList("get", "post", "put", "delete", "patch", "options"));
+    private static final Set<String> STATIC_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "js", "mjs", "css", "map", "html", "htm", "png", "jpg", "jpeg", "gif", "svg", "ico", "webp",
+            "woff", "woff2", "ttf", "eot", "otf", "mp4", "webm", "mp3"));
+    private static final Set<String> GENERIC_PREFIXES = new HashSet<>(Arrays.asList("api", "rest", "services"));
+    private static final int MAX_MEDIA_TYPES = 8;
+    private static final int MAX_SCHEMES = 2;
+
+    private final ObjectMapper objectMapper;
+    private final HarProperties properties;
+    private final SchemaAggregate.Limits limits;
+
+    public HarImporter(ObjectMapper objectMapper, HarProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.limits = new SchemaAggregate.Limits(properties.getMaxDepth(), properties.getMaxProperties(),
+                properties.getMaxArrayItems(), properties.getMaxExampleLength());
+    }
+
+    /**
+     * Reads the capture in {@code in} to its end and builds the spec of the endpoints in it.
+     *
+     * @throws IllegalArgumentException when the input is JSON but not a HAR capture
+     */
+    public SwaggerDefinition importHar(InputStream in, String title, String version) throws IOException {
+        Capture capture = new Capture();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("A HAR capture is a JSON object with a log");
+            }
+            boolean found = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_OBJECT && "log".equals(name)) {
+                    found |= readLog(parser, capture);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!found) {
+                throw new IllegalArgumentException("A HAR capture has its entries in log.entries");
+            }
+        }
+        log.debug("Imported {} HAR entries into {} endpoints: {} skipped, {} past the endpoint limit",
+                capture.entries, capture.endpoints.size(), capture.skipped, capture.dropped);
+        return capture.build(title, version);
+    }
+
+    /**
+     * {@code path} with its identifier segments (numbers, UUIDs, hex strings, dates, e-mail
+     * addresses and long opaque tokens) replaced by parameters named after the segment before
+     * them, {@code /users/42/orders/7} as {@code /users/{userId}/orders/{orderId}}. The replaced
+     * values are added to {@code values} in order.
+     */
+    static String templatePath(String path, List<String> values) {
+        StringBuilder template = new StringBuilder();
+        Set<String> names = new HashSet<>();
+        String previous = null;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            template.append('/');
+            if (isIdentifier(segment)) {
+                String name = parameterName(previous);
+                String unique = name;
+                for (int i = 2; !names.add(unique); i++) {
+                    unique = name + i;
+                }
+                template.append('{').append(unique).append('}');
+                values.add(segment);
+                previous = null;
+            } else {
+                template.append(segment);
+                previous = segment;
+            }
+        }
+        return template.length() == 0 ? "/" : template.toString();
+    }
+
+    static boolean isIdentifier(String segment) {
+        int length = segment.length();
+        int digits = 0;
+        int hexLetters = 0;
+        int letters = 0;
+        boolean other = false;
+        for (int i = 0; i < length; i++) {
+            char c = segment.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if ((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) {
+                hexLetters++;
+                letters++;
+            } else if ((c >= 'g' && c <= 'z') || (c >= 'G' && c <= 'Z')) {
+                letters++;
+            } else if (c != '-' && c != '_') {
+                other = true;
+            }
+        }
+        if (digits == length) {
+            return true;
+        }
+        if (digits > 0 && length >= 8 && digits + hexLetters == length) {
+            return true;
+        }
+        if (digits > 0 && letters > 0 && length >= 16 && !other) {
+            return true;
+        }
+        return (length == 36 && StringFormatDetector.isUuid(segment))
+                || (length == 10 && StringFormatDetector.isDate(segment))
+                || StringFormatDetector.isEmail(segment);
+    }
+
+    // orders -> orderId, order-items -> orderItemId, categories -> categoryId
+    private static String parameterName(String previous) {
+        String name = previous != null ? camelCase(previous, false) : "";
+        if (name.isEmpty() || !Character.isLetter(name.charAt(0))) {
+            return "id";
+        }
+        if (name.endsWith("ies") && name.length() > 4) {
+            name = name.substring(0, name.length() - 3) + "y";
+        } else if (name.endsWith("sses")) {
+            name = name.substring(0, name.length() - 2);
+        } else if (name.endsWith("s") && !name.endsWith("ss") && name.length() > 3) {
+            name = name.substring(0, name.length() - 1);
+        }
+        return name + "Id";
+    }
+
+    private static String camelCase(String value, boolean capitalizeFirst) {
+        StringBuilder result = new StringBuilder();
+        boolean upper = capitalizeFirst;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                upper = result.length() > 0 || capitalizeFirst;
+            } else if (upper) {
+                result.append(Character.toUpperCase(c));
+                upper = false;
+            } else {
+                result.append(result.length() == 0 ? Character.toLowerCase(c) : c);
+            }
+        }
+        return result.toString();
+    }
+
+    private boolean readLog(JsonParser parser, Capture capture) throws IOException {
+        boolean found = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && "entries".equals(name)) {
+                found = true;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() == JsonToken.START_OBJECT) {
+                        capture.add(readEntry(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return found;
+    }
+
+    private Entry readEntry(JsonParser parser) throws IOException {
+        Entry entry = new Entry();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT && "request".equals(name)) {
+                readRequest(parser, entry);
+            } else if (value == JsonToken.START_OBJECT && "response".equals(name)) {
+                readResponse(parser, entry);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return entry;
+    }
+
+    private void readRequest(JsonParser parser, Entry entry) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("method".equals(name)) {
+                entry.method = parser.getValueAsString();
+            } else if ("url".equals(name)) {
+                entry.url = parser.getValueAsString();
+            } else if ("queryString".equals(name) && value == JsonToken.START_ARRAY) {
+                readQuery(parser, entry);
+            } else if ("postData".equals(name) && value == JsonToken.START_OBJECT) {
+                entry.requestBody = readContent(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readQuery(JsonParser parser, Entry entry) throws IOException {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String name = null;
+            String value = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("name".equals(field)) {
+                    name = parser.getValueAsString();
+                } else if ("value".equals(field)) {
+                    value = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (name != null && !name.isEmpty() && entry.query.size() < properties.getMaxQueryParameters()) {
+                entry.query.add(new String[]{name, value != null ? value : ""});
+            }
+        }
+    }
+
+    private void readResponse(JsonParser parser, Entry entry) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("status".equals(name)) {
+                entry.status = parser.getValueAsInt(0);
+            } else if ("statusText".equals(name)) {
+                entry.statusText = parser.getValueAsString();
+            } else if ("content".equals(name) && value == JsonToken.START_OBJECT) {
+                entry.responseBody = readContent(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    // The text is read only when neither the media type nor the size seen before it rule it out;
+    // a string token that is not read is skipped without being buffered
+    private Body readContent(JsonParser parser) throws IOException {
+        Body body = new Body();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("mimeType".equals(name)) {
+                body.mediaType = mediaType(parser.getValueAsString());
+            } else if ("size".equals(name)) {
+                body.size = parser.getValueAsLong(-1);
+            } else if ("encoding".equals(name)) {
+                body.encoding = parser.getValueAsString();
+            } else if ("text".equals(name) && value == JsonToken.VALUE_STRING
+                    && (body.mediaType == null || isJson(body.mediaType))
+                    && body.size <= properties.getMaxBodyChars()) {
+                String text = parser.getText();
+                body.text = text.length() <= properties.getMaxBodyChars() ? text : null;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return body;
+    }
+
+    private JsonNode json(Body body) {
+        if (body == null || body.text == null || body.mediaType == null || !isJson(body.mediaType)) {
+            return null;
+        }
+        try {
+            String text = body.text;
+            if ("base64".equalsIgnoreCase(body.encoding)) {
+                text = new String(Base64.getMimeDecoder().decode(text), StandardCharsets.UTF_8);
+            }
+            return objectMapper.readTree(text);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String mediaType(String mimeType) {
+        if (mimeType == null) {
+            return null;
+        }
+        int parameters = mimeType.indexOf(';');
+        String type = (parameters >= 0 ? mimeType.substring(0, parameters) : mimeType).trim().toLowerCase(Locale.ROOT);
+        return type.isEmpty() ? null : type;
+    }
+
+    private static boolean isJson(String mediaType) {
+        return mediaType.endsWith("/json") || mediaType.endsWith("+json");
+    }
+
+    private static boolean isStaticAsset(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot > path.lastIndexOf('/') && STATIC_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean isDigits(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry {
+        private String method;
+        private String url;
+        private final List<String[]> query = new ArrayList<>();
+        private Body requestBody;
+        private int status;
+        private String statusText;
+        private Body responseBody;
+    }
+
+    private static final class Body {
+        private String mediaType;
+        private long size = -1;
+        private String encoding;
+        private String text;
+    }
+
+    /**
+     * What an import has merged so far.
+     */
+    private final class Capture {
+        private final Map<String, Endpoint> endpoints = new HashMap<>();
+        private final Set<String> schemes = new LinkedHashSet<>();
+        private String host;
+        private long entries;
+        private long skipped;
+        private long dropped;
+
+        void add(Entry entry) {
+            entries++;
+            String method = entry.method != null ? entry.method.toLowerCase(Locale.ROOT) : "";
+            if (!METHODS.contains(method) || entry.url == null) {
+                skipped++;
+                return;
+            }
+            String url = entry.url;
+            int schemeEnd = url.indexOf("://");
+            int hostStart = schemeEnd >= 0 ? schemeEnd + 3 : 0;
+            int pathStart = hostStart;
+            while (pathStart < url.length() && "/?#".indexOf(url.charAt(pathStart)) < 0) {
+                pathStart++;
+            }
+            int pathEnd = pathStart;
+            while (pathEnd < url.length() && "?#".indexOf(url.charAt(pathEnd)) < 0) {
+                pathEnd++;
+            }
+            String path = url.substring(pathStart, pathEnd);
+            Body response = entry.responseBody;
+            boolean json = (entry.requestBody != null && entry.requestBody.mediaType != null && isJson(entry.requestBody.mediaType))
+                    || response == null || response.mediaType == null || isJson(response.mediaType);
+            if (!json || isStaticAsset(path)) {
+                skipped++;
+                return;
+            }
+
+            List<String> values = new ArrayList<>();
+            String template = templatePath(path, values);
+            String key = method + ' ' + template;
+            Endpoint endpoint = endpoints.get(key);
+            if (endpoint == null) {
+                if (endpoints.size() >= properties.getMaxEndpoints()) {
+                    dropped++;
+                    return;
+                }
+                endpoint = new Endpoint(method, template, values.size());
+                endpoints.put(key, endpoint);
+            }
+            endpoint.add(entry, values);
+
+            if (host == null && schemeEnd >= 0) {
+                host = url.substring(hostStart, pathStart);
+            }
+            if (schemeEnd > 0 && schemes.size() < MAX_SCHEMES) {
+                schemes.add(url.substring(0, schemeEnd).toLowerCase(Locale.ROOT));
+            }
+        }
+
+        SwaggerDefinition build(String title, String version) {
+            SwaggerDefinition swagger = new SwaggerDefinition();
+            swagger.getInfo().setTitle(title);
+            swagger.getInfo().setVersion(version);
+            swagger.getInfo().setDescription("Inferred from " + entries + " HAR entries; " + skipped
+                    + " skipped as static assets or unsupported methods, " + dropped + " past the limit of "
+                    + properties.getMaxEndpoints() + " endpoints");
+            swagger.setHost(host != null ? host : "");
+            swagger.setSchemes(new ArrayList<>(schemes));
+
+            Set<String> tags = new TreeSet<>();
+            Set<String> operationIds = new HashSet<>();
+            Map<String, SwaggerDefinition.PathItem> paths = new TreeMap<>();
+            for (Endpoint endpoint : new TreeMap<>(endpoints).values()) {
+                SwaggerDefinition.Operation operation = endpoint.toOperation(operationIds, swagger.getDefinitions());
+                tags.addAll(operation.getTags());
+                SwaggerDefinition.PathItem pathItem = paths.computeIfAbsent(endpoint.template, p -> new SwaggerDefinition.PathItem());
+                switch (endpoint.method) {
+                    case "get":
+                        pathItem.setGet(operation);
+                        break;
+                    case "post":
+                        pathItem.setPost(operation);
+                        break;
+                    case "put":
+                        pathItem.setPut(operation);
+                        break;
+                    case "delete":
+                        pathItem.setDelete(operation);
+                        break;
+                    case "patch":
+                        pathItem.setPatch(operation);
+                        break;
+                    default:
+                        pathItem.setOptions(operation);
+                        break;
+                }
+            }
+            swagger.setPaths(paths);
+            tags.forEach(tag -> swagger.getTags().add(new SwaggerDefinition.Tag(tag)));
+            return swagger;
+        }
+    }
+
+    /**
+     * What the entries of one method and templated path have in common.
+     */
+    private final class Endpoint {
+        private final String method;
+        private final String template;
+        private final PathParameter[] pathParameters;
+        private final SchemaAggregate.Budget budget = new SchemaAggregate.Budget(properties.getMaxSchemaNodesPerEndpoint());
+        private final Map<String, QueryParameter> query = new LinkedHashMap<>();
+        private final Map<Integer, ResponseAggregate> responses = new TreeMap<>();
+        private final Set<String> consumes = new LinkedHashSet<>();
+        private final Set<String> produces = new LinkedHashSet<>();
+        private SchemaAggregate request;
+        private long calls;
+        private long requestBodies;
+
+        Endpoint(String method, String template, int pathParameterCount) {
+            this.method = method;
+            this.template = template;
+            this.pathParameters = new PathParameter[pathParameterCount];
+            for (int i = 0; i < pathParameterCount; i++) {
+                pathParameters[i] = new PathParameter();
+            }
+        }
+
+        void add(Entry entry, List<String> pathValues) {
+            calls++;
+            for (int i = 0; i < pathParameters.length; i++) {
+                pathParameters[i].observe(pathValues.get(i), calls);
+            }
+            for (String[] parameter : entry.query) {
+                QueryParameter queryParameter = query.get(parameter[0]);
+                if (queryParameter == null && query.size() < properties.getMaxQueryParameters()) {
+                    queryParameter = new QueryParameter();
+                    query.put(parameter[0], queryParameter);
+                }
+                if (queryParameter != null) {
+                    queryParameter.observe(parameter[1], calls);
+                }
+            }
+            JsonNode requestJson = json(entry.requestBody);
+            if (requestJson != null) {
+                if (request == null && budget.take()) {
+                    request = new SchemaAggregate(limits);
+                }
+                if (request != null) {
+                    requestBodies++;
+                    request.add(requestJson, 0, budget);
+                }
+                addMediaType(consumes, entry.requestBody.mediaType);
+            }
+            if (entry.status > 0) {
+                ResponseAggregate response = responses.get(entry.status);
+                if (response == null && responses.size() < properties.getMaxStatusCodes()) {
+                    response = new ResponseAggregate();
+                    responses.put(entry.status, response);
+                }
+                if (response != null) {
+                    response.add(entry, budget);
+                }
+            }
+        }
+
+        private void addMediaType(Set<String> mediaTypes, String mediaType) {
+            if (mediaTypes.size() < MAX_MEDIA_TYPES) {
+                mediaTypes.add(mediaType);
+            }
+        }
+
+        SwaggerDefinition.Operation toOperation(Set<String> operationIds, Map<String, SwaggerDefinition.Definition> definitions) {
+            SwaggerDefinition.Operation operation = new SwaggerDefinition.Operation();
+            operation.setTags(new ArrayList<>(Arrays.asList(tag())));
+            operation.setSummary(method.toUpperCase(Locale.ROOT) + " " + template);
+            operation.setDescription("Observed " + calls + (calls == 1 ? " time" : " times")
+                    + (budget.isExhausted() ? "; parts of the bodies past the schema limits are left out" : ""));
+            String operationId = method + camelCase(template, true);
+            String unique = operationId;
+            for (int i = 2; !operationIds.add(unique); i++) {
+                unique = operationId + i;
+            }
+            operation.setOperationId(unique);
+            String definitionPrefix = camelCase(unique, true);
+
+            List<SwaggerDefinition.Parameter> parameters = new ArrayList<>();
+            int index = 0;
+            for (String segment : template.split("/")) {
+                if (segment.startsWith("{")) {
+                    String name = segment.substring(1, segment.length() - 1);
+                    parameters.add(pathParameters[index++].toParameter(name));
+                }
+            }
+            query.forEach((name, parameter) -> parameters.add(parameter.toParameter(name, calls)));
+            if (request != null) {
+                SwaggerDefinition.Parameter body = new SwaggerDefinition.Parameter();
+                body.setName("body");
+                body.setIn("body");
+                body.setRequired(requestBodies == calls);
+                body.setDescription("Request body");
+                body.setSchema(schema(request, definitionPrefix + "Request", definitions));
+                parameters.add(body);
+            }
+            operation.setParameters(parameters);
+            operation.setConsumes(new ArrayList<>(consumes));
+            operation.setProduces(new ArrayList<>(produces));
+
+            Map<String, SwaggerDefinition.Response> result = new LinkedHashMap<>();
+            responses.forEach((status, response) ->
+                    result.put(String.valueOf(status), response.toResponse(status, definitionPrefix + status + "Response", definitions)));
+            operation.setResponses(result);
+            return operation;
+        }
+
+        // The first literal segment past generic prefixes such as /api and /v1
+        private String tag() {
+            for (String segment : template.split("/")) {
+                if (segment.isEmpty() || segment.startsWith("{") || GENERIC_PREFIXES.contains(segment.toLowerCase(Locale.ROOT))
+                        || (segment.length() > 1 && (segment.charAt(0) == 'v' || segment.charAt(0) == 'V') && isDigits(segment.substring(1)))) {
+                    continue;
+                }
+                return segment;
+            }
+            return "default";
+        }
+
+        private final class ResponseAggregate {
+            private String description;
+            private SchemaAggregate body;
+
+            void add(Entry entry, SchemaAggregate.Budget budget) {
+                if (description == null && entry.statusText != null && !entry.statusText.isEmpty()) {
+                    description = entry.statusText;
+                }
+                JsonNode json = json(entry.responseBody);
+                if (json != null) {
+                    if (body == null && budget.take()) {
+                        body = new SchemaAggregate(limits);
+                    }
+                    if (body != null) {
+                        body.add(json, 0, budget);
+                    }
+                    addMediaType(produces, entry.responseBody.mediaType);
+                }
+            }
+
+            SwaggerDefinition.Response toResponse(int status, String name, Map<String, SwaggerDefinition.Definition> definitions) {
+                SwaggerDefinition.Response response = new SwaggerDefinition.Response();
+                response.setDescription(description != null ? description : "Status " + status);
+                if (body != null) {
+                    response.setSchema(schema(body, name, definitions));
+                }
+                return response;
+            }
+        }
+    }
+
+    private final class PathParameter {
+        private boolean integers = true;
+        private boolean uuids = true;
+        private String example;
+
+        void observe(String value, long call) {
+            integers &= isDigits(value);
+            uuids &= value.length() == 36 && StringFormatDetector.isUuid(value);
+            if (call == 1) {
+                example = limits.example(value);
+            }
+        }
+
+        SwaggerDefinition.Parameter toParameter(String name) {
+            SwaggerDefinition.Parameter parameter = new SwaggerDefinition.Parameter();
+            parameter.setName(name);
+            parameter.setIn("path");
+            parameter.setRequired(true);
+            SwaggerDefinition.Schema schema = new SwaggerDefinition.Schema();
+            schema.setType(integers ? "integer" : "string");
+            schema.setExample(example);
+            parameter.setSchema(schema);
+            if (uuids) {
+                parameter.setFormat("uuid");
+            }
+            return parameter;
+        }
+    }
+
+    private final class QueryParameter {
+        // Calls the parameter was sent with, each counted once however often it repeats in the query
+        private long calls;
+        private long lastCall;
+        private boolean integers = true;
+        private String example;
+
+        void observe(String value, long call) {
+            if (lastCall != call) {
+                lastCall = call;
+                calls++;
+            }
+            integers &= isDigits(value);
+            if (example == null && !value.isEmpty()) {
+                example = limits.example(value);
+            }
+        }
+
+        SwaggerDefinition.Parameter toParameter(String name, long endpointCalls) {
+            SwaggerDefinition.Parameter parameter = new SwaggerDefinition.Parameter();
+            parameter.setName(name);
+            parameter.setIn("query");
+            parameter.setRequired(calls == endpointCalls);
+            SwaggerDefinition.Schema schema = new SwaggerDefinition.Schema();
+            schema.setType(integers ? "integer" : "string");
+            schema.setExample(example);
+            parameter.setSchema(schema);
+            return parameter;
+        }
+    }
+
+    private SwaggerDefinition.Schema schema(SchemaAggregate body, String name, Map<String, SwaggerDefinition.Definition> definitions) {
+        SwaggerDefinition.Schema schema = new SwaggerDefinition.Schema();
+        if (body.isObject()) {
+            schema.setType("object");
+            schema.setProperties(properties(body, name, definitions));
+            schema.setRequired(body.required());
+        } else if (body.isArray()) {
+            SwaggerDefinition.Definition definition = new SwaggerDefinition.Definition();
+            definition.setType("array");
+            definition.setItems(items(body.items(), name, definitions));
+            schema.setRef("#/definitions/" + define(name, definition, definitions));
+        } else {
+            schema.setType(body.type());
+            schema.setExample(body.example() != null ? String.valueOf(body.example()) : null);
+        }
+        return schema;
+    }
+
+    private Map<String, SwaggerDefinition.SwaggerProperty> properties(SchemaAggregate object, String name,
+                                                                      Map<String, SwaggerDefinition.Definition> definitions) {
+        Map<String, SwaggerDefinition.SwaggerProperty> properties = new LinkedHashMap<>();
+        object.fields().forEach((field, aggregate) ->
+                properties.put(field, property(aggregate, name + camelCase(field, true), definitions)));
+        return properties;
+    }
+
+    private SwaggerDefinition.SwaggerProperty property(SchemaAggregate aggregate, String name,
+                                                       Map<String, SwaggerDefinition.Definition> definitions) {
+        SwaggerDefinition.SwaggerProperty property = new SwaggerDefinition.SwaggerProperty();
+        property.setType(aggregate.type());
+        if (aggregate.isObject()) {
+            property.setProperties(properties(aggregate, name, definitions));
+        } else if (aggregate.isArray()) {
+            property.setItems(items(aggregate.items(), name, definitions));
+        } else {
+            property.setFormat(aggregate.format());
+            property.setExample(aggregate.example());
+        }
+        return property;
+    }
+
+    // Object items become definitions of their own, as the items of a Swagger 2 array cannot hold properties
+    private SwaggerDefinition.Items items(SchemaAggregate items, String name, Map<String, SwaggerDefinition.Definition> definitions) {
+        SwaggerDefinition.Items result = new SwaggerDefinition.Items();
+        if (items == null) {
+            result.setType("object");
+        } else if (items.isObject()) {
+            SwaggerDefinition.Definition definition = new SwaggerDefinition.Definition();
+            definition.setType("object");
+            definition.setProperties(properties(items, name + "Item", definitions));
+            definition.setRequired(items.required());
+            result.setRef("#/definitions/" + define(name + "Item", definition, definitions));
+        } else {
+            result.setType(items.type());
+            result.setFormat(items.format());
+        }
+        return result;
+    }
+
+    private static String define(String name, SwaggerDefinition.Definition definition, Map<String, SwaggerDefinition.Definition> definitions) {
+        String unique = name;
+        for (int i = 2; definitions.containsKey(unique); i++) {
+            unique = name + i;
+        }
+        definitions.put(unique, definition);
+        return unique;
+    }
+}
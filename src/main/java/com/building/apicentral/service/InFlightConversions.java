@@ -0,0 +1,180 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical conversions that run at the same time, as when a CI fan-out uploads one
+ * collection from many jobs at once. The first request for a key converts on its own thread;
+ * requests for the same key that arrive meanwhile wait for it and get the same result, or
+ * the same exception. Results are shared between threads, so they must be immutable, and keys
+ * must tell kinds of result apart as well as inputs. Nothing is kept once the first request
+ * is done; later requests convert again. With {@code coalesce-identical} off every request
+ * converts on its own, which load tests replaying one body rely on.
+ */
+@Service
+public class InFlightConversions {
+
+    private static final Logger log = LoggerFactory.getLogger(InFlightConversions.class);
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitMs;
+    private final boolean enabled;
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public InFlightConversions(ConversionProperties conversionProperties) {
+        // Rendering and storing come on top of the conversion's own time limit
+        this.maxWaitMs = 2 * conversionProperties.getMaxDurationMs();
+        this.enabled = conversionProperties.isCoalesceIdentical();
+    }
+
+    /**
+     * Runs {@code conversion}, unless one for {@code key} is already running, in which case
+     * its outcome is waited for. A conversion that was interrupted rather than failed is not
+     * passed on: its waiters start over, and one of them converts.
+     *
+     * @throws ConversionLimitExceededException when the running conversion does not finish
+     *                                          within twice the conversion time limit
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T run(String key, Callable<T> conversion) throws Exception {
+        if (!enabled) {
+            return conversion.call();
+        }
+        while (true) {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+            if (running == null) {
+                return lead(key, flight, conversion);
+            }
+            coalesced.incrementAndGet();
+            log.debug("Waiting for the conversion of {} already in progress", key);
+            try {
+                return (T) running.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (CancellationException e) {
+                continue;
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            } catch (TimeoutException e) {
+                throw new ConversionLimitExceededException("duration",
+                        "Gave up after " + maxWaitMs + " ms waiting for an identical conversion in progress");
+            }
+        }
+    }
+
+    private <T> T lead(String key, CompletableFuture<Object> flight, Callable<T> conversion) throws Exception {
+        T result;
+        try {
+            result = conversion.call();
+        } catch (InterruptedException e) {
+            inFlight.remove(key, flight);
+            flight.cancel(false);
+            throw e;
+        } catch (Throwable e) {
+            inFlight.remove(key, flight);
+            if (Thread.currentThread().isInterrupted()) {
+                flight.cancel(false);
+            } else {
+                flight.completeExceptionally(e);
+            }
+            throw rethrow(e);
+        }
+        inFlight.remove(key, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    /**
+     * Like {@link #run}, without blocking: {@code conversion} starts the conversion and returns
+     * its future, and a request for {@code key} while one is running, started here or through
+     * {@link #run}, gets a future of that one's outcome instead. Cancelling a returned future
+     * only cancels the conversion for the request that started it; requests waiting on a
+     * cancelled conversion start over, as with {@link #run}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(String key, Supplier<CompletableFuture<T>> conversion) {
+        if (!enabled) {
+            return conversion.get();
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running == null) {
+            CompletableFuture<T> started;
+            try {
+                started = conversion.get();
+            } catch (RuntimeException | Error e) {
+                inFlight.remove(key, flight);
+                flight.completeExceptionally(e);
+                throw e;
+            }
+            started.whenComplete((result, error) -> {
+                inFlight.remove(key, flight);
+                if (error == null) {
+                    flight.complete(result);
+                } else if (unwrap(error) instanceof CancellationException) {
+                    flight.cancel(false);
+                } else {
+                    flight.completeExceptionally(unwrap(error));
+                }
+            });
+            return started;
+        }
+        coalesced.incrementAndGet();
+        log.debug("Waiting for the conversion of {} already in progress", key);
+        CompletableFuture<T> shared = new CompletableFuture<>();
+        running.whenComplete((result, error) -> {
+            if (error == null) {
+                shared.complete((T) result);
+            } else if (unwrap(error) instanceof CancellationException) {
+                CompletableFuture<T> again;
+                try {
+                    again = submit(key, conversion);
+                } catch (RuntimeException | Error e) {
+                    shared.completeExceptionally(e);
+                    return;
+                }
+                again.whenComplete((retried, failed) -> {
+                    if (failed == null) {
+                        shared.complete(retried);
+                    } else {
+                        shared.completeExceptionally(unwrap(failed));
+                    }
+                });
+            } else {
+                shared.completeExceptionally(unwrap(error));
+            }
+        });
+        return shared;
+    }
+
+    /**
+     * Requests that got the result of another one instead of converting, since startup.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static Exception rethrow(Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return (Exception) e;
+    }
+}
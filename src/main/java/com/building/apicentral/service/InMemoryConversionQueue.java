@@ -0,0 +1,205 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.QueueProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link ConversionQueue} for a single JVM: API requests and workers share one process.
+ * Waiting jobs are limited in number and input bytes by {@code apicentral.queue.max-queued-jobs}
+ * and {@code max-queued-bytes}; the input of a claimed job is left to its worker. Finished jobs
+ * are kept for status and result requests up to {@code apicentral.queue.retained-jobs} and
+ * {@code max-retained-bytes} of results, whichever is reached first.
+ */
+@Service
+@ConditionalOnProperty(prefix = "apicentral.queue", name = "type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryConversionQueue implements ConversionQueue {
+
+    private final int maxAttempts;
+    private final int maxQueuedJobs;
+    private final long maxQueuedBytes;
+    private final int retainedJobs;
+    private final long maxRetainedBytes;
+    private final Deque<String> waiting = new ArrayDeque<>();
+    private final Map<String, Entry> running = new LinkedHashMap<>();
+    private final Map<String, Entry> jobs = new HashMap<>();
+    // In completion order, for retention
+    private final Deque<String> finished = new ArrayDeque<>();
+    // Input bytes of the waiting jobs and result bytes of the finished ones
+    private long queuedBytes;
+    private long retainedBytes;
+    private long claims;
+
+    public InMemoryConversionQueue(QueueProperties properties) {
+        this.maxAttempts = properties.getMaxAttempts();
+        this.maxQueuedJobs = properties.getMaxQueuedJobs();
+        this.maxQueuedBytes = properties.getMaxQueuedBytes();
+        this.retainedJobs = properties.getRetainedJobs();
+        this.maxRetainedBytes = properties.getMaxRetainedBytes();
+    }
+
+    @Override
+    public synchronized String submit(ConversionJob job) {
+        int size = job.getInput().length;
+        // A job larger than the byte limit is still taken when nothing else is waiting
+        if (waiting.size() >= maxQueuedJobs || (!waiting.isEmpty() && queuedBytes + size > maxQueuedBytes)) {
+            throw new RejectedExecutionException("The job queue has " + waiting.size() + " jobs of "
+                    + queuedBytes + " bytes waiting");
+        }
+        job.setId(ConversionJob.newId());
+        jobs.put(job.getId(), new Entry(job));
+        waiting.addLast(job.getId());
+        queuedBytes += size;
+        return job.getId();
+    }
+
+    @Override
+    public synchronized ConversionJob claim(String worker, long leaseMs) {
+        long now = System.currentTimeMillis();
+        requeueExpired(now);
+        String id = waiting.pollFirst();
+        if (id == null) {
+            return null;
+        }
+        Entry entry = jobs.get(id);
+        byte[] input = entry.job.getInput();
+        queuedBytes -= input.length;
+        // The worker holds the input while it runs; a lease handed out again takes it from there
+        entry.job.setInput(null);
+        entry.input = new WeakReference<>(input);
+        entry.state = ConversionJobStatus.State.RUNNING;
+        entry.worker = worker;
+        entry.expiresAt = now + leaseMs;
+        entry.attempts++;
+        entry.claim = worker + "#" + (++claims);
+        running.put(id, entry);
+
+        ConversionJob claimed = copy(entry.job);
+        claimed.setInput(input);
+        claimed.setClaim(entry.claim);
+        return claimed;
+    }
+
+    @Override
+    public synchronized boolean complete(ConversionJob job, byte[] result) {
+        Entry entry = leased(job);
+        if (entry == null) {
+            return false;
+        }
+        entry.result = result;
+        finish(entry, ConversionJobStatus.State.DONE);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean fail(ConversionJob job, String error) {
+        Entry entry = leased(job);
+        if (entry == null) {
+            return false;
+        }
+        entry.error = error;
+        finish(entry, ConversionJobStatus.State.FAILED);
+        return true;
+    }
+
+    @Override
+    public synchronized ConversionJobStatus status(String id) {
+        Entry entry = jobs.get(id);
+        if (entry == null) {
+            return null;
+        }
+        return new ConversionJobStatus(id, entry.state, entry.attempts,
+                entry.state == ConversionJobStatus.State.RUNNING ? entry.worker : null, entry.error);
+    }
+
+    @Override
+    public synchronized byte[] result(String id) {
+        Entry entry = jobs.get(id);
+        return entry != null ? entry.result : null;
+    }
+
+    private Entry leased(ConversionJob job) {
+        Entry entry = running.get(job.getId());
+        return entry != null && entry.claim.equals(job.getClaim()) ? entry : null;
+    }
+
+    private void requeueExpired(long now) {
+        Iterator<Entry> entries = running.values().iterator();
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (entry.expiresAt > now) {
+                continue;
+            }
+            entries.remove();
+            byte[] input = entry.input.get();
+            entry.input = null;
+            if (entry.attempts >= maxAttempts) {
+                entry.error = "Lease expired " + entry.attempts + " times";
+                entry.state = ConversionJobStatus.State.FAILED;
+                retain(entry);
+            } else if (input == null) {
+                entry.error = "Lease expired after the worker let go of the input";
+                entry.state = ConversionJobStatus.State.FAILED;
+                retain(entry);
+            } else {
+                // Already admitted, so handed out again past the limits
+                entry.job.setInput(input);
+                queuedBytes += input.length;
+                entry.state = ConversionJobStatus.State.QUEUED;
+                waiting.addFirst(entry.job.getId());
+            }
+        }
+    }
+
+    private void finish(Entry entry, ConversionJobStatus.State state) {
+        running.remove(entry.job.getId());
+        entry.state = state;
+        entry.input = null;
+        retain(entry);
+    }
+
+    // The newest finished job is kept whatever the size of its result
+    private void retain(Entry entry) {
+        finished.addLast(entry.job.getId());
+        retainedBytes += entry.result != null ? entry.result.length : 0;
+        while (finished.size() > retainedJobs || (finished.size() > 1 && retainedBytes > maxRetainedBytes)) {
+            Entry dropped = jobs.remove(finished.pollFirst());
+            retainedBytes -= dropped.result != null ? dropped.result.length : 0;
+        }
+    }
+
+    private static ConversionJob copy(ConversionJob job) {
+        ConversionJob copy = new ConversionJob();
+        copy.setId(job.getId());
+        copy.setPinnedVersion(job.getPinnedVersion());
+        copy.setProfile(job.getProfile());
+        copy.setCanonical(job.isCanonical());
+        return copy;
+    }
+
+    private static final class Entry {
+        private final ConversionJob job;
+        private ConversionJobStatus.State state = ConversionJobStatus.State.QUEUED;
+        private String worker;
+        private String claim;
+        // Input of the running claim, held by its worker
+        private WeakReference<byte[]> input;
+        private long expiresAt;
+        private int attempts;
+        private String error;
+        private byte[] result;
+
+        private Entry(ConversionJob job) {
+            this.job = job;
+        }
+    }
+}
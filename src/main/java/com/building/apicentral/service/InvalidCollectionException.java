@@ -0,0 +1,15 @@
+package com.building.apicentral.service;
+
+public class InvalidCollectionException extends RuntimeException {
+
+    private final ValidationReport report;
+
+    public InvalidCollectionException(ValidationReport report) {
+        super("Invalid Postman collection: " + String.join("; ", report.getProblems()));
+        this.report = report;
+    }
+
+    public ValidationReport getReport() {
+        return report;
+    }
+}
@@ -0,0 +1,439 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks an upload against the shape {@link com.building.apicentral.model.PostmanCollection}
+ * binding and the conversion rely on, token by token and without building any model or tree:
+ * the collection schema version, the types of the folder, request, url, body and response
+ * fields, raw request bodies being JSON, and the folder depth and item count limits.
+ * All problems are collected in one pass, up to {@link #MAX_PROBLEMS}.
+ */
+@Service
+public class PostmanCollectionValidator {
+
+    static final int MAX_PROBLEMS = 100;
+
+    private static final String SCHEMA_PREFIX = "schema.getpostman.com/json/collection/";
+    private static final String[] SUPPORTED_SCHEMAS = {"v2.0.0/", "v2.1.0/"};
+
+    private final JsonFactory jsonFactory;
+    private final ConversionProperties conversionProperties;
+
+    public PostmanCollectionValidator(ObjectMapper objectMapper, ConversionProperties conversionProperties) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.conversionProperties = conversionProperties;
+    }
+
+    public ValidationReport validate(byte[] json) {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return validate(parser);
+        } catch (IOException e) {
+            return new ValidationReport(Collections.singletonList("Error reading input: " + e.getMessage()), false, 0, 0);
+        }
+    }
+
+    /**
+     * Validates the collection the parser is positioned before; used for token buffers that
+     * were already read off the wire.
+     */
+    public ValidationReport validate(JsonParser parser) throws IOException {
+        Validation validation = new Validation(parser);
+        try {
+            validation.collection();
+        } catch (TooManyProblems e) {
+            // report what was collected so far
+        } catch (StreamConstraintsException e) {
+            // Not malformed, only past what the parser accepts: a limit like max-depth
+            throw ConversionLimitExceededException.of(e);
+        } catch (JsonProcessingException e) {
+            validation.malformed(e);
+        }
+        return new ValidationReport(Collections.unmodifiableList(validation.problems), validation.truncated,
+                validation.folders, validation.requests);
+    }
+
+    private static final class TooManyProblems extends RuntimeException {
+        private TooManyProblems() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * One validation pass. Descends recursively; the parser's nesting limit bounds the depth,
+     * and folders below the configured depth are skipped rather than entered.
+     */
+    private final class Validation {
+
+        private final JsonParser parser;
+        private final List<String> problems = new ArrayList<>();
+        // JSON pointer of the value being looked at, truncated again on the way back up
+        private final StringBuilder path = new StringBuilder();
+        private boolean truncated;
+        private boolean nodeLimitReported;
+        private int folders;
+        private int requests;
+
+        private Validation(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        private void collection() throws IOException {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                problem("expected a JSON object with info and item");
+                return;
+            }
+            boolean info = false;
+            boolean item = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                int mark = enter(field);
+                if ("info".equals(field)) {
+                    info = true;
+                    info();
+                } else if ("item".equals(field)) {
+                    item = true;
+                    items(0);
+                } else {
+                    parser.skipChildren();
+                }
+                path.setLength(mark);
+            }
+            if (!info) {
+                problem("/info", "missing; expected the collection info with its schema");
+            }
+            if (!item) {
+                problem("/item", "missing; expected the array of folders and requests");
+            }
+            if (parser.nextToken() != null) {
+                problem("unexpected content after the collection");
+            }
+        }
+
+        private void info() throws IOException {
+            if (!expect(JsonToken.START_OBJECT, "an object")) {
+                return;
+            }
+            String schema = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                int mark = enter(field);
+                if ("schema".equals(field)) {
+                    if (expect(JsonToken.VALUE_STRING, "a string")) {
+                        schema = parser.getText();
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+                path.setLength(mark);
+            }
+            if (schema == null) {
+                problem(path + "/schema", "missing; expected a Postman collection v2.0.0 or v2.1.0 schema URL");
+            } else if (!supportedSchema(schema)) {
+                problem(path + "/schema", "unsupported schema " + schema + "; expected Postman collection v2.0.0 or v2.1.0");
+            }
+        }
+
+        private boolean supportedSchema(String schema) {
+            int prefix = schema.indexOf(SCHEMA_PREFIX);
+            if (prefix < 0) {
+                return false;
+            }
+            for (String version : SUPPORTED_SCHEMAS) {
+                if (schema.startsWith(version, prefix + SCHEMA_PREFIX.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void items(int depth) throws IOException {
+            if (!expect(JsonToken.START_ARRAY, "an array")) {
+                return;
+            }
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                int mark = enter(index++);
+                item(depth + 1);
+                path.setLength(mark);
+            }
+        }
+
+        private void item(int depth) throws IOException {
+            if (!expect(JsonToken.START_OBJECT, "an object")) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                int mark = enter(field);
+                if ("item".equals(field)) {
+                    countNode();
+                    folders++;
+                    if (depth >= conversionProperties.getMaxDepth()) {
+                        problem("folders nested deeper than the limit of " + conversionProperties.getMaxDepth());
+                        parser.skipChildren();
+                    } else {
+                        items(depth);
+                    }
+                } else if ("request".equals(field)) {
+                    countNode();
+                    requests++;
+                    request();
+                } else if ("response".equals(field)) {
+                    arrayOf(this::response);
+                } else {
+                    parser.skipChildren();
+                }
+                path.setLength(mark);
+            }
+        }
+
+        private void request() throws IOException {
+            if (!expect(JsonToken.START_OBJECT, "an object (the string shorthand is not supported)")) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                int mark = enter(field);
+                switch (field) {
+                    case "method":
+                        expect(JsonToken.VALUE_STRING, "a string");
+                        break;
+                    case "url":
+                        url();
+                        break;
+                    case "header":
+                        arrayOf(this::object);
+                        break;
+                    case "body":
+                        body();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+                path.setLength(mark);
+            }
+        }
+
+        private void url() throws IOException {
+            if (!expect(JsonToken.START_OBJECT, "an object with raw, host and path")) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                int mark = enter(field);
+                if ("host".equals(field) || "path".equals(field)) {
+                    arrayOf(this::expectScalar);
+                } else if ("query".equals(field)) {
+                    arrayOf(this::object);
+                } else {
+                    parser.skipChildren();
+                }
+                path.setLength(mark);
+            }
+        }
+
+        private void body() throws IOException {
+            if (!expect(JsonToken.START_OBJECT, "an object")) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                int mark = enter(field);
+                if ("raw".equals(field)) {
+                    if (parser.currentToken() != JsonToken.VALUE_NULL && expect(JsonToken.VALUE_STRING, "a string")) {
+                        rawBody(parser.getText());
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+                path.setLength(mark);
+            }
+        }
+
+        // Raw bodies are repaired and read as one JSON value by the conversion; checked the same way
+        private void rawBody(String raw) throws IOException {
+            if (raw.trim().isEmpty()) {
+                return;
+            }
+            try (JsonParser body = jsonFactory.createParser(PostmanToSwaggerService.repairRawBody(raw))) {
+                body.nextToken();
+                body.skipChildren();
+            } catch (StreamConstraintsException e) {
+                throw ConversionLimitExceededException.of(e);
+            } catch (JsonProcessingException e) {
+                JsonLocation location = e.getLocation();
+                problem("raw body is not valid JSON"
+                        + (location != null ? " at line " + location.getLineNr() + ", column " + location.getColumnNr() : "")
+                        + ": " + e.getOriginalMessage());
+            }
+        }
+
+        private void response() throws IOException {
+            if (!expect(JsonToken.START_OBJECT, "an object")) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                int mark = enter(field);
+                if ("code".equals(field)) {
+                    JsonToken token = parser.currentToken();
+                    if (token != JsonToken.VALUE_NULL && !(token == JsonToken.VALUE_STRING && isInteger(parser.getText()))) {
+                        expect(JsonToken.VALUE_NUMBER_INT, "an integer status code");
+                    }
+                } else if ("header".equals(field)) {
+                    arrayOf(this::object);
+                } else {
+                    parser.skipChildren();
+                }
+                path.setLength(mark);
+            }
+        }
+
+        private boolean isInteger(String text) {
+            try {
+                Integer.parseInt(text.trim());
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private void object() throws IOException {
+            if (expect(JsonToken.START_OBJECT, "an object")) {
+                parser.skipChildren();
+            }
+        }
+
+        private void arrayOf(Element element) throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_NULL || !expect(JsonToken.START_ARRAY, "an array")) {
+                return;
+            }
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                int mark = enter(index++);
+                element.check();
+                path.setLength(mark);
+            }
+        }
+
+        private void expectScalar() throws IOException {
+            if (parser.currentToken().isStructStart()) {
+                problem("expected a string, found " + describe(parser.currentToken()));
+                parser.skipChildren();
+            }
+        }
+
+        // Skips the current value when it has the wrong type
+        private boolean expect(JsonToken expected, String description) throws IOException {
+            JsonToken actual = parser.currentToken();
+            if (actual == expected) {
+                return true;
+            }
+            problem("expected " + description + ", found " + describe(actual));
+            parser.skipChildren();
+            return false;
+        }
+
+        private void countNode() {
+            if (!nodeLimitReported && folders + requests >= conversionProperties.getMaxNodes()) {
+                nodeLimitReported = true;
+                problem("/item", "more than " + conversionProperties.getMaxNodes() + " folders and requests");
+            }
+        }
+
+        private int enter(String field) {
+            int mark = path.length();
+            path.append('/');
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                if (c == '~') {
+                    path.append("~0");
+                } else if (c == '/') {
+                    path.append("~1");
+                } else {
+                    path.append(c);
+                }
+            }
+            return mark;
+        }
+
+        private int enter(int index) {
+            int mark = path.length();
+            path.append('/').append(index);
+            return mark;
+        }
+
+        private void problem(String message) {
+            problem(path.toString(), message);
+        }
+
+        private void problem(String pointer, String message) {
+            if (problems.size() == MAX_PROBLEMS) {
+                truncated = true;
+                throw new TooManyProblems();
+            }
+            problems.add((pointer.isEmpty() ? "/" : pointer) + ": " + message);
+        }
+
+        private void malformed(JsonProcessingException e) {
+            if (problems.size() == MAX_PROBLEMS) {
+                truncated = true;
+                return;
+            }
+            JsonLocation location = e.getLocation();
+            problems.add("malformed JSON"
+                    + (location != null ? " at line " + location.getLineNr() + ", column " + location.getColumnNr() : "")
+                    + ": " + e.getOriginalMessage());
+        }
+
+        private String describe(JsonToken token) {
+            if (token == null) {
+                return "end of input";
+            }
+            switch (token) {
+                case START_OBJECT:
+                    return "an object";
+                case START_ARRAY:
+                    return "an array";
+                case VALUE_STRING:
+                    return "a string";
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    return "a number";
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    return "a boolean";
+                case VALUE_NULL:
+                    return "null";
+                default:
+                    return token.name();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Element {
+        void check() throws IOException;
+    }
+}
@@ -1,11 +1,15 @@
 package com.building.apicentral.service;
 
+import com.building.apicentral.config.ConversionProperties;
 import com.building.apicentral.model.PostmanCollection;
 import com.building.apicentral.model.SwaggerDefinition;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,36 +23,90 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+@Lazy(false)
 @Service
 public class PostmanToSwaggerService {
 
     private static final Logger log = LoggerFactory.getLogger(PostmanToSwaggerService.class);
+    // Stand in for a request's body and auth when the collection leaves them out; never modified
+    private static final PostmanCollection.Body ABSENT_BODY = new PostmanCollection.Body();
+    private static final PostmanCollection.Item.Request.Auth ABSENT_AUTH = new PostmanCollection.Item.Request.Auth();
     private final ObjectMapper objectMapper;
+    private final ConversionProperties conversionProperties;
+    private final List<ConversionStage> stages;
+    private final BodySchemaMemo schemaMemo;
 
     public PostmanToSwaggerService(ObjectMapper objectMapper) {
+        this(objectMapper, new ConversionProperties());
+    }
+
+    public PostmanToSwaggerService(ObjectMapper objectMapper, ConversionProperties conversionProperties) {
+        this(objectMapper, conversionProperties, Collections.emptyList());
+    }
+
+    public PostmanToSwaggerService(ObjectMapper objectMapper, ConversionProperties conversionProperties,
+                                   List<ConversionStage> stages) {
         this.objectMapper = objectMapper;
+        this.conversionProperties = conversionProperties;
+        this.stages = new ArrayList<>(stages);
+        this.schemaMemo = new BodySchemaMemo(conversionProperties.getSchemaMemoEntries(),
+                conversionProperties.getSchemaMemoMaxChars());
+    }
+
+    @Autowired
+    public PostmanToSwaggerService(ObjectMapper objectMapper, ConversionProperties conversionProperties,
+                                   ObjectProvider<ConversionStage> stages) {
+        this(objectMapper, conversionProperties, stages.orderedStream().collect(Collectors.toList()));
     }
 
     public SwaggerDefinition convertPostmanToSwagger(PostmanCollection postmanCollection) {
+        return convertPostmanToSwagger(postmanCollection, ConversionOptions.defaults());
+    }
+
+    public SwaggerDefinition convertPostmanToSwagger(PostmanCollection postmanCollection, ConversionOptions options) {
         try {
             SwaggerDefinition swaggerDefinition = new SwaggerDefinition();
+            ConversionContext context = new ConversionContext(conversionProperties, options);
 
-            setInfo(swaggerDefinition, postmanCollection.getInfo());
-            setHostAndBasePath(swaggerDefinition, postmanCollection);
-            setTags(swaggerDefinition, postmanCollection.getItem());
-            setPaths(swaggerDefinition, postmanCollection.getItem());
-            setSecurityDefinitions(swaggerDefinition, postmanCollection);
-            setDefinitions(swaggerDefinition);
+            setInfo(swaggerDefinition, postmanCollection.getInfo(), options);
+            convertItems(swaggerDefinition, postmanCollection, context);
             setSchemes(swaggerDefinition);
+            if (options.getTrace() != null) {
+                options.getTrace().converted(postmanCollection, context);
+            }
+            if (options.getProgress() != null) {
+                options.getProgress().items(context.getVisitedItems(), null, System.nanoTime());
+            }
 
             return swaggerDefinition;
 
+        } catch (ConversionLimitExceededException e) {
+            log.warn(e.getMessage());
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error converting Postman to Swagger", e);
         }
     }
 
-    private void setInfo(SwaggerDefinition swaggerDefinition, PostmanCollection.Info info) {
+    /**
+     * The info.version a conversion with these options produces today.
+     */
+    public String infoVersion(ConversionOptions options) {
+        if (options.getPinnedVersion() != null && !options.getPinnedVersion().isEmpty()) {
+            return options.getPinnedVersion();
+        }
+        LocalDate currentDate = LocalDate.now();
+        return "v." + currentDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".1";
+    }
+
+    /**
+     * The profile a conversion with these options runs with.
+     */
+    public ConversionProfile profile(ConversionOptions options) {
+        return options.getProfile() != null ? options.getProfile() : conversionProperties.getProfile();
+    }
+
+    private void setInfo(SwaggerDefinition swaggerDefinition, PostmanCollection.Info info, ConversionOptions options) {
         if (info == null) {
             return;
         }
@@ -59,8 +117,7 @@ public class PostmanToSwaggerService {
         swaggerInfo.setTitle(title);
         swaggerInfo.setDescription(title);  // Description same as title
 
-        LocalDate currentDate = LocalDate.now();
-        swaggerInfo.setVersion("v." + currentDate.format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".1");
+        swaggerInfo.setVersion(infoVersion(options));
 
         // Set default contact
         SwaggerDefinition.Contact swaggerContact = new SwaggerDefinition.Contact();
@@ -112,55 +169,127 @@ public class PostmanToSwaggerService {
         swaggerDefinition.setInfo(swaggerInfo);
     }
 
-    private void setHostAndBasePath(SwaggerDefinition swaggerDefinition, PostmanCollection postmanCollection) {
-        if (postmanCollection.getItem() == null || postmanCollection.getItem().isEmpty()) {
-            return;
+    /**
+     * Walks the item tree once. Host, tags, paths, security definitions and definitions are each
+     * built by a visitor fed from this walk, followed by the visitors of any registered stages.
+     */
+    private void convertItems(SwaggerDefinition swaggerDefinition, PostmanCollection postmanCollection, ConversionContext context) {
+        List<ConversionVisitor> visitors = new ArrayList<>();
+        visitors.add(new HostVisitor(postmanCollection));
+        visitors.add(new TagVisitor());
+        visitors.add(new PathVisitor());
+        visitors.add(new SecurityVisitor());
+        if (context.getProfile().isInferSchemas()) {
+            visitors.add(new DefinitionVisitor());
+        }
+        for (ConversionStage stage : stages) {
+            visitors.add(stage.createVisitor(postmanCollection, context));
+        }
+        // Indexed loops below: the calls are megamorphic, so an iterator per item would not be scalar-replaced
+        ConversionVisitor[] all = visitors.toArray(new ConversionVisitor[0]);
+
+        if (postmanCollection.getItem() != null) {
+            Deque<ItemFrame> stack = new ArrayDeque<>();
+            pushItems(stack, postmanCollection.getItem(), "", 1);
+            while (!stack.isEmpty()) {
+                ItemFrame frame = stack.pop();
+                context.visitItem(frame.depth, frame.parentPath);
+                PostmanCollection.Item item = frame.item;
+                for (int i = 0; i < all.length; i++) {
+                    all[i].visitItem(item, frame.depth);
+                }
+                if (item.getItem() != null && !item.getItem().isEmpty()) {
+                    pushItems(stack, item.getItem(), frame.parentPath + "/" + extractStringValue(item.getName()), frame.depth + 1);
+                } else if (item.getRequest() != null) {
+                    String path = getPath(item.getRequest().getUrl());
+                    if (path == null) {
+                        continue;
+                    }
+                    SwaggerDefinition.Operation operation = createOperation(item, context);
+                    String method = extractStringValue(item.getRequest().getMethod()).toLowerCase();
+                    String fullPath = frame.parentPath + path;
+                    for (int i = 0; i < all.length; i++) {
+                        all[i].visitOperation(fullPath, method, operation, item);
+                    }
+                }
+            }
         }
 
-        String url = findFirstValidUrl(postmanCollection.getItem());
-        if (url == null) {
-            return;
+        for (ConversionVisitor visitor : all) {
+            visitor.finish(swaggerDefinition);
         }
+    }
 
-        try {
-            url = resolvePostmanVariables(url, postmanCollection);
-            URI uri = new URI(url);
-            swaggerDefinition.setHost(uri.getHost());
-            String path = uri.getPath();
-            int firstSlash = path.indexOf('/', 1);
-            if (firstSlash != -1) {
-                swaggerDefinition.setBasePath(path.substring(0, firstSlash));
-            } else {
-                swaggerDefinition.setBasePath(path);
+    // Pushes siblings in reverse so they are popped in document order
+    private void pushItems(Deque<ItemFrame> stack, List<PostmanCollection.Item> items, String parentPath, int depth) {
+        for (int i = items.size() - 1; i >= 0; i--) {
+            PostmanCollection.Item item = items.get(i);
+            if (item != null) {
+                stack.push(new ItemFrame(item, parentPath, depth));
             }
-        } catch (URISyntaxException e) {
-            log.error("Error parsing URL", e);
         }
     }
 
-    private String findFirstValidUrl(List<PostmanCollection.Item> items) {
-        for (PostmanCollection.Item item : items) {
-            if (item.getRequest() != null && item.getRequest().getUrl() != null) {
+    private static final class ItemFrame {
+        private final PostmanCollection.Item item;
+        private final String parentPath;
+        private final int depth;
+
+        private ItemFrame(PostmanCollection.Item item, String parentPath, int depth) {
+            this.item = item;
+            this.parentPath = parentPath;
+            this.depth = depth;
+        }
+    }
+
+    private String extractString(Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        return null;
+    }
+
+    // Host and base path come from the first item, in document order, with a raw URL
+    private final class HostVisitor implements ConversionVisitor {
+        private final PostmanCollection postmanCollection;
+        private String url;
+
+        private HostVisitor(PostmanCollection postmanCollection) {
+            this.postmanCollection = postmanCollection;
+        }
+
+        @Override
+        public void visitItem(PostmanCollection.Item item, int depth) {
+            if (url == null && item.getRequest() != null && item.getRequest().getUrl() != null) {
                 String raw = extractString(item.getRequest().getUrl().getRaw());
                 if (raw != null && !raw.isEmpty()) {
-                    return raw;
+                    url = raw;
                 }
             }
-            if (item.getItem() != null && !item.getItem().isEmpty()) {
-                String url = findFirstValidUrl(item.getItem());
-                if (url != null) {
-                    return url;
-                }
+        }
+
+        @Override
+        public void finish(SwaggerDefinition swaggerDefinition) {
+            if (url != null) {
+                setHostAndBasePath(swaggerDefinition, resolvePostmanVariables(url, postmanCollection));
             }
         }
-        return null;
     }
 
-    private String extractString(Object value) {
-        if (value instanceof String) {
-            return (String) value;
+    private void setHostAndBasePath(SwaggerDefinition swaggerDefinition, String url) {
+        try {
+            URI uri = new URI(url);
+            swaggerDefinition.setHost(uri.getHost());
+            String path = uri.getPath();
+            int firstSlash = path.indexOf('/', 1);
+            if (firstSlash != -1) {
+                swaggerDefinition.setBasePath(path.substring(0, firstSlash));
+            } else {
+                swaggerDefinition.setBasePath(path);
+            }
+        } catch (URISyntaxException e) {
+            log.error("Error parsing URL", e);
         }
-        return null;
     }
 
     private String resolvePostmanVariables(String url, PostmanCollection postmanCollection) {
@@ -183,22 +312,24 @@ public class PostmanToSwaggerService {
         return variables;
     }
 
-    private void setTags(SwaggerDefinition swaggerDefinition, List<PostmanCollection.Item> items) {
-        if (items == null) {
-            return;
-        }
-
-        List<String> tagNames = items.stream()
-                .map(this::extractStringName)
-                .filter(Objects::nonNull)
-                .distinct()
-                .collect(Collectors.toList());
+    // Top-level items become the document's tags
+    private final class TagVisitor implements ConversionVisitor {
+        private final Set<String> tagNames = new LinkedHashSet<>();
 
-        List<SwaggerDefinition.Tag> tags = tagNames.stream()
-                .map(SwaggerDefinition.Tag::new)
-                .collect(Collectors.toList());
+        @Override
+        public void visitItem(PostmanCollection.Item item, int depth) {
+            String name = depth == 1 ? extractStringName(item) : null;
+            if (name != null) {
+                tagNames.add(name);
+            }
+        }
 
-        swaggerDefinition.setTags(tags);
+        @Override
+        public void finish(SwaggerDefinition swaggerDefinition) {
+            swaggerDefinition.setTags(tagNames.stream()
+                    .map(SwaggerDefinition.Tag::new)
+                    .collect(Collectors.toList()));
+        }
     }
 
     private String extractStringName(PostmanCollection.Item item) {
@@ -209,7 +340,10 @@ public class PostmanToSwaggerService {
         return null;
     }
 
-    private String getPath(PostmanCollection.Item.UrlObject urlObject) {
+    String getPath(PostmanCollection.Item.UrlObject urlObject) {
+        if (urlObject == null) {
+            return "/";
+        }
         if (urlObject.getPath() != null && !urlObject.getPath().isEmpty()) {
             return "/" + String.join("/", urlObject.getPath())
                     .replaceAll("[:{}]", "");
@@ -227,34 +361,17 @@ public class PostmanToSwaggerService {
         return "/";
     }
 
-    private void setPaths(SwaggerDefinition swaggerDefinition, List<PostmanCollection.Item> items) {
-        Map<String, SwaggerDefinition.PathItem> pathsMap = new HashMap<>();
-        processItems(items, pathsMap, "");
-        swaggerDefinition.setPaths(pathsMap);
-    }
+    private final class PathVisitor implements ConversionVisitor {
+        private final Map<String, SwaggerDefinition.PathItem> pathsMap = new HashMap<>();
 
-    private void processItems(List<PostmanCollection.Item> items, Map<String, SwaggerDefinition.PathItem> pathsMap, String parentPath) {
-        if (items == null) {
-            return;
+        @Override
+        public void visitOperation(String path, String method, SwaggerDefinition.Operation operation, PostmanCollection.Item item) {
+            setOperationForMethod(pathsMap.computeIfAbsent(path, k -> new SwaggerDefinition.PathItem()), method, operation);
         }
 
-        for (PostmanCollection.Item item : items) {
-            if (item.getItem() != null && !item.getItem().isEmpty()) {
-                processItems(item.getItem(), pathsMap, parentPath + "/" + extractStringValue(item.getName()));
-            } else if (item.getRequest() != null) {
-                String path = getPath(item.getRequest().getUrl());
-                if (path == null) {
-                    continue;
-                }
-
-                String fullPath = parentPath + path;
-                SwaggerDefinition.PathItem pathItem = pathsMap.computeIfAbsent(fullPath, k -> new SwaggerDefinition.PathItem());
-
-                SwaggerDefinition.Operation operation = createOperation(item);
-                String method = extractStringValue(item.getRequest().getMethod()).toLowerCase();
-
-                setOperationForMethod(pathItem, method, operation);
-            }
+        @Override
+        public void finish(SwaggerDefinition swaggerDefinition) {
+            swaggerDefinition.setPaths(pathsMap);
         }
     }
 
@@ -311,34 +428,53 @@ public class PostmanToSwaggerService {
         return operationId.substring(0, 1).toLowerCase() + operationId.substring(1);
     }
 
-    private void setSecurityDefinitions(SwaggerDefinition swaggerDefinition, PostmanCollection postmanCollection) {
-        Map<String, SwaggerDefinition.SecurityScheme> securityDefinitions = new HashMap<>();
+    // A bearer-authenticated top-level request declares the JWT scheme
+    private final class SecurityVisitor implements ConversionVisitor {
+        private boolean bearer;
 
-        if (postmanCollection.getItem().stream()
-                .anyMatch(item -> item.getRequest().getAuth() != null && "bearer".equals(item.getRequest().getAuth().getType()))) {
-            SwaggerDefinition.SecurityScheme jwtScheme = new SwaggerDefinition.SecurityScheme();
-            jwtScheme.setType("apiKey");
-            jwtScheme.setName("Authorization");
-            jwtScheme.setIn("header");
-            securityDefinitions.put("JWT", jwtScheme);
+        @Override
+        public void visitItem(PostmanCollection.Item item, int depth) {
+            if (depth == 1 && item.getRequest() != null && item.getRequest().getAuth() != null
+                    && "bearer".equals(item.getRequest().getAuth().getType())) {
+                bearer = true;
+            }
         }
 
-        swaggerDefinition.setSecurityDefinitions(securityDefinitions);
+        @Override
+        public void finish(SwaggerDefinition swaggerDefinition) {
+            Map<String, SwaggerDefinition.SecurityScheme> securityDefinitions = new HashMap<>();
+            if (bearer) {
+                SwaggerDefinition.SecurityScheme jwtScheme = new SwaggerDefinition.SecurityScheme();
+                jwtScheme.setType("apiKey");
+                jwtScheme.setName("Authorization");
+                jwtScheme.setIn("header");
+                securityDefinitions.put("JWT", jwtScheme);
+            }
+            swaggerDefinition.setSecurityDefinitions(securityDefinitions);
+        }
     }
 
-    private void setDefinitions(SwaggerDefinition swaggerDefinition) {
-        Map<String, SwaggerDefinition.Definition> definitionsMap = new HashMap<>();
-        extractDefinitionsFromItems(swaggerDefinition.getPaths(), definitionsMap);
-        swaggerDefinition.setDefinitions(definitionsMap);
-    }
+    // Body and response schemas of get, post, put and delete operations; a later name wins
+    private final class DefinitionVisitor implements ConversionVisitor {
+        private final Map<String, SwaggerDefinition.Definition> definitionsMap = new HashMap<>();
+
+        @Override
+        public void visitOperation(String path, String method, SwaggerDefinition.Operation operation, PostmanCollection.Item item) {
+            switch (method) {
+                case "get":
+                case "post":
+                case "put":
+                case "delete":
+                    extractDefinitionsFromOperation(operation, definitionsMap);
+                    break;
+                default:
+                    break;
+            }
+        }
 
-    private void extractDefinitionsFromItems(Map<String, SwaggerDefinition.PathItem> paths, Map<String, SwaggerDefinition.Definition> definitionsMap) {
-        for (Map.Entry<String, SwaggerDefinition.PathItem> entry : paths.entrySet()) {
-            SwaggerDefinition.PathItem pathItem = entry.getValue();
-            extractDefinitionsFromOperation(pathItem.getGet(), definitionsMap);
-            extractDefinitionsFromOperation(pathItem.getPost(), definitionsMap);
-            extractDefinitionsFromOperation(pathItem.getPut(), definitionsMap);
-            extractDefinitionsFromOperation(pathItem.getDelete(), definitionsMap);
+        @Override
+        public void finish(SwaggerDefinition swaggerDefinition) {
+            swaggerDefinition.setDefinitions(definitionsMap);
         }
     }
 
@@ -367,14 +503,14 @@ public class PostmanToSwaggerService {
         return definition;
     }
 
-    private SwaggerDefinition.Definition createDefinitionFromBody(PostmanCollection.Body body) {
+    private SwaggerDefinition.Definition createDefinitionFromBody(PostmanCollection.Body body, ConversionContext context) {
         SwaggerDefinition.Definition definition = new SwaggerDefinition.Definition();
         definition.setType("object");
         try {
             if (body != null && body.getRaw() != null) {
                 String rawString = body.getRaw().toString();
                 JsonNode jsonNode = objectMapper.readTree(rawString);
-                definition.setProperties(createPropertiesFromJsonNode(jsonNode));
+                definition.setProperties(createPropertiesFromJsonNode(jsonNode, context));
             }
         } catch (IOException e) {
             log.error("Error parsing body", e);
@@ -433,33 +569,38 @@ public class PostmanToSwaggerService {
         swaggerDefinition.setSchemes(schemes);
     }
 
-    private SwaggerDefinition.Operation createOperation(PostmanCollection.Item item) {
+    private SwaggerDefinition.Operation createOperation(PostmanCollection.Item item, ConversionContext context) {
         SwaggerDefinition.Operation operation = new SwaggerDefinition.Operation();
 
         String itemName = extractStringValue(item.getName());
         String itemDescription = extractStringValue(item.getDescription());
+        context.startOperation(itemName);
 
         operation.setTags(Collections.singletonList(itemName));
         operation.setSummary(itemName);
         operation.setDescription(itemDescription);
 
+        PostmanCollection.Item.Request request = item.getRequest();
         List<SwaggerDefinition.Parameter> parameters = new ArrayList<>();
-        addBodyParameter(parameters, item.getRequest().getBody());
-        addHeaderParameters(parameters, item.getRequest().getHeader());
-        addUrlParameters(parameters, item.getRequest().getUrl());
+        addBodyParameter(parameters, request.getBody() != null ? request.getBody() : ABSENT_BODY, context);
+        addHeaderParameters(parameters, request.getHeader());
+        addUrlParameters(parameters, request.getUrl(), context);
         operation.setParameters(parameters);
 
-        operation.setResponses(createResponses(item));
+        operation.setResponses(createResponses(item, context));
 
-        if (item.getRequest().getAuth() != null) {
-            operation.setSecurity(createSecurity(item.getRequest().getAuth()));
-        }
+        operation.setSecurity(createSecurity(request.getAuth() != null ? request.getAuth() : ABSENT_AUTH));
 
         setContentTypes(operation, item);
 
         // Add this line to set the operationId
         setOperationId(operation, item);
 
+        int examplesOmitted = context.getExampleBudget().omitted();
+        if (examplesOmitted > 0) {
+            operation.setExamplesOmitted(examplesOmitted);
+        }
+
         return operation;
     }
     private String extractStringValue(Object value) {
@@ -470,7 +611,7 @@ public class PostmanToSwaggerService {
     }
 
 
-    private void addBodyParameter(List<SwaggerDefinition.Parameter> parameters, PostmanCollection.Body body) {
+    private void addBodyParameter(List<SwaggerDefinition.Parameter> parameters, PostmanCollection.Body body, ConversionContext context) {
         if (body != null && body.getRaw() != null) {
             SwaggerDefinition.Parameter bodyParameter = new SwaggerDefinition.Parameter();
             bodyParameter.setName("body");
@@ -479,8 +620,14 @@ public class PostmanToSwaggerService {
             bodyParameter.setDescription("Request body");
             SwaggerDefinition.Schema schema = new SwaggerDefinition.Schema();
             schema.setType("object");
-            Map<String, SwaggerDefinition.SwaggerProperty> properties = createPropertiesFromBody(body);
-            schema.setProperties(properties);
+            if (context.getProfile().isInferSchemas()) {
+                ConversionContext.Inference inference = context.beginInference();
+                try {
+                    schema.setProperties(createPropertiesFromBody(body, context));
+                } finally {
+                    context.endInference(inference, "request", body.getRaw().toString().length());
+                }
+            }
             bodyParameter.setSchema(schema);
             parameters.add(bodyParameter);
         }
@@ -507,14 +654,14 @@ public class PostmanToSwaggerService {
         }
     }
 
-    private void addUrlParameters(List<SwaggerDefinition.Parameter> parameters, PostmanCollection.Item.UrlObject url) {
+    private void addUrlParameters(List<SwaggerDefinition.Parameter> parameters, PostmanCollection.Item.UrlObject url, ConversionContext context) {
         if (url != null) {
-            addQueryParameters(parameters, url.getQuery());
+            addQueryParameters(parameters, url.getQuery(), context.getProfile().isExamples() ? context.getExampleBudget() : null);
             addPathParameters(parameters, url.getPath());
         }
     }
 
-    private void addQueryParameters(List<SwaggerDefinition.Parameter> parameters, List<PostmanCollection.Item.UrlObject.Query> queries) {
+    private void addQueryParameters(List<SwaggerDefinition.Parameter> parameters, List<PostmanCollection.Item.UrlObject.Query> queries, ExampleBudget examples) {
         if (queries != null) {
             for (PostmanCollection.Item.UrlObject.Query query : queries) {
                 SwaggerDefinition.Parameter queryParameter = new SwaggerDefinition.Parameter();
@@ -525,8 +672,8 @@ public class PostmanToSwaggerService {
                 queryParameter.setDescription(formatDescription(keyString));
                 SwaggerDefinition.Schema schema = new SwaggerDefinition.Schema();
                 schema.setType("string");
-                if (query.getValue() != null) {
-                    schema.setExample(query.getValue());
+                if (examples != null && query.getValue() != null) {
+                    schema.setExample(examples.text(query.getValue()));
                 }
                 queryParameter.setSchema(schema);
                 parameters.add(queryParameter);
@@ -563,19 +710,31 @@ public class PostmanToSwaggerService {
         }
     }
 
-    private Map<String, SwaggerDefinition.SwaggerProperty> createPropertiesFromBody(PostmanCollection.Body body) {
+    public BodySchemaMemo.Stats schemaMemoStats() {
+        return schemaMemo.stats();
+    }
+
+    private Map<String, SwaggerDefinition.SwaggerProperty> createPropertiesFromBody(PostmanCollection.Body body, ConversionContext context) {
         Map<String, SwaggerDefinition.SwaggerProperty> properties = new HashMap<>();
 
         if (body.getRaw() != null) {
             try {
                 String rawString = body.getRaw().toString();
+                String key = schemaMemo.isEnabled() ? BodySchemaMemo.key("request", rawString) : null;
+                BodySchema bodySchema = key != null ? schemaMemo.get(key) : null;
+                if (bodySchema != null) {
+                    context.schemaMemoHit();
+                } else {
+                    String cleanedJson = preprocessJson(rawString);
 
-                String cleanedJson = preprocessJson(rawString);
-
-                validateJsonString(cleanedJson);
+                    validateJsonString(cleanedJson);
 
-                JsonNode jsonNode = objectMapper.readTree(cleanedJson);
-                properties = createPropertiesFromJsonNode(jsonNode);
+                    bodySchema = BodySchema.of(objectMapper.readTree(cleanedJson));
+                    if (key != null) {
+                        schemaMemo.put(key, bodySchema, rawString.length());
+                    }
+                }
+                properties = createProperties(bodySchema, context);
             } catch (JsonProcessingException e) {
                 log.error("Error processing body raw JSON: {}", e.getMessage());
                 throw new RuntimeException("Invalid JSON in request body: " + e.getMessage(), e);
@@ -602,6 +761,21 @@ public class PostmanToSwaggerService {
     }
 
     private String preprocessJson(String json) {
+        String result = repairRawBody(json);
+
+        if (!json.equals(result)) {
+            log.warn("Incomplete JSON detected and fixed: Original: {}, Fixed: {}", json, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * The repairs made to a raw body before it is parsed: missing closing braces are appended and
+     * commas before a closing brace dropped. Nothing else is fixed, so
+     * {@link PostmanCollectionValidator} accepts exactly the bodies this turns into JSON.
+     */
+    static String repairRawBody(String json) {
         StringBuilder sb = new StringBuilder(json.trim());
 
         int openBraces = 0;
@@ -616,13 +790,7 @@ public class PostmanToSwaggerService {
             closeBraces++;
         }
 
-        String result = sb.toString().replaceAll(",\\s*}", "}");
-
-        if (!json.equals(result)) {
-            log.warn("Incomplete JSON detected and fixed: Original: {}, Fixed: {}", json, result);
-        }
-
-        return result;
+        return sb.toString().replaceAll(",\\s*}", "}");
     }
 
     private boolean isJsonComplete(String json) {
@@ -635,79 +803,87 @@ public class PostmanToSwaggerService {
         return openBraces == closeBraces;
     }
 
-    private Map<String, SwaggerDefinition.SwaggerProperty> createPropertiesFromJsonNode(JsonNode jsonNode) {
+    private Map<String, SwaggerDefinition.SwaggerProperty> createPropertiesFromJsonNode(JsonNode jsonNode, ConversionContext context) {
+        return createProperties(BodySchema.of(jsonNode), context);
+    }
+
+    // Properties are new for every conversion; the schema they are read from may be shared through the memo
+    private Map<String, SwaggerDefinition.SwaggerProperty> createProperties(BodySchema bodySchema, ConversionContext context) {
         Map<String, SwaggerDefinition.SwaggerProperty> properties = new HashMap<>();
-        Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
-        while (fields.hasNext()) {
-            Map.Entry<String, JsonNode> entry = fields.next();
-            String key = entry.getKey();
-            JsonNode value = entry.getValue();
-            SwaggerDefinition.SwaggerProperty property = createPropertyFromJsonNode(value);
-            properties.put(key, property);
-        }
+        Deque<PropertyFrame> stack = new ArrayDeque<>();
+        pushFields(stack, bodySchema, properties, 1);
+        inferProperties(stack, context);
         return properties;
     }
 
-    private SwaggerDefinition.SwaggerProperty createPropertyFromJsonNode(JsonNode jsonNode) {
-        SwaggerDefinition.SwaggerProperty property = new SwaggerDefinition.SwaggerProperty();
-        if (jsonNode.isTextual()) {
-            property.setType("string");
-            property.setExample(jsonNode.asText());
-        } else if (jsonNode.isNumber()) {
-            property.setType("number");
-            if (jsonNode.isInt()) {
-                property.setFormat("int32");
-            } else if (jsonNode.isLong()) {
-                property.setFormat("int64");
-            } else if (jsonNode.isFloat() || jsonNode.isDouble()) {
-                property.setFormat("float");
-            }
-            property.setExample(jsonNode.numberValue());
-        } else if (jsonNode.isBoolean()) {
-            property.setType("boolean");
-            property.setExample(jsonNode.booleanValue());
-        } else if (jsonNode.isArray()) {
-            property.setType("array");
-            SwaggerDefinition.Items items = new SwaggerDefinition.Items();
-            if (jsonNode.size() > 0) {
-                JsonNode firstItem = jsonNode.get(0);
-                if (firstItem.isObject()) {
-                    items.setType("object");
-                    SwaggerDefinition.SwaggerProperty itemProperty = createPropertyFromJsonNode(firstItem);
-                    items.setRef("#/definitions/" + generateDefinitionName(firstItem));
+    private void pushFields(Deque<PropertyFrame> stack, BodySchema bodySchema, Map<String, SwaggerDefinition.SwaggerProperty> properties, int depth) {
+        if (bodySchema.fields == null) {
+            return;
+        }
+        for (int i = 0; i < bodySchema.fields.length; i++) {
+            SwaggerDefinition.SwaggerProperty property = new SwaggerDefinition.SwaggerProperty();
+            properties.put(bodySchema.names[i], property);
+            stack.push(new PropertyFrame(bodySchema.fields[i], property, depth));
+        }
+    }
+
+    // Fills each pending property from its node; nested objects and array items are pushed back onto the stack
+    private void inferProperties(Deque<PropertyFrame> stack, ConversionContext context) {
+        // Null when the profile embeds no examples
+        ExampleBudget examples = context.getProfile().isExamples() ? context.getExampleBudget() : null;
+        boolean descriptions = context.getProfile().isPropertyDescriptions();
+        while (!stack.isEmpty()) {
+            PropertyFrame frame = stack.pop();
+            context.visit(frame.depth);
+            BodySchema node = frame.schema;
+            SwaggerDefinition.SwaggerProperty property = frame.property;
+            property.setType(node.type);
+            property.setFormat(node.format);
+            if (node.example instanceof String) {
+                if (examples != null) {
+                    property.setExample(examples.text((String) node.example));
+                }
+            } else if (node.example != null) {
+                if (examples != null && examples.scalar()) {
+                    property.setExample(node.example);
+                }
+            } else if (node.type.equals("array")) {
+                SwaggerDefinition.Items items = new SwaggerDefinition.Items();
+                if (node.item != null) {
+                    items.setType(node.itemType);
+                    SwaggerDefinition.SwaggerProperty itemProperty = new SwaggerDefinition.SwaggerProperty();
+                    stack.push(new PropertyFrame(node.item, itemProperty, frame.depth + 1));
+                    items.setRef("#/definitions/" + node.itemDefinition);
                     // Add the item definition to a global map of definitions (you'll need to implement this)
-                    addDefinition(generateDefinitionName(firstItem), itemProperty);
-                } else {
-                    items.setType(getJsonNodeType(firstItem));
+                    addDefinition(node.itemDefinition, itemProperty);
+                } else if (node.itemType != null) {
+                    items.setType(node.itemType);
+                    items.setFormat(node.itemFormat);
                 }
+                property.setItems(items);
+            } else if (node.fields != null) {
+                Map<String, SwaggerDefinition.SwaggerProperty> properties = new HashMap<>();
+                pushFields(stack, node, properties, frame.depth + 1);
+                property.setProperties(properties);
             }
-            property.setItems(items);
-        } else if (jsonNode.isObject()) {
-            property.setType("object");
-            property.setProperties(createPropertiesFromJsonNode(jsonNode));
-        } else {
-            property.setType("string");
-        }
-
-        // Set description (you might want to generate a meaningful description based on the property name or content)
-        property.setDescription("Description for " + property.getType() + " property");
 
-        return property;
+            // Set description (you might want to generate a meaningful description based on the property name or content)
+            if (descriptions) {
+                property.setDescription("Description for " + property.getType() + " property");
+            }
+        }
     }
 
-    private String getJsonNodeType(JsonNode node) {
-        if (node.isTextual()) return "string";
-        if (node.isNumber()) return "number";
-        if (node.isBoolean()) return "boolean";
-        if (node.isObject()) return "object";
-        if (node.isArray()) return "array";
-        return "string"; // default to string for other types
-    }
+    private static final class PropertyFrame {
+        private final BodySchema schema;
+        private final SwaggerDefinition.SwaggerProperty property;
+        private final int depth;
 
-    private String generateDefinitionName(JsonNode node) {
-        // Implement a method to generate a unique name for the definition
-        // This could be based on the content of the node or use a counter
-        return "Definition" + Math.abs(node.hashCode());
+        private PropertyFrame(BodySchema schema, SwaggerDefinition.SwaggerProperty property, int depth) {
+            this.schema = schema;
+            this.property = property;
+            this.depth = depth;
+        }
     }
 
     private void addDefinition(String name, SwaggerDefinition.SwaggerProperty property) {
@@ -715,16 +891,18 @@ public class PostmanToSwaggerService {
         // This map should be accessible when building the final Swagger document
     }
 
-    private Map<String, SwaggerDefinition.Response> createResponses(PostmanCollection.Item item) {
+    private Map<String, SwaggerDefinition.Response> createResponses(PostmanCollection.Item item, ConversionContext context) {
         Map<String, SwaggerDefinition.Response> responses = new HashMap<>();
 
         // Adding default responses
-        responses.put("200", createResponse("Successful response", "", Collections.emptyList()));
-        responses.put("400", createResponse("Bad request", "", Collections.emptyList()));
-        responses.put("401", createResponse("Unauthorized", "", Collections.emptyList()));
-        responses.put("403", createResponse("Forbidden", "", Collections.emptyList()));
-        responses.put("404", createResponse("Not found", "", Collections.emptyList()));
-        responses.put("500", createResponse("Internal server error", "", Collections.emptyList()));
+        if (context.getProfile().isDefaultResponses()) {
+            responses.put("200", createResponse("Successful response", "", Collections.emptyList(), context));
+            responses.put("400", createResponse("Bad request", "", Collections.emptyList(), context));
+            responses.put("401", createResponse("Unauthorized", "", Collections.emptyList(), context));
+            responses.put("403", createResponse("Forbidden", "", Collections.emptyList(), context));
+            responses.put("404", createResponse("Not found", "", Collections.emptyList(), context));
+            responses.put("500", createResponse("Internal server error", "", Collections.emptyList(), context));
+        }
 
         if (item.getResponse() != null) {
             for (PostmanCollection.Item.Response response : item.getResponse()) {
@@ -732,27 +910,44 @@ public class PostmanToSwaggerService {
                 SwaggerDefinition.Response swaggerResponse = createResponse(
                         extractStringValue(response.getName()),
                         extractStringValue(response.getBody()),
-                        response.getHeader()
+                        response.getHeader(),
+                        context
                 );
                 responses.put(statusCode, swaggerResponse);
             }
         }
+        // Swagger 2.0 requires at least one response per operation
+        if (responses.isEmpty()) {
+            responses.put("200", createResponse("Successful response", "", Collections.emptyList(), context));
+        }
         return responses;
     }
 
 
-    private SwaggerDefinition.Response createResponse(String description, String body, List<PostmanCollection.Item.Response.Header> headers) {
+    private SwaggerDefinition.Response createResponse(String description, String body, List<PostmanCollection.Item.Response.Header> headers, ConversionContext context) {
         SwaggerDefinition.Response response = new SwaggerDefinition.Response();
         response.setDescription(description);
-        if (body != null && !body.isEmpty()) {
+        if (body != null && !body.isEmpty() && context.getProfile().isInferSchemas()) {
+            ConversionContext.Inference inference = context.beginInference();
             try {
-                JsonNode jsonNode = objectMapper.readTree(body);
+                String key = schemaMemo.isEnabled() ? BodySchemaMemo.key("response", body) : null;
+                BodySchema bodySchema = key != null ? schemaMemo.get(key) : null;
+                if (bodySchema != null) {
+                    context.schemaMemoHit();
+                } else {
+                    bodySchema = BodySchema.of(objectMapper.readTree(body));
+                    if (key != null) {
+                        schemaMemo.put(key, bodySchema, body.length());
+                    }
+                }
                 SwaggerDefinition.Schema schema = new SwaggerDefinition.Schema();
                 schema.setType("object");
-                schema.setProperties(createPropertiesFromJsonNode(jsonNode));
+                schema.setProperties(createProperties(bodySchema, context));
                 response.setSchema(schema);
             } catch (IOException e) {
                 log.error("Error parsing response body", e);
+            } finally {
+                context.endInference(inference, "response", body.length());
             }
         }
         addHeaders(response, headers);
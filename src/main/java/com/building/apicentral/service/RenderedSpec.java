@@ -0,0 +1,12 @@
+package com.building.apicentral.service;
+
+import lombok.Value;
+
+/**
+ * Serialized Swagger document together with the strong ETag derived from its bytes.
+ */
+@Value
+public class RenderedSpec {
+    byte[] json;
+    String eTag;
+}
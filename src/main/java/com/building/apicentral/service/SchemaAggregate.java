@@ -0,0 +1,230 @@
+package com.building.apicentral.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The schema of every body observed at one place of an endpoint, merged one body at a time:
+ * the types seen, the format all values agree on, the first example, and for objects how
+ * often each property was present, so properties present every time can be made required.
+ * New properties and item schemas take nodes from a {@link Budget} shared by the endpoint,
+ * so what an endpoint keeps is bounded however many bodies it merges.
+ */
+final class SchemaAggregate {
+
+    private static final int OBJECT = 1;
+    private static final int ARRAY = 2;
+    private static final int STRING = 4;
+    private static final int INTEGER = 8;
+    private static final int NUMBER = 16;
+    private static final int BOOLEAN = 32;
+
+    private final Limits limits;
+    private int types;
+    // Non-null values merged, and of those the objects
+    private long seen;
+    private long objects;
+    private boolean formatObserved;
+    private String format;
+    private Object example;
+    private Map<String, SchemaAggregate> fields;
+    private SchemaAggregate items;
+
+    SchemaAggregate(Limits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Merges {@code node}, found {@code depth} levels below the body.
+     */
+    void add(JsonNode node, int depth, Budget budget) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return;
+        }
+        seen++;
+        if (node.isObject()) {
+            types |= OBJECT;
+            objects++;
+            if (depth >= limits.maxDepth) {
+                budget.exhausted = true;
+                return;
+            }
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                SchemaAggregate child = field(field.getKey(), budget);
+                if (child != null) {
+                    child.add(field.getValue(), depth + 1, budget);
+                }
+            }
+        } else if (node.isArray()) {
+            types |= ARRAY;
+            if (depth >= limits.maxDepth) {
+                budget.exhausted = true;
+                return;
+            }
+            int merged = Math.min(node.size(), limits.maxArrayItems);
+            if (merged > 0 && items == null && budget.take()) {
+                items = new SchemaAggregate(limits);
+            }
+            for (int i = 0; i < merged && items != null; i++) {
+                items.add(node.get(i), depth + 1, budget);
+            }
+        } else {
+            types |= node.isTextual() ? STRING : node.isIntegralNumber() ? INTEGER : node.isNumber() ? NUMBER
+                    : node.isBoolean() ? BOOLEAN : STRING;
+            mergeFormat(BodySchema.format(node));
+            if (example == null) {
+                example = node.isTextual() ? limits.example(node.textValue())
+                        : node.isNumber() ? node.numberValue() : node.isBoolean() ? node.booleanValue() : node.asText();
+            }
+        }
+    }
+
+    String type() {
+        if ((types & OBJECT) != 0) return "object";
+        if ((types & ARRAY) != 0) return "array";
+        if ((types & STRING) != 0) return "string";
+        if ((types & NUMBER) != 0) return "number";
+        if ((types & INTEGER) != 0) return "integer";
+        if ((types & BOOLEAN) != 0) return "boolean";
+        return "object";
+    }
+
+    boolean isObject() {
+        return "object".equals(type());
+    }
+
+    boolean isArray() {
+        return "array".equals(type());
+    }
+
+    /**
+     * The format every scalar value was written in, or null when they differ or have none.
+     */
+    String format() {
+        return isObject() || isArray() ? null : format;
+    }
+
+    Object example() {
+        return example;
+    }
+
+    Map<String, SchemaAggregate> fields() {
+        return fields != null ? fields : Collections.emptyMap();
+    }
+
+    SchemaAggregate items() {
+        return items;
+    }
+
+    /**
+     * Properties present, and not null, in every object merged here.
+     */
+    List<String> required() {
+        List<String> required = new ArrayList<>();
+        for (Map.Entry<String, SchemaAggregate> field : fields().entrySet()) {
+            if (field.getValue().seen == objects) {
+                required.add(field.getKey());
+            }
+        }
+        return required;
+    }
+
+    private SchemaAggregate field(String name, Budget budget) {
+        if (fields == null) {
+            fields = new LinkedHashMap<>();
+        }
+        SchemaAggregate field = fields.get(name);
+        if (field == null) {
+            if (fields.size() >= limits.maxProperties || !budget.take()) {
+                budget.exhausted = true;
+                return null;
+            }
+            field = new SchemaAggregate(limits);
+            fields.put(name, field);
+        }
+        return field;
+    }
+
+    private void mergeFormat(String observed) {
+        if (!formatObserved) {
+            formatObserved = true;
+            format = observed;
+        } else if (!Objects.equals(format, observed)) {
+            format = widen(format, observed);
+        }
+    }
+
+    // Integer and floating point formats widen to the larger one; any other mix has no format
+    private static String widen(String a, String b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        if (a.startsWith("int") && b.startsWith("int")) {
+            return "int64";
+        }
+        boolean aFloating = a.equals("float") || a.equals("double");
+        boolean bFloating = b.equals("float") || b.equals("double");
+        return aFloating && bFloating ? "double" : null;
+    }
+
+    /**
+     * Schema nodes an endpoint may still create; {@code exhausted} records that some were
+     * left out, by this budget or by a depth or property limit.
+     */
+    static final class Budget {
+        private int nodes;
+        private boolean exhausted;
+
+        Budget(int nodes) {
+            this.nodes = nodes;
+        }
+
+        boolean take() {
+            if (nodes <= 0) {
+                exhausted = true;
+                return false;
+            }
+            nodes--;
+            return true;
+        }
+
+        boolean isExhausted() {
+            return exhausted;
+        }
+    }
+
+    static final class Limits {
+        private final int maxDepth;
+        private final int maxProperties;
+        private final int maxArrayItems;
+        private final int maxExampleLength;
+
+        Limits(int maxDepth, int maxProperties, int maxArrayItems, int maxExampleLength) {
+            this.maxDepth = maxDepth;
+            this.maxProperties = maxProperties;
+            this.maxArrayItems = maxArrayItems;
+            this.maxExampleLength = maxExampleLength;
+        }
+
+        // Cut and marked like the examples of a Postman conversion
+        String example(String value) {
+            if (value.length() <= maxExampleLength) {
+                return value;
+            }
+            int keep = maxExampleLength;
+            if (keep > 0 && Character.isHighSurrogate(value.charAt(keep - 1))) {
+                keep--;
+            }
+            return value.substring(0, keep) + "...[truncated, " + value.length() + " chars]";
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.SwaggerDefinition;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Merges converted specs of many services into one. Each service gets its own path prefix and
+ * tag namespace; definitions with identical content, including the definitions they refer to,
+ * are kept once; an operation whose path and method another service already uses is reported
+ * as a conflict. Specs are added from any number of threads and are not retained, so memory
+ * follows the size of the merged document rather than the number of inputs.
+ */
+@Service
+public class SpecAggregator {
+
+    private static final String DEFINITION_REF = "#/definitions/";
+    // Refs point at content digests until finish assigns the final definition names
+    private static final String DIGEST_REF = "#/definitions/\u0000";
+
+    private static final String[] METHODS = {"get", "post", "put", "delete", "patch", "options"};
+
+    private final ObjectMapper canonicalMapper;
+
+    public SpecAggregator(SpecRenderer specRenderer) {
+        this.canonicalMapper = specRenderer.canonicalMapper();
+    }
+
+    public Aggregation start(SwaggerDefinition.Info info) {
+        return new Aggregation(info);
+    }
+
+    public final class Aggregation {
+
+        private final SwaggerDefinition.Info info;
+        private final Set<String> services = ConcurrentHashMap.newKeySet();
+        private final Map<String, Claim> operations = new ConcurrentHashMap<>();
+        private final Map<String, SwaggerDefinition.Definition> definitions = new ConcurrentHashMap<>();
+        private final Map<String, NameCandidate> definitionNames = new ConcurrentHashMap<>();
+        private final Map<String, SwaggerDefinition.Tag> tags = new ConcurrentHashMap<>();
+        private final Map<String, SwaggerDefinition.SecurityScheme> securityDefinitions = new ConcurrentHashMap<>();
+        private final Set<String> consumes = ConcurrentHashMap.newKeySet();
+        private final Set<String> produces = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger deduplicated = new AtomicInteger();
+
+        private Aggregation(SwaggerDefinition.Info info) {
+            this.info = info;
+        }
+
+        /**
+         * Adds a service under the path prefix {@code /<service>}.
+         */
+        public void add(String service, SwaggerDefinition spec) throws JsonProcessingException {
+            add(service, "/" + service.replaceAll("[^A-Za-z0-9._~/-]", "-"), spec);
+        }
+
+        /**
+         * Adds a service's spec, which the aggregation takes over and changes in place.
+         *
+         * @throws IllegalArgumentException when a service of that name was already added
+         */
+        public void add(String service, String pathPrefix, SwaggerDefinition spec) throws JsonProcessingException {
+            if (!services.add(service)) {
+                throw new IllegalArgumentException("Service already aggregated: " + service);
+            }
+            Map<String, String> digests = digestDefinitions(service, spec.getDefinitions());
+            UnaryOperator<String> toDigest = ref -> {
+                String digest = ref.startsWith(DEFINITION_REF) ? digests.get(ref.substring(DEFINITION_REF.length())) : null;
+                return digest != null ? DIGEST_REF + digest : ref;
+            };
+
+            String prefix = pathPrefix.endsWith("/") ? pathPrefix.substring(0, pathPrefix.length() - 1) : pathPrefix;
+            for (Map.Entry<String, SwaggerDefinition.PathItem> path : spec.getPaths().entrySet()) {
+                String mergedPath = prefix + (path.getKey().startsWith("/") ? path.getKey() : "/" + path.getKey());
+                for (String method : METHODS) {
+                    SwaggerDefinition.Operation operation = operation(path.getValue(), method);
+                    if (operation != null) {
+                        namespace(service, operation);
+                        Refs.operation(operation, toDigest);
+                        operations.merge(method + " " + mergedPath, new Claim(service, operation), Claim::merge);
+                    }
+                }
+            }
+            for (SwaggerDefinition.Tag tag : spec.getTags()) {
+                String name = service + "/" + tag.getName();
+                tags.putIfAbsent(name, new SwaggerDefinition.Tag(name, tag.getDescription()));
+            }
+            spec.getSecurityDefinitions().forEach(securityDefinitions::putIfAbsent);
+            consumes.addAll(spec.getConsumes());
+            produces.addAll(spec.getProduces());
+        }
+
+        /**
+         * The merged spec. Identical definitions keep the name of the alphabetically first
+         * service that had them; a name used for different content by several services is
+         * qualified with the service name for all but the first.
+         */
+        public AggregatedSpec finish() {
+            Map<String, String> names = assignDefinitionNames();
+            UnaryOperator<String> toName = ref -> ref.startsWith(DIGEST_REF)
+                    ? DEFINITION_REF + names.get(ref.substring(DIGEST_REF.length()))
+                    : ref;
+
+            SwaggerDefinition merged = new SwaggerDefinition();
+            merged.setInfo(info);
+            List<AggregatedSpec.Conflict> conflicts = new ArrayList<>();
+            for (Map.Entry<String, Claim> entry : operations.entrySet()) {
+                int space = entry.getKey().indexOf(' ');
+                String method = entry.getKey().substring(0, space);
+                String path = entry.getKey().substring(space + 1);
+                Claim claim = entry.getValue();
+                Refs.operation(claim.operation, toName);
+                setOperation(merged.getPaths().computeIfAbsent(path, key -> new SwaggerDefinition.PathItem()), method, claim.operation);
+                for (String dropped : claim.others) {
+                    conflicts.add(new AggregatedSpec.Conflict(path, method.toUpperCase(), claim.service, dropped));
+                }
+            }
+            conflicts.sort(Comparator.comparing(AggregatedSpec.Conflict::getPath)
+                    .thenComparing(AggregatedSpec.Conflict::getMethod)
+                    .thenComparing(AggregatedSpec.Conflict::getDroppedService));
+            for (Map.Entry<String, SwaggerDefinition.Definition> definition : definitions.entrySet()) {
+                Refs.definition(definition.getValue(), toName);
+                merged.getDefinitions().put(names.get(definition.getKey()), definition.getValue());
+            }
+
+            List<SwaggerDefinition.Tag> mergedTags = new ArrayList<>(tags.values());
+            mergedTags.sort(Comparator.comparing(SwaggerDefinition.Tag::getName));
+            merged.setTags(mergedTags);
+            merged.setSecurityDefinitions(new HashMap<>(securityDefinitions));
+            merged.setConsumes(new ArrayList<>(new TreeSet<>(consumes)));
+            merged.setProduces(new ArrayList<>(new TreeSet<>(produces)));
+            merged.setSchemes(new ArrayList<>(Collections.singletonList("http")));
+            return new AggregatedSpec(merged, services.size(), deduplicated.get(), conflicts);
+        }
+
+        /**
+         * Digests every definition of one spec over its content with refs replaced by the
+         * digests of their targets, and hands each new digest's definition to the aggregation.
+         */
+        private Map<String, String> digestDefinitions(String service, Map<String, SwaggerDefinition.Definition> local)
+                throws JsonProcessingException {
+            Map<String, String> digests = new HashMap<>();
+            Set<String> inProgress = new HashSet<>();
+            for (String name : local.keySet()) {
+                digest(name, local, digests, inProgress);
+            }
+            for (Map.Entry<String, String> entry : digests.entrySet()) {
+                String digest = entry.getValue();
+                if (definitions.putIfAbsent(digest, local.get(entry.getKey())) != null) {
+                    deduplicated.incrementAndGet();
+                }
+                definitionNames.merge(digest, new NameCandidate(entry.getKey(), service), NameCandidate::first);
+            }
+            return digests;
+        }
+
+        private String digest(String name, Map<String, SwaggerDefinition.Definition> local, Map<String, String> digests,
+                              Set<String> inProgress) throws JsonProcessingException {
+            String known = digests.get(name);
+            if (known != null || !inProgress.add(name)) {
+                // A cycle leaves the ref to the definition being digested as it is
+                return known;
+            }
+            SwaggerDefinition.Definition definition = local.get(name);
+            List<String> targets = new ArrayList<>();
+            Refs.definition(definition, ref -> {
+                String target = localTarget(ref, local);
+                if (target != null) {
+                    targets.add(target);
+                }
+                return ref;
+            });
+            for (String target : targets) {
+                digest(target, local, digests, inProgress);
+            }
+            Refs.definition(definition, ref -> {
+                String target = localTarget(ref, local);
+                String digest = target != null ? digests.get(target) : null;
+                return digest != null ? DIGEST_REF + digest : ref;
+            });
+            String digest = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(SpecRenderer.sha256(canonicalMapper.writeValueAsBytes(definition)));
+            digests.put(name, digest);
+            return digest;
+        }
+
+        private Map<String, String> assignDefinitionNames() {
+            List<Map.Entry<String, NameCandidate>> candidates = new ArrayList<>(definitionNames.entrySet());
+            candidates.sort(Comparator.comparing((Map.Entry<String, NameCandidate> entry) -> entry.getValue().name)
+                    .thenComparing(entry -> entry.getValue().service)
+                    .thenComparing(Map.Entry::getKey));
+            Map<String, String> names = new HashMap<>();
+            Set<String> used = new HashSet<>();
+            // Bare names first, so a qualified name can never take a name some definition already has
+            for (Map.Entry<String, NameCandidate> candidate : candidates) {
+                if (used.add(candidate.getValue().name)) {
+                    names.put(candidate.getKey(), candidate.getValue().name);
+                }
+            }
+            for (Map.Entry<String, NameCandidate> candidate : candidates) {
+                if (names.containsKey(candidate.getKey())) {
+                    continue;
+                }
+                String qualified = candidate.getValue().service.replaceAll("[^A-Za-z0-9]", "_") + "_" + candidate.getValue().name;
+                String name = qualified;
+                for (int suffix = 2; !used.add(name); suffix++) {
+                    name = qualified + "_" + suffix;
+                }
+                names.put(candidate.getKey(), name);
+            }
+            return names;
+        }
+    }
+
+    private static String localTarget(String ref, Map<String, SwaggerDefinition.Definition> local) {
+        if (!ref.startsWith(DEFINITION_REF) || ref.startsWith(DIGEST_REF)) {
+            return null;
+        }
+        String target = ref.substring(DEFINITION_REF.length());
+        return local.containsKey(target) ? target : null;
+    }
+
+    private static void namespace(String service, SwaggerDefinition.Operation operation) {
+        List<String> tags = new ArrayList<>(operation.getTags().size());
+        for (String tag : operation.getTags()) {
+            tags.add(service + "/" + tag);
+        }
+        operation.setTags(tags);
+        if (operation.getOperationId() != null && !operation.getOperationId().isEmpty()) {
+            operation.setOperationId(service.replaceAll("[^A-Za-z0-9]", "_") + "_" + operation.getOperationId());
+        }
+    }
+
+    private static SwaggerDefinition.Operation operation(SwaggerDefinition.PathItem pathItem, String method) {
+        switch (method) {
+            case "get": return pathItem.getGet();
+            case "post": return pathItem.getPost();
+            case "put": return pathItem.getPut();
+            case "delete": return pathItem.getDelete();
+            case "patch": return pathItem.getPatch();
+            default: return pathItem.getOptions();
+        }
+    }
+
+    private static void setOperation(SwaggerDefinition.PathItem pathItem, String method, SwaggerDefinition.Operation operation) {
+        switch (method) {
+            case "get": pathItem.setGet(operation); break;
+            case "post": pathItem.setPost(operation); break;
+            case "put": pathItem.setPut(operation); break;
+            case "delete": pathItem.setDelete(operation); break;
+            case "patch": pathItem.setPatch(operation); break;
+            default: pathItem.setOptions(operation);
+        }
+    }
+
+    /**
+     * The operation of one path and method, held by the alphabetically first service that has it.
+     */
+    private static final class Claim {
+        private final String service;
+        private final SwaggerDefinition.Operation operation;
+        private final List<String> others;
+
+        private Claim(String service, SwaggerDefinition.Operation operation) {
+            this(service, operation, Collections.emptyList());
+        }
+
+        private Claim(String service, SwaggerDefinition.Operation operation, List<String> others) {
+            this.service = service;
+            this.operation = operation;
+            this.others = others;
+        }
+
+        private static Claim merge(Claim existing, Claim added) {
+            Claim kept = existing.service.compareTo(added.service) <= 0 ? existing : added;
+            Claim dropped = kept == existing ? added : existing;
+            List<String> others = new ArrayList<>(existing.others.size() + added.others.size() + 1);
+            others.addAll(existing.others);
+            others.addAll(added.others);
+            others.add(dropped.service);
+            Collections.sort(others);
+            return new Claim(kept.service, kept.operation, others);
+        }
+    }
+
+    private static final class NameCandidate {
+        private final String name;
+        private final String service;
+
+        private NameCandidate(String name, String service) {
+            this.name = name;
+            this.service = service;
+        }
+
+        private static NameCandidate first(NameCandidate a, NameCandidate b) {
+            int byService = a.service.compareTo(b.service);
+            if (byService != 0) {
+                return byService < 0 ? a : b;
+            }
+            return a.name.compareTo(b.name) <= 0 ? a : b;
+        }
+    }
+
+    /**
+     * Rewrites every definition ref reachable from an operation or definition.
+     */
+    private static final class Refs {
+
+        private Refs() {
+        }
+
+        static void operation(SwaggerDefinition.Operation operation, UnaryOperator<String> rewrite) {
+            for (SwaggerDefinition.Parameter parameter : operation.getParameters()) {
+                schema(parameter.getSchema(), rewrite);
+            }
+            for (SwaggerDefinition.Response response : operation.getResponses().values()) {
+                schema(response.getSchema(), rewrite);
+            }
+        }
+
+        static void definition(SwaggerDefinition.Definition definition, UnaryOperator<String> rewrite) {
+            properties(definition.getProperties(), rewrite);
+            items(definition.getItems(), rewrite);
+        }
+
+        private static void schema(SwaggerDefinition.Schema schema, UnaryOperator<String> rewrite) {
+            if (schema == null) {
+                return;
+            }
+            if (schema.getRef() != null) {
+                schema.setRef(rewrite.apply(schema.getRef()));
+            }
+            properties(schema.getProperties(), rewrite);
+        }
+
+        private static void properties(Map<String, SwaggerDefinition.SwaggerProperty> properties, UnaryOperator<String> rewrite) {
+            if (properties == null) {
+                return;
+            }
+            for (SwaggerDefinition.SwaggerProperty property : properties.values()) {
+                if (property == null) {
+                    continue;
+                }
+                if (property.getRef() != null) {
+                    property.setRef(rewrite.apply(property.getRef()));
+                }
+                items(property.getItems(), rewrite);
+                properties(property.getProperties(), rewrite);
+            }
+        }
+
+        private static void items(SwaggerDefinition.Items items, UnaryOperator<String> rewrite) {
+            if (items != null && items.getRef() != null) {
+                items.setRef(rewrite.apply(items.getRef()));
+            }
+        }
+    }
+}
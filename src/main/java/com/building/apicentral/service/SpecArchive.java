@@ -0,0 +1,499 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ArchiveProperties;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stored specs on the local filesystem, kept past their eviction from
+ * {@link ConversionResultStore} and across restarts. Specs of one API across versions, and of
+ * APIs built on the same conventions, repeat most of their definitions and responses, so each
+ * spec is cut by {@link SpecChunker} into chunks stored once each under their SHA-256.
+ * <p>
+ * Chunks are appended to {@code chunks.pack}, deflated with the preset dictionary current
+ * when they were written; each record carries its hash, so the index of the pack is rebuilt in
+ * memory by scanning it at startup. {@code dictionaries/} keeps every dictionary, and
+ * {@code specs/} one manifest per spec listing its chunks. The first dictionary is trained on
+ * the stored chunks once they reach the training sample size; {@link #train} trains a new one.
+ * The pack is written by one process only, and nothing is ever deleted: remove the directory
+ * to start over.
+ */
+@Slf4j
+@Service
+public class SpecArchive implements DisposableBean {
+
+    private static final int HASH_BYTES = 32;
+    // Hash, dictionary id, raw length and deflated length
+    private static final int RECORD_HEADER_BYTES = HASH_BYTES + 12;
+
+    private final boolean enabled;
+    private final Path specs;
+    private final Path dictionaries;
+    private final Path packFile;
+    private final FileChannel pack;
+    private final int compressionLevel;
+    private final int dictionarySize;
+    private final long trainingSampleBytes;
+    // Offset of each chunk's record in the pack, by hash
+    private final Map<ByteBuffer, Long> index = new ConcurrentHashMap<>();
+    private long packSize;
+    private final Map<Integer, byte[]> dictionaryById = new ConcurrentHashMap<>();
+    // 0 until a dictionary is trained; chunks written meanwhile are deflated without one
+    private volatile int dictionaryId;
+    private final AtomicBoolean training = new AtomicBoolean();
+    // Stored bytes at which to try training the first dictionary, pushed back when too little of them is unique
+    private final AtomicLong nextTrainingAt = new AtomicLong();
+
+    private final AtomicLong specCount = new AtomicLong();
+    private final AtomicLong logicalBytes = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong deduplicatedChunks = new AtomicLong();
+    private final AtomicLong specsWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong specsRead = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong readNanos = new AtomicLong();
+
+    @Autowired
+    public SpecArchive(ArchiveProperties properties) throws IOException {
+        this(properties.isEnabled() ? Paths.get(properties.getDirectory()) : null, properties);
+    }
+
+    SpecArchive(Path root, ArchiveProperties properties) throws IOException {
+        this.enabled = root != null;
+        this.compressionLevel = properties.getCompressionLevel();
+        this.dictionarySize = properties.getDictionarySize();
+        this.trainingSampleBytes = properties.getTrainingSampleBytes();
+        this.nextTrainingAt.set(trainingSampleBytes);
+        if (!enabled) {
+            this.specs = null;
+            this.dictionaries = null;
+            this.packFile = null;
+            this.pack = null;
+            return;
+        }
+        this.specs = Files.createDirectories(root.resolve("specs"));
+        this.dictionaries = Files.createDirectories(root.resolve("dictionaries"));
+        this.packFile = root.resolve("chunks.pack");
+        this.pack = FileChannel.open(packFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+    }
+
+    static SpecArchive disabled() {
+        try {
+            return new SpecArchive(null, new ArchiveProperties());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stores {@code spec} unless a spec with its id already is. Chunks already stored by any
+     * spec are not written again.
+     */
+    public void write(StoredSpec spec) throws IOException {
+        Path manifest = manifest(spec.getId());
+        if (manifest == null || Files.exists(manifest)) {
+            return;
+        }
+        long start = System.nanoTime();
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, spec.getSizeBytes() + 1024));
+        try (DataOutputStream out = new DataOutputStream(serialized)) {
+            spec.writeTo(out);
+        }
+        byte[] data = serialized.toByteArray();
+
+        int dictionary = dictionaryId;
+        MessageDigest digest = sha256();
+        List<byte[]> hashes = new ArrayList<>();
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            for (int from = 0; from < data.length; ) {
+                int end = SpecChunker.chunkEnd(data, from, data.length);
+                digest.update(data, from, end - from);
+                byte[] hash = digest.digest();
+                hashes.add(hash);
+                if (index.containsKey(ByteBuffer.wrap(hash))
+                        || !append(hash, dictionary, end - from, deflate(deflater, dictionary, data, from, end - from))) {
+                    deduplicatedChunks.incrementAndGet();
+                }
+                from = end;
+            }
+        } finally {
+            deflater.end();
+        }
+
+        ByteArrayOutputStream listing = new ByteArrayOutputStream(12 + hashes.size() * HASH_BYTES);
+        try (DataOutputStream out = new DataOutputStream(listing)) {
+            out.writeLong(data.length);
+            out.writeInt(hashes.size());
+            for (byte[] hash : hashes) {
+                out.write(hash);
+            }
+        }
+        // Written last, so a manifest only ever names chunks that are in the pack
+        publish(manifest, listing.toByteArray());
+        specCount.incrementAndGet();
+        logicalBytes.addAndGet(data.length);
+        storedBytes.addAndGet(listing.size());
+        specsWritten.incrementAndGet();
+        bytesWritten.addAndGet(data.length);
+        writeNanos.addAndGet(System.nanoTime() - start);
+
+        long stored = logicalBytes.get();
+        long trainingAt = nextTrainingAt.get();
+        if (dictionaryId == 0 && stored >= trainingAt && nextTrainingAt.compareAndSet(trainingAt, stored + trainingSampleBytes)) {
+            train();
+        }
+    }
+
+    /**
+     * The spec stored under {@code id}, or null when there is none.
+     */
+    public StoredSpec read(String id) throws IOException {
+        Path manifest = manifest(id);
+        if (manifest == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        byte[] listing;
+        try {
+            listing = Files.readAllBytes(manifest);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(listing));
+        byte[] data = new byte[Math.toIntExact(in.readLong())];
+        int count = in.readInt();
+        int position = 0;
+        Inflater inflater = new Inflater();
+        try {
+            for (int i = 0; i < count; i++) {
+                byte[] hash = new byte[HASH_BYTES];
+                in.readFully(hash);
+                Long offset = index.get(ByteBuffer.wrap(hash));
+                if (offset == null) {
+                    throw new IOException("Archived spec " + id + " names a chunk missing from the pack");
+                }
+                position += readChunk(inflater, offset, data, position);
+            }
+        } finally {
+            inflater.end();
+        }
+        if (position != data.length) {
+            throw new IOException("Archived spec " + id + " is " + position + " bytes instead of " + data.length);
+        }
+        StoredSpec spec = StoredSpec.readFrom(id, new DataInputStream(new ByteArrayInputStream(data)));
+        specsRead.incrementAndGet();
+        bytesRead.addAndGet(data.length);
+        readNanos.addAndGet(System.nanoTime() - start);
+        return spec;
+    }
+
+    /**
+     * Trains a dictionary on up to the training sample size of stored chunks and deflates
+     * chunks written from now on with it. Chunks already stored keep the dictionary they were
+     * written with. False when the archive holds too little to train on, or another training
+     * is under way.
+     */
+    public boolean train() throws IOException {
+        if (!enabled || !training.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            // Stored chunks take no more than the specs they make up
+            byte[] sample = new byte[(int) Math.min(Math.min(trainingSampleBytes, logicalBytes.get()), Integer.MAX_VALUE - 8)];
+            int length = sample(sample);
+            if (length < 4 * dictionarySize) {
+                return false;
+            }
+            byte[] dictionary = DictionaryTrainer.train(sample, length, dictionarySize);
+            int id = dictionaryId + 1;
+            publish(dictionaries.resolve(Integer.toString(id)), dictionary);
+            dictionaryById.put(id, dictionary);
+            storedBytes.addAndGet(dictionary.length);
+            dictionaryId = id;
+            log.info("Trained archive dictionary {} of {} bytes on {} bytes of stored chunks", id, dictionary.length, length);
+            return true;
+        } finally {
+            training.set(false);
+        }
+    }
+
+    public Stats stats() {
+        int dictionary = dictionaryId;
+        return new Stats(enabled, specCount.get(), index.size(), logicalBytes.get(), storedBytes.get(),
+                deduplicatedChunks.get(), dictionary, dictionary == 0 ? 0 : dictionaryById.get(dictionary).length,
+                specsWritten.get(), throughput(bytesWritten.get(), writeNanos.get()),
+                specsRead.get(), throughput(bytesRead.get(), readNanos.get()));
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (pack != null) {
+            pack.close();
+        }
+    }
+
+    // False when another spec appended the same chunk first
+    private synchronized boolean append(byte[] hash, int dictionary, int rawLength, byte[] compressed) throws IOException {
+        ByteBuffer key = ByteBuffer.wrap(hash);
+        if (index.containsKey(key)) {
+            return false;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + compressed.length);
+        record.put(hash).putInt(dictionary).putInt(rawLength).putInt(compressed.length).put(compressed).flip();
+        long offset = packSize;
+        while (record.hasRemaining()) {
+            pack.write(record, offset + record.position());
+        }
+        packSize += record.limit();
+        storedBytes.addAndGet(record.limit());
+        index.put(key, offset);
+        return true;
+    }
+
+    private int readChunk(Inflater inflater, long offset, byte[] target, int targetOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES - HASH_BYTES);
+        readFully(header, offset + HASH_BYTES);
+        int dictionary = header.getInt(0);
+        int rawLength = header.getInt(4);
+        ByteBuffer compressed = ByteBuffer.allocate(header.getInt(8));
+        readFully(compressed, offset + RECORD_HEADER_BYTES);
+        return inflate(inflater, dictionary, compressed.array(), target, targetOffset, rawLength);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (pack.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Archived chunk at " + position + " runs past the end of the pack");
+            }
+        }
+    }
+
+    // Indexes the pack and counts what an earlier run left behind
+    private void load() throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dictionaries)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.matches("[0-9]+")) {
+                    byte[] dictionary = Files.readAllBytes(entry);
+                    int id = Integer.parseInt(name);
+                    dictionaryById.put(id, dictionary);
+                    dictionaryId = Math.max(dictionaryId, id);
+                    storedBytes.addAndGet(dictionary.length);
+                }
+            }
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(specs)) {
+            for (Path entry : entries) {
+                if (!entry.getFileName().toString().startsWith(".")) {
+                    try (DataInputStream in = new DataInputStream(Files.newInputStream(entry))) {
+                        logicalBytes.addAndGet(in.readLong());
+                    }
+                    specCount.incrementAndGet();
+                    storedBytes.addAndGet(Files.size(entry));
+                }
+            }
+        }
+
+        long size = pack.size();
+        long position = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(pack.position(0)), 64 * 1024));
+        while (position + RECORD_HEADER_BYTES <= size) {
+            byte[] hash = new byte[HASH_BYTES];
+            in.readFully(hash);
+            in.readInt();
+            in.readInt();
+            int compressedLength = in.readInt();
+            long next = position + RECORD_HEADER_BYTES + compressedLength;
+            if (next > size) {
+                break;
+            }
+            skipFully(in, compressedLength);
+            index.put(ByteBuffer.wrap(hash), position);
+            position = next;
+        }
+        if (position < size) {
+            log.warn("Dropping {} bytes of a chunk cut short at the end of {}", size - position, packFile);
+            pack.truncate(position);
+        }
+        packSize = position;
+        storedBytes.addAndGet(position);
+    }
+
+    // Fills sample with stored chunks, inflated, from the start of the pack, and answers how much of it they fill
+    private int sample(byte[] sample) throws IOException {
+        int length = 0;
+        long position = 0;
+        long end;
+        synchronized (this) {
+            end = packSize;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES - HASH_BYTES);
+            while (position < end) {
+                header.clear();
+                readFully(header, position + HASH_BYTES);
+                int rawLength = header.getInt(4);
+                if (length + rawLength > sample.length) {
+                    break;
+                }
+                length += readChunk(inflater, position, sample, length);
+                position += RECORD_HEADER_BYTES + header.getInt(8);
+            }
+        } finally {
+            inflater.end();
+        }
+        return length;
+    }
+
+    private byte[] deflate(Deflater deflater, int dictionary, byte[] data, int offset, int length) {
+        deflater.reset();
+        if (dictionary != 0) {
+            deflater.setDictionary(dictionaryById.get(dictionary));
+        }
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + length / 2);
+        byte[] buffer = new byte[Math.max(64, length)];
+        while (!deflater.finished()) {
+            int written = deflater.deflate(buffer);
+            out.write(buffer, 0, written);
+        }
+        return out.toByteArray();
+    }
+
+    private int inflate(Inflater inflater, int dictionary, byte[] compressed, byte[] target, int offset, int length)
+            throws IOException {
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                if (inflater.needsDictionary()) {
+                    byte[] bytes = dictionaryById.get(dictionary);
+                    if (bytes == null) {
+                        throw new IOException("Archive dictionary " + dictionary + " is missing");
+                    }
+                    inflater.setDictionary(bytes);
+                }
+                int inflated = inflater.inflate(target, offset + read, length - read);
+                if (inflated == 0 && !inflater.needsDictionary()) {
+                    break;
+                }
+                read += inflated;
+            }
+            if (read != length) {
+                throw new IOException("Archived chunk inflates to " + read + " bytes instead of " + length);
+            }
+            return read;
+        } catch (DataFormatException e) {
+            throw new IOException("Archived chunk is corrupt", e);
+        }
+    }
+
+    // Null for anything but a spec id, which is a base64url SHA-256, so no id reaches outside specs/
+    private Path manifest(String id) {
+        if (!enabled || id == null || !id.matches("[A-Za-z0-9_-]{43}")) {
+            return null;
+        }
+        return specs.resolve(id);
+    }
+
+    private static void skipFully(DataInputStream in, int bytes) throws IOException {
+        int skipped = 0;
+        while (skipped < bytes) {
+            int step = in.skipBytes(bytes - skipped);
+            if (step <= 0) {
+                throw new EOFException();
+            }
+            skipped += step;
+        }
+    }
+
+    private static double throughput(long bytes, long nanos) {
+        return nanos == 0 ? 0 : bytes / (1024.0 * 1024.0) / (nanos / 1e9);
+    }
+
+    // Writes next to the target and renames into place, so no reader sees a partial file
+    private static void publish(Path target, byte[] content) throws IOException {
+        Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        Files.write(temp, content);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Value
+    public static class Stats {
+        boolean enabled;
+        long specs;
+        long chunks;
+        // Serialized size of the stored specs, against what the pack, manifests and dictionaries take on disk
+        long logicalBytes;
+        long storedBytes;
+        // Chunks a spec did not write because some spec already had
+        long deduplicatedChunks;
+        int dictionaryId;
+        int dictionaryBytes;
+        long specsWritten;
+        double writeMbPerSecond;
+        long specsRead;
+        double readMbPerSecond;
+
+        public double getStorageRatio() {
+            return storedBytes == 0 ? 0 : (double) logicalBytes / storedBytes;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.building.apicentral.service;
+
+import java.util.Random;
+
+/**
+ * Content-defined chunking with a gear hash, as in FastCDC. A chunk ends where the hash of the
+ * bytes just read matches a mask, so where chunks end depends only on nearby content: an
+ * insertion changes the chunks around it, and the rest of the document is cut exactly as
+ * before, into chunks that are already stored.
+ */
+final class SpecChunker {
+
+    static final int MIN_SIZE = 256;
+    static final int MAX_SIZE = 8 * 1024;
+    // Ten bits set, the top ones, which depend on the last 64 bytes: a chunk ends about every KiB past the minimum
+    private static final long MASK = 0xFFC0000000000000L;
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // Fixed seed: every instance must cut the same content the same way
+        Random random = new Random(0x5EC5L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private SpecChunker() {
+    }
+
+    /**
+     * End, exclusive, of the chunk of {@code data} that starts at {@code from}.
+     */
+    static int chunkEnd(byte[] data, int from, int to) {
+        int limit = Math.min(to, from + MAX_SIZE);
+        int i = Math.min(limit, from + MIN_SIZE);
+        long hash = 0;
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[i] & 0xFF];
+            if ((hash & MASK) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,48 @@
+package com.building.apicentral.service;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Structural difference between two stored specs, as computed by {@link SpecHashTree}:
+ * operations and definitions that were added, removed or changed, and for each changed
+ * operation which of its parameters and responses differ. Lists are sorted.
+ */
+@Value
+public class SpecDiff {
+
+    String from;
+    String to;
+    // Info, tags, security definitions and the other top-level fields
+    boolean headChanged;
+    List<OperationRef> addedOperations;
+    List<OperationRef> removedOperations;
+    List<OperationChange> changedOperations;
+    List<String> addedDefinitions;
+    List<String> removedDefinitions;
+    List<String> changedDefinitions;
+    // Hash tree nodes and entries looked at, which grows with the changes rather than the size of the specs
+    long nodesCompared;
+
+    @Value
+    public static class OperationRef {
+        String path;
+        String method;
+    }
+
+    @Value
+    public static class OperationChange {
+        String path;
+        String method;
+        // Tags, summary, description, operation id, security or media types
+        boolean detailsChanged;
+        // Parameters as "<in> <name>", responses by status code
+        List<String> addedParameters;
+        List<String> removedParameters;
+        List<String> changedParameters;
+        List<String> addedResponses;
+        List<String> removedResponses;
+        List<String> changedResponses;
+    }
+}
@@ -0,0 +1,365 @@
+package com.building.apicentral.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Merkle hashes over the sections of a {@link StoredSpec}: paths, their operations, and each
+ * operation's parameters and responses, plus the definitions. Paths and definitions are each
+ * arranged in a binary trie on the bits of their key's digest, so two specs place a key at the
+ * same position whatever else they contain, and {@link #diff} only descends where hashes
+ * differ. Parameters and responses are hashed by key, so reordering them is no change.
+ */
+final class SpecHashTree {
+
+    // Entries at or below this many stay in one leaf of the trie
+    private static final int LEAF_SIZE = 8;
+    private static final ObjectMapper READER = new ObjectMapper();
+    private static final Comparator<Entry> BY_POSITION =
+            Comparator.<Entry>comparingLong(entry -> entry.position ^ Long.MIN_VALUE).thenComparing(entry -> entry.key);
+
+    private final byte[] head;
+    private final Node paths;
+    private final Node definitions;
+
+    private SpecHashTree(byte[] head, Node paths, Node definitions) {
+        this.head = head;
+        this.paths = paths;
+        this.definitions = definitions;
+    }
+
+    static SpecHashTree of(byte[] head, String[] pathKeys, byte[][] pathItems, Map<String, byte[]> definitions) {
+        try {
+            ObjectNode headNode = (ObjectNode) READER.readTree(head);
+            // Both follow from the paths and definitions, which are compared on their own
+            headNode.remove("pathCount");
+            headNode.remove("definitionNames");
+            byte[] headHash = sha256().digest(READER.writeValueAsBytes(headNode));
+
+            Entry[] paths = new Entry[pathKeys.length];
+            for (int i = 0; i < pathKeys.length; i++) {
+                PathHashes operations = pathHashes(READER.readTree(pathItems[i]));
+                paths[i] = new Entry(pathKeys[i], operations.hash, operations);
+            }
+            Entry[] definitionEntries = new Entry[definitions.size()];
+            int i = 0;
+            for (Map.Entry<String, byte[]> definition : definitions.entrySet()) {
+                definitionEntries[i++] = new Entry(definition.getKey(), sha256().digest(definition.getValue()), null);
+            }
+            return new SpecHashTree(headHash, trie(paths), trie(definitionEntries));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Stored section is not valid JSON", e);
+        }
+    }
+
+    /**
+     * What changed from this spec to {@code to}. The work grows with the number of changed
+     * paths and definitions, not with the size of the specs.
+     */
+    SpecDiff diff(String fromId, SpecHashTree to, String toId) {
+        Comparison paths = new Comparison();
+        paths.compare(this.paths, to.paths);
+        Comparison definitions = new Comparison();
+        definitions.compare(this.definitions, to.definitions);
+
+        List<SpecDiff.OperationRef> added = new ArrayList<>();
+        List<SpecDiff.OperationRef> removed = new ArrayList<>();
+        List<SpecDiff.OperationChange> changed = new ArrayList<>();
+        for (Entry path : paths.added) {
+            ((PathHashes) path.payload).operations.keySet().forEach(method -> added.add(new SpecDiff.OperationRef(path.key, method)));
+        }
+        for (Entry path : paths.removed) {
+            ((PathHashes) path.payload).operations.keySet().forEach(method -> removed.add(new SpecDiff.OperationRef(path.key, method)));
+        }
+        long compared = paths.nodes + definitions.nodes;
+        for (Entry[] pair : paths.changed) {
+            Map<String, OperationHashes> before = ((PathHashes) pair[0].payload).operations;
+            Map<String, OperationHashes> after = ((PathHashes) pair[1].payload).operations;
+            for (Map.Entry<String, OperationHashes> operation : after.entrySet()) {
+                OperationHashes old = before.get(operation.getKey());
+                compared++;
+                if (old == null) {
+                    added.add(new SpecDiff.OperationRef(pair[1].key, operation.getKey()));
+                } else if (!Arrays.equals(old.hash, operation.getValue().hash)) {
+                    changed.add(old.diff(pair[1].key, operation.getKey(), operation.getValue()));
+                }
+            }
+            for (String method : before.keySet()) {
+                if (!after.containsKey(method)) {
+                    removed.add(new SpecDiff.OperationRef(pair[0].key, method));
+                }
+            }
+        }
+
+        Comparator<SpecDiff.OperationRef> byPath = Comparator.comparing(SpecDiff.OperationRef::getPath)
+                .thenComparing(SpecDiff.OperationRef::getMethod);
+        added.sort(byPath);
+        removed.sort(byPath);
+        changed.sort(Comparator.comparing(SpecDiff.OperationChange::getPath).thenComparing(SpecDiff.OperationChange::getMethod));
+        return new SpecDiff(fromId, toId, !Arrays.equals(head, to.head), added, removed, changed,
+                definitions.keys(definitions.added), definitions.keys(definitions.removed),
+                definitions.changedKeys(), compared);
+    }
+
+    private static PathHashes pathHashes(JsonNode pathItem) {
+        Map<String, OperationHashes> operations = new TreeMap<>();
+        MessageDigest digest = sha256();
+        Iterator<Map.Entry<String, JsonNode>> methods = pathItem.fields();
+        while (methods.hasNext()) {
+            Map.Entry<String, JsonNode> method = methods.next();
+            OperationHashes operation = operationHashes((ObjectNode) method.getValue());
+            operations.put(method.getKey(), operation);
+        }
+        for (Map.Entry<String, OperationHashes> operation : operations.entrySet()) {
+            update(digest, operation.getKey());
+            digest.update(operation.getValue().hash);
+        }
+        return new PathHashes(digest.digest(), operations);
+    }
+
+    // Takes the parameters and responses out of the parsed operation, which leaves its details
+    private static OperationHashes operationHashes(ObjectNode details) {
+        JsonNode parameters = details.remove("parameters");
+        JsonNode responses = details.remove("responses");
+        Map<String, byte[]> parameterHashes = new TreeMap<>();
+        if (parameters != null) {
+            for (JsonNode parameter : parameters) {
+                String key = parameter.path("in").asText() + " " + parameter.path("name").asText();
+                // Repeated names, as with two headers of the same name, stay apart by their position
+                String unique = key;
+                for (int n = 2; parameterHashes.containsKey(unique); n++) {
+                    unique = key + " #" + n;
+                }
+                parameterHashes.put(unique, hash(parameter));
+            }
+        }
+        Map<String, byte[]> responseHashes = new TreeMap<>();
+        if (responses != null) {
+            responses.fields().forEachRemaining(response -> responseHashes.put(response.getKey(), hash(response.getValue())));
+        }
+        byte[] detailsHash = hash(details);
+        MessageDigest digest = sha256();
+        digest.update(detailsHash);
+        for (Map.Entry<String, byte[]> parameter : parameterHashes.entrySet()) {
+            update(digest, parameter.getKey());
+            digest.update(parameter.getValue());
+        }
+        digest.update((byte) 0);
+        for (Map.Entry<String, byte[]> response : responseHashes.entrySet()) {
+            update(digest, response.getKey());
+            digest.update(response.getValue());
+        }
+        return new OperationHashes(digest.digest(), detailsHash, parameterHashes, responseHashes);
+    }
+
+    private static Node trie(Entry[] entries) {
+        Arrays.sort(entries, BY_POSITION);
+        return node(entries, 0, entries.length, 0);
+    }
+
+    // Entries [from, to) share their first `bit` position bits
+    private static Node node(Entry[] entries, int from, int to, int bit) {
+        if (to - from <= LEAF_SIZE || bit == Long.SIZE) {
+            MessageDigest digest = sha256();
+            for (int i = from; i < to; i++) {
+                update(digest, entries[i].key);
+                digest.update(entries[i].hash);
+            }
+            return new Node(digest.digest(), null, null, entries, from, to);
+        }
+        int split = from;
+        while (split < to && (entries[split].position << bit) >= 0) {
+            split++;
+        }
+        Node zero = node(entries, from, split, bit + 1);
+        Node one = node(entries, split, to, bit + 1);
+        MessageDigest digest = sha256();
+        digest.update(zero.hash);
+        digest.update(one.hash);
+        return new Node(digest.digest(), zero, one, entries, from, to);
+    }
+
+    private static byte[] hash(JsonNode node) {
+        try {
+            return sha256().digest(READER.writeValueAsBytes(node));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String key) {
+        digest.update(key.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Added, removed and changed entries between two tries, found by descending into differing nodes only
+    private static final class Comparison {
+        private final List<Entry> added = new ArrayList<>();
+        private final List<Entry> removed = new ArrayList<>();
+        private final List<Entry[]> changed = new ArrayList<>();
+        private long nodes;
+
+        void compare(Node before, Node after) {
+            nodes++;
+            if (Arrays.equals(before.hash, after.hash)) {
+                return;
+            }
+            if (before.zero != null && after.zero != null) {
+                compare(before.zero, after.zero);
+                compare(before.one, after.one);
+                return;
+            }
+            // A leaf on one side: at most LEAF_SIZE entries there, and every extra one on the other side is an addition
+            int i = before.from;
+            int j = after.from;
+            while (i < before.to || j < after.to) {
+                nodes++;
+                int order = i == before.to ? 1 : j == after.to ? -1
+                        : BY_POSITION.compare(before.entries[i], after.entries[j]);
+                if (order < 0) {
+                    removed.add(before.entries[i++]);
+                } else if (order > 0) {
+                    added.add(after.entries[j++]);
+                } else {
+                    if (!Arrays.equals(before.entries[i].hash, after.entries[j].hash)) {
+                        changed.add(new Entry[]{before.entries[i], after.entries[j]});
+                    }
+                    i++;
+                    j++;
+                }
+            }
+        }
+
+        List<String> keys(List<Entry> entries) {
+            List<String> keys = new ArrayList<>(entries.size());
+            entries.forEach(entry -> keys.add(entry.key));
+            keys.sort(null);
+            return keys;
+        }
+
+        List<String> changedKeys() {
+            List<String> keys = new ArrayList<>(changed.size());
+            changed.forEach(pair -> keys.add(pair[1].key));
+            keys.sort(null);
+            return keys;
+        }
+    }
+
+    private static final class Node {
+        private final byte[] hash;
+        // Both null for a leaf
+        private final Node zero;
+        private final Node one;
+        private final Entry[] entries;
+        private final int from;
+        private final int to;
+
+        private Node(byte[] hash, Node zero, Node one, Entry[] entries, int from, int to) {
+            this.hash = hash;
+            this.zero = zero;
+            this.one = one;
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        // Leading bits of the key's digest, which place the entry in the trie
+        private final long position;
+        private final byte[] hash;
+        private final Object payload;
+
+        private Entry(String key, byte[] hash, Object payload) {
+            this.key = key;
+            byte[] digest = sha256().digest(key.getBytes(StandardCharsets.UTF_8));
+            long position = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                position = position << 8 | (digest[i] & 0xff);
+            }
+            this.position = position;
+            this.hash = hash;
+            this.payload = payload;
+        }
+    }
+
+    private static final class PathHashes {
+        private final byte[] hash;
+        // By method
+        private final Map<String, OperationHashes> operations;
+
+        private PathHashes(byte[] hash, Map<String, OperationHashes> operations) {
+            this.hash = hash;
+            this.operations = operations;
+        }
+    }
+
+    private static final class OperationHashes {
+        private final byte[] hash;
+        // Everything but parameters and responses: tags, summary, operation id, security, ...
+        private final byte[] details;
+        // By "<in> <name>" and by status code
+        private final Map<String, byte[]> parameters;
+        private final Map<String, byte[]> responses;
+
+        private OperationHashes(byte[] hash, byte[] details, Map<String, byte[]> parameters, Map<String, byte[]> responses) {
+            this.hash = hash;
+            this.details = details;
+            this.parameters = parameters;
+            this.responses = responses;
+        }
+
+        SpecDiff.OperationChange diff(String path, String method, OperationHashes to) {
+            List<String> addedParameters = new ArrayList<>();
+            List<String> removedParameters = new ArrayList<>();
+            List<String> changedParameters = new ArrayList<>();
+            compare(parameters, to.parameters, addedParameters, removedParameters, changedParameters);
+            List<String> addedResponses = new ArrayList<>();
+            List<String> removedResponses = new ArrayList<>();
+            List<String> changedResponses = new ArrayList<>();
+            compare(responses, to.responses, addedResponses, removedResponses, changedResponses);
+            return new SpecDiff.OperationChange(path, method, !Arrays.equals(details, to.details),
+                    addedParameters, removedParameters, changedParameters, addedResponses, removedResponses, changedResponses);
+        }
+
+        private static void compare(Map<String, byte[]> before, Map<String, byte[]> after,
+                                    List<String> added, List<String> removed, List<String> changed) {
+            for (Map.Entry<String, byte[]> entry : after.entrySet()) {
+                byte[] old = before.get(entry.getKey());
+                if (old == null) {
+                    added.add(entry.getKey());
+                } else if (!Arrays.equals(old, entry.getValue())) {
+                    changed.add(entry.getKey());
+                }
+            }
+            for (String key : before.keySet()) {
+                if (!after.containsKey(key)) {
+                    removed.add(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.SwaggerDefinition;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Serializes converted specs and derives their ETags. In canonical mode every map
+ * (paths, definitions, securityDefinitions, responses, properties) is written with its
+ * keys sorted, so equal definitions always render to identical bytes.
+ */
+@Service
+public class SpecRenderer {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper canonicalMapper;
+
+    public SpecRenderer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.canonicalMapper = objectMapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    public RenderedSpec render(SwaggerDefinition swaggerDefinition, boolean canonical) throws JsonProcessingException {
+        byte[] json = (canonical ? canonicalMapper : objectMapper).writeValueAsBytes(swaggerDefinition);
+        return new RenderedSpec(json, strongETag(json));
+    }
+
+    /**
+     * Streams a spec too large to hold rendered in memory as well, such as an aggregated one.
+     */
+    public void write(SwaggerDefinition swaggerDefinition, boolean canonical, OutputStream out) throws IOException {
+        (canonical ? canonicalMapper : objectMapper).writeValue(out, swaggerDefinition);
+    }
+
+    // Shared with ConversionResultStore, whose sections must render exactly like the whole document
+    ObjectMapper canonicalMapper() {
+        return canonicalMapper;
+    }
+
+    /**
+     * Quoted strong entity tag: the URL-safe Base64 SHA-256 of the content.
+     */
+    public static String strongETag(byte[] content) {
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(content)) + "\"";
+    }
+
+    public static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Digest of an upload plus every option that changes the rendered output.
+     */
+    public static String inputKey(byte[] input, String... variants) {
+        MessageDigest digest = inputDigest();
+        digest.update(input);
+        return inputKey(digest, variants);
+    }
+
+    /**
+     * Digest to feed an upload into as it arrives, for {@link #inputKey(MessageDigest, String...)}.
+     */
+    public static MessageDigest inputDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Like {@link #inputKey(byte[], String...)}, for an upload already fed into {@code digest}.
+     */
+    public static String inputKey(MessageDigest digest, String... variants) {
+        for (String variant : variants) {
+            digest.update((byte) 0);
+            digest.update(String.valueOf(variant).getBytes(StandardCharsets.UTF_8));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    }
+}
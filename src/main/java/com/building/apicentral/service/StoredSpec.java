@@ -0,0 +1,227 @@
+package com.building.apicentral.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A converted spec split into independently serialized sections: the head (everything but
+ * paths and definitions), one JSON value per path and one per definition. Pages of paths are
+ * assembled by concatenating the stored bytes, so no request re-serializes the document.
+ * Instances never change; {@link #getId()} is a digest over every section.
+ */
+public class StoredSpec {
+
+    private static final byte[] PAGE_START = "{\"paths\":{".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEXT = "},\"next\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final String id;
+    private final byte[] head;
+    private final String headETag;
+    // Sorted by key; the quoted key, its path item and the tags of its operations share an index
+    private final String[] pathKeys;
+    private final byte[][] quotedPathKeys;
+    private final byte[][] pathItems;
+    private final Set<String>[] pathTags;
+    private final Map<String, byte[]> definitions;
+    private final long sizeBytes;
+    // Built on the first diff that involves this spec
+    private volatile SpecHashTree hashTree;
+
+    StoredSpec(String id, byte[] head, String[] pathKeys, byte[][] quotedPathKeys, byte[][] pathItems,
+               Set<String>[] pathTags, Map<String, byte[]> definitions) {
+        this.id = id;
+        this.head = head;
+        this.headETag = SpecRenderer.strongETag(head);
+        this.pathKeys = pathKeys;
+        this.quotedPathKeys = quotedPathKeys;
+        this.pathItems = pathItems;
+        this.pathTags = pathTags;
+        this.definitions = definitions;
+        long size = head.length;
+        for (int i = 0; i < pathKeys.length; i++) {
+            size += quotedPathKeys[i].length + pathItems[i].length;
+        }
+        for (byte[] definition : definitions.values()) {
+            size += definition.length;
+        }
+        this.sizeBytes = size;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public byte[] getHead() {
+        return head;
+    }
+
+    public String getHeadETag() {
+        return headETag;
+    }
+
+    public int getPathCount() {
+        return pathKeys.length;
+    }
+
+    /** Serialized definition, or null when the spec has none by that name. */
+    public byte[] getDefinition(String name) {
+        return definitions.get(name);
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    SpecHashTree hashTree() {
+        SpecHashTree tree = hashTree;
+        if (tree == null) {
+            tree = SpecHashTree.of(head, pathKeys, pathItems, definitions);
+            hashTree = tree;
+        }
+        return tree;
+    }
+
+    /**
+     * Writes the sections for {@link #readFrom}. Paths go in key order and definitions in name
+     * order, so the same spec always writes the same bytes.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        writeBytes(out, head);
+        out.writeInt(pathKeys.length);
+        for (int i = 0; i < pathKeys.length; i++) {
+            writeString(out, pathKeys[i]);
+            writeBytes(out, quotedPathKeys[i]);
+            writeBytes(out, pathItems[i]);
+            out.writeInt(pathTags[i].size());
+            for (String tag : new TreeSet<>(pathTags[i])) {
+                writeString(out, tag);
+            }
+        }
+        out.writeInt(definitions.size());
+        for (Map.Entry<String, byte[]> definition : new TreeMap<>(definitions).entrySet()) {
+            writeString(out, definition.getKey());
+            writeBytes(out, definition.getValue());
+        }
+    }
+
+    static StoredSpec readFrom(String id, DataInputStream in) throws IOException {
+        byte[] head = readBytes(in);
+        int count = in.readInt();
+        String[] pathKeys = new String[count];
+        byte[][] quotedPathKeys = new byte[count][];
+        byte[][] pathItems = new byte[count][];
+        @SuppressWarnings("unchecked")
+        Set<String>[] pathTags = new Set[count];
+        for (int i = 0; i < count; i++) {
+            pathKeys[i] = readString(in);
+            quotedPathKeys[i] = readBytes(in);
+            pathItems[i] = readBytes(in);
+            int tags = in.readInt();
+            pathTags[i] = new HashSet<>();
+            for (int j = 0; j < tags; j++) {
+                pathTags[i].add(readString(in));
+            }
+        }
+        int definitionCount = in.readInt();
+        Map<String, byte[]> definitions = new HashMap<>();
+        for (int i = 0; i < definitionCount; i++) {
+            definitions.put(readString(in), readBytes(in));
+        }
+        return new StoredSpec(id, head, pathKeys, quotedPathKeys, pathItems, pathTags, definitions);
+    }
+
+    /**
+     * Up to {@code limit} paths after the one the cursor names, in key order, optionally only
+     * those with an operation carrying {@code tag}. The page is
+     * {@code {"paths": {...}, "next": cursor-or-null}}.
+     *
+     * @throws IllegalArgumentException for a cursor this class did not issue
+     */
+    public byte[] pathPage(String cursor, int limit, String tag) {
+        int index = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            String after = decodeCursor(cursor);
+            int position = Arrays.binarySearch(pathKeys, after);
+            index = position >= 0 ? position + 1 : -position - 1;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + limit * 256);
+        out.write(PAGE_START, 0, PAGE_START.length);
+        int written = 0;
+        int last = -1;
+        for (; index < pathKeys.length && written < limit; index++) {
+            if (tag != null && !pathTags[index].contains(tag)) {
+                continue;
+            }
+            if (written > 0) {
+                out.write(',');
+            }
+            out.write(quotedPathKeys[index], 0, quotedPathKeys[index].length);
+            out.write(':');
+            out.write(pathItems[index], 0, pathItems[index].length);
+            written++;
+            last = index;
+        }
+        out.write(NEXT, 0, NEXT.length);
+        if (last >= 0 && hasMore(last + 1, tag)) {
+            byte[] next = ("\"" + encodeCursor(pathKeys[last]) + "\"").getBytes(StandardCharsets.UTF_8);
+            out.write(next, 0, next.length);
+        } else {
+            out.write(NULL, 0, NULL.length);
+        }
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private boolean hasMore(int from, String tag) {
+        for (int i = from; i < pathKeys.length; i++) {
+            if (tag == null || pathTags[i].contains(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    static String encodeCursor(String pathKey) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(pathKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
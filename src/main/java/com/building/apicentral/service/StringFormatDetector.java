@@ -0,0 +1,357 @@
+package com.building.apicentral.service;
+
+/**
+ * Recognizes the Swagger string formats of example values: date, date-time, uuid, email, uri,
+ * ipv4, ipv6 and byte (base64). Each format is checked by a scanner over the characters of
+ * the value that gives up at the first character out of place, so plain text costs a few
+ * comparisons and no check allocates.
+ */
+public final class StringFormatDetector {
+
+    // Shorter runs of base64 characters are more likely to be words or identifiers
+    private static final int MIN_BASE64_LENGTH = 16;
+    private static final int MAX_EMAIL_LENGTH = 254;
+
+    private StringFormatDetector() {
+    }
+
+    /**
+     * The format {@code value} is written in, or null when it matches none of them.
+     */
+    public static String detect(String value) {
+        int length = value.length();
+        if (length < 2) {
+            return null;
+        }
+        char first = value.charAt(0);
+        if (isDigit(first)) {
+            if (length == 10 && isDate(value)) {
+                return "date";
+            }
+            if (length >= 19 && isDateTime(value)) {
+                return "date-time";
+            }
+            if (length <= 15 && isIpv4(value, 0, length)) {
+                return "ipv4";
+            }
+        }
+        if (length == 36 && isUuid(value)) {
+            return "uuid";
+        }
+        if (isLetter(first) && isUri(value)) {
+            return "uri";
+        }
+        if (length <= MAX_EMAIL_LENGTH && isEmail(value)) {
+            return "email";
+        }
+        if (length <= 45 && (first == ':' || isHex(first)) && isIpv6(value)) {
+            return "ipv6";
+        }
+        if (length >= MIN_BASE64_LENGTH && length % 4 == 0 && isBase64(value)) {
+            return "byte";
+        }
+        return null;
+    }
+
+    // yyyy-MM-dd with a day that exists in the month
+    static boolean isDate(String value) {
+        if (value.length() < 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            return false;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        return year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= daysIn(month, year);
+    }
+
+    // RFC 3339 date-time; the offset may be left out, as in ISO 8601 local times
+    static boolean isDateTime(String value) {
+        int length = value.length();
+        if (length < 19 || !isDate(value)) {
+            return false;
+        }
+        char separator = value.charAt(10);
+        if (separator != 'T' && separator != 't' && separator != ' ') {
+            return false;
+        }
+        if (value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return false;
+        }
+        int hour = digits(value, 11, 2);
+        int minute = digits(value, 14, 2);
+        int second = digits(value, 17, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return false;
+        }
+        int i = 19;
+        if (i < length && value.charAt(i) == '.') {
+            int fraction = ++i;
+            while (i < length && isDigit(value.charAt(i))) {
+                i++;
+            }
+            if (i == fraction) {
+                return false;
+            }
+        }
+        if (i == length) {
+            return true;
+        }
+        char zone = value.charAt(i);
+        if (zone == 'Z' || zone == 'z') {
+            return i + 1 == length;
+        }
+        if ((zone == '+' || zone == '-') && i + 6 == length && value.charAt(i + 3) == ':') {
+            int offsetHours = digits(value, i + 1, 2);
+            int offsetMinutes = digits(value, i + 4, 2);
+            return offsetHours >= 0 && offsetHours <= 23 && offsetMinutes >= 0 && offsetMinutes <= 59;
+        }
+        return false;
+    }
+
+    // 8-4-4-4-12 hex digits
+    static boolean isUuid(String value) {
+        if (value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!isHex(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A scheme followed by "://" and an authority, with nothing that would need escaping
+    static boolean isUri(String value) {
+        int length = value.length();
+        if (length == 0 || !isLetter(value.charAt(0))) {
+            return false;
+        }
+        int i = 1;
+        while (i < length && isSchemeChar(value.charAt(i))) {
+            i++;
+        }
+        if (i + 3 >= length || value.charAt(i) != ':' || value.charAt(i + 1) != '/' || value.charAt(i + 2) != '/') {
+            return false;
+        }
+        i += 3;
+        if (value.charAt(i) == '/') {
+            return false;
+        }
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c <= ' ' || c == '"' || c == '<' || c == '>' || c == '\\' || c == '^' || c == '`'
+                    || c == '{' || c == '|' || c == '}' || c >= 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // local@domain, where the domain has at least two labels and ends in a letter-only one
+    static boolean isEmail(String value) {
+        int length = value.length();
+        int at = -1;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '@') {
+                at = i;
+                break;
+            }
+            if (!isLocalChar(c) || (c == '.' && (i == 0 || value.charAt(i - 1) == '.'))) {
+                return false;
+            }
+        }
+        if (at < 1 || at > 64 || value.charAt(at - 1) == '.') {
+            return false;
+        }
+        int labelStart = at + 1;
+        int labels = 0;
+        boolean lettersOnly = true;
+        for (int i = labelStart; i <= length; i++) {
+            char c = i < length ? value.charAt(i) : '.';
+            if (c == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength == 0 || labelLength > 63
+                        || value.charAt(labelStart) == '-' || value.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labels++;
+                if (i < length) {
+                    labelStart = i + 1;
+                    lettersOnly = true;
+                }
+            } else if (isLetter(c)) {
+                continue;
+            } else if (isDigit(c) || c == '-') {
+                lettersOnly = false;
+            } else {
+                return false;
+            }
+        }
+        return labels >= 2 && lettersOnly && length - labelStart >= 2;
+    }
+
+    // Dotted quad between from and to, without leading zeros
+    static boolean isIpv4(String value, int from, int to) {
+        int octets = 0;
+        int i = from;
+        while (true) {
+            int start = i;
+            int octet = 0;
+            while (i < to && i - start < 3 && isDigit(value.charAt(i))) {
+                octet = octet * 10 + (value.charAt(i) - '0');
+                i++;
+            }
+            int digits = i - start;
+            if (digits == 0 || octet > 255 || (digits > 1 && value.charAt(start) == '0')) {
+                return false;
+            }
+            octets++;
+            if (i == to) {
+                return octets == 4;
+            }
+            if (octets == 4 || value.charAt(i) != '.') {
+                return false;
+            }
+            i++;
+        }
+    }
+
+    // Up to eight groups of hex digits, one "::" standing for the groups left out, and an
+    // optional dotted quad in place of the last two groups
+    static boolean isIpv6(String value) {
+        int length = value.length();
+        int groups = 0;
+        boolean compressed = false;
+        int i = 0;
+        if (value.charAt(0) == ':') {
+            if (value.charAt(1) != ':') {
+                return false;
+            }
+            compressed = true;
+            i = 2;
+        }
+        while (i < length) {
+            int start = i;
+            while (i < length && isHex(value.charAt(i))) {
+                i++;
+            }
+            if (i < length && value.charAt(i) == '.') {
+                if (!isIpv4(value, start, length)) {
+                    return false;
+                }
+                groups += 2;
+                break;
+            }
+            int digits = i - start;
+            if (digits == 0 || digits > 4) {
+                return false;
+            }
+            groups++;
+            if (i == length) {
+                break;
+            }
+            if (value.charAt(i) != ':' || ++i == length) {
+                return false;
+            }
+            if (value.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+            }
+        }
+        return compressed ? groups < 8 : groups == 8;
+    }
+
+    // Standard alphabet with padding. To tell encoded data from long words and identifiers,
+    // the value must use '+', '/' or padding, or mix upper case, lower case and digits
+    static boolean isBase64(String value) {
+        int length = value.length();
+        int end = length;
+        if (value.charAt(end - 1) == '=') {
+            end--;
+            if (value.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        boolean symbols = end < length;
+        boolean upper = false;
+        boolean lower = false;
+        boolean digit = false;
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                upper = true;
+            } else if (c >= 'a' && c <= 'z') {
+                lower = true;
+            } else if (isDigit(c)) {
+                digit = true;
+            } else if (c == '+' || c == '/') {
+                symbols = true;
+            } else {
+                return false;
+            }
+        }
+        return symbols || (upper && lower && digit);
+    }
+
+    /**
+     * Value of {@code count} decimal digits starting at {@code from}, or -1 if any is not a digit.
+     */
+    private static int digits(String value, int from, int count) {
+        int result = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static int daysIn(int month, int year) {
+        switch (month) {
+            case 2:
+                return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isHex(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isSchemeChar(char c) {
+        return isLetter(c) || isDigit(c) || c == '+' || c == '-' || c == '.';
+    }
+
+    // RFC 5322 atext plus the dot
+    private static boolean isLocalChar(char c) {
+        return isLetter(c) || isDigit(c) || c == '.' || c == '_' || c == '-' || c == '+' || c == '%'
+                || c == '!' || c == '#' || c == '$' || c == '&' || c == '\'' || c == '*' || c == '/'
+                || c == '=' || c == '?' || c == '^' || c == '`' || c == '{' || c == '|' || c == '}' || c == '~';
+    }
+}
@@ -0,0 +1,33 @@
+package com.building.apicentral.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Bytes allocated by the current thread, where the JVM can count them.
+ */
+final class ThreadAllocation {
+
+    private static final com.sun.management.ThreadMXBean THREADS = counter();
+
+    private ThreadAllocation() {
+    }
+
+    /**
+     * Total bytes the current thread has allocated, or -1 when not supported.
+     */
+    static long current() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean counter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                return counter;
+            }
+        }
+        return null;
+    }
+}
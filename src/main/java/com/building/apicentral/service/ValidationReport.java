@@ -0,0 +1,21 @@
+package com.building.apicentral.service;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of {@link PostmanCollectionValidator}: every problem found in one pass, plus the
+ * folder and request counts seen along the way.
+ */
+@Value
+public class ValidationReport {
+    List<String> problems;
+    boolean truncated;
+    int folders;
+    int requests;
+
+    public boolean isValid() {
+        return problems.isEmpty();
+    }
+}
@@ -0,0 +1,111 @@
+package com.building.apicentral;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.config.OutputProperties;
+import com.building.apicentral.service.PostmanCollectionValidator;
+import com.building.apicentral.service.PostmanToSwaggerService;
+import com.building.apicentral.service.SpecAggregator;
+import com.building.apicentral.service.SpecRenderer;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path input;
+
+    @TempDir
+    Path output;
+
+    @Test
+    void convertsATreeOfCollectionsAndReportsFailures() throws Exception {
+        writeInputs();
+        BatchConverter.Summary summary = converter().run(input, output, 4, new PrintStream(new ByteArrayOutputStream()));
+
+        assertEquals(14, summary.getFiles());
+        assertEquals(12, summary.getConverted());
+        assertEquals(2, summary.getFailures().size());
+        assertTrue(summary.getFailures().containsKey(Paths.get("broken.json")));
+        assertTrue(summary.getFailures().containsKey(Paths.get("truncated.json")));
+        assertTrue(summary.getFilesPerSecond() > 0);
+
+        JsonNode spec = objectMapper.readTree(output.resolve("team-1/nested/api-4.swagger.json").toFile());
+        assertEquals("1.0", spec.get("info").get("version").asText());
+        assertFalse(spec.get("paths").isEmpty());
+        try (Stream<Path> written = Files.walk(output)) {
+            // Only finished specs, no leftover temporary files
+            assertEquals(12, written.filter(Files::isRegularFile)
+                    .peek(file -> assertTrue(file.getFileName().toString().endsWith(".swagger.json")))
+                    .count());
+        }
+
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        summary.print(new PrintStream(report, true, "UTF-8"));
+        String text = new String(report.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("Converted 12 of 14 files"));
+        assertTrue(text.contains("  broken.json: "));
+        assertEquals(3, text.split("\n").length);
+    }
+
+    @Test
+    void aggregatesATreeIntoOneSpec() throws Exception {
+        writeInputs();
+        Path target = output.resolve("central.json");
+        BatchConverter.Summary summary = converter().aggregate(input, target, "Central", 4, new PrintStream(new ByteArrayOutputStream()));
+
+        assertEquals(12, summary.getAggregated().getServices());
+        assertTrue(summary.getAggregated().getConflicts().isEmpty());
+        JsonNode spec = objectMapper.readTree(target.toFile());
+        assertEquals("Central", spec.get("info").get("title").asText());
+        assertEquals(summary.getAggregated().getSpec().getPaths().size(), spec.get("paths").size());
+        spec.get("paths").fieldNames().forEachRemaining(path -> assertTrue(path.startsWith("/team-"), path));
+        assertTrue(spec.get("tags").get(0).get("name").asText().startsWith("team-0/nested/api-"));
+    }
+
+    @Test
+    void acceptsOnlyPositiveThreadCounts() {
+        assertEquals(3, BatchConverter.threads(new DefaultApplicationArguments("in", "out", "--threads=3")));
+        assertEquals(Runtime.getRuntime().availableProcessors(), BatchConverter.threads(new DefaultApplicationArguments("in", "out")));
+        for (String bad : new String[] {"--threads=abc", "--threads=0", "--threads=-2", "--threads", "--threads=99999999999"}) {
+            assertNull(BatchConverter.threads(new DefaultApplicationArguments("in", "out", bad)), bad);
+        }
+    }
+
+    private BatchConverter converter() {
+        OutputProperties outputProperties = new OutputProperties();
+        outputProperties.setPinnedVersion("1.0");
+        SpecRenderer specRenderer = new SpecRenderer(objectMapper);
+        return new BatchConverter(new PostmanCollectionValidator(objectMapper, new ConversionProperties()),
+                new PostmanToSwaggerService(objectMapper), specRenderer, new SpecAggregator(specRenderer), outputProperties);
+    }
+
+    private void writeInputs() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            Path dir = Files.createDirectories(input.resolve("team-" + (i % 3)).resolve("nested"));
+            Files.write(dir.resolve("api-" + i + ".postman_collection.json"),
+                    PostmanCollectionGenerator.withSeed(i).items(40).folderDepth(1).itemsPerFolder(8).toJson());
+        }
+        Files.write(input.resolve("broken.json"), "{\"info\": {\"name\": \"Broken\"}, \"item\": \"nope\"}".getBytes(StandardCharsets.UTF_8));
+        Files.write(input.resolve("truncated.json"), "{\"info\": {".getBytes(StandardCharsets.UTF_8));
+        Files.write(input.resolve("notes.txt"), "not a collection".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,86 @@
+package com.building.apicentral.benchmark;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.building.apicentral.service.ConversionOptions;
+import com.building.apicentral.service.ConversionProfile;
+import com.building.apicentral.service.ConversionProgress;
+import com.building.apicentral.service.PostmanToSwaggerService;
+import com.building.apicentral.service.SpecRenderer;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of an already bound collection, from a few hundred requests up to collections
+ * whose model no longer fits in the CPU caches. Run with the benchmark profile, see pom.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConversionBenchmark {
+
+    @Param({"500", "20000"})
+    public int items;
+
+    @Param({"3"})
+    public int folderDepth;
+
+    // -p bodyFields=0 leaves mostly the walk over the item tree
+    @Param({"12"})
+    public int bodyFields;
+
+    @Param({"lite", "standard", "full"})
+    public String profile;
+
+    // -p progress=true,false measures what streaming progress costs the traversal
+    @Param({"false"})
+    public boolean progress;
+
+    private PostmanToSwaggerService service;
+    private SpecRenderer specRenderer;
+    private PostmanCollection collection;
+    private ConversionOptions options;
+
+    @Setup
+    public void setUp() {
+        ConversionProperties properties = new ConversionProperties();
+        properties.setMaxNodes(Long.MAX_VALUE);
+        properties.setMaxDurationMs(Long.MAX_VALUE / 1_000_000);
+        properties.setMaxAllocatedBytes(Long.MAX_VALUE);
+        ObjectMapper objectMapper = new ObjectMapper();
+        service = new PostmanToSwaggerService(objectMapper, properties);
+        specRenderer = new SpecRenderer(objectMapper);
+        options = new ConversionOptions();
+        options.setPinnedVersion("1.0");
+        options.setProfile(ConversionProfile.fromName(profile));
+        if (progress) {
+            options.setProgress(new ConversionProgress(snapshot -> { }, 250, 0));
+        }
+        collection = PostmanCollectionGenerator.withSeed(34)
+                .items(items).folderDepth(folderDepth).itemsPerFolder(10).bodyFields(bodyFields).responseExamples(2)
+                .generate();
+    }
+
+    @Benchmark
+    public SwaggerDefinition convert() {
+        return service.convertPostmanToSwagger(collection, options);
+    }
+
+    // Includes serialization, whose cost follows the size of the document the profile produces
+    @Benchmark
+    public byte[] convertAndRender() throws JsonProcessingException {
+        return specRenderer.render(service.convertPostmanToSwagger(collection, options), false).getJson();
+    }
+}
@@ -0,0 +1,68 @@
+package com.building.apicentral.benchmark;
+
+import com.building.apicentral.service.StringFormatDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Format detection per example value, against the same checks written as regular
+ * expressions. The values mix every detected format with the plain text and numbers that
+ * make up most request and response bodies. Run with -prof gc to see that detection does
+ * not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StringFormatBenchmark {
+
+    private static final String[] VALUES = {
+            "2024-02-29", "2024-02-29T13:45:00.123Z", "123e4567-e89b-12d3-a456-426614174000",
+            "jane.doe@example.com", "https://api.example.com/v1/orders/42", "192.168.10.1",
+            "2001:db8::8a2e:370:7334", "U29tZSBiaW5hcnkgZGF0YQ==",
+            "Jane", "Doe", "active", "Order for the spring campaign", "EUR", "42", "application/json",
+            "Lorem ipsum dolor sit amet, consectetur adipiscing elit", "ORD-2024-000123", "true",
+    };
+
+    private static final Pattern[] PATTERNS = {
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}"),
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}[Tt ]\\d{2}:\\d{2}:\\d{2}(\\.\\d+)?([Zz]|[+-]\\d{2}:\\d{2})?"),
+            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}"),
+            Pattern.compile("[A-Za-z][A-Za-z0-9+.-]*://[^/\\s][^\\s\"<>\\\\^`{|}]*"),
+            Pattern.compile("[A-Za-z0-9._%+-]+@([A-Za-z0-9-]+\\.)+[A-Za-z]{2,}"),
+            Pattern.compile("((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)"),
+            Pattern.compile("([0-9a-fA-F]{1,4}:){7}[0-9a-fA-F]{1,4}|(([0-9a-fA-F]{1,4}:){0,6}[0-9a-fA-F]{1,4})?::"
+                    + "(([0-9a-fA-F]{1,4}:){0,6}[0-9a-fA-F]{1,4})?"),
+            Pattern.compile("(?=.{16,}$)([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{2}==|[A-Za-z0-9+/]{3}=)?"),
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(18)
+    public void scanners(Blackhole blackhole) {
+        for (String value : VALUES) {
+            blackhole.consume(StringFormatDetector.detect(value));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(18)
+    public void regex(Blackhole blackhole) {
+        for (String value : VALUES) {
+            int format = -1;
+            for (int i = 0; i < PATTERNS.length && format < 0; i++) {
+                if (PATTERNS[i].matcher(value).matches()) {
+                    format = i;
+                }
+            }
+            blackhole.consume(format);
+        }
+    }
+}
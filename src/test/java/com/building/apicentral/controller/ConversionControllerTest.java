@@ -0,0 +1,74 @@
+package com.building.apicentral.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConversionControllerTest {
+
+    private static final String NESTED = nested(1_001);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void answersCollectionsPastTheParserNestingLimitWithTheLimitError() throws Exception {
+        String collection = "{\"info\": {\"name\": \"Deep\", \"schema\": \"https://schema.getpostman.com/json/collection/v2.1.0/collection.json\"},"
+                + " \"item\": [{\"name\": \"a\", \"request\": {\"method\": \"POST\", \"url\": {\"path\": [\"a\"]},"
+                + " \"body\": {\"mode\": \"raw\", \"raw\": \"" + NESTED.replace("\"", "\\\"") + "\"}}}]}";
+
+        mockMvc.perform(post("/api/convert/postman-to-swagger").contentType(MediaType.APPLICATION_JSON).content(collection))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(content().string(containsString("parser limit")));
+    }
+
+    @Test
+    void answersCapturesPastTheParserNestingLimitWithTheLimitError() throws Exception {
+        String har = "{\"log\": {\"version\": \"1.2\", \"entries\": [{\"request\": " + NESTED + "}]}}";
+
+        mockMvc.perform(post("/api/convert/har-to-swagger").contentType(MediaType.APPLICATION_JSON).content(har))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(content().string(containsString("parser limit")));
+    }
+
+    @Test
+    void stopsSendingOnceTheEventStreamIsDone() {
+        SseEmitter emitter = new SseEmitter();
+        ConversionController.EventStream events = new ConversionController.EventStream(emitter);
+        // Completed outside the stream, as a timeout does; the emitter then rejects sends with IllegalStateException
+        emitter.complete();
+
+        assertThrows(UncheckedIOException.class, () -> events.send("progress", "{}"));
+        assertThrows(UncheckedIOException.class, () -> events.send("done", "{}"));
+        events.complete();
+        events.completeWithError(new IOException("gone"));
+    }
+
+    // Objects nested depth levels deep
+    private static String nested(int depth) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append("{\"a\":");
+        }
+        sb.append("1");
+        for (int i = 0; i < depth; i++) {
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,185 @@
+package com.building.apicentral.loadtest;
+
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the convert endpoint of an instance booted on a random port and reports
+ * throughput and latency percentiles. Excluded from the default build, run it with
+ * {@code mvn -Ploadtest test}; see {@link LoadTestSettings} for the knobs.
+ * Results are written to {@code target/loadtest}: one {@code .hgrm} percentile
+ * distribution per payload class plus {@code summary.json}. Every worker sends the same
+ * bodies, so coalescing of identical conversions is switched off: each request converts.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"apicentral.reactive.port=0", "apicentral.conversion.coalesce-identical=false"})
+class ConvertEndpointLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ConvertEndpointLoadTest.class);
+
+    // Latencies are recorded in microseconds, up to one minute
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void convertEndpointThroughput() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        URL endpoint = new URL("http://localhost:" + port + "/api/convert/postman-to-swagger");
+
+        Map<String, byte[]> bodies = new LinkedHashMap<>();
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : settings.itemCounts.entrySet()) {
+            bodies.put(entry.getKey(), PostmanCollectionGenerator.withSeed(settings.seed)
+                    .items(entry.getValue())
+                    .folderDepth(settings.folderDepth)
+                    .bodyFields(settings.bodyFields)
+                    .responseExamples(settings.responseExamples)
+                    .toJson());
+            recorders.put(entry.getKey(), new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+        }
+        String[] schedule = weightedSchedule(settings.mix);
+
+        AtomicLong errors = new AtomicLong();
+        runPhase(settings, endpoint, schedule, bodies, null, errors, settings.warmupSeconds);
+        errors.set(0);
+        for (Recorder recorder : recorders.values()) {
+            recorder.reset();
+        }
+
+        long started = System.nanoTime();
+        long completed = runPhase(settings, endpoint, schedule, bodies, recorders, errors, settings.durationSeconds);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        writeReport(settings, bodies, recorders, completed, errors.get(), elapsedSeconds);
+        assertTrue(completed > 0, "no conversion completed during the measurement window");
+    }
+
+    private long runPhase(LoadTestSettings settings, URL endpoint, String[] schedule, Map<String, byte[]> bodies,
+                          Map<String, Recorder> recorders, AtomicLong errors, int seconds) throws Exception {
+        if (seconds <= 0) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int worker = 0; worker < settings.concurrency; worker++) {
+                Random random = new Random(settings.seed + worker);
+                results.add(workers.submit(() -> {
+                    long count = 0;
+                    while (System.nanoTime() < deadline) {
+                        String payloadClass = schedule[random.nextInt(schedule.length)];
+                        long start = System.nanoTime();
+                        boolean ok = HttpLoadClient.post(endpoint, bodies.get(payloadClass), 0) == 200;
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                        if (!ok) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (recorders != null) {
+                            recorders.get(payloadClass).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                        }
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> result : results) {
+                total += result.get();
+            }
+            return total;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private String[] weightedSchedule(Map<String, Integer> mix) {
+        List<String> schedule = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                schedule.add(entry.getKey());
+            }
+        }
+        return schedule.toArray(new String[0]);
+    }
+
+    private void writeReport(LoadTestSettings settings, Map<String, byte[]> bodies, Map<String, Recorder> recorders,
+                             long completed, long errors, double elapsedSeconds) throws Exception {
+        File outputDirectory = new File(settings.outputDirectory);
+        outputDirectory.mkdirs();
+
+        ObjectNode summary = objectMapper.createObjectNode();
+        summary.put("concurrency", settings.concurrency);
+        summary.put("durationSeconds", elapsedSeconds);
+        summary.put("requests", completed);
+        summary.put("errors", errors);
+        summary.put("throughputPerSecond", completed / elapsedSeconds);
+
+        Histogram overall = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        ObjectNode classes = summary.putObject("payloads");
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            Histogram histogram = entry.getValue().getIntervalHistogram();
+            overall.add(histogram);
+            ObjectNode node = classes.putObject(entry.getKey());
+            node.put("items", settings.itemCounts.get(entry.getKey()));
+            node.put("bytes", bodies.get(entry.getKey()).length);
+            node.put("weight", settings.mix.getOrDefault(entry.getKey(), 0));
+            putLatencies(node, histogram, elapsedSeconds);
+            writeHistogram(new File(outputDirectory, entry.getKey() + ".hgrm"), histogram);
+        }
+        putLatencies(summary.putObject("overall"), overall, elapsedSeconds);
+        writeHistogram(new File(outputDirectory, "overall.hgrm"), overall);
+
+        File summaryFile = new File(outputDirectory, "summary.json");
+        objectMapper.writeValue(summaryFile, summary);
+        log.info("Summary written to {}: {}", summaryFile, objectMapper.writeValueAsString(summary));
+    }
+
+    private void putLatencies(ObjectNode node, Histogram histogram, double elapsedSeconds) {
+        node.put("count", histogram.getTotalCount());
+        node.put("throughputPerSecond", histogram.getTotalCount() / elapsedSeconds);
+        node.put("p50Millis", histogram.getValueAtPercentile(50) / 1000.0);
+        node.put("p95Millis", histogram.getValueAtPercentile(95) / 1000.0);
+        node.put("p99Millis", histogram.getValueAtPercentile(99) / 1000.0);
+        node.put("maxMillis", histogram.getMaxValue() / 1000.0);
+    }
+
+    private void writeHistogram(File file, Histogram histogram) throws Exception {
+        try (PrintStream out = new PrintStream(file, "UTF-8")) {
+            // Values are in microseconds; scale the distribution output to milliseconds
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+}
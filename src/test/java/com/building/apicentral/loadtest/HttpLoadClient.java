@@ -0,0 +1,45 @@
+package com.building.apicentral.loadtest;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+final class HttpLoadClient {
+
+    private HttpLoadClient() {
+    }
+
+    /**
+     * POSTs a JSON body and drains the response so the keep-alive connection can be reused.
+     *
+     * @return the HTTP status, or -1 if the request failed or timed out
+     */
+    static int post(URL endpoint, byte[] body, int timeoutMillis) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (in != null) {
+                byte[] buffer = new byte[8192];
+                try (InputStream stream = in) {
+                    while (stream.read(buffer) != -1) {
+                        // drain
+                    }
+                }
+            }
+            return status;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.building.apicentral.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test knobs, read from system properties so they can be passed on the Maven command line:
+ * <pre>
+ * mvn -Ploadtest test -Dloadtest.concurrency=32 -Dloadtest.durationSeconds=60 \
+ *     -Dloadtest.mix=small:80,medium:15,large:5 -Dloadtest.items.large=5000
+ * </pre>
+ */
+class LoadTestSettings {
+
+    final int concurrency;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final long seed;
+    final int folderDepth;
+    final int bodyFields;
+    final int responseExamples;
+    final String outputDirectory;
+    // Payload class name -> relative weight in the request mix
+    final Map<String, Integer> mix = new LinkedHashMap<>();
+    // Payload class name -> number of requests in the generated collection
+    final Map<String, Integer> itemCounts = new LinkedHashMap<>();
+
+    private LoadTestSettings() {
+        concurrency = Integer.getInteger("loadtest.concurrency", 8);
+        warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 5);
+        durationSeconds = Integer.getInteger("loadtest.durationSeconds", 30);
+        seed = Long.getLong("loadtest.seed", 42L);
+        folderDepth = Integer.getInteger("loadtest.folderDepth", 1);
+        bodyFields = Integer.getInteger("loadtest.bodyFields", 8);
+        responseExamples = Integer.getInteger("loadtest.responseExamples", 1);
+        outputDirectory = System.getProperty("loadtest.outputDirectory", "target/loadtest");
+
+        for (String entry : System.getProperty("loadtest.mix", "small:70,medium:25,large:5").split(",")) {
+            String[] parts = entry.trim().split(":");
+            mix.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        itemCounts.put("small", Integer.getInteger("loadtest.items.small", 10));
+        itemCounts.put("medium", Integer.getInteger("loadtest.items.medium", 200));
+        itemCounts.put("large", Integer.getInteger("loadtest.items.large", 2000));
+        for (String name : mix.keySet()) {
+            if (!itemCounts.containsKey(name)) {
+                itemCounts.put(name, Integer.getInteger("loadtest.items." + name, 100));
+            }
+        }
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings();
+    }
+}
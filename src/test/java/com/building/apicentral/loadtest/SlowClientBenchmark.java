@@ -0,0 +1,165 @@
+package com.building.apicentral.loadtest;
+
+import com.building.apicentral.config.ReactiveServerConfig.ReactiveConversionServer;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the servlet and the reactive convert endpoints while slow clients trickle large
+ * uploads. For each endpoint a set of slow clients opens uploads and sends a few bytes at a
+ * time, while one fast client keeps converting a small collection; the fast client's latency
+ * shows whether the slow uploads pin request threads. The servlet container is capped at
+ * eight threads so the effect is visible with a modest number of slow clients. The clients
+ * send identical bodies, so coalescing of identical conversions is switched off.
+ * Run with {@code mvn -Ploadtest test -Dtest=SlowClientBenchmark}; results go to
+ * {@code target/loadtest/slow-clients.json}.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"server.tomcat.threads.max=8", "apicentral.reactive.enabled=true", "apicentral.reactive.port=0",
+                "apicentral.conversion.coalesce-identical=false"})
+class SlowClientBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowClientBenchmark.class);
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @LocalServerPort
+    private int servletPort;
+
+    @Autowired
+    private ReactiveConversionServer reactiveServer;
+
+    @Test
+    void fastRequestsWhileSlowClientsUpload() throws Exception {
+        int slowClients = Integer.getInteger("loadtest.slowClients", 32);
+        int trickleSeconds = Integer.getInteger("loadtest.trickleSeconds", 10);
+        int trickleBytes = Integer.getInteger("loadtest.trickleBytes", 256);
+        byte[] largeBody = PostmanCollectionGenerator.withSeed(29).items(2000).toJson();
+        byte[] smallBody = PostmanCollectionGenerator.withSeed(29).items(5).toJson();
+
+        ObjectNode summary = objectMapper.createObjectNode();
+        summary.put("slowClients", slowClients);
+        summary.put("trickleSeconds", trickleSeconds);
+        summary.put("trickleBytesPerTick", trickleBytes);
+        ObjectNode servlet = run(servletPort, slowClients, trickleSeconds, trickleBytes, largeBody, smallBody);
+        ObjectNode reactive = run(reactiveServer.getPort(), slowClients, trickleSeconds, trickleBytes, largeBody, smallBody);
+        summary.set("servlet", servlet);
+        summary.set("reactive", reactive);
+
+        File outputDirectory = new File(System.getProperty("loadtest.outputDirectory", "target/loadtest"));
+        outputDirectory.mkdirs();
+        File summaryFile = new File(outputDirectory, "slow-clients.json");
+        objectMapper.writeValue(summaryFile, summary);
+        log.info("Summary written to {}: {}", summaryFile, objectMapper.writeValueAsString(summary));
+
+        assertTrue(reactive.get("fastCompleted").asLong() > 0, "reactive endpoint served no fast request");
+    }
+
+    private ObjectNode run(int port, int slowClients, int trickleSeconds, int trickleBytes,
+                           byte[] largeBody, byte[] smallBody) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(trickleSeconds);
+        ExecutorService slowPool = Executors.newFixedThreadPool(slowClients);
+        List<Future<Boolean>> uploads = new ArrayList<>();
+        for (int i = 0; i < slowClients; i++) {
+            uploads.add(slowPool.submit(() -> slowUpload(port, largeBody, trickleBytes, deadline)));
+        }
+        Thread.sleep(500);
+
+        URL endpoint = new URL("http://localhost:" + port + "/api/convert/postman-to-swagger");
+        Histogram latencies = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long failed = 0;
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            int status = HttpLoadClient.post(endpoint, smallBody, (int) TimeUnit.NANOSECONDS.toMillis(Math.max(deadline - start, 1_000_000)));
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            if (status == 200) {
+                latencies.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+            } else {
+                failed++;
+            }
+        }
+
+        long slowCompleted = 0;
+        for (Future<Boolean> upload : uploads) {
+            if (upload.get()) {
+                slowCompleted++;
+            }
+        }
+        slowPool.shutdownNow();
+
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("port", port);
+        result.put("fastCompleted", latencies.getTotalCount());
+        result.put("fastFailedOrTimedOut", failed);
+        result.put("fastP50Millis", latencies.getValueAtPercentile(50) / 1000.0);
+        result.put("fastP99Millis", latencies.getValueAtPercentile(99) / 1000.0);
+        result.put("fastMaxMillis", latencies.getMaxValue() / 1000.0);
+        result.put("slowCompleted", slowCompleted);
+        return result;
+    }
+
+    // Sends the headers, trickles the body until the deadline, then sends the rest and waits for the answer
+    private boolean slowUpload(int port, byte[] body, int trickleBytes, long deadline) {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(60_000);
+            OutputStream out = socket.getOutputStream();
+            String headers = "POST /api/convert/postman-to-swagger HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Content-Type: application/json\r\n"
+                    + "Content-Length: " + body.length + "\r\n"
+                    + "Connection: close\r\n\r\n";
+            out.write(headers.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            int offset = 0;
+            while (System.nanoTime() < deadline && offset + trickleBytes < body.length) {
+                out.write(body, offset, trickleBytes);
+                out.flush();
+                offset += trickleBytes;
+                Thread.sleep(200);
+            }
+            out.write(body, offset, body.length - offset);
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] statusLine = new byte[12];
+            int read = 0;
+            while (read < statusLine.length) {
+                int n = in.read(statusLine, read, statusLine.length - read);
+                if (n < 0) {
+                    return false;
+                }
+                read += n;
+            }
+            return new String(statusLine, StandardCharsets.US_ASCII).endsWith("200");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
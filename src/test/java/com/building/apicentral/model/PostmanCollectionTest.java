@@ -0,0 +1,66 @@
+package com.building.apicentral.model;
+
+import com.building.apicentral.service.PostmanToSwaggerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PostmanCollectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void leavesAbsentFieldsUnallocated() throws Exception {
+        PostmanCollection collection = objectMapper.readValue("{\"item\": [{\"name\": \"Folder\", \"item\": ["
+                + "{\"name\": 7, \"request\": {\"method\": \"GET\", \"url\": {\"raw\": \"http://h/a\", \"path\": [\"a\"]}}}]}]}",
+                PostmanCollection.class);
+
+        PostmanCollection.Item folder = collection.getItem().get(0);
+        assertNull(folder.getRequest());
+        assertNull(folder.getResponse());
+        PostmanCollection.Item.Request request = folder.getItem().get(0).getRequest();
+        assertEquals("7", folder.getItem().get(0).getName());
+        assertNull(request.getHeader());
+        assertNull(request.getBody());
+        assertNull(request.getAuth());
+        assertNull(request.getUrl().getQuery());
+        assertEquals("http://h/a", request.getUrl().getRaw());
+    }
+
+    @Test
+    void sharesRepeatedValuesWithinOneBind() throws Exception {
+        String header = "{\"key\": \"Content-Type\", \"value\": \"application/json\"}";
+        PostmanCollection collection = objectMapper.readValue("{\"item\": ["
+                + "{\"name\": \"a\", \"request\": {\"method\": \"GET\", \"header\": [" + header + "]}},"
+                + "{\"name\": \"b\", \"request\": {\"method\": \"GET\", \"header\": [" + header + "]},"
+                + " \"response\": [{\"name\": {\"text\": \"ok\"}, \"header\": [{\"key\": 1, \"value\": true}]}]}]}",
+                PostmanCollection.class);
+
+        PostmanCollection.Item.Request first = collection.getItem().get(0).getRequest();
+        PostmanCollection.Item.Request second = collection.getItem().get(1).getRequest();
+        assertSame(first.getMethod(), second.getMethod());
+        assertSame(first.getHeader().get(0).getKey(), second.getHeader().get(0).getKey());
+        assertSame(first.getHeader().get(0).getValue(), second.getHeader().get(0).getValue());
+
+        PostmanCollection.Item.Response response = collection.getItem().get(1).getResponse().get(0);
+        assertEquals("{text=ok}", response.getName());
+        assertEquals("1", response.getHeader().get(0).getKey());
+        assertEquals("true", response.getHeader().get(0).getValue());
+    }
+
+    @Test
+    void convertsRequestsWithoutOptionalParts() throws Exception {
+        PostmanCollection collection = objectMapper.readValue("{\"item\": [{\"name\": \"Empty\"},"
+                + " {\"name\": \"Ping\", \"request\": {\"method\": \"GET\", \"url\": null, \"auth\": null}}]}",
+                PostmanCollection.class);
+
+        SwaggerDefinition swagger = new PostmanToSwaggerService(objectMapper).convertPostmanToSwagger(collection);
+
+        assertEquals(1, swagger.getPaths().size());
+        assertNotNull(swagger.getPaths().get("/").getGet());
+    }
+}
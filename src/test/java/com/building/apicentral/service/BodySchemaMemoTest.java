@@ -0,0 +1,98 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BodySchemaMemoTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void evictsLeastRecentlyUsedByCountAndLength() throws Exception {
+        BodySchemaMemo memo = new BodySchemaMemo(2, 100);
+        BodySchema schema = BodySchema.of(objectMapper.readTree("{\"a\": 1}"));
+        memo.put("a", schema, 10);
+        memo.put("b", schema, 10);
+        assertSame(schema, memo.get("a"));
+        memo.put("c", schema, 10);
+
+        assertNull(memo.get("b"));
+        assertNotNull(memo.get("a"));
+        memo.put("d", schema, 85);
+        assertNull(memo.get("c"));
+        assertNotNull(memo.get("d"));
+        memo.put("e", schema, 101);
+        assertNull(memo.get("e"));
+
+        BodySchemaMemo.Stats stats = memo.stats();
+        assertEquals(2, stats.getEntries());
+        assertEquals(95, stats.getBodyChars());
+        assertEquals(2, stats.getEvictions());
+        assertEquals(3, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void missesEveryLookupWhenBodiesCycleThroughMoreThanItHolds() throws Exception {
+        BodySchemaMemo memo = new BodySchemaMemo(2, 1_000);
+        BodySchema schema = BodySchema.of(objectMapper.readTree("{\"a\": 1}"));
+        for (int round = 0; round < 3; round++) {
+            for (String key : new String[]{"a", "b", "c"}) {
+                if (memo.get(key) == null) {
+                    memo.put(key, schema, 10);
+                }
+            }
+        }
+
+        assertEquals(0, memo.stats().getHits());
+        assertEquals(9, memo.stats().getMisses());
+    }
+
+    @Test
+    void repeatedConversionsReadBodiesFromTheMemo() {
+        PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper);
+        PostmanCollection collection = PostmanCollectionGenerator.withSeed(45).items(40).responseExamples(2).generate();
+
+        service.convertPostmanToSwagger(collection);
+        BodySchemaMemo.Stats first = service.schemaMemoStats();
+        service.convertPostmanToSwagger(collection);
+        BodySchemaMemo.Stats second = service.schemaMemoStats();
+
+        assertTrue(first.getMisses() > 0);
+        assertEquals(first.getMisses(), second.getMisses());
+        assertEquals(first.getHits() + first.getMisses(), second.getHits() - first.getHits());
+    }
+
+    @Test
+    void keysDependOnSourceAndContent() {
+        assertEquals(BodySchemaMemo.key("request", "{}"), BodySchemaMemo.key("request", "{}"));
+        assertNotEquals(BodySchemaMemo.key("request", "{}"), BodySchemaMemo.key("response", "{}"));
+        assertNotEquals(BodySchemaMemo.key("request", "{}"), BodySchemaMemo.key("request", "{ }"));
+    }
+
+    @Test
+    void describesEveryNodeOfTheBody() throws Exception {
+        BodySchema schema = BodySchema.of(objectMapper.readTree(
+                "{\"id\": 7, \"tags\": [\"a\"], \"lines\": [{\"sku\": \"x\", \"at\": \"2024-01-01\"}], \"note\": null}"));
+
+        assertEquals(8, schema.nodes);
+        assertEquals("object", schema.type);
+        assertEquals("lines", schema.names[2]);
+        BodySchema lines = schema.fields[2];
+        assertEquals("object", lines.itemType);
+        assertEquals("date", lines.item.fields[1].format);
+        assertEquals("string", schema.fields[1].itemType);
+        assertEquals("string", schema.fields[3].type);
+        assertNull(schema.fields[3].example);
+    }
+}
@@ -0,0 +1,127 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.LaneProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversionLanesTest {
+
+    private static final long SMALL = 10;
+    private static final long MEDIUM = 1_000;
+    private static final long HUGE = 100_000;
+
+    private final ConversionLanes lanes = new ConversionLanes(properties());
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stopLanes() {
+        release.countDown();
+        lanes.destroy();
+    }
+
+    @Test
+    void estimatesCostFromSizeAndRequests() {
+        byte[] input = "{\"item\":[{\"request\":{}},{\"request\":\"x\"}]}".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(input.length + 2 * 100, lanes.estimateCost(input));
+        assertEquals(0, lanes.estimateCost((byte[]) null));
+        assertEquals(ConversionLanes.Lane.SMALL, lanes.laneFor(SMALL));
+        assertEquals(ConversionLanes.Lane.MEDIUM, lanes.laneFor(MEDIUM));
+        assertEquals(ConversionLanes.Lane.HUGE, lanes.laneFor(HUGE));
+        assertEquals(ConversionLanes.Lane.MEDIUM, lanes.laneFor(lanes.estimateCost(-1L)));
+    }
+
+    @Test
+    void smallConversionsRunWhileHugeOnesAreBusy() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        lanes.submit(HUGE, () -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        lanes.submit(HUGE, () -> "queued");
+        started.await();
+
+        assertEquals("small", lanes.run(SMALL, () -> "small"));
+        ConversionLanes.LaneStats huge = lanes.stats().get(2);
+        assertEquals(1, huge.getRunning());
+        assertEquals(1, huge.getQueued());
+    }
+
+    @Test
+    void idleLargerLanesTakeSmallWork() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        lanes.submit(SMALL, () -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        started.await();
+
+        assertEquals("stolen", lanes.submit(SMALL, () -> "stolen").get(10, TimeUnit.SECONDS));
+        assertEquals(1, lanes.stats().get(0).getStolen());
+    }
+
+    @Test
+    void rejectsWhenTheLaneIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        lanes.submit(HUGE, () -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        started.await();
+        lanes.submit(HUGE, () -> "first");
+        lanes.submit(HUGE, () -> "second");
+
+        assertThrows(RejectedExecutionException.class, () -> lanes.submit(HUGE, () -> "third"));
+        assertEquals(1, lanes.stats().get(2).getRejected());
+    }
+
+    @Test
+    void passesFailuresOn() {
+        assertThrows(ConversionLimitExceededException.class, () -> lanes.run(MEDIUM, () -> {
+            throw new ConversionLimitExceededException("nodes", "too many");
+        }));
+        CompletableFuture<Object> failed = lanes.submit(MEDIUM, () -> {
+            throw new IllegalStateException("broken");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void cancellingTakesQueuedConversionsOffTheLane() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        lanes.submit(HUGE, () -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        started.await();
+        CompletableFuture<String> queued = lanes.submit(HUGE, () -> "never");
+
+        assertTrue(queued.cancel(false));
+        assertEquals(0, lanes.stats().get(2).getQueued());
+    }
+
+    private static LaneProperties properties() {
+        LaneProperties properties = new LaneProperties();
+        properties.setSmallMaxCost(100);
+        properties.setHugeMinCost(10_000);
+        properties.setRequestCost(100);
+        properties.setSmallThreads(1);
+        properties.setMediumThreads(1);
+        properties.setHugeThreads(1);
+        properties.setHugeQueueSize(2);
+        return properties;
+    }
+}
@@ -0,0 +1,77 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversionProgressTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConversionProperties properties = new ConversionProperties();
+    private final PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper, properties);
+    private final PostmanCollectionValidator validator = new PostmanCollectionValidator(objectMapper, properties);
+    private final byte[] json = PostmanCollectionGenerator.withSeed(42).items(3000).folderDepth(2).itemsPerFolder(10).toJson();
+
+    @Test
+    void reportsBytesItemsAndFoldersAsTheConversionRuns() throws Exception {
+        List<ConversionProgress.Snapshot> events = run(0);
+
+        List<String> stages = new ArrayList<>();
+        long lastItems = 0;
+        for (ConversionProgress.Snapshot event : events) {
+            if (stages.isEmpty() || !stages.get(stages.size() - 1).equals(event.getStage())) {
+                stages.add(event.getStage());
+            }
+            assertTrue(event.getItemsProcessed() >= lastItems);
+            assertTrue(event.getBytesParsed() <= event.getBytesTotal());
+            lastItems = event.getItemsProcessed();
+        }
+        assertEquals(Arrays.asList("validate", "bind", "convert", "render"), stages);
+
+        ConversionProgress.Snapshot bound = events.stream().filter(event -> event.getStage().equals("convert")).findFirst().get();
+        assertEquals(json.length, bound.getBytesParsed());
+        assertEquals(0, events.stream().filter(event -> event.getStage().equals("bind")).findFirst().get().getBytesParsed());
+        assertTrue(events.stream().anyMatch(event -> event.getStage().equals("bind")
+                && event.getBytesParsed() > 0 && event.getBytesParsed() < json.length));
+        assertTrue(events.stream().anyMatch(event -> event.getStage().equals("convert")
+                && event.getItemsProcessed() > 0 && !event.getFolder().isEmpty() && !event.getFolder().startsWith("/")));
+
+        ConversionProgress.Snapshot last = events.get(events.size() - 1);
+        assertEquals(last.getItemsTotal(), last.getItemsProcessed());
+        assertTrue(last.getItemsTotal() > 3000);
+    }
+
+    @Test
+    void sendsLittleMoreThanTheStageChangesWithinAnInterval() throws Exception {
+        List<ConversionProgress.Snapshot> events = run(60_000);
+        assertEquals(4, events.size());
+        assertFalse(events.stream().anyMatch(event -> event.getStage().equals("convert") && event.getItemsProcessed() > 0));
+    }
+
+    private List<ConversionProgress.Snapshot> run(long intervalMs) throws Exception {
+        List<ConversionProgress.Snapshot> events = new ArrayList<>();
+        ConversionProgress progress = new ConversionProgress(events::add, intervalMs, json.length);
+        ValidationReport report = validator.validate(objectMapper.getFactory().createParser(progress.track(new ByteArrayInputStream(json))));
+        assertTrue(report.isValid());
+        progress.setItemsTotal(report.getFolders() + report.getRequests());
+        progress.stage(ConversionTrace.Stage.BIND);
+        PostmanCollection collection = objectMapper.readValue(progress.track(new ByteArrayInputStream(json)), PostmanCollection.class);
+        progress.stage(ConversionTrace.Stage.CONVERT);
+        ConversionOptions options = new ConversionOptions();
+        options.setProgress(progress);
+        service.convertPostmanToSwagger(collection, options);
+        progress.stage(ConversionTrace.Stage.RENDER);
+        return events;
+    }
+}
@@ -0,0 +1,210 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.config.QueueProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversionQueueTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void inMemoryQueueHandsOutExpiredLeasesAgain() throws Exception {
+        QueueProperties properties = new QueueProperties();
+        properties.setMaxAttempts(2);
+        leasesExpireAndAttemptsRunOut(new InMemoryConversionQueue(properties));
+    }
+
+    @Test
+    void fileSystemQueueHandsOutExpiredLeasesAgain() throws Exception {
+        leasesExpireAndAttemptsRunOut(new FileSystemConversionQueue(directory, 2, objectMapper));
+    }
+
+    @Test
+    void inMemoryQueueLimitsWaitingJobsAndRetainedResults() throws Exception {
+        QueueProperties properties = new QueueProperties();
+        properties.setMaxQueuedJobs(3);
+        properties.setMaxQueuedBytes(10);
+        properties.setMaxRetainedBytes(10);
+        ConversionQueue queue = new InMemoryConversionQueue(properties);
+
+        // One job larger than the byte limit is taken while nothing else waits
+        String large = queue.submit(job("{\"a\": \"0123456789\"}"));
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(job("{}")));
+        ConversionJob claimed = queue.claim("a", 60_000);
+        assertEquals(large, claimed.getId());
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(queue.submit(job("{}")));
+        }
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(job("{}")));
+        assertTrue(queue.complete(claimed, "{\"result\": 12345}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(ConversionJobStatus.State.DONE, queue.status(large).getState());
+
+        for (String id : ids) {
+            assertTrue(queue.complete(queue.claim("a", 60_000), "{\"ok\":1}".getBytes(StandardCharsets.UTF_8)));
+        }
+        // 8-byte results: only the newest fits in 10 bytes, and the oversized one went first
+        assertNull(queue.status(large));
+        assertNull(queue.status(ids.get(1)));
+        assertEquals("{\"ok\":1}", new String(queue.result(ids.get(2)), StandardCharsets.UTF_8));
+        assertNotNull(queue.submit(job("{}")));
+    }
+
+    @Test
+    void workerPublishesTheRenderedSpec() throws Exception {
+        ConversionQueue queue = new FileSystemConversionQueue(directory, 3, objectMapper);
+        PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper);
+        ConversionWorker worker = new ConversionWorker(queue, service, new SpecRenderer(objectMapper),
+                new QueueProperties(), new ConversionProperties());
+
+        ConversionJob job = job("{\"info\": {\"name\": \"Queued\"}, \"item\": [{\"name\": \"Ping\","
+                + " \"request\": {\"method\": \"GET\", \"url\": {\"path\": [\"ping\"]}}}]}");
+        job.setPinnedVersion("2.1");
+        String id = queue.submit(job);
+        String broken = queue.submit(job("{\"info\": {\"name\": \"Broken\"}, \"item\": \"nope\"}"));
+
+        assertTrue(worker.process(queue.claim("worker", 60_000)));
+        assertTrue(worker.process(queue.claim("worker", 60_000)));
+
+        JsonNode spec = objectMapper.readTree(queue.result(id));
+        assertEquals("2.1", spec.get("info").get("version").asText());
+        assertNotNull(spec.get("paths").get("/ping").get("get"));
+        assertEquals(ConversionJobStatus.State.FAILED, queue.status(broken).getState());
+        assertNotNull(queue.status(broken).getError());
+        assertNull(queue.result(broken));
+    }
+
+    @Test
+    void workerFailsJobsOnExceptionsWithoutMessage() throws Exception {
+        ConversionQueue queue = new FileSystemConversionQueue(directory, 3, objectMapper);
+        PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper) {
+            @Override
+            public SwaggerDefinition convertPostmanToSwagger(PostmanCollection postmanCollection, ConversionOptions options) {
+                throw new NullPointerException();
+            }
+        };
+        ConversionWorker worker = new ConversionWorker(queue, service, new SpecRenderer(objectMapper),
+                new QueueProperties(), new ConversionProperties());
+        String id = queue.submit(job("{\"info\": {\"name\": \"Queued\"}, \"item\": []}"));
+
+        assertTrue(worker.process(queue.claim("worker", 60_000)));
+
+        ConversionJobStatus status = queue.status(id);
+        assertEquals(ConversionJobStatus.State.FAILED, status.getState());
+        assertEquals(NullPointerException.class.getName(), status.getError());
+        assertEquals(1, status.getAttempts());
+    }
+
+    /**
+     * Three JVMs drain one filesystem queue at the same time; each job must be converted by exactly one of them.
+     */
+    @Test
+    void separateJvmsClaimEachJobOnce() throws Exception {
+        ConversionQueue queue = new FileSystemConversionQueue(directory, 3, objectMapper);
+        byte[] sample;
+        try (InputStream in = getClass().getResourceAsStream("/training/sample-collection.json")) {
+            sample = StreamUtils.copyToByteArray(in);
+        }
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            ConversionJob job = new ConversionJob();
+            job.setInput(sample);
+            ids.add(queue.submit(job));
+        }
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<Process> workers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    QueueClaimer.class.getName(), directory.toString(), "jvm-" + i)
+                    .redirectErrorStream(true).start());
+        }
+        List<String> claimed = new ArrayList<>();
+        for (Process worker : workers) {
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (line.startsWith("claimed ")) {
+                        claimed.add(line.substring("claimed ".length()));
+                    }
+                }
+            }
+            assertTrue(worker.waitFor(60, TimeUnit.SECONDS));
+            assertEquals(0, worker.exitValue());
+        }
+
+        assertEquals(ids.size(), claimed.size());
+        assertEquals(ids, new HashSet<>(claimed));
+        for (String id : ids) {
+            assertEquals(ConversionJobStatus.State.DONE, queue.status(id).getState());
+            assertEquals(1, queue.status(id).getAttempts());
+            assertTrue(objectMapper.readTree(queue.result(id)).has("paths"));
+        }
+    }
+
+    private void leasesExpireAndAttemptsRunOut(ConversionQueue queue) throws Exception {
+        String id = queue.submit(job("{}"));
+        assertEquals(ConversionJobStatus.State.QUEUED, queue.status(id).getState());
+
+        ConversionJob first = queue.claim("a", 0);
+        assertEquals(id, first.getId());
+        assertEquals("{}", new String(first.getInput(), StandardCharsets.UTF_8));
+
+        // The lease has already run out, so the next claim takes the job over
+        ConversionJob second = queue.claim("b", 60_000);
+        assertEquals(id, second.getId());
+        assertEquals(ConversionJobStatus.State.RUNNING, queue.status(id).getState());
+        assertEquals("b", queue.status(id).getWorker());
+        assertEquals(2, queue.status(id).getAttempts());
+        assertFalse(queue.complete(first, "{\"stale\":true}".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(queue.complete(second, "{\"ok\":true}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(ConversionJobStatus.State.DONE, queue.status(id).getState());
+        assertEquals("{\"ok\":true}", new String(queue.result(id), StandardCharsets.UTF_8));
+        assertNull(queue.claim("a", 60_000));
+
+        String abandoned = queue.submit(job("{}"));
+        assertNotNull(queue.claim("a", 0));
+        assertNotNull(queue.claim("b", 0));
+        assertNull(queue.claim("c", 60_000));
+        assertEquals(ConversionJobStatus.State.FAILED, queue.status(abandoned).getState());
+        assertEquals("Lease expired 2 times", queue.status(abandoned).getError());
+        assertNull(queue.status("0000000000000-00000000"));
+    }
+
+    private static ConversionJob job(String input) {
+        ConversionJob job = new ConversionJob();
+        job.setInput(input.getBytes(StandardCharsets.UTF_8));
+        return job;
+    }
+}
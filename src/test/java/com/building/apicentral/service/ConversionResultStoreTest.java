@@ -0,0 +1,155 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.OutputProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversionResultStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper);
+    private final SpecRenderer specRenderer = new SpecRenderer(objectMapper);
+
+    @Test
+    void pagesTogetherEqualTheWholeDocument() throws Exception {
+        SwaggerDefinition swagger = convert(1);
+        StoredSpec spec = new ConversionResultStore(specRenderer, new OutputProperties()).store(swagger);
+        JsonNode whole = objectMapper.readTree(specRenderer.render(swagger, true).getJson());
+
+        ObjectNode collected = objectMapper.createObjectNode();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = objectMapper.readTree(spec.pathPage(cursor, 7, null));
+            page.get("paths").fields().forEachRemaining(path -> assertNull(collected.replace(path.getKey(), path.getValue())));
+            cursor = page.get("next").isNull() ? null : page.get("next").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(whole.get("paths"), collected);
+        assertEquals((whole.get("paths").size() + 6) / 7, pages);
+
+        JsonNode head = objectMapper.readTree(spec.getHead());
+        assertEquals(whole.get("info"), head.get("info"));
+        assertEquals(whole.get("tags"), head.get("tags"));
+        assertNull(head.get("paths"));
+        assertEquals(whole.get("paths").size(), head.get("pathCount").asInt());
+        for (JsonNode name : head.get("definitionNames")) {
+            assertEquals(whole.get("definitions").get(name.asText()), objectMapper.readTree(spec.getDefinition(name.asText())));
+        }
+    }
+
+    @Test
+    void filtersPagesByOperationTag() throws Exception {
+        SwaggerDefinition swagger = convert(2);
+        StoredSpec spec = new ConversionResultStore(specRenderer, new OutputProperties()).store(swagger);
+        Map.Entry<String, SwaggerDefinition.PathItem> first = swagger.getPaths().entrySet().iterator().next();
+        String tag = operations(first.getValue()).next().getTags().get(0);
+
+        JsonNode page = objectMapper.readTree(spec.pathPage(null, 1000, tag));
+
+        assertTrue(page.get("paths").has(first.getKey()));
+        page.get("paths").forEach(pathItem -> assertTrue(pathItem.toString().contains("\"" + tag + "\"")));
+        assertTrue(page.get("next").isNull());
+        assertThrows(IllegalArgumentException.class, () -> spec.pathPage("not base64!", 10, null));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedSpecs() throws Exception {
+        OutputProperties properties = new OutputProperties();
+        properties.setResultStoreSize(2);
+        ConversionResultStore store = new ConversionResultStore(specRenderer, properties);
+
+        StoredSpec first = store.store(convert(3));
+        StoredSpec second = store.store(convert(4));
+        assertSame(first, store.get(first.getId()));
+        StoredSpec third = store.store(convert(5));
+
+        assertNotNull(store.get(first.getId()));
+        assertNull(store.get(second.getId()));
+        assertNotNull(store.get(third.getId()));
+        assertSame(third, store.store(convert(5)));
+    }
+
+    @Test
+    void diffsOnlyWhereHashesDiffer() throws Exception {
+        OutputProperties properties = new OutputProperties();
+        ConversionResultStore store = new ConversionResultStore(specRenderer, properties);
+        byte[] json = PostmanCollectionGenerator.withSeed(6).items(1500).folderDepth(1).itemsPerFolder(10).toJson();
+        SwaggerDefinition before = convert(json);
+        SwaggerDefinition after = convert(json);
+        List<String> paths = new ArrayList<>(new TreeSet<>(after.getPaths().keySet()));
+        after.getPaths().remove(paths.get(0));
+        SwaggerDefinition.Operation changed = operations(after.getPaths().get(paths.get(1))).next();
+        SwaggerDefinition.Parameter expand = new SwaggerDefinition.Parameter();
+        expand.setName("expand");
+        expand.setIn("query");
+        changed.getParameters().add(expand);
+        SwaggerDefinition.PathItem added = new SwaggerDefinition.PathItem();
+        added.setGet(new SwaggerDefinition.Operation());
+        after.getPaths().put("/added", added);
+        String definition = new TreeSet<>(after.getDefinitions().keySet()).first();
+        after.getDefinitions().get(definition).setType("array");
+
+        String from = store.store(before).getId();
+        String to = store.store(after).getId();
+        SpecDiff diff = store.diff(from, to);
+
+        assertEquals(1, diff.getAddedOperations().size());
+        assertEquals("/added", diff.getAddedOperations().get(0).getPath());
+        assertEquals(paths.get(0), diff.getRemovedOperations().get(0).getPath());
+        assertEquals(1, diff.getChangedOperations().size());
+        SpecDiff.OperationChange change = diff.getChangedOperations().get(0);
+        assertEquals(paths.get(1), change.getPath());
+        assertEquals(Collections.singletonList("query expand"), change.getAddedParameters());
+        assertTrue(change.getChangedResponses().isEmpty());
+        assertFalse(change.isDetailsChanged());
+        assertEquals(Collections.singletonList(definition), diff.getChangedDefinitions());
+        assertTrue(diff.getAddedDefinitions().isEmpty());
+        assertFalse(diff.isHeadChanged());
+        assertTrue(diff.getNodesCompared() < 200, "compared " + diff.getNodesCompared() + " of " + paths.size() + " paths");
+
+        SpecDiff none = store.diff(to, to);
+        assertTrue(none.getChangedOperations().isEmpty() && none.getRemovedOperations().isEmpty());
+        assertEquals(2, none.getNodesCompared());
+        assertNull(store.diff(from, "unknown"));
+    }
+
+    private SwaggerDefinition convert(long seed) throws Exception {
+        return convert(PostmanCollectionGenerator.withSeed(seed).items(60).folderDepth(1).itemsPerFolder(10).toJson());
+    }
+
+    private SwaggerDefinition convert(byte[] json) throws Exception {
+        ConversionOptions options = new ConversionOptions();
+        options.setPinnedVersion("1.0");
+        return service.convertPostmanToSwagger(objectMapper.readValue(json, PostmanCollection.class), options);
+    }
+
+    private static Iterator<SwaggerDefinition.Operation> operations(SwaggerDefinition.PathItem pathItem) {
+        return Stream.of(pathItem.getGet(), pathItem.getPost(), pathItem.getPut(),
+                pathItem.getDelete(), pathItem.getPatch(), pathItem.getOptions())
+                .filter(Objects::nonNull).iterator();
+    }
+}
@@ -0,0 +1,107 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Catches super-linear regressions in {@link PostmanToSwaggerService#convertPostmanToSwagger}.
+ * Each collection is eight times the size of the smallest one; linear growth keeps both the
+ * time and the allocation ratio near 8, while a quadratic step would push them towards 64.
+ * Timing on a shared machine is noisy, so this is left out of the default build; run it with
+ * {@code mvn -Pscaling test}.
+ */
+@Tag("scaling")
+class ConversionScalingTest {
+
+    private static final int BASE_ITEMS = 250;
+    private static final int GROWTH = 8;
+    // Generous headroom for JIT and GC noise, still well below quadratic growth
+    private static final double MAX_TIME_RATIO = GROWTH * 3.0;
+    private static final double MAX_ALLOCATION_RATIO = GROWTH * 1.5;
+
+    private final PostmanToSwaggerService service = new PostmanToSwaggerService(new ObjectMapper(), withoutSchemaMemo());
+
+    @Test
+    void conversionScalesLinearlyWithItemCount() {
+        assertLinear(generator().items(BASE_ITEMS), generator().items(BASE_ITEMS * GROWTH));
+    }
+
+    @Test
+    void conversionScalesLinearlyWithBodySize() {
+        assertLinear(generator().items(100).bodyFields(8), generator().items(100).bodyFields(8 * GROWTH));
+    }
+
+    @Test
+    void conversionScalesLinearlyWithFolderDepth() {
+        assertLinear(generator().items(BASE_ITEMS).folderDepth(2), generator().items(BASE_ITEMS).folderDepth(2 * GROWTH));
+    }
+
+    // The memo would serve every body of the small collection while the large one cycles through it
+    // and misses, so the ratios would measure the memo rather than the conversion
+    private static ConversionProperties withoutSchemaMemo() {
+        ConversionProperties properties = new ConversionProperties();
+        properties.setSchemaMemoEntries(0);
+        return properties;
+    }
+
+    private PostmanCollectionGenerator generator() {
+        return PostmanCollectionGenerator.withSeed(28).responseExamples(2).headers(4).variables(4);
+    }
+
+    private void assertLinear(PostmanCollectionGenerator small, PostmanCollectionGenerator large) {
+        PostmanCollection smallCollection = small.generate();
+        PostmanCollection largeCollection = large.generate();
+
+        for (int i = 0; i < 5; i++) {
+            service.convertPostmanToSwagger(smallCollection);
+            service.convertPostmanToSwagger(largeCollection);
+        }
+
+        Measurement smallRun = measure(smallCollection);
+        Measurement largeRun = measure(largeCollection);
+
+        double timeRatio = (double) largeRun.nanos / smallRun.nanos;
+        double allocationRatio = (double) largeRun.allocatedBytes / smallRun.allocatedBytes;
+        assertTrue(timeRatio < MAX_TIME_RATIO,
+                String.format("time grew %.1fx for %dx more input (%d ns -> %d ns)", timeRatio, GROWTH, smallRun.nanos, largeRun.nanos));
+        assertTrue(allocationRatio < MAX_ALLOCATION_RATIO,
+                String.format("allocation grew %.1fx for %dx more input (%d B -> %d B)", allocationRatio, GROWTH,
+                        smallRun.allocatedBytes, largeRun.allocatedBytes));
+    }
+
+    // Best of several runs, which filters out GC pauses and scheduling noise
+    private Measurement measure(PostmanCollection collection) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Measurement best = null;
+        for (int i = 0; i < 5; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            service.convertPostmanToSwagger(collection);
+            long nanos = System.nanoTime() - start;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            if (best == null || nanos < best.nanos) {
+                best = new Measurement(nanos, allocated);
+            }
+        }
+        return best;
+    }
+
+    private static final class Measurement {
+        private final long nanos;
+        private final long allocatedBytes;
+
+        private Measurement(long nanos, long allocatedBytes) {
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
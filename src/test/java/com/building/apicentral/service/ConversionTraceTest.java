@@ -0,0 +1,72 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversionTraceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper);
+
+    @Test
+    void recordsOneEventPerConversionWithStagesAndAllocation() throws Exception {
+        byte[] json = PostmanCollectionGenerator.withSeed(37).items(40).folderDepth(1).itemsPerFolder(10)
+                .responseExamples(1).toJson();
+        Path file = Files.createTempFile("conversion-trace", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ConversionEvent.class);
+            recording.enable(BodyInferenceEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            ConversionTrace trace = ConversionTrace.begin("test", json.length);
+            PostmanCollection collection = objectMapper.readValue(json, PostmanCollection.class);
+            trace.stage(ConversionTrace.Stage.BIND);
+            ConversionOptions options = new ConversionOptions();
+            options.setTrace(trace);
+            service.convertPostmanToSwagger(collection, options);
+            trace.stage(ConversionTrace.Stage.CONVERT);
+            trace.finish(null);
+
+            recording.stop();
+            recording.dump(file);
+            assertTrue(trace.getAllocatedBytes() > 0);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        List<RecordedEvent> conversions = events.stream()
+                .filter(event -> event.getEventType().getName().equals("apicentral.Conversion"))
+                .collect(Collectors.toList());
+        assertEquals(1, conversions.size());
+        RecordedEvent conversion = conversions.get(0);
+        assertEquals("test", conversion.getString("endpoint"));
+        assertEquals("full", conversion.getString("profile"));
+        assertEquals("ok", conversion.getString("outcome"));
+        // 40 requests in 4 folders
+        assertEquals(44, conversion.getLong("items"));
+        assertEquals(json.length, conversion.getLong("inputBytes"));
+        assertTrue(conversion.getLong("allocatedBytes") > 0);
+        assertTrue(conversion.getDuration("convertNanos").compareTo(conversion.getDuration("inferenceNanos")) >= 0);
+
+        List<RecordedEvent> inferences = events.stream()
+                .filter(event -> event.getEventType().getName().equals("apicentral.BodyInference"))
+                .collect(Collectors.toList());
+        assertTrue(inferences.stream().anyMatch(event -> "response".equals(event.getString("source"))));
+        assertTrue(inferences.stream().anyMatch(event -> event.getLong("nodes") > 0));
+        assertTrue(inferences.stream().allMatch(event -> event.getString("operation") != null));
+    }
+}
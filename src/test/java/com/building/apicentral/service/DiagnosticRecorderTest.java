@@ -0,0 +1,44 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.DiagnosticsProperties;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiagnosticRecorderTest {
+
+    @Test
+    void recordsInTheBackgroundWithoutEnvironmentOrCommandLine() throws Exception {
+        DiagnosticsProperties properties = new DiagnosticsProperties();
+        properties.setRecordingSeconds(1);
+        DiagnosticRecorder recorder = new DiagnosticRecorder(properties);
+
+        CompletableFuture<Path> recording = recorder.record(null);
+        assertFalse(recording.isDone());
+        assertThrows(IllegalStateException.class, () -> recorder.record(null));
+
+        Path file = recording.get(30, TimeUnit.SECONDS);
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertFalse(events.isEmpty());
+            List<String> sensitive = Arrays.asList("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty",
+                    "jdk.JVMInformation");
+            assertTrue(events.stream().noneMatch(event -> sensitive.contains(event.getEventType().getName())));
+        } finally {
+            Files.delete(file);
+        }
+        // The next recording may start once the first is dumped
+        Files.delete(recorder.record(1).get(30, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,108 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FilteredCollectionReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper);
+    private final FilteredCollectionReader reader = new FilteredCollectionReader(objectMapper, service);
+
+    @Test
+    void selectsFoldersByNameOrPath() throws Exception {
+        assertEquals(paths("/Orders/api/v1/orders", "/Orders/Payments/api/v1/orders/orderId/payments"),
+                convert(CollectionFilter.of(Collections.singletonList("Orders"), null, null, null)));
+        assertEquals(paths("/Orders/Payments/api/v1/orders/orderId/payments"),
+                convert(CollectionFilter.of(Collections.singletonList("Orders/Payments"), null, null, null)));
+        assertEquals(paths("/Orders/Payments/api/v1/orders/orderId/payments"),
+                convert(CollectionFilter.of(Collections.singletonList("Payments"), null, null, null)));
+    }
+
+    @Test
+    void combinesTagsMethodsAndPathPrefixes() throws Exception {
+        assertEquals(paths("/Users/api/v1/users/userId"),
+                convert(CollectionFilter.of(null, Collections.singletonList("Users"), Arrays.asList("put", "delete"), null)));
+        assertEquals(paths("/actuator/health"),
+                convert(CollectionFilter.of(null, null, null, Collections.singletonList("/actuator"))));
+        assertEquals(paths("/Orders/api/v1/orders"),
+                convert(CollectionFilter.of(null, null, null, Collections.singletonList("/Orders/api"))));
+    }
+
+    @Test
+    void filteredOperationsMatchTheFullConversion() throws Exception {
+        CollectionFilter filter = CollectionFilter.of(null, null, Collections.singletonList("POST"), null);
+        byte[] json = sample();
+        SwaggerDefinition full = service.convertPostmanToSwagger(objectMapper.readValue(json, PostmanCollection.class));
+        SwaggerDefinition filtered = service.convertPostmanToSwagger(reader.read(json, filter));
+
+        for (String path : filtered.getPaths().keySet()) {
+            assertEquals(objectMapper.writeValueAsString(full.getPaths().get(path).getPost()),
+                    objectMapper.writeValueAsString(filtered.getPaths().get(path).getPost()));
+            assertNull(filtered.getPaths().get(path).getGet());
+        }
+        assertEquals(3, filtered.getPaths().size());
+    }
+
+    @Test
+    void handlesFolderChildrenBeforeTheFolderName() throws Exception {
+        String json = "{\"info\": {\"name\": \"Out of order\"}, \"item\": [{"
+                + "\"item\": [{\"request\": {\"method\": \"GET\", \"url\": {\"path\": [\"ping\"]}},"
+                + " \"response\": [{\"code\": 200}], \"name\": \"Ping\"}],"
+                + " \"name\": \"Status\"}, {\"name\": \"Other\", \"item\": [{\"name\": \"x\", \"request\": {\"method\": \"GET\"}}]}]}";
+
+        PostmanCollection collection = reader.read(json.getBytes(StandardCharsets.UTF_8),
+                CollectionFilter.of(Collections.singletonList("Status"), null, null, null));
+
+        assertEquals(1, collection.getItem().size());
+        PostmanCollection.Item ping = collection.getItem().get(0).getItem().get(0);
+        assertEquals("Ping", ping.getName());
+        assertEquals(200, ping.getResponse().get(0).getCode());
+        assertNotNull(service.convertPostmanToSwagger(collection).getPaths().get("/Status/ping").getGet());
+    }
+
+    @Test
+    void skipsEmptyFoldersUnderEveryFilter() throws Exception {
+        String json = "{\"info\": {\"name\": \"Empty folders\"}, \"item\": [{\"name\": \"Empty\"}, {\"name\": \"None\", \"item\": []},"
+                + " {\"name\": \"Status\", \"item\": [{\"name\": \"Ping\", \"request\": {\"method\": \"GET\", \"url\": {\"path\": [\"ping\"]}}},"
+                + " {\"name\": \"Nested empty\"}]}]}";
+        byte[] input = json.getBytes(StandardCharsets.UTF_8);
+
+        for (CollectionFilter filter : Arrays.asList(
+                CollectionFilter.of(null, Collections.singletonList("Status"), null, null),
+                CollectionFilter.of(null, null, Collections.singletonList("GET"), null),
+                CollectionFilter.of(null, null, null, Collections.singletonList("/Status")),
+                CollectionFilter.of(Collections.singletonList("Status"), null, null, null))) {
+            SwaggerDefinition swagger = service.convertPostmanToSwagger(reader.read(input, filter));
+            assertEquals(paths("/Status/ping"), new TreeSet<>(swagger.getPaths().keySet()));
+        }
+    }
+
+    private Set<String> convert(CollectionFilter filter) throws Exception {
+        return new TreeSet<>(service.convertPostmanToSwagger(reader.read(sample(), filter)).getPaths().keySet());
+    }
+
+    private static Set<String> paths(String... paths) {
+        return new TreeSet<>(Arrays.asList(paths));
+    }
+
+    private byte[] sample() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/training/sample-collection.json")) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.HarProperties;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HarImporterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ArrayNode entries = objectMapper.createArrayNode();
+
+    @Test
+    void templatesIdentifierSegments() {
+        List<String> values = new ArrayList<>();
+        assertEquals("/api/v1/users/{userId}/order-items/{orderItemId}",
+                HarImporter.templatePath("/api/v1/users/42/order-items/9f8e7d6c5b4a", values));
+        assertEquals(Arrays.asList("42", "9f8e7d6c5b4a"), values);
+        assertEquals("/categories/{categoryId}/{id}",
+                HarImporter.templatePath("/categories/3f2504e0-4f89-11d3-9a0c-0305e82c3301/2024-02-29", new ArrayList<>()));
+        assertEquals("/{id}/{id2}", HarImporter.templatePath("//7/8", new ArrayList<>()));
+        assertEquals("/oauth2/v2/token", HarImporter.templatePath("/oauth2/v2/token", new ArrayList<>()));
+    }
+
+    @Test
+    void mergesEntriesOfOneEndpoint() throws Exception {
+        for (int i = 1; i <= 50; i++) {
+            ObjectNode user = objectMapper.createObjectNode().put("id", i).put("name", "user" + i);
+            if (i % 2 == 0) {
+                user.put("nickname", "n" + i);
+            }
+            user.putArray("roles").addObject().put("role", "admin");
+            entry("GET", "https://gateway.example.com:8443/api/v1/users/" + i + "?expand=roles" + (i % 3 == 0 ? "&page=" + i : ""),
+                    null, 200, "application/json; charset=utf-8", user.toString());
+        }
+        entry("GET", "https://gateway.example.com:8443/api/v1/users/404?expand=roles", null, 404, "application/problem+json", "{\"title\":\"Not Found\"}");
+        entry("POST", "https://gateway.example.com:8443/api/v1/users", "{\"name\":\"new\",\"age\":3.5}", 201, "application/json", "{\"id\":51}");
+        entry("GET", "https://gateway.example.com:8443/static/app.js", null, 200, "application/javascript", "var a;");
+        entry("HEAD", "https://gateway.example.com:8443/api/v1/users/1", null, 200, "application/json", null);
+
+        SwaggerDefinition swagger = importHar(new HarProperties());
+
+        assertEquals("gateway.example.com:8443", swagger.getHost());
+        assertEquals(Collections.singletonList("https"), swagger.getSchemes());
+        assertEquals(2, swagger.getPaths().size());
+        SwaggerDefinition.Operation get = swagger.getPaths().get("/api/v1/users/{userId}").getGet();
+        assertEquals(Collections.singletonList("users"), get.getTags());
+        assertEquals("getApiV1UsersUserId", get.getOperationId());
+
+        Map<String, SwaggerDefinition.Parameter> parameters = new HashMap<>();
+        get.getParameters().forEach(parameter -> parameters.put(parameter.getName(), parameter));
+        assertEquals("integer", parameters.get("userId").getSchema().getType());
+        assertTrue(parameters.get("expand").getRequired());
+        assertFalse(parameters.get("page").getRequired());
+
+        SwaggerDefinition.Schema user = get.getResponses().get("200").getSchema();
+        assertEquals(Arrays.asList("id", "name", "roles"), user.getRequired());
+        assertEquals("int32", user.getProperties().get("id").getFormat());
+        assertEquals(1, user.getProperties().get("id").getExample());
+        String roles = user.getProperties().get("roles").getItems().getRef();
+        assertNotNull(swagger.getDefinitions().get(roles.substring("#/definitions/".length())));
+        assertNotNull(get.getResponses().get("404").getSchema().getProperties().get("title"));
+        assertEquals(Arrays.asList("application/json", "application/problem+json"), get.getProduces());
+
+        SwaggerDefinition.Operation post = swagger.getPaths().get("/api/v1/users").getPost();
+        SwaggerDefinition.Parameter body = post.getParameters().get(0);
+        assertTrue(body.getRequired());
+        assertEquals("number", body.getSchema().getProperties().get("age").getType());
+        assertTrue(swagger.getInfo().getDescription().startsWith("Inferred from 54 HAR entries; 2 skipped"));
+    }
+
+    @Test
+    void keepsBoundedStateHoweverManyEntries() throws Exception {
+        HarProperties properties = new HarProperties();
+        properties.setMaxEndpoints(3);
+        properties.setMaxSchemaNodesPerEndpoint(100);
+        for (int i = 0; i < 2_000; i++) {
+            // A new property name in every body, as in a map keyed by identifiers
+            String body = "{\"key" + i + "\":" + i + ",\"id\":" + i + "}";
+            entry("GET", "http://api.example.com/things/" + i, null, 200, "application/json", body);
+            entry("PUT", "http://api.example.com/section" + i, body, 204, null, null);
+        }
+
+        SwaggerDefinition swagger = importHar(properties);
+
+        assertEquals(3, swagger.getPaths().size());
+        SwaggerDefinition.Operation get = swagger.getPaths().get("/things/{thingId}").getGet();
+        assertEquals(99, get.getResponses().get("200").getSchema().getProperties().size());
+        assertTrue(get.getDescription().contains("left out"));
+        assertTrue(swagger.getInfo().getDescription().contains("1998 past the limit"));
+    }
+
+    @Test
+    void skipsBodiesThatAreNotJsonOrTooLong() throws Exception {
+        HarProperties properties = new HarProperties();
+        properties.setMaxBodyChars(64);
+        char[] big = new char[1_000];
+        Arrays.fill(big, 'x');
+        entry("POST", "http://api.example.com/uploads", "{\"data\":\"" + new String(big) + "\"}", 200, "application/json",
+                "{\"ok\":true}");
+        ObjectNode encoded = entry("GET", "http://api.example.com/encoded", null, 200, "application/json", "eyJvayI6dHJ1ZX0=");
+        ((ObjectNode) encoded.get("response").get("content")).put("encoding", "base64");
+
+        SwaggerDefinition swagger = importHar(properties);
+
+        SwaggerDefinition.Operation upload = swagger.getPaths().get("/uploads").getPost();
+        assertTrue(upload.getParameters().isEmpty());
+        assertEquals("boolean", upload.getResponses().get("200").getSchema().getProperties().get("ok").getType());
+        assertNotNull(swagger.getPaths().get("/encoded").getGet().getResponses().get("200").getSchema().getProperties().get("ok"));
+    }
+
+    @Test
+    void rejectsInputThatIsNotAHarCapture() {
+        HarImporter importer = new HarImporter(objectMapper, new HarProperties());
+        assertThrows(IllegalArgumentException.class,
+                () -> importer.importHar(new ByteArrayInputStream("{\"info\":{}}".getBytes()), "t", "1.0"));
+        assertThrows(IllegalArgumentException.class,
+                () -> importer.importHar(new ByteArrayInputStream("[]".getBytes()), "t", "1.0"));
+    }
+
+    private ObjectNode entry(String method, String url, String requestBody, int status, String mimeType, String responseBody) {
+        ObjectNode entry = entries.addObject();
+        entry.put("startedDateTime", "2024-01-01T00:00:00.000Z");
+        ObjectNode request = entry.putObject("request");
+        request.put("method", method);
+        request.put("url", url);
+        ArrayNode query = request.putArray("queryString");
+        int question = url.indexOf('?');
+        if (question >= 0) {
+            for (String pair : url.substring(question + 1).split("&")) {
+                String[] parts = pair.split("=", 2);
+                query.addObject().put("name", parts[0]).put("value", parts[1]);
+            }
+        }
+        request.putArray("headers").addObject().put("name", "Accept").put("value", "*/*");
+        if (requestBody != null) {
+            request.putObject("postData").put("mimeType", "application/json").put("text", requestBody);
+        }
+        ObjectNode response = entry.putObject("response");
+        response.put("status", status);
+        response.put("statusText", status == 404 ? "Not Found" : "");
+        ObjectNode content = response.putObject("content");
+        content.put("size", responseBody != null ? responseBody.length() : 0);
+        if (mimeType != null) {
+            content.put("mimeType", mimeType);
+        }
+        if (responseBody != null) {
+            content.put("text", responseBody);
+        }
+        entry.putObject("timings").put("wait", 12.5);
+        return entry;
+    }
+
+    private SwaggerDefinition importHar(HarProperties properties) throws Exception {
+        ObjectNode har = objectMapper.createObjectNode();
+        ObjectNode log = har.putObject("log");
+        log.put("version", "1.2");
+        log.putObject("creator").put("name", "gateway");
+        log.set("entries", entries);
+        byte[] json = objectMapper.writeValueAsBytes(har);
+        SwaggerDefinition swagger = new HarImporter(objectMapper, properties)
+                .importHar(new ByteArrayInputStream(json), "Gateway", "1.0");
+        assertNull(swagger.getPaths().get("/static/app.js"));
+        return swagger;
+    }
+}
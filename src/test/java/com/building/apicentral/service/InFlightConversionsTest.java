@@ -0,0 +1,184 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InFlightConversionsTest {
+
+    private final InFlightConversions inFlight = new InFlightConversions(new ConversionProperties());
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void stopThreads() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneConversion() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Object result = new Object();
+        List<Future<Object>> calls = submit(5, "a", () -> {
+            runs.incrementAndGet();
+            release.await();
+            return result;
+        });
+        awaitWaiting(4);
+        Object other = inFlight.run("b", () -> "other");
+        release.countDown();
+
+        for (Future<Object> call : calls) {
+            assertSame(result, call.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, runs.get());
+        assertEquals("other", other);
+        assertEquals(4, inFlight.getCoalesced());
+        assertEquals("again", inFlight.run("a", () -> "again"));
+    }
+
+    @Test
+    void failurePropagatesToEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Object>> calls = submit(3, "a", () -> {
+            release.await();
+            throw new ConversionLimitExceededException("nodes", "too many");
+        });
+        awaitWaiting(2);
+        release.countDown();
+
+        for (Future<Object> call : calls) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(ConversionLimitExceededException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void interruptedConversionIsRunAgainByAWaiter() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Future<Object> first = threads.submit(() -> inFlight.run("a", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            Thread.sleep(60_000);
+            return "never";
+        }));
+        started.await();
+        Future<Object> second = threads.submit(() -> inFlight.run("a", () -> {
+            runs.incrementAndGet();
+            return "second";
+        }));
+        awaitWaiting(1);
+        first.cancel(true);
+
+        assertEquals("second", second.get(10, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void waitersGiveUpAfterTwiceTheTimeLimit() throws Exception {
+        ConversionProperties properties = new ConversionProperties();
+        properties.setMaxDurationMs(50);
+        InFlightConversions inFlight = new InFlightConversions(properties);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> first = threads.submit(() -> inFlight.run("a", () -> {
+            started.countDown();
+            release.await();
+            return "late";
+        }));
+        started.await();
+
+        ConversionLimitExceededException e = assertThrows(ConversionLimitExceededException.class,
+                () -> inFlight.run("a", () -> "not run"));
+        assertTrue(e.getMessage().contains("100 ms"), e.getMessage());
+        release.countDown();
+        assertEquals("late", first.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void convertsEveryRequestWhenCoalescingIsOff() throws Exception {
+        ConversionProperties properties = new ConversionProperties();
+        properties.setCoalesceIdentical(false);
+        InFlightConversions inFlight = new InFlightConversions(properties);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        List<Future<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            calls.add(threads.submit(() -> inFlight.run("a", () -> {
+                bothStarted.countDown();
+                return bothStarted.await(10, TimeUnit.SECONDS);
+            })));
+        }
+
+        for (Future<Object> call : calls) {
+            assertEquals(true, call.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, inFlight.getCoalesced());
+    }
+
+    @Test
+    void asynchronousRequestsShareConversionsWithBlockingOnes() throws Exception {
+        CompletableFuture<Object> lead = new CompletableFuture<>();
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Object> first = inFlight.submit("a", () -> {
+            runs.incrementAndGet();
+            return lead;
+        });
+        CompletableFuture<Object> second = inFlight.submit("a", () -> {
+            runs.incrementAndGet();
+            return CompletableFuture.completedFuture("not run");
+        });
+        Future<Object> blocking = threads.submit(() -> inFlight.run("a", () -> "not run"));
+        awaitWaiting(2);
+        // A waiter giving up leaves the conversion to the others
+        second.cancel(false);
+        CompletableFuture<Object> third = inFlight.submit("a", () -> CompletableFuture.completedFuture("not run"));
+
+        lead.complete("shared");
+        assertEquals("shared", first.get(10, TimeUnit.SECONDS));
+        assertEquals("shared", third.get(10, TimeUnit.SECONDS));
+        assertEquals("shared", blocking.get(10, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+
+        // Cancelling the request that converts hands the conversion to a waiter
+        CompletableFuture<Object> cancelled = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.submit("b", () -> cancelled);
+        CompletableFuture<Object> waiter = inFlight.submit("b", () -> CompletableFuture.completedFuture("again"));
+        leader.cancel(false);
+        assertEquals("again", waiter.get(10, TimeUnit.SECONDS));
+    }
+
+    private List<Future<Object>> submit(int count, String key, Callable<Object> conversion) {
+        List<Future<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            calls.add(threads.submit(() -> inFlight.run(key, conversion)));
+        }
+        return calls;
+    }
+
+    private void awaitWaiting(long waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (inFlight.getCoalesced() < waiters && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(waiters, inFlight.getCoalesced());
+    }
+}
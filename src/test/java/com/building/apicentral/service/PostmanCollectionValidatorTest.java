@@ -0,0 +1,142 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostmanCollectionValidatorTest {
+
+    private final PostmanCollectionValidator validator = validator(new ConversionProperties());
+
+    @Test
+    void acceptsGeneratedAndSampleCollections() throws Exception {
+        ValidationReport generated = validator.validate(PostmanCollectionGenerator.withSeed(31)
+                .items(40).folderDepth(2).itemsPerFolder(5).toJson());
+        assertTrue(generated.isValid(), generated.getProblems().toString());
+        assertEquals(40, generated.getRequests());
+
+        try (InputStream in = getClass().getResourceAsStream("/training/sample-collection.json")) {
+            ValidationReport sample = validator.validate(StreamUtils.copyToByteArray(in));
+            assertTrue(sample.isValid(), sample.getProblems().toString());
+        }
+    }
+
+    @Test
+    void reportsEveryProblemWithItsLocation() {
+        String json = "{\"info\": {\"schema\": \"https://schema.getpostman.com/json/collection/v1.0.0/collection.json\"},"
+                + " \"item\": [{\"name\": \"a\", \"request\": \"https://example.com\"},"
+                + " {\"name\": \"b\", \"request\": {\"method\": \"POST\", \"url\": {\"host\": \"example.com\"},"
+                + " \"body\": {\"mode\": \"raw\", \"raw\": \"{\\\"id\\\": {{id}}}\"}},"
+                + " \"response\": [{\"code\": \"OK\"}]}]}";
+
+        ValidationReport report = validator.validate(json.getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(report.isValid());
+        assertEquals(5, report.getProblems().size(), report.getProblems().toString());
+        assertTrue(report.getProblems().get(0).startsWith("/info/schema: unsupported schema"));
+        assertTrue(report.getProblems().get(1).startsWith("/item/0/request: expected an object"));
+        assertTrue(report.getProblems().get(2).startsWith("/item/1/request/url/host: expected an array"));
+        assertTrue(report.getProblems().get(3).startsWith("/item/1/request/body/raw: raw body is not valid JSON"));
+        assertTrue(report.getProblems().get(4).startsWith("/item/1/response/0/code: expected an integer"));
+    }
+
+    @Test
+    void enforcesFolderDepthAndItemCountLimits() throws Exception {
+        ConversionProperties properties = new ConversionProperties();
+        properties.setMaxDepth(3);
+        properties.setMaxNodes(10);
+        PostmanCollectionValidator limited = validator(properties);
+
+        ValidationReport deep = limited.validate(PostmanCollectionGenerator.withSeed(31).items(2).folderDepth(4).toJson());
+        assertEquals("/item/0/item/0/item/0/item: folders nested deeper than the limit of 3", deep.getProblems().get(0));
+
+        ValidationReport large = limited.validate(PostmanCollectionGenerator.withSeed(31).items(20).folderDepth(0).toJson());
+        assertEquals(1, large.getProblems().size(), large.getProblems().toString());
+        assertEquals("/item: more than 10 folders and requests", large.getProblems().get(0));
+        assertEquals(20, large.getRequests());
+    }
+
+    @Test
+    void reportsMalformedJsonAfterEarlierProblems() {
+        ValidationReport report = validator.validate("{\"info\": {}, \"item\": [{\"request\": 1}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(3, report.getProblems().size(), report.getProblems().toString());
+        assertTrue(report.getProblems().get(0).startsWith("/info/schema: missing"));
+        assertTrue(report.getProblems().get(1).startsWith("/item/0/request: expected an object"));
+        assertTrue(report.getProblems().get(2).startsWith("malformed JSON"));
+    }
+
+    @Test
+    void reportsInputPastTheParserNestingLimitAsALimit() {
+        String raw = repeat("[", 1_001) + repeat("]", 1_001);
+        String deepBody = "{\"info\": {\"schema\": \"https://schema.getpostman.com/json/collection/v2.1.0/collection.json\"},"
+                + " \"item\": [{\"name\": \"a\", \"request\": {\"method\": \"POST\", \"url\": {\"path\": [\"a\"]},"
+                + " \"body\": {\"mode\": \"raw\", \"raw\": \"" + raw + "\"}}}]}";
+        String deepValue = "{\"info\": {\"schema\": \"https://schema.getpostman.com/json/collection/v2.1.0/collection.json\"},"
+                + " \"variable\": " + raw + ", \"item\": []}";
+
+        for (String json : new String[] {deepBody, deepValue}) {
+            ConversionLimitExceededException e = assertThrows(ConversionLimitExceededException.class,
+                    () -> validator.validate(json.getBytes(StandardCharsets.UTF_8)));
+            assertEquals("parser", e.getLimit());
+            assertTrue(e.getMessage().contains("1001"), e.getMessage());
+        }
+    }
+
+    @Test
+    void acceptsOnlyMalformedBodiesTheConversionRepairs() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper);
+        String[] repaired = {"{\"a\": 1,}", "{\"a\": {\"b\": 2", "{\"a\": {\"b\": [1, 2]},  \n}", "{\"a\": 1} trailing"};
+        String[] rejected = {"{\"a\": [1, 2,]}", "{\"a\": [1, 2", "[1, 2", "{\"a\": 1,,}", "{\"a\": }", "{'a': 1}"};
+
+        for (String raw : repaired) {
+            byte[] json = collectionWithBody(objectMapper, raw);
+            ValidationReport report = validator.validate(json);
+            assertTrue(report.isValid(), raw + ": " + report.getProblems());
+            assertEquals(1, service.convertPostmanToSwagger(objectMapper.readValue(json, PostmanCollection.class))
+                    .getPaths().size(), raw);
+        }
+        for (String raw : rejected) {
+            ValidationReport report = validator.validate(collectionWithBody(objectMapper, raw));
+            assertFalse(report.isValid(), raw);
+            assertTrue(report.getProblems().get(0).startsWith("/item/0/request/body/raw: raw body is not valid JSON"),
+                    report.getProblems().toString());
+        }
+    }
+
+    private static byte[] collectionWithBody(ObjectMapper objectMapper, String raw) throws Exception {
+        ObjectNode collection = objectMapper.createObjectNode();
+        collection.putObject("info").put("name", "Bodies")
+                .put("schema", "https://schema.getpostman.com/json/collection/v2.1.0/collection.json");
+        ObjectNode request = collection.putArray("item").addObject().put("name", "a").putObject("request");
+        request.put("method", "POST");
+        request.putObject("url").putArray("path").add("a");
+        request.putObject("body").put("mode", "raw").put("raw", raw);
+        return objectMapper.writeValueAsBytes(collection);
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    private static PostmanCollectionValidator validator(ConversionProperties properties) {
+        return new PostmanCollectionValidator(new ObjectMapper(), properties);
+    }
+}
@@ -0,0 +1,295 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostmanToSwaggerServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void convertsNestedFoldersInDocumentOrder() {
+        PostmanCollection collection = new PostmanCollection();
+        collection.getInfo().setName("Orders API");
+        PostmanCollection.Item folder = folder("orders",
+                request("List orders", "GET", "https://api.example.com/v1/orders"),
+                request("Create order", "POST", "https://api.example.com/v1/orders"));
+        collection.setItem(Collections.singletonList(folder));
+
+        SwaggerDefinition swagger = service(new ConversionProperties()).convertPostmanToSwagger(collection);
+
+        assertEquals("api.example.com", swagger.getHost());
+        SwaggerDefinition.PathItem pathItem = swagger.getPaths().get("/orders/v1/orders");
+        assertNotNull(pathItem.getGet());
+        assertNotNull(pathItem.getPost());
+    }
+
+    @Test
+    void deeplyNestedFoldersFailWithLimitInsteadOfStackOverflow() {
+        PostmanCollection.Item leaf = request("Ping", "GET", "https://api.example.com/ping");
+        PostmanCollection.Item current = leaf;
+        for (int i = 0; i < 50_000; i++) {
+            current = folder("f", current);
+        }
+        PostmanCollection collection = new PostmanCollection();
+        collection.setItem(Collections.singletonList(current));
+
+        ConversionProperties properties = new ConversionProperties();
+        properties.setMaxDepth(100_000);
+        properties.setMaxNodes(10_000);
+
+        ConversionLimitExceededException e = assertThrows(ConversionLimitExceededException.class,
+                () -> service(properties).convertPostmanToSwagger(collection));
+        assertEquals("nodes", e.getLimit());
+    }
+
+    @Test
+    void deeplyNestedBodyExceedsDepthLimit() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            body.append("{\"a\":");
+        }
+        body.append("1");
+        for (int i = 0; i < 200; i++) {
+            body.append('}');
+        }
+        PostmanCollection.Item item = request("Create", "POST", "https://api.example.com/things");
+        item.getRequest().getBody().setRaw(body.toString());
+        PostmanCollection collection = new PostmanCollection();
+        collection.setItem(Collections.singletonList(item));
+
+        ConversionLimitExceededException e = assertThrows(ConversionLimitExceededException.class,
+                () -> service(new ConversionProperties()).convertPostmanToSwagger(collection));
+        assertEquals("depth", e.getLimit());
+    }
+
+    @Test
+    void conversionOverTheAllocationBudgetIsAborted() {
+        PostmanCollection collection = PostmanCollectionGenerator.withSeed(38).items(500).bodyFields(40).generate();
+        ConversionProperties properties = new ConversionProperties();
+        properties.setMaxAllocatedBytes(1024 * 1024);
+
+        ConversionLimitExceededException e = assertThrows(ConversionLimitExceededException.class,
+                () -> service(properties).convertPostmanToSwagger(collection));
+        assertEquals("allocation", e.getLimit());
+        assertTrue(e.getMessage().contains("over the budget of 1 MiB"), e.getMessage());
+        assertNotNull(service(new ConversionProperties()).convertPostmanToSwagger(collection).getPaths());
+    }
+
+    @Test
+    void visitsEveryItemOnceAndRunsStagesInTheSameWalk() {
+        PostmanCollection collection = new PostmanCollection();
+        collection.setItem(Arrays.asList(
+                folder("orders",
+                        request("List orders", "GET", "https://api.example.com/v1/orders"),
+                        folder("archive", request("List archived", "GET", "https://api.example.com/v1/archive"))),
+                request("Ping", "GET", "https://api.example.com/ping"),
+                request("Login", "POST", "https://api.example.com/login")));
+        Map<PostmanCollection.Item, Integer> visits = new IdentityHashMap<>();
+        Map<String, String> operations = new TreeMap<>();
+        AtomicReference<ConversionContext> context = new AtomicReference<>();
+        ConversionStage counting = (postmanCollection, conversionContext) -> {
+            context.set(conversionContext);
+            return new ConversionVisitor() {
+                @Override
+                public void visitItem(PostmanCollection.Item item, int depth) {
+                    visits.merge(item, 1, Integer::sum);
+                }
+
+                @Override
+                public void visitOperation(String path, String method, SwaggerDefinition.Operation operation,
+                                           PostmanCollection.Item item) {
+                    operations.put(path, method);
+                }
+
+                @Override
+                public void finish(SwaggerDefinition swaggerDefinition) {
+                    assertEquals(operations.keySet(), swaggerDefinition.getPaths().keySet());
+                }
+            };
+        };
+
+        SwaggerDefinition swagger = new PostmanToSwaggerService(objectMapper, new ConversionProperties(),
+                Collections.singletonList(counting)).convertPostmanToSwagger(collection);
+
+        assertEquals(6, visits.size());
+        assertTrue(visits.values().stream().allMatch(count -> count == 1));
+        assertEquals(6, context.get().getVisitedNodes());
+        assertEquals("post", operations.get("/login"));
+        assertEquals(4, swagger.getPaths().size());
+        assertEquals(Arrays.asList("orders", "Ping", "Login"), swagger.getTags().stream()
+                .map(SwaggerDefinition.Tag::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void liteAndStandardProfilesDropTheOptionalStages() throws Exception {
+        PostmanCollection collection = PostmanCollectionGenerator.withSeed(35).items(200).responseExamples(2).generate();
+        PostmanToSwaggerService service = service(new ConversionProperties());
+        SwaggerDefinition full = service.convertPostmanToSwagger(collection, profile(ConversionProfile.FULL));
+        SwaggerDefinition standard = service.convertPostmanToSwagger(collection, profile(ConversionProfile.STANDARD));
+        SwaggerDefinition lite = service.convertPostmanToSwagger(collection, profile(ConversionProfile.LITE));
+        String fullJson = objectMapper.writeValueAsString(full);
+        String standardJson = objectMapper.writeValueAsString(standard);
+        String liteJson = objectMapper.writeValueAsString(lite);
+
+        assertEquals(fullJson, objectMapper.writeValueAsString(service.convertPostmanToSwagger(collection, profile(null))));
+        assertEquals(full.getPaths().keySet(), lite.getPaths().keySet());
+        assertEquals(full.getDefinitions().keySet(), standard.getDefinitions().keySet());
+        assertTrue(lite.getDefinitions().isEmpty());
+        assertFalse(standardJson.contains("\"example\"") || standardJson.contains("Description for"));
+        assertFalse(liteJson.contains("\"properties\"") || liteJson.contains("Internal server error"));
+        assertTrue(liteJson.length() * 4 < fullJson.length(), liteJson.length() + " vs " + fullJson.length());
+
+        for (String path : full.getPaths().keySet()) {
+            SwaggerDefinition.PathItem fullItem = full.getPaths().get(path);
+            SwaggerDefinition.PathItem liteItem = lite.getPaths().get(path);
+            SwaggerDefinition.Operation fullOperation = fullItem.getGet() != null ? fullItem.getGet() : fullItem.getPost();
+            SwaggerDefinition.Operation liteOperation = liteItem.getGet() != null ? liteItem.getGet() : liteItem.getPost();
+            if (fullOperation != null) {
+                assertEquals(fullOperation.getOperationId(), liteOperation.getOperationId());
+                assertEquals(fullOperation.getParameters().size(), liteOperation.getParameters().size());
+            }
+        }
+    }
+
+    @Test
+    void infersFormatsOfBodyValues() {
+        PostmanCollection.Item item = request("Create", "POST", "https://api.example.com/events");
+        item.getRequest().getBody().setRaw("{\"id\": \"123e4567-e89b-12d3-a456-426614174000\", \"at\": \"2024-02-29T13:45:00Z\","
+                + " \"contact\": \"ops@example.com\", \"count\": 3, \"total\": 9007199254740993, \"ratio\": 0.5,"
+                + " \"price\": 19.99, \"name\": \"launch\", \"days\": [\"2024-03-01\"]}");
+        PostmanCollection collection = new PostmanCollection();
+        collection.setItem(Collections.singletonList(item));
+
+        Map<String, SwaggerDefinition.SwaggerProperty> properties = service(new ConversionProperties())
+                .convertPostmanToSwagger(collection).getPaths().get("/events").getPost()
+                .getParameters().get(0).getSchema().getProperties();
+
+        assertEquals("uuid", properties.get("id").getFormat());
+        assertEquals("date-time", properties.get("at").getFormat());
+        assertEquals("email", properties.get("contact").getFormat());
+        assertEquals("integer", properties.get("count").getType());
+        assertEquals("int32", properties.get("count").getFormat());
+        assertEquals("int64", properties.get("total").getFormat());
+        assertEquals("float", properties.get("ratio").getFormat());
+        assertEquals("double", properties.get("price").getFormat());
+        assertEquals("number", properties.get("price").getType());
+        assertNull(properties.get("name").getFormat());
+        assertEquals("date", properties.get("days").getItems().getFormat());
+    }
+
+    @Test
+    void capsExamplesWhileInferring() {
+        StringBuilder blob = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            blob.append('A');
+        }
+        PostmanCollection.Item upload = request("Upload", "POST", "https://api.example.com/files");
+        upload.getRequest().getBody().setRaw("{\"name\": \"a.png\", \"data\": \"" + blob + "\", \"size\": 10000}");
+        PostmanCollection.Item.UrlObject.Query query = new PostmanCollection.Item.UrlObject.Query();
+        query.setKey("token");
+        query.setValue(blob.toString());
+        upload.getRequest().getUrl().setQuery(Collections.singletonList(query));
+        PostmanCollection.Item second = request("Upload again", "PUT", "https://api.example.com/files");
+        second.getRequest().getBody().setRaw("{\"name\": \"a-much-longer-name.png\"}");
+        PostmanCollection collection = new PostmanCollection();
+        collection.setItem(Arrays.asList(upload, second));
+
+        ConversionProperties properties = new ConversionProperties();
+        properties.setMaxExampleLength(100);
+        properties.setMaxExampleCharsPerOperation(200);
+        properties.setMaxExampleCharsPerDocument(150);
+        SwaggerDefinition swagger = service(properties).convertPostmanToSwagger(collection);
+
+        SwaggerDefinition.Operation post = swagger.getPaths().get("/files").getPost();
+        Map<String, SwaggerDefinition.SwaggerProperty> body = post.getParameters().get(0).getSchema().getProperties();
+        String data = (String) body.get("data").getExample();
+        String token = post.getParameters().get(1).getSchema().getExample();
+        String truncated = (data != null ? data : token);
+        assertTrue(truncated.startsWith(blob.substring(0, 100) + "...[truncated, 10000 chars]"), truncated);
+        // Only one of the two blobs fits the operation budget
+        assertTrue(data == null || token == null);
+        assertTrue(post.getExamplesOmitted() >= 1);
+
+        // The first operation leaves too little of the document budget for the second name
+        SwaggerDefinition.Operation put = swagger.getPaths().get("/files").getPut();
+        assertEquals(null, put.getParameters().get(0).getSchema().getProperties().get("name").getExample());
+        assertEquals(1, put.getExamplesOmitted());
+    }
+
+    @Test
+    void reusesSchemasOfRepeatedBodiesAcrossConversions() throws Exception {
+        PostmanCollection collection = PostmanCollectionGenerator.withSeed(45).items(40).bodyFields(6).generate();
+        ConversionProperties withoutMemo = new ConversionProperties();
+        withoutMemo.setSchemaMemoEntries(0);
+        String expected = objectMapper.writeValueAsString(
+                service(withoutMemo).convertPostmanToSwagger(collection, profile(ConversionProfile.FULL)));
+        PostmanToSwaggerService service = service(new ConversionProperties());
+
+        String first = objectMapper.writeValueAsString(service.convertPostmanToSwagger(collection, profile(ConversionProfile.FULL)));
+        BodySchemaMemo.Stats afterFirst = service.schemaMemoStats();
+        String second = objectMapper.writeValueAsString(service.convertPostmanToSwagger(collection, profile(ConversionProfile.FULL)));
+        BodySchemaMemo.Stats afterSecond = service.schemaMemoStats();
+
+        assertEquals(expected, first);
+        assertEquals(expected, second);
+        assertTrue(afterFirst.getMisses() > 0);
+        // Every body of the second conversion was seen in the first
+        assertEquals(afterFirst.getMisses(), afterSecond.getMisses());
+        assertEquals(afterFirst.getHits() * 2 + afterFirst.getMisses(), afterSecond.getHits());
+    }
+
+    private static ConversionOptions profile(ConversionProfile profile) {
+        ConversionOptions options = new ConversionOptions();
+        options.setPinnedVersion("1.0");
+        options.setProfile(profile);
+        return options;
+    }
+
+    private PostmanToSwaggerService service(ConversionProperties properties) {
+        return new PostmanToSwaggerService(objectMapper, properties);
+    }
+
+    private static PostmanCollection.Item folder(String name, PostmanCollection.Item... children) {
+        PostmanCollection.Item folder = new PostmanCollection.Item();
+        folder.setName(name);
+        folder.setItem(new ArrayList<>(Arrays.asList(children)));
+        return folder;
+    }
+
+    private static PostmanCollection.Item request(String name, String method, String url) {
+        PostmanCollection.Item.UrlObject urlObject = new PostmanCollection.Item.UrlObject();
+        urlObject.setRaw(url);
+        urlObject.setPath(new ArrayList<>(Arrays.asList(url.replaceFirst("https?://[^/]+/", "").split("/"))));
+        PostmanCollection.Body body = new PostmanCollection.Body();
+        body.setRaw(null);
+        PostmanCollection.Item.Request request = new PostmanCollection.Item.Request();
+        request.setMethod(method);
+        request.setUrl(urlObject);
+        request.setBody(body);
+        PostmanCollection.Item item = new PostmanCollection.Item();
+        item.setName(name);
+        item.setRequest(request);
+        return item;
+    }
+}
@@ -0,0 +1,28 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ConversionProperties;
+import com.building.apicentral.config.QueueProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Paths;
+
+/**
+ * Worker JVM for {@link ConversionQueueTest}: converts jobs from the queue directory given as
+ * the first argument until none is left, printing the id of each one it claimed.
+ */
+public class QueueClaimer {
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ConversionQueue queue = new FileSystemConversionQueue(Paths.get(args[0]), 3, objectMapper);
+        ConversionWorker worker = new ConversionWorker(queue, new PostmanToSwaggerService(objectMapper),
+                new SpecRenderer(objectMapper), new QueueProperties(), new ConversionProperties());
+        ConversionJob job;
+        while ((job = queue.claim(args[1], 60_000)) != null) {
+            System.out.println("claimed " + job.getId());
+            if (!worker.process(job)) {
+                throw new IllegalStateException("Lost the lease on " + job.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpecAggregatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SpecRenderer specRenderer = new SpecRenderer(objectMapper);
+    private final SpecAggregator aggregator = new SpecAggregator(specRenderer);
+
+    @Test
+    void prefixesPathsNamespacesTagsAndSharesIdenticalDefinitions() throws Exception {
+        SpecAggregator.Aggregation aggregation = aggregator.start(new SwaggerDefinition.Info());
+        aggregation.add("billing", spec("Invoice", "{\"type\": \"object\", \"properties\": {\"total\": {\"type\": \"number\"}}}"));
+        aggregation.add("orders", spec("Order", "{\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"string\"}}}"));
+        aggregation.add("users", spec("Order", "{\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"integer\"}}}"));
+        // Conflicts with orders, which sorts first and keeps the operation
+        aggregation.add("shop", "/orders", spec("Order", "{\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"string\"}}}"));
+        assertThrows(IllegalArgumentException.class, () -> aggregation.add("users", new SwaggerDefinition()));
+
+        AggregatedSpec result = aggregation.finish();
+        SwaggerDefinition merged = result.getSpec();
+
+        assertEquals(4, result.getServices());
+        assertEquals(Collections.singletonList(new AggregatedSpec.Conflict("/orders/items", "GET", "orders", "shop")),
+                result.getConflicts());
+        SwaggerDefinition.Operation users = merged.getPaths().get("/users/items").getGet();
+        assertEquals(Collections.singletonList("users/Items"), users.getTags());
+        assertEquals("users_listItems", users.getOperationId());
+        assertEquals("#/definitions/users_Order", users.getResponses().get("200").getSchema().getRef());
+        assertEquals("#/definitions/Order", merged.getPaths().get("/orders/items").getGet().getResponses().get("200").getSchema().getRef());
+
+        // Error is the same everywhere and shop repeats orders; Page differs with the definition it refers to
+        assertEquals(7, merged.getDefinitions().size());
+        assertEquals(5, result.getDefinitionsDeduplicated());
+        assertEquals("integer", merged.getDefinitions().get("users_Order").getProperties().get("id").getType());
+        assertEquals("#/definitions/Invoice", merged.getDefinitions().get("Page").getItems().getRef());
+        assertEquals("#/definitions/Order", merged.getDefinitions().get("orders_Page").getItems().getRef());
+        assertEquals("#/definitions/users_Order", merged.getDefinitions().get("users_Page").getItems().getRef());
+        assertNotNull(merged.getDefinitions().get("Error"));
+        assertNull(merged.getDefinitions().get("shop_Page"));
+    }
+
+    @Test
+    void concurrentMergesMatchASequentialOne() throws Exception {
+        byte[] sequential = specRenderer.render(aggregate(false), true).getJson();
+        byte[] concurrent = specRenderer.render(aggregate(true), true).getJson();
+        assertArrayEquals(sequential, concurrent);
+    }
+
+    private SwaggerDefinition aggregate(boolean concurrent) throws Exception {
+        PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper);
+        SpecAggregator.Aggregation aggregation = aggregator.start(new SwaggerDefinition.Info());
+        List<Integer> seeds = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            seeds.add(i);
+        }
+        if (concurrent) {
+            Collections.shuffle(seeds, new Random(7));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(concurrent ? 8 : 1);
+        try {
+            List<Future<?>> merges = new ArrayList<>();
+            for (int seed : seeds) {
+                merges.add(pool.submit(() -> {
+                    byte[] json = PostmanCollectionGenerator.withSeed(seed % 20).items(40).folderDepth(1).itemsPerFolder(8).toJson();
+                    ConversionOptions options = new ConversionOptions();
+                    options.setPinnedVersion("1.0");
+                    aggregation.add("service-" + seed, service.convertPostmanToSwagger(
+                            objectMapper.readValue(json, PostmanCollection.class), options));
+                    return null;
+                }));
+            }
+            for (Future<?> merge : merges) {
+                merge.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        AggregatedSpec result = aggregation.finish();
+        assertEquals(60, result.getServices());
+        return result.getSpec();
+    }
+
+    /**
+     * One GET /items operation answering with a Page of the given item definition.
+     */
+    private SwaggerDefinition spec(String itemName, String item) throws Exception {
+        return objectMapper.readValue("{\"paths\": {\"/items\": {\"get\": {\"tags\": [\"Items\"], \"operationId\": \"listItems\","
+                + " \"responses\": {\"200\": {\"description\": \"ok\", \"schema\": {\"ref\": \"#/definitions/" + itemName + "\"}}}}}},"
+                + " \"definitions\": {\"" + itemName + "\": " + item + ","
+                + " \"Page\": {\"type\": \"array\", \"items\": {\"type\": \"object\", \"ref\": \"#/definitions/" + itemName + "\"}},"
+                + " \"Error\": {\"type\": \"object\", \"properties\": {\"message\": {\"type\": \"string\"}}}}}",
+                SwaggerDefinition.class);
+    }
+}
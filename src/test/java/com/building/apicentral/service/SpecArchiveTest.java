@@ -0,0 +1,121 @@
+package com.building.apicentral.service;
+
+import com.building.apicentral.config.ArchiveProperties;
+import com.building.apicentral.config.OutputProperties;
+import com.building.apicentral.model.PostmanCollection;
+import com.building.apicentral.model.SwaggerDefinition;
+import com.building.apicentral.support.PostmanCollectionGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpecArchiveTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PostmanToSwaggerService service = new PostmanToSwaggerService(objectMapper);
+    private final SpecRenderer specRenderer = new SpecRenderer(objectMapper);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void evictedSpecsComeBackFromTheArchive() throws Exception {
+        OutputProperties outputProperties = new OutputProperties();
+        outputProperties.setResultStoreSize(1);
+        ConversionResultStore store = new ConversionResultStore(specRenderer, outputProperties, archive(directory, Long.MAX_VALUE));
+        StoredSpec first = store.store(convert(1));
+        store.store(convert(2));
+
+        StoredSpec restored = store.get(first.getId());
+        assertSameSections(first, restored);
+        assertNull(store.get("unknown"));
+        assertNull(store.get("../../etc/passwd"));
+
+        SpecArchive reopened = archive(directory, Long.MAX_VALUE);
+        assertSameSections(first, reopened.read(first.getId()));
+        SpecArchive.Stats stats = reopened.stats();
+        assertEquals(2, stats.getSpecs());
+        assertTrue(stats.getStorageRatio() > 1, "ratio " + stats.getStorageRatio());
+    }
+
+    @Test
+    void versionsShareTheirUnchangedChunks() throws Exception {
+        SpecArchive archive = archive(directory, Long.MAX_VALUE);
+        ConversionResultStore store = new ConversionResultStore(specRenderer, new OutputProperties(), archive);
+        byte[] json = PostmanCollectionGenerator.withSeed(3).items(600).folderDepth(1).itemsPerFolder(10).toJson();
+        SwaggerDefinition next = convert(json);
+        List<String> paths = new ArrayList<>(new TreeSet<>(next.getPaths().keySet()));
+        next.getPaths().remove(paths.get(paths.size() / 2));
+
+        StoredSpec first = store.store(convert(json));
+        SpecArchive.Stats once = archive.stats();
+        StoredSpec second = store.store(next);
+        SpecArchive.Stats twice = archive.stats();
+
+        assertTrue(twice.getDeduplicatedChunks() > 0.9 * once.getChunks(),
+                twice.getDeduplicatedChunks() + " of " + once.getChunks() + " chunks shared");
+        assertTrue(twice.getStoredBytes() - once.getStoredBytes() < 0.1 * once.getStoredBytes());
+        assertSameSections(second, archive(directory, Long.MAX_VALUE).read(second.getId()));
+        assertSameSections(first, archive(directory, Long.MAX_VALUE).read(first.getId()));
+    }
+
+    @Test
+    void trainedDictionaryShrinksNewChunks() throws Exception {
+        SpecArchive plain = archive(directory.resolve("plain"), Long.MAX_VALUE);
+        SpecArchive trained = archive(directory.resolve("trained"), 64 * 1024);
+        for (long seed = 10; seed < 14; seed++) {
+            StoredSpec spec = new ConversionResultStore(specRenderer, new OutputProperties()).store(convert(seed));
+            plain.write(spec);
+            trained.write(spec);
+        }
+        assertTrue(trained.stats().getDictionaryId() > 0);
+
+        StoredSpec unseen = new ConversionResultStore(specRenderer, new OutputProperties()).store(convert(20));
+        long plainBefore = plain.stats().getStoredBytes();
+        long trainedBefore = trained.stats().getStoredBytes();
+        plain.write(unseen);
+        trained.write(unseen);
+
+        long plainGrowth = plain.stats().getStoredBytes() - plainBefore;
+        long trainedGrowth = trained.stats().getStoredBytes() - trainedBefore;
+        assertTrue(trainedGrowth < plainGrowth, trainedGrowth + " bytes with the dictionary, " + plainGrowth + " without");
+        assertSameSections(unseen, archive(directory.resolve("trained"), Long.MAX_VALUE).read(unseen.getId()));
+    }
+
+    private SpecArchive archive(Path root, long trainingSampleBytes) throws Exception {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setDictionarySize(4 * 1024);
+        properties.setTrainingSampleBytes(trainingSampleBytes);
+        return new SpecArchive(root, properties);
+    }
+
+    private void assertSameSections(StoredSpec expected, StoredSpec actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getId(), actual.getId());
+        assertArrayEquals(expected.getHead(), actual.getHead());
+        assertEquals(expected.getSizeBytes(), actual.getSizeBytes());
+        assertArrayEquals(expected.pathPage(null, 1_000, null), actual.pathPage(null, 1_000, null));
+        assertEquals(2, expected.hashTree().diff(expected.getId(), actual.hashTree(), actual.getId()).getNodesCompared());
+    }
+
+    private SwaggerDefinition convert(long seed) throws Exception {
+        return convert(PostmanCollectionGenerator.withSeed(seed).items(60).folderDepth(1).itemsPerFolder(10).toJson());
+    }
+
+    private SwaggerDefinition convert(byte[] json) throws Exception {
+        ConversionOptions options = new ConversionOptions();
+        options.setPinnedVersion("1.0");
+        return service.convertPostmanToSwagger(objectMapper.readValue(json, PostmanCollection.class), options);
+    }
+}
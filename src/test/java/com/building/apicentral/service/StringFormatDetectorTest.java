@@ -0,0 +1,51 @@
+package com.building.apicentral.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StringFormatDetectorTest {
+
+    @Test
+    void detectsFormats() {
+        assertEquals("date", StringFormatDetector.detect("2024-02-29"));
+        assertEquals("date-time", StringFormatDetector.detect("2024-02-29T13:45:00Z"));
+        assertEquals("date-time", StringFormatDetector.detect("2024-02-29T13:45:00.123+05:30"));
+        assertEquals("date-time", StringFormatDetector.detect("2024-02-29 13:45:00"));
+        assertEquals("uuid", StringFormatDetector.detect("123e4567-e89b-12d3-a456-426614174000"));
+        assertEquals("email", StringFormatDetector.detect("first.last+tag@mail.example.com"));
+        assertEquals("uri", StringFormatDetector.detect("https://api.example.com/v1/orders?limit=10#top"));
+        assertEquals("ipv4", StringFormatDetector.detect("192.168.0.1"));
+        assertEquals("ipv6", StringFormatDetector.detect("2001:db8::8a2e:370:7334"));
+        assertEquals("ipv6", StringFormatDetector.detect("::1"));
+        assertEquals("ipv6", StringFormatDetector.detect("::ffff:192.0.2.128"));
+        assertEquals("ipv6", StringFormatDetector.detect("2001:0db8:0000:0000:0000:ff00:0042:8329"));
+        assertEquals("byte", StringFormatDetector.detect("U29tZSBiaW5hcnkgZGF0YQ=="));
+        assertEquals("byte", StringFormatDetector.detect("iVBORw0KGgoAAAANSUhEUgAAAAEAAAAB"));
+    }
+
+    @Test
+    void leavesLookalikesUndetected() {
+        assertNull(StringFormatDetector.detect("2023-02-29"));
+        assertNull(StringFormatDetector.detect("2024-13-01"));
+        assertNull(StringFormatDetector.detect("2024-02-29T24:00:00Z"));
+        assertNull(StringFormatDetector.detect("2024-02-29T13:45:00+0530"));
+        assertNull(StringFormatDetector.detect("123e4567-e89b-12d3-a456-42661417400g"));
+        assertNull(StringFormatDetector.detect("first..last@example.com"));
+        assertNull(StringFormatDetector.detect("user@localhost"));
+        assertNull(StringFormatDetector.detect("user@example.c0m"));
+        assertNull(StringFormatDetector.detect("not a url: http://x"));
+        assertNull(StringFormatDetector.detect("file:///etc/hosts"));
+        assertNull(StringFormatDetector.detect("256.1.1.1"));
+        assertNull(StringFormatDetector.detect("01.1.1.1"));
+        assertNull(StringFormatDetector.detect("1:2:3:4:5:6:7"));
+        assertNull(StringFormatDetector.detect("1::2::3"));
+        assertNull(StringFormatDetector.detect("10:30"));
+        assertNull(StringFormatDetector.detect("deadbeef"));
+        assertNull(StringFormatDetector.detect("averyveryverylongidentifier!"));
+        assertNull(StringFormatDetector.detect("applicationjsonx"));
+        assertNull(StringFormatDetector.detect("Hello, world"));
+        assertNull(StringFormatDetector.detect(""));
+    }
+}
@@ -0,0 +1,210 @@
+package com.building.apicentral.support;
+
+import com.building.apicentral.model.PostmanCollection;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic generator of synthetic Postman v2.1 collections. The same seed and knobs
+ * always produce byte-identical output.
+ * <pre>
+ * byte[] json = PostmanCollectionGenerator.withSeed(7)
+ *         .items(5000).folderDepth(3).bodyFields(20).responseExamples(2)
+ *         .headers(4).variables(10)
+ *         .toJson();
+ * </pre>
+ */
+public class PostmanCollectionGenerator {
+
+    private static final String SCHEMA = "https://schema.getpostman.com/json/collection/v2.1.0/collection.json";
+    private static final String[] METHODS = {"GET", "POST", "PUT", "PATCH", "DELETE"};
+    private static final String[] RESOURCES = {"users", "orders", "invoices", "products", "accounts", "payments"};
+    private static final int[] STATUS_CODES = {200, 201, 400, 404, 409, 500};
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final long seed;
+    private int items = 100;
+    private int folderDepth = 1;
+    private int itemsPerFolder = 20;
+    private int bodyFields = 8;
+    private int responseExamples = 1;
+    private int headers = 2;
+    private int variables = 2;
+
+    private PostmanCollectionGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public static PostmanCollectionGenerator withSeed(long seed) {
+        return new PostmanCollectionGenerator(seed);
+    }
+
+    /** Number of requests (leaf items) in the collection. */
+    public PostmanCollectionGenerator items(int items) {
+        this.items = items;
+        return this;
+    }
+
+    /** Folders each request is nested under; 0 puts every request at the top level. */
+    public PostmanCollectionGenerator folderDepth(int folderDepth) {
+        this.folderDepth = folderDepth;
+        return this;
+    }
+
+    public PostmanCollectionGenerator itemsPerFolder(int itemsPerFolder) {
+        this.itemsPerFolder = itemsPerFolder;
+        return this;
+    }
+
+    /** Top-level fields per request and response body; every fourth field is a nested object or array. */
+    public PostmanCollectionGenerator bodyFields(int bodyFields) {
+        this.bodyFields = bodyFields;
+        return this;
+    }
+
+    public PostmanCollectionGenerator responseExamples(int responseExamples) {
+        this.responseExamples = responseExamples;
+        return this;
+    }
+
+    public PostmanCollectionGenerator headers(int headers) {
+        this.headers = headers;
+        return this;
+    }
+
+    public PostmanCollectionGenerator variables(int variables) {
+        this.variables = variables;
+        return this;
+    }
+
+    public byte[] toJson() {
+        try {
+            return objectMapper.writeValueAsBytes(generateTree());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize generated collection", e);
+        }
+    }
+
+    public PostmanCollection generate() {
+        try {
+            return objectMapper.readValue(toJson(), PostmanCollection.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not bind generated collection", e);
+        }
+    }
+
+    public ObjectNode generateTree() {
+        Random random = new Random(seed);
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode info = root.putObject("info");
+        info.put("_postman_id", new UUID(seed, items).toString());
+        info.put("name", "Generated collection " + seed);
+        info.put("schema", SCHEMA);
+
+        ArrayNode variableArray = root.putArray("variable");
+        variableArray.addObject().put("key", "baseUrl").put("value", "https://api.example.com");
+        for (int i = 1; i < variables; i++) {
+            variableArray.addObject().put("key", "var" + i).put("value", "value" + random.nextInt(1000));
+        }
+
+        ArrayNode topLevel = root.putArray("item");
+        ArrayNode requests = topLevel;
+        for (int i = 0; i < items; i++) {
+            if (folderDepth > 0 && i % itemsPerFolder == 0) {
+                requests = topLevel;
+                for (int level = 0; level < folderDepth; level++) {
+                    ObjectNode folder = requests.addObject();
+                    folder.put("name", "folder" + (i / itemsPerFolder) + "_" + level);
+                    requests = folder.putArray("item");
+                }
+            }
+            addRequest(requests.addObject(), i, random);
+        }
+        return root;
+    }
+
+    private void addRequest(ObjectNode item, int index, Random random) {
+        String method = METHODS[random.nextInt(METHODS.length)];
+        String resource = RESOURCES[random.nextInt(RESOURCES.length)];
+        item.put("name", method.toLowerCase() + " " + resource + " " + index);
+
+        ObjectNode request = item.putObject("request");
+        request.put("method", method);
+        ArrayNode headerArray = request.putArray("header");
+        if (headers > 0) {
+            headerArray.addObject().put("key", "Content-Type").put("value", "application/json").put("type", "text");
+        }
+        for (int i = 1; i < headers; i++) {
+            headerArray.addObject().put("key", "X-Header-" + i).put("value", "h" + random.nextInt(100)).put("type", "text");
+        }
+
+        ObjectNode url = request.putObject("url");
+        url.put("raw", "{{baseUrl}}/v1/" + resource + index + "/:id?limit=" + (10 + random.nextInt(90)));
+        url.putArray("host").add("{{baseUrl}}");
+        url.putArray("path").add("v1").add(resource + index).add(":id");
+        url.putArray("query").addObject().put("key", "limit").put("value", String.valueOf(10 + random.nextInt(90)));
+
+        if (!"GET".equals(method) && !"DELETE".equals(method)) {
+            ObjectNode body = request.putObject("body");
+            body.put("mode", "raw");
+            body.put("raw", body(random).toString());
+            body.putObject("options").putObject("raw").put("language", "json");
+        }
+
+        ArrayNode responses = item.putArray("response");
+        for (int i = 0; i < responseExamples; i++) {
+            ObjectNode response = responses.addObject();
+            response.put("name", "Example " + i);
+            response.put("code", STATUS_CODES[i % STATUS_CODES.length]);
+            response.put("status", "Status " + i);
+            response.putArray("header").addObject().put("key", "Content-Type").put("value", "application/json");
+            response.put("body", body(random).toString());
+        }
+    }
+
+    private ObjectNode body(Random random) {
+        ObjectNode body = objectMapper.createObjectNode();
+        for (int i = 0; i < bodyFields; i++) {
+            String field = "field" + i;
+            switch (i % 8) {
+                case 0:
+                    body.put(field, random.nextInt(1_000_000));
+                    break;
+                case 1:
+                    body.put(field, "text-" + Long.toHexString(random.nextLong()));
+                    break;
+                case 2:
+                    body.put(field, random.nextBoolean());
+                    break;
+                case 3:
+                    ObjectNode nested = body.putObject(field);
+                    nested.put("id", random.nextInt(1000));
+                    nested.put("label", "label-" + random.nextInt(1000));
+                    break;
+                case 4:
+                    body.put(field, random.nextDouble() * 1000);
+                    break;
+                case 5:
+                    body.put(field, random.nextLong());
+                    break;
+                case 6:
+                    body.put(field, "2024-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10) + "T10:00:00Z");
+                    break;
+                default:
+                    ArrayNode array = body.putArray(field);
+                    for (int j = 0; j < 3; j++) {
+                        array.addObject().put("code", "c" + random.nextInt(100)).put("value", random.nextInt(100));
+                    }
+                    break;
+            }
+        }
+        return body;
+    }
+}